@@ -0,0 +1,155 @@
+package com.example.biblioteca.benchmark;
+
+import com.example.BibliotecaApplication;
+import com.example.biblioteca.model.Autor;
+import com.example.biblioteca.model.Libro;
+import com.example.biblioteca.model.Prestamo;
+import com.example.biblioteca.model.Revista;
+import com.example.biblioteca.model.Usuario;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.orm.jpa.SharedEntityManagerCreator;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Aplicación arrancada con el perfil "benchmark" (H2 en memoria) y con un catálogo de prueba.
+ *
+ * Se arranca una vez por fork y la comparten todos los benchmarks que la reciben como parámetro.
+ * Sin servidor web: los endpoints se miden llamando directamente a los controladores.
+ */
+@State(Scope.Benchmark)
+public class ContextoBiblioteca {
+
+    public static final int AUTORES = 300;
+    public static final int LIBROS = 5000;
+    public static final int REVISTAS = 1000;
+    public static final int USUARIOS = 100;
+    //Préstamos activos por usuario
+    public static final int PRESTAMOS_POR_USUARIO = 10;
+    //Ejemplares de cada material: los benchmarks de préstamos no llegan a agotarlos
+    public static final int EJEMPLARES = 1_000_000_000;
+
+    private ConfigurableApplicationContext contexto;
+
+    @Setup(Level.Trial)
+    public void arrancar() {
+        contexto = iniciarAplicacion(WebApplicationType.NONE);
+    }
+
+    /**
+     * Arranca la aplicación con el perfil "benchmark" más los indicados y carga el catálogo de prueba.
+     *
+     * @param tipo     NONE para llamar a los beans directamente, SERVLET para arrancar también Tomcat.
+     * @param perfiles perfiles de Spring adicionales (p. ej. "virtual").
+     */
+    public static ConfigurableApplicationContext iniciarAplicacion(WebApplicationType tipo, String... perfiles) {
+        ConfigurableApplicationContext contexto = new SpringApplicationBuilder(BibliotecaApplication.class)
+                .profiles("benchmark")
+                .profiles(perfiles)
+                .web(tipo)
+                .logStartupInfo(false)
+                .run();
+        cargarDatos(contexto);
+        return contexto;
+    }
+
+    @TearDown(Level.Trial)
+    public void parar() {
+        contexto.close();
+    }
+
+    public <T> T bean(Class<T> tipo) {
+        return contexto.getBean(tipo);
+    }
+
+    public static String tituloLibro(int i) {
+        return "LIBRO BENCHMARK " + i;
+    }
+
+    public static String nombreAutor(int i) {
+        return "AUTOR BENCHMARK " + i;
+    }
+
+    public static String nombreUsuario(int i) {
+        return "USUARIO BENCHMARK " + i;
+    }
+
+    /*
+    Libros con dos autores cada uno, revistas, usuarios y préstamos activos de dos materiales.
+    Se insertan en una sola transacción, vaciando el contexto de persistencia cada 500 libros.
+    */
+    private static void cargarDatos(ConfigurableApplicationContext contexto) {
+        EntityManager entityManager = SharedEntityManagerCreator.createSharedEntityManager(contexto.getBean(EntityManagerFactory.class));
+        new TransactionTemplate(contexto.getBean(PlatformTransactionManager.class)).executeWithoutResult(estado -> {
+            List<Integer> autores = new ArrayList<>();
+            for (int i = 0; i < AUTORES; i++) {
+                Autor autor = new Autor(nombreAutor(i));
+                entityManager.persist(autor);
+                autores.add(autor.getId());
+            }
+            entityManager.flush();
+
+            List<Integer> materiales = new ArrayList<>();
+            for (int i = 0; i < LIBROS; i++) {
+                Libro libro = new Libro();
+                libro.setTitulo(tituloLibro(i));
+                libro.setIsbn("BENCH-" + i);
+                libro.setAñoPublicacion(1950 + i % 70);
+                libro.setTotales(EJEMPLARES);
+                libro.setDisponibles(EJEMPLARES);
+                libro.setAutores(new ArrayList<>(List.of(
+                        entityManager.getReference(Autor.class, autores.get(i % AUTORES)),
+                        entityManager.getReference(Autor.class, autores.get((i + 1) % AUTORES)))));
+                entityManager.persist(libro);
+                materiales.add(libro.getId());
+                if (i % 500 == 499) {
+                    entityManager.flush();
+                    entityManager.clear();
+                }
+            }
+
+            for (int i = 0; i < REVISTAS; i++) {
+                Revista revista = new Revista();
+                revista.setTitulo("REVISTA BENCHMARK " + i);
+                revista.setNumeroEdicion(i);
+                revista.setPeriodicidad("MENSUAL");
+                revista.setTotales(EJEMPLARES);
+                revista.setDisponibles(EJEMPLARES);
+                entityManager.persist(revista);
+            }
+            entityManager.flush();
+            entityManager.clear();
+
+            for (int i = 0; i < USUARIOS; i++) {
+                Usuario usuario = new Usuario();
+                usuario.setNombre(nombreUsuario(i));
+                usuario.setEmail("usuario" + i + "@benchmark.com");
+                entityManager.persist(usuario);
+                for (int j = 0; j < PRESTAMOS_POR_USUARIO; j++) {
+                    int material = (i * PRESTAMOS_POR_USUARIO + j) * 2;
+                    Prestamo prestamo = new Prestamo();
+                    prestamo.setFechaPrestamo(LocalDate.of(2024, 1, 1).plusDays(j));
+                    prestamo.setActivo(true);
+                    prestamo.setUsuario(usuario);
+                    prestamo.setMateriales(new ArrayList<>(List.of(
+                            entityManager.getReference(Libro.class, materiales.get(material)),
+                            entityManager.getReference(Libro.class, materiales.get(material + 1)))));
+                    entityManager.persist(prestamo);
+                }
+            }
+        });
+    }
+}
@@ -0,0 +1,67 @@
+package com.example.biblioteca.benchmark;
+
+import com.example.biblioteca.dto.LibroDTO;
+import com.example.biblioteca.model.Autor;
+import com.example.biblioteca.model.Libro;
+import com.example.biblioteca.serviceDTO.LibroDTOService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Conversión entre {@link Libro} y {@link LibroDTO}.
+ *
+ * convertirALibroDTO no accede a la base de datos; convertirDesdeDTO busca cada autor por nombre
+ * (consulta cacheable) y es la que se ejecuta en cada alta de libro.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ConversionLibroBenchmark {
+
+    private LibroDTOService libroDTOService;
+    private Libro libro;
+    private LibroDTO dto;
+
+    @Setup(Level.Trial)
+    public void preparar(ContextoBiblioteca contexto) {
+        libroDTOService = contexto.bean(LibroDTOService.class);
+
+        libro = new Libro();
+        libro.setId(1);
+        libro.setIsbn("BENCH-CONVERSION");
+        libro.setAñoPublicacion(2001);
+        libro.setTitulo("LIBRO CONVERSION");
+        libro.setAutores(List.of(new Autor("AUTOR UNO"), new Autor("AUTOR DOS"), new Autor("AUTOR TRES")));
+        libro.setTotales(5);
+        libro.setDisponibles(5);
+
+        dto = new LibroDTO(0, "BENCH-CONVERSION", 2001, "Libro conversion",
+                List.of(ContextoBiblioteca.nombreAutor(1), ContextoBiblioteca.nombreAutor(2), ContextoBiblioteca.nombreAutor(3)),
+                5, 5);
+    }
+
+    @Benchmark
+    public LibroDTO convertirALibroDTO() {
+        return libroDTOService.convertirALibroDTO(libro);
+    }
+
+    @Benchmark
+    public Libro convertirDesdeDTO() {
+        return libroDTOService.convertirDesdeDTO(dto);
+    }
+}
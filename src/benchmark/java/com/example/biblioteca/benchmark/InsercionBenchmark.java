@@ -0,0 +1,114 @@
+package com.example.biblioteca.benchmark;
+
+import com.example.biblioteca.model.Autor;
+import com.example.biblioteca.model.Libro;
+import com.example.biblioteca.repository.AutorRepository;
+import com.example.biblioteca.repository.LibroRepository;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Alta de 100.000 libros con {@code saveAll} en transacciones de 1.000, con dos generaciones de ids (@Param ids):
+ *
+ * - secuencia: la de la aplicación. Ids reservados en bloques de 50 (optimizador pooled) e INSERT agrupados
+ *   en lotes JDBC de {@code hibernate.jdbc.batch_size}.
+ * - identity: línea base que genera el id en la base de datos (META-INF/insercion-identity.xml).
+ *   Hibernate necesita el id de cada libro en cuanto lo guarda, así que hace un INSERT por libro, sin lotes.
+ *
+ * Cada valor del parámetro arranca su propia aplicación con el perfil "insercion-" + ids. Los dos perfiles quitan
+ * ListenerIndiceBusqueda: indexar y refrescar Lucene por cada libro cuesta mucho más que los INSERT y taparía la diferencia.
+ *
+ * Una operación son los 100.000 libros (SingleShotTime): las inserciones por segundo son 100.000 / tiempo.
+ * Al final de cada iteración se muestran las sentencias JDBC preparadas y se borran los libros insertados,
+ * para que todas las iteraciones partan de la misma tabla.
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class InsercionBenchmark {
+
+    private static final int LIBROS = 100_000;
+    private static final int LIBROS_POR_TRANSACCION = 1_000;
+
+    @Param({"secuencia", "identity"})
+    public String ids;
+
+    private ConfigurableApplicationContext contexto;
+    private LibroRepository libroRepository;
+    private JdbcTemplate jdbcTemplate;
+    private Statistics estadisticas;
+    private Autor autor;
+    private int siguiente;
+    private long sentenciasAntes;
+
+    @Setup(Level.Trial)
+    public void arrancar() {
+        contexto = ContextoBiblioteca.iniciarAplicacion(WebApplicationType.NONE, "insercion-" + ids);
+        libroRepository = contexto.getBean(LibroRepository.class);
+        jdbcTemplate = contexto.getBean(JdbcTemplate.class);
+        estadisticas = contexto.getBean(EntityManagerFactory.class).unwrap(SessionFactory.class).getStatistics();
+        autor = contexto.getBean(AutorRepository.class).findSoloAutorByNombre(ContextoBiblioteca.nombreAutor(0)).orElseThrow();
+    }
+
+    @Setup(Level.Iteration)
+    public void contarSentencias() {
+        sentenciasAntes = estadisticas.getPrepareStatementCount();
+    }
+
+    @Benchmark
+    public int insertarLibros() {
+        int insertados = 0;
+        while (insertados < LIBROS) {
+            List<Libro> libros = new ArrayList<>(LIBROS_POR_TRANSACCION);
+            for (int i = 0; i < LIBROS_POR_TRANSACCION; i++, siguiente++) {
+                Libro libro = new Libro();
+                libro.setTitulo("LIBRO INSERTADO " + siguiente);
+                libro.setIsbn("INS-" + siguiente);
+                libro.setAñoPublicacion(2024);
+                libro.setTotales(1);
+                libro.setDisponibles(1);
+                libro.setAutores(new ArrayList<>(List.of(autor)));
+                libros.add(libro);
+            }
+            insertados += libroRepository.saveAll(libros).size();
+        }
+        return insertados;
+    }
+
+    @TearDown(Level.Iteration)
+    public void borrarLibros() {
+        System.out.printf("%n%s: %,d sentencias JDBC preparadas para %,d libros%n",
+                ids, estadisticas.getPrepareStatementCount() - sentenciasAntes, LIBROS);
+        jdbcTemplate.update("DELETE FROM libro_autor WHERE libro_isbn IN (SELECT id FROM material_biblioteca WHERE isbn LIKE 'INS-%')");
+        jdbcTemplate.update("DELETE FROM material_biblioteca WHERE isbn LIKE 'INS-%'");
+    }
+
+    @TearDown(Level.Trial)
+    public void parar() {
+        contexto.close();
+    }
+}
@@ -0,0 +1,133 @@
+package com.example.biblioteca.benchmark;
+
+import com.example.biblioteca.controller.LibroController;
+import com.example.biblioteca.controller.PrestamoController;
+import com.example.biblioteca.controller.RevistaController;
+import com.example.biblioteca.dto.LibroDTO;
+import com.example.biblioteca.dto.RevistaDTO;
+import com.example.biblioteca.serviceDTO.LibroDTOService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.web.context.request.ServletWebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Endpoints de listado y exportación, llamando a los controladores sin pasar por HTTP.
+ *
+ * Una página de 100 al principio del catálogo, la misma página al final con OFFSET y con keyset (afterId),
+ * la misma primera página cuando el cliente ya la tiene (If-None-Match con el ETag actual: no se lee ningún libro)
+ * y la exportación completa de libros y préstamos.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ListadoBenchmark {
+
+    private static final int TAMANIO = 100;
+
+    private LibroController libroController;
+    private RevistaController revistaController;
+    private PrestamoController prestamoController;
+    private int ultimaPaginaLibros;
+    private int idAntesDeLaUltimaPagina;
+    private String etagPrimeraPagina;
+
+    @Setup(Level.Trial)
+    public void preparar(ContextoBiblioteca contexto) {
+        libroController = contexto.bean(LibroController.class);
+        revistaController = contexto.bean(RevistaController.class);
+        prestamoController = contexto.bean(PrestamoController.class);
+
+        ultimaPaginaLibros = ContextoBiblioteca.LIBROS / TAMANIO - 1;
+        List<LibroDTO> penultima = libroController.listarLibro(ultimaPaginaLibros - 1, TAMANIO, null, peticion(null));
+        idAntesDeLaUltimaPagina = penultima.get(penultima.size() - 1).getId();
+        etagPrimeraPagina = "\"" + contexto.bean(LibroDTOService.class).etagLibros(0, TAMANIO) + "\"";
+    }
+
+    @Benchmark
+    public List<LibroDTO> listarLibrosPrimeraPagina() {
+        return libroController.listarLibro(0, TAMANIO, null, peticion(null));
+    }
+
+    @Benchmark
+    public List<LibroDTO> listarLibrosUltimaPaginaOffset() {
+        return libroController.listarLibro(ultimaPaginaLibros, TAMANIO, null, peticion(null));
+    }
+
+    @Benchmark
+    public List<LibroDTO> listarLibrosUltimaPaginaKeyset() {
+        return libroController.listarLibro(0, TAMANIO, idAntesDeLaUltimaPagina, peticion(null));
+    }
+
+    //304: devuelve null leyendo solo los ids y versiones de la página
+    @Benchmark
+    public List<LibroDTO> listarLibrosPrimeraPaginaSinCambios() {
+        return libroController.listarLibro(0, TAMANIO, null, peticion(etagPrimeraPagina));
+    }
+
+    @Benchmark
+    public List<RevistaDTO> listarRevistasPrimeraPagina() {
+        return revistaController.listarRevista(0, TAMANIO, null, peticion(null));
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public long exportarLibros() throws IOException {
+        return escribir(libroController.exportarLibros("jsonl").getBody());
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public long exportarPrestamos() throws IOException {
+        return escribir(prestamoController.exportarPrestamos("csv").getBody());
+    }
+
+    //Petición GET, con If-None-Match si se indica un ETag
+    private static ServletWebRequest peticion(String ifNoneMatch) {
+        MockHttpServletRequest peticion = new MockHttpServletRequest("GET", "/Libros");
+        if (ifNoneMatch != null) {
+            peticion.addHeader(HttpHeaders.IF_NONE_MATCH, ifNoneMatch);
+        }
+        return new ServletWebRequest(peticion);
+    }
+
+    //Escribe la respuesta descartándola; devuelve los bytes para que JMH no elimine el trabajo
+    private static long escribir(StreamingResponseBody cuerpo) throws IOException {
+        ContadorBytes salida = new ContadorBytes();
+        cuerpo.writeTo(salida);
+        return salida.bytes;
+    }
+
+    private static class ContadorBytes extends OutputStream {
+        private long bytes;
+
+        @Override
+        public void write(int b) {
+            bytes++;
+        }
+
+        @Override
+        public void write(byte[] b, int desde, int longitud) {
+            bytes += longitud;
+        }
+    }
+}
@@ -0,0 +1,83 @@
+package com.example.biblioteca.benchmark;
+
+import com.example.biblioteca.dto.PrestamoDTO;
+import com.example.biblioteca.model.Prestamo;
+import com.example.biblioteca.repository.PrestamoRepository;
+import com.example.biblioteca.repository.UsuarioRepository;
+import com.example.biblioteca.service.PrestamoService;
+import com.example.biblioteca.serviceDTO.PrestamoDTOService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Alta y devolución de préstamos, y la consulta de materiales prestados que usa la devolución.
+ *
+ * Los materiales tienen tantos ejemplares que el alta no los agota. Cada benchmark usa un usuario distinto:
+ * el alta va sumando préstamos activos a su usuario y no debe afectar a la devolución.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class PrestamoBenchmark {
+
+    private PrestamoDTOService prestamoDTOService;
+    private PrestamoService prestamoService;
+    private PrestamoDTO alta;
+    private PrestamoDTO prestamoADevolver;
+    private String tituloADevolver;
+    private List<Integer> idsPrestamos;
+
+    @Setup(Level.Trial)
+    public void preparar(ContextoBiblioteca contexto) {
+        prestamoDTOService = contexto.bean(PrestamoDTOService.class);
+        prestamoService = contexto.bean(PrestamoService.class);
+
+        //Materiales que no están en los préstamos iniciales (esos usan los primeros USUARIOS * PRESTAMOS_POR_USUARIO * 2 libros)
+        alta = new PrestamoDTO(0, LocalDate.now(), ContextoBiblioteca.nombreUsuario(0),
+                List.of(ContextoBiblioteca.tituloLibro(ContextoBiblioteca.LIBROS - 1),
+                        ContextoBiblioteca.tituloLibro(ContextoBiblioteca.LIBROS - 2)),
+                true);
+        tituloADevolver = ContextoBiblioteca.tituloLibro(ContextoBiblioteca.LIBROS - 3);
+        prestamoADevolver = new PrestamoDTO(0, LocalDate.now(), ContextoBiblioteca.nombreUsuario(1),
+                List.of(tituloADevolver), true);
+
+        int usuarioId = contexto.bean(UsuarioRepository.class)
+                .findByNombre(ContextoBiblioteca.nombreUsuario(2)).orElseThrow().getId();
+        idsPrestamos = contexto.bean(PrestamoRepository.class).findByUsuario_idAndActivo(usuarioId).stream()
+                .map(Prestamo::getId)
+                .toList();
+    }
+
+    @Benchmark
+    public PrestamoDTO guardarPrestamo() {
+        return prestamoDTOService.guardarPrestamo(alta);
+    }
+
+    //actualizarPrestamo necesita un préstamo activo del material: se presta y se devuelve en cada operación
+    @Benchmark
+    public PrestamoDTO prestarYDevolver() {
+        prestamoDTOService.guardarPrestamo(prestamoADevolver);
+        return prestamoDTOService.actualizarPrestamo(tituloADevolver, prestamoADevolver);
+    }
+
+    @Benchmark
+    public List<Integer> obtenerMaterialIdsPorPrestamos() {
+        return prestamoService.obtenerMaterialIdsPorPrestamos(idsPrestamos);
+    }
+}
@@ -0,0 +1,141 @@
+package com.example.biblioteca.benchmark;
+
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Prueba de carga de GET /Libros y POST /Prestamos con la aplicación arrancada en Tomcat sobre H2.
+ *
+ * Cada cliente envía peticiones una detrás de otra durante el tiempo indicado, alternando las dos operaciones.
+ * Al terminar se muestran, por operación, las peticiones por segundo, los errores y los percentiles 50 y 99.
+ *
+ * mvn -Pbenchmark test-compile exec:java -Dexec.classpathScope=test \
+ *     -Dexec.mainClass=com.example.biblioteca.benchmark.PruebaCarga -Dexec.args="[clientes] [segundos] [virtual]"
+ *
+ * Con "virtual" se arranca con el perfil de hilos virtuales (hace falta Java 21).
+ */
+public class PruebaCarga {
+
+    public static void main(String[] args) throws Exception {
+        int clientes = args.length > 0 ? Integer.parseInt(args[0]) : 400;
+        int segundos = args.length > 1 ? Integer.parseInt(args[1]) : 30;
+        boolean virtual = args.length > 2 && "virtual".equals(args[2]);
+
+        System.setProperty("server.port", "0");
+        ConfigurableApplicationContext contexto = virtual
+                ? ContextoBiblioteca.iniciarAplicacion(WebApplicationType.SERVLET, "virtual")
+                : ContextoBiblioteca.iniciarAplicacion(WebApplicationType.SERVLET);
+        int puerto = ((WebServerApplicationContext) contexto).getWebServer().getPort();
+        String base = "http://localhost:" + puerto;
+
+        HttpClient cliente = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(10)).build();
+        //Calentamiento: que el JIT compile y se llenen las cachés antes de medir
+        ejecutar(cliente, base, clientes, Math.max(5, segundos / 3));
+        Resultado[] resultados = ejecutar(cliente, base, clientes, segundos);
+
+        System.out.printf("%nModo: %s, clientes: %d, duración: %d s%n", virtual ? "hilos virtuales" : "pool de Tomcat", clientes, segundos);
+        resultados[0].mostrar("GET /Libros", segundos);
+        resultados[1].mostrar("POST /Prestamos", segundos);
+        contexto.close();
+    }
+
+    private static Resultado[] ejecutar(HttpClient cliente, String base, int clientes, int segundos) throws Exception {
+        long fin = System.nanoTime() + Duration.ofSeconds(segundos).toNanos();
+        ExecutorService executor = Executors.newFixedThreadPool(clientes);
+        List<Future<Resultado[]>> futuros = new ArrayList<>();
+        for (int i = 0; i < clientes; i++) {
+            int numeroCliente = i;
+            futuros.add(executor.submit(() -> peticiones(cliente, base, numeroCliente, fin)));
+        }
+        Resultado listado = new Resultado();
+        Resultado alta = new Resultado();
+        for (Future<Resultado[]> futuro : futuros) {
+            Resultado[] parcial = futuro.get();
+            listado.sumar(parcial[0]);
+            alta.sumar(parcial[1]);
+        }
+        executor.shutdown();
+        return new Resultado[]{listado, alta};
+    }
+
+    private static Resultado[] peticiones(HttpClient cliente, String base, int numeroCliente, long fin) {
+        Resultado listado = new Resultado();
+        Resultado alta = new Resultado();
+        ThreadLocalRandom aleatorio = ThreadLocalRandom.current();
+        String usuario = ContextoBiblioteca.nombreUsuario(numeroCliente % ContextoBiblioteca.USUARIOS);
+        while (System.nanoTime() < fin) {
+            int afterId = aleatorio.nextInt(ContextoBiblioteca.LIBROS);
+            listado.medir(cliente, HttpRequest.newBuilder(URI.create(base + "/Libros?size=50&afterId=" + afterId)).GET().build());
+
+            String titulo = ContextoBiblioteca.tituloLibro(aleatorio.nextInt(ContextoBiblioteca.LIBROS));
+            String cuerpo = "{\"fechaPrestamo\":\"" + LocalDate.now() + "\",\"nombreUsuario\":\"" + usuario
+                    + "\",\"tituloMateriales\":[\"" + titulo + "\"],\"activos\":true}";
+            alta.medir(cliente, HttpRequest.newBuilder(URI.create(base + "/Prestamos"))
+                    .header("Content-Type", "application/json")
+                    .POST(HttpRequest.BodyPublishers.ofString(cuerpo))
+                    .build());
+        }
+        return new Resultado[]{listado, alta};
+    }
+
+    //Tiempos de respuesta (en microsegundos) y errores de una operación
+    private static class Resultado {
+        private long[] tiempos = new long[1024];
+        private int peticiones;
+        private int errores;
+
+        void medir(HttpClient cliente, HttpRequest peticion) {
+            long inicio = System.nanoTime();
+            try {
+                HttpResponse<Void> respuesta = cliente.send(peticion, HttpResponse.BodyHandlers.discarding());
+                if (respuesta.statusCode() >= 300) {
+                    errores++;
+                }
+            } catch (Exception e) {
+                errores++;
+            }
+            anotar((System.nanoTime() - inicio) / 1000);
+        }
+
+        private void anotar(long microsegundos) {
+            if (peticiones == tiempos.length) {
+                tiempos = Arrays.copyOf(tiempos, tiempos.length * 2);
+            }
+            tiempos[peticiones++] = microsegundos;
+        }
+
+        void sumar(Resultado otro) {
+            for (int i = 0; i < otro.peticiones; i++) {
+                anotar(otro.tiempos[i]);
+            }
+            errores += otro.errores;
+        }
+
+        void mostrar(String operacion, int segundos) {
+            long[] ordenados = Arrays.copyOf(tiempos, peticiones);
+            Arrays.sort(ordenados);
+            System.out.printf("%-16s %8.0f peticiones/s  errores: %d  p50: %6.1f ms  p99: %7.1f ms%n",
+                    operacion, (double) peticiones / segundos, errores,
+                    percentil(ordenados, 0.50) / 1000.0, percentil(ordenados, 0.99) / 1000.0);
+        }
+
+        private static long percentil(long[] ordenados, double percentil) {
+            return ordenados.length == 0 ? 0 : ordenados[(int) Math.min(ordenados.length - 1, Math.round(percentil * ordenados.length))];
+        }
+    }
+}
@@ -0,0 +1,72 @@
+package com.example.biblioteca.benchmark;
+
+import com.example.biblioteca.dto.LibroDTO;
+import com.example.biblioteca.repository.LibroRepository;
+import com.example.biblioteca.serviceDTO.LibroDTOService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Listados de libros en una transacción de solo lectura frente a una de lectura-escritura (soloLectura=true/false).
+ *
+ * - Entidades: una página de Libro con sus autores convertida a DTO. En lectura-escritura Hibernate guarda una copia
+ *   de cada entidad para el dirty checking y las recorre en el flush del commit; en solo lectura no hace ninguna de las dos cosas.
+ * - Proyección: el listado de GET /Libros, que no carga entidades; la diferencia es solo la de la transacción.
+ *
+ * La transacción la abre el benchmark y los métodos del servicio se unen a ella, así que manda su readOnly.
+ * El perfil benchmark ejecuta JMH con -prof gc: "gc.alloc.rate.norm" son los bytes asignados por operación.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class SoloLecturaBenchmark {
+
+    private static final int TAMANIO = 100;
+
+    @Param({"true", "false"})
+    public boolean soloLectura;
+
+    private LibroRepository libroRepository;
+    private LibroDTOService libroDTOService;
+    private TransactionTemplate transaccion;
+
+    @Setup(Level.Trial)
+    public void preparar(ContextoBiblioteca contexto) {
+        libroRepository = contexto.bean(LibroRepository.class);
+        libroDTOService = contexto.bean(LibroDTOService.class);
+        transaccion = new TransactionTemplate(contexto.bean(PlatformTransactionManager.class));
+        transaccion.setReadOnly(soloLectura);
+    }
+
+    @Benchmark
+    public List<LibroDTO> listarLibrosEntidades() {
+        return transaccion.execute(estado -> libroRepository.findAll(PageRequest.of(0, TAMANIO, Sort.by("id"))).stream()
+                .map(libroDTOService::convertirALibroDTO)
+                .toList());
+    }
+
+    @Benchmark
+    public List<LibroDTO> listarLibrosProyeccion() {
+        return transaccion.execute(estado -> libroDTOService.listarLibrosDTO(0, TAMANIO));
+    }
+}
@@ -0,0 +1,33 @@
+package com.example.biblioteca.busqueda;
+
+import org.apache.lucene.analysis.Analyzer;
+import org.apache.lucene.analysis.LowerCaseFilter;
+import org.apache.lucene.analysis.StopFilter;
+import org.apache.lucene.analysis.TokenStream;
+import org.apache.lucene.analysis.es.SpanishAnalyzer;
+import org.apache.lucene.analysis.es.SpanishLightStemFilter;
+import org.apache.lucene.analysis.miscellaneous.ASCIIFoldingFilter;
+import org.apache.lucene.analysis.standard.StandardTokenizer;
+
+/**
+ * Análisis de los textos en español para el índice de búsqueda, igual al indexar que al buscar:
+ * minúsculas, sin palabras vacías ("de", "la", ...), sin acentos ni diéresis ("educación" = "EDUCACION")
+ * y con la raíz ligera de cada palabra, para que singular y plural coincidan ("novela" = "novelas").
+ */
+public class AnalizadorEspanol extends Analyzer {
+
+    @Override
+    protected TokenStreamComponents createComponents(String campo) {
+        StandardTokenizer tokenizer = new StandardTokenizer();
+        TokenStream tokens = new LowerCaseFilter(tokenizer);
+        tokens = new StopFilter(tokens, SpanishAnalyzer.getDefaultStopSet());
+        tokens = new ASCIIFoldingFilter(tokens);
+        tokens = new SpanishLightStemFilter(tokens);
+        return new TokenStreamComponents(tokenizer, tokens);
+    }
+
+    @Override
+    protected TokenStream normalize(String campo, TokenStream entrada) {
+        return new ASCIIFoldingFilter(new LowerCaseFilter(entrada));
+    }
+}
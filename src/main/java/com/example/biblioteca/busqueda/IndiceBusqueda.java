@@ -0,0 +1,332 @@
+package com.example.biblioteca.busqueda;
+
+import com.example.biblioteca.dto.ResultadoBusquedaDTO;
+import com.example.biblioteca.proyeccion.ElementoBusqueda;
+import jakarta.annotation.PreDestroy;
+import org.apache.lucene.analysis.Analyzer;
+import org.apache.lucene.analysis.TokenStream;
+import org.apache.lucene.analysis.tokenattributes.CharTermAttribute;
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.Field;
+import org.apache.lucene.document.StoredField;
+import org.apache.lucene.document.StringField;
+import org.apache.lucene.document.TextField;
+import org.apache.lucene.index.DirectoryReader;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.IndexWriterConfig;
+import org.apache.lucene.index.MultiBits;
+import org.apache.lucene.index.StoredFields;
+import org.apache.lucene.index.Term;
+import org.apache.lucene.search.*;
+import org.apache.lucene.store.ByteBuffersDirectory;
+import org.apache.lucene.store.Directory;
+import org.apache.lucene.store.FSDirectory;
+import org.apache.lucene.util.Bits;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.EnableScheduling;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+
+/**
+ * Índice invertido de Lucene con los títulos de libros y revistas, el isbn de los libros, la periodicidad
+ * de las revistas y los nombres de los autores (GET /Busqueda).
+ *
+ * - Se guarda en {@code app.busqueda.directorio}. Sin esa propiedad (en los tests) el índice está en memoria.
+ * - Se actualiza al guardar o borrar las entidades ({@link ListenerIndiceBusqueda}), con todos los cambios
+ *   de cada transacción de una vez (un lote entero de la importación en una llamada).
+ * - Las búsquedas ven los cambios con el lector casi en tiempo real del IndexWriter, que un hilo aparte vuelve
+ *   a abrir como mucho cada {@code app.busqueda.intervalo-refresco}: abrirlo en cada cambio hace que una
+ *   importación tarde varias veces más. Los cambios se confirman en disco cada {@code app.busqueda.intervalo-commit}
+ *   y al cerrar la aplicación.
+ * - Cada instancia de la aplicación tiene su propio índice y solo ve al momento los cambios que hace ella.
+ *   Al arrancar se concilia con la base de datos ({@link #reconstruir}), lo que recoge los cambios hechos mientras
+ *   estaba parada o en otras instancias; con varias instancias hay que activar además la conciliación periódica
+ *   ({@code ConciliacionBusqueda}).
+ * - Una búsqueda solo lee las listas de documentos de sus palabras y se queda con los {@code limite} mejores:
+ *   no depende del número de elementos del catálogo como un LIKE '%texto%'.
+ */
+@Component
+@EnableScheduling
+public class IndiceBusqueda {
+    public static final String TIPO_LIBRO = "LIBRO";
+    public static final String TIPO_REVISTA = "REVISTA";
+    public static final String TIPO_AUTOR = "AUTOR";
+
+    //Campos de cada documento. La clave (tipo:id) identifica el documento para reemplazarlo o borrarlo
+    private static final String CAMPO_CLAVE = "clave";
+    private static final String CAMPO_TIPO = "tipo";
+    private static final String CAMPO_ID = "id";
+    private static final String CAMPO_TEXTO = "texto";
+    private static final String CAMPO_ISBN = "isbn";
+    private static final String CAMPO_PERIODICIDAD = "periodicidad";
+
+    //Quien espera un cambio (esperarCambios) lo ve en este tiempo, sin esperar al refresco periódico
+    private static final double ESPERA_MINIMA_REFRESCO_SEGUNDOS = 0.025;
+
+    private final Analyzer analizador = new AnalizadorEspanol();
+    private final Directory directorio;
+    private final IndexWriter writer;
+    private final SearcherManager searcherManager;
+    private final ControlledRealTimeReopenThread<IndexSearcher> refresco;
+    //Número de secuencia del IndexWriter del último cambio, para esperarCambios()
+    private final AtomicLong ultimoCambio = new AtomicLong();
+    //Los cambios del listener y los elementos de una reconstrucción no se intercalan
+    private final Lock escritura = new ReentrantLock();
+    //Una reconstrucción a la vez (al arrancar, POST /Busqueda/reconstruccion y la conciliación periódica)
+    private final Lock reconstruccion = new ReentrantLock();
+    //Claves de los elementos que cambian mientras se reconstruye; null si no se está reconstruyendo
+    private Set<String> cambiadosAlReconstruir;
+
+    public IndiceBusqueda(@Value("${app.busqueda.directorio:}") String ruta,
+                          @Value("${app.busqueda.intervalo-refresco:PT1S}") Duration intervaloRefresco) throws IOException {
+        this.directorio = ruta.isBlank() ? new ByteBuffersDirectory() : FSDirectory.open(Path.of(ruta));
+        this.writer = new IndexWriter(directorio, new IndexWriterConfig(analizador)
+                .setOpenMode(IndexWriterConfig.OpenMode.CREATE_OR_APPEND));
+        this.searcherManager = new SearcherManager(writer, null);
+        this.refresco = new ControlledRealTimeReopenThread<>(writer, searcherManager,
+                intervaloRefresco.toMillis() / 1000.0, ESPERA_MINIMA_REFRESCO_SEGUNDOS);
+        this.refresco.setName("refresco-indice-busqueda");
+        this.refresco.setDaemon(true);
+        this.refresco.start();
+    }
+
+    //Añade el elemento o reemplaza el documento que ya tuviera
+    public void guardar(ElementoBusqueda elemento) {
+        actualizar(List.of(elemento), List.of());
+    }
+
+    public void eliminar(String tipo, int id) {
+        actualizar(List.of(), List.of(new ElementoBusqueda(tipo, id, null, null, null)));
+    }
+
+    /**
+     * Aplica los cambios de una transacción de una vez: añade o reemplaza los documentos de los elementos guardados
+     * y borra los de los eliminados. No vuelve a abrir el lector: las búsquedas los ven en el siguiente refresco.
+     */
+    public void actualizar(Collection<ElementoBusqueda> guardados, Collection<ElementoBusqueda> eliminados) {
+        escritura.lock();
+        try {
+            long cambio = 0;
+            for (ElementoBusqueda elemento : guardados) {
+                String clave = clave(elemento.tipo(), elemento.id());
+                cambio = writer.updateDocument(new Term(CAMPO_CLAVE, clave), documento(elemento));
+                anotarCambio(clave);
+            }
+            for (ElementoBusqueda elemento : eliminados) {
+                String clave = clave(elemento.tipo(), elemento.id());
+                cambio = writer.deleteDocuments(new Term(CAMPO_CLAVE, clave));
+                anotarCambio(clave);
+            }
+            ultimoCambio.accumulateAndGet(cambio, Math::max);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            escritura.unlock();
+        }
+    }
+
+    //Espera a que las búsquedas vean todos los cambios aplicados hasta ahora
+    public void esperarCambios() throws InterruptedException {
+        refresco.waitForGeneration(ultimoCambio.get());
+    }
+
+    /**
+     * Concilia el índice con los elementos que entrega {@code cargar} (todos los de la base de datos): añade o reemplaza
+     * sus documentos y borra los de elementos que ya no existen. Se confirma al terminar.
+     *
+     * - No vacía el índice antes: mientras tanto las búsquedas siguen encontrando lo que había.
+     * - No toca los elementos que cambian mientras se reconstruye ({@link #actualizar}): el listener los escribe
+     *   después del commit y pueden ser más nuevos que lo que ha leído {@code cargar}.
+     *
+     * @return número de elementos leídos.
+     */
+    public long reconstruir(Consumer<Consumer<ElementoBusqueda>> cargar) {
+        reconstruccion.lock();
+        try {
+            cambiadosAlReconstruir(new HashSet<>());
+            Set<String> leidos = new HashSet<>();
+            cargar.accept(elemento -> {
+                String clave = clave(elemento.tipo(), elemento.id());
+                leidos.add(clave);
+                escritura.lock();
+                try {
+                    if (!cambiadosAlReconstruir.contains(clave)) {
+                        writer.updateDocument(new Term(CAMPO_CLAVE, clave), documento(elemento));
+                    }
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                } finally {
+                    escritura.unlock();
+                }
+            });
+            borrarNoLeidos(leidos);
+            writer.commit();
+            searcherManager.maybeRefreshBlocking();
+            return leidos.size();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            cambiadosAlReconstruir(null);
+            reconstruccion.unlock();
+        }
+    }
+
+    /**
+     * Busca los elementos con todas las palabras del texto en el título o nombre (o en la periodicidad de la revista),
+     * o con ese isbn exacto.
+     *
+     * @param texto  texto de búsqueda; da igual mayúsculas, acentos, plurales y palabras vacías.
+     * @param limite número máximo de resultados.
+     * @return los resultados de mayor a menor puntuación.
+     */
+    public List<ResultadoBusquedaDTO> buscar(String texto, int limite) {
+        try {
+            IndexSearcher searcher = searcherManager.acquire();
+            try {
+                TopDocs mejores = searcher.search(consulta(texto), limite);
+                List<ResultadoBusquedaDTO> resultados = new ArrayList<>(mejores.scoreDocs.length);
+                for (ScoreDoc encontrado : mejores.scoreDocs) {
+                    Document documento = searcher.storedFields().document(encontrado.doc);
+                    resultados.add(new ResultadoBusquedaDTO(
+                            documento.get(CAMPO_TIPO),
+                            documento.getField(CAMPO_ID).numericValue().intValue(),
+                            documento.get(CAMPO_TEXTO),
+                            encontrado.score));
+                }
+                return resultados;
+            } finally {
+                searcherManager.release(searcher);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    //Confirma en disco los cambios de los listeners. Si la aplicación se corta antes, se pierden los cambios
+    //desde la última confirmación: se recupera con POST /Busqueda/reconstruccion
+    @Scheduled(fixedDelayString = "${app.busqueda.intervalo-commit:PT30S}")
+    public void confirmar() throws IOException {
+        if (writer.hasUncommittedChanges()) {
+            writer.commit();
+        }
+    }
+
+    @PreDestroy
+    public void cerrar() throws IOException {
+        refresco.close();
+        searcherManager.close();
+        writer.close();
+        directorio.close();
+    }
+
+    /*
+    Todas las palabras (MUST), cada una en el título/nombre o en la periodicidad (SHOULD), con más peso en el título.
+    Como alternativa, el texto completo como isbn exacto.
+    */
+    private Query consulta(String texto) throws IOException {
+        BooleanQuery.Builder todasLasPalabras = new BooleanQuery.Builder();
+        List<String> palabras = analizar(texto);
+        for (String palabra : palabras) {
+            todasLasPalabras.add(new BooleanQuery.Builder()
+                    .add(new BoostQuery(new TermQuery(new Term(CAMPO_TEXTO, palabra)), 2f), BooleanClause.Occur.SHOULD)
+                    .add(new TermQuery(new Term(CAMPO_PERIODICIDAD, palabra)), BooleanClause.Occur.SHOULD)
+                    .build(), BooleanClause.Occur.MUST);
+        }
+
+        BooleanQuery.Builder consulta = new BooleanQuery.Builder()
+                .add(new TermQuery(new Term(CAMPO_ISBN, texto.trim())), BooleanClause.Occur.SHOULD);
+        if (!palabras.isEmpty()) {
+            consulta.add(todasLasPalabras.build(), BooleanClause.Occur.SHOULD);
+        }
+        return consulta.build();
+    }
+
+    //Las palabras del texto tal como se guardan en el índice
+    private List<String> analizar(String texto) throws IOException {
+        List<String> palabras = new ArrayList<>();
+        try (TokenStream tokens = analizador.tokenStream(CAMPO_TEXTO, texto)) {
+            CharTermAttribute palabra = tokens.addAttribute(CharTermAttribute.class);
+            tokens.reset();
+            while (tokens.incrementToken()) {
+                palabras.add(palabra.toString());
+            }
+            tokens.end();
+        }
+        return palabras;
+    }
+
+    private static Document documento(ElementoBusqueda elemento) {
+        Document documento = new Document();
+        documento.add(new StringField(CAMPO_CLAVE, clave(elemento.tipo(), elemento.id()), Field.Store.NO));
+        documento.add(new StringField(CAMPO_TIPO, elemento.tipo(), Field.Store.YES));
+        documento.add(new StoredField(CAMPO_ID, elemento.id()));
+        documento.add(new TextField(CAMPO_TEXTO, elemento.texto(), Field.Store.YES));
+        if (elemento.isbn() != null) {
+            documento.add(new StringField(CAMPO_ISBN, elemento.isbn(), Field.Store.NO));
+        }
+        if (elemento.periodicidad() != null) {
+            documento.add(new TextField(CAMPO_PERIODICIDAD, elemento.periodicidad(), Field.Store.NO));
+        }
+        return documento;
+    }
+
+    //Borra los documentos que no ha leído la reconstrucción ni han cambiado mientras tanto: elementos borrados
+    private void borrarNoLeidos(Set<String> leidos) throws IOException {
+        try (DirectoryReader lector = DirectoryReader.open(writer)) {
+            StoredFields campos = lector.storedFields();
+            Bits vivos = MultiBits.getLiveDocs(lector);
+            for (int doc = 0; doc < lector.maxDoc(); doc++) {
+                if (vivos != null && !vivos.get(doc)) {
+                    continue;
+                }
+                Document documento = campos.document(doc, Set.of(CAMPO_TIPO, CAMPO_ID));
+                String clave = clave(documento.get(CAMPO_TIPO), documento.getField(CAMPO_ID).numericValue().intValue());
+                if (leidos.contains(clave)) {
+                    continue;
+                }
+                escritura.lock();
+                try {
+                    if (!cambiadosAlReconstruir.contains(clave)) {
+                        writer.deleteDocuments(new Term(CAMPO_CLAVE, clave));
+                    }
+                } finally {
+                    escritura.unlock();
+                }
+            }
+        }
+    }
+
+    private void anotarCambio(String clave) {
+        if (cambiadosAlReconstruir != null) {
+            cambiadosAlReconstruir.add(clave);
+        }
+    }
+
+    private void cambiadosAlReconstruir(Set<String> cambiados) {
+        escritura.lock();
+        try {
+            cambiadosAlReconstruir = cambiados;
+        } finally {
+            escritura.unlock();
+        }
+    }
+
+    //Libros y revistas comparten la secuencia de ids, los autores no
+    private static String clave(String tipo, int id) {
+        return tipo + ":" + id;
+    }
+}
@@ -0,0 +1,138 @@
+package com.example.biblioteca.busqueda;
+
+import com.example.biblioteca.model.Autor;
+import com.example.biblioteca.model.Libro;
+import com.example.biblioteca.model.Revista;
+import com.example.biblioteca.proyeccion.ElementoBusqueda;
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Listener JPA de Libro, Revista y Autor (@EntityListeners en MaterialBiblioteca y Autor) que mantiene
+ * el {@link IndiceBusqueda} y las {@link SugerenciasTitulos} al día.
+ *
+ * Los cambios se hacen después del commit: un alta que se deshace no llega al índice, y el documento se crea
+ * con el estado final de la entidad en la transacción. Los de una transacción se juntan y se aplican al índice
+ * en una sola llamada (un lote de la importación son cientos de libros). Hibernate crea el listener como bean
+ * de Spring; si en el contexto no hay índice o sugerencias (tests de repositorios) no hace nada con ellos.
+ */
+@Component
+public class ListenerIndiceBusqueda {
+
+    private static final Logger log = LoggerFactory.getLogger(ListenerIndiceBusqueda.class);
+
+    private final ObjectProvider<IndiceBusqueda> indiceBusqueda;
+    private final ObjectProvider<SugerenciasTitulos> sugerenciasTitulos;
+
+    public ListenerIndiceBusqueda(ObjectProvider<IndiceBusqueda> indiceBusqueda,
+                                  ObjectProvider<SugerenciasTitulos> sugerenciasTitulos) {
+        this.indiceBusqueda = indiceBusqueda;
+        this.sugerenciasTitulos = sugerenciasTitulos;
+    }
+
+    @PostPersist
+    @PostUpdate
+    void guardado(Object entidad) {
+        ElementoBusqueda elemento = elemento(entidad);
+        CambiosTransaccion cambios = cambiosTransaccion();
+        cambios.eliminados.remove(clave(elemento));
+        cambios.guardados.put(clave(elemento), elemento);
+        aplicarSinTransaccion(cambios);
+    }
+
+    @PostRemove
+    void borrado(Object entidad) {
+        ElementoBusqueda elemento = elemento(entidad);
+        CambiosTransaccion cambios = cambiosTransaccion();
+        cambios.guardados.remove(clave(elemento));
+        cambios.eliminados.put(clave(elemento), elemento);
+        aplicarSinTransaccion(cambios);
+    }
+
+    /*
+    Los cambios de la transacción en curso; se aplican después de su commit. Se buscan entre sus sincronizaciones
+    y no como recurso del hilo: una transacción REQUIRES_NEW suspende las de la exterior y tiene los suyos.
+    */
+    private CambiosTransaccion cambiosTransaccion() {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            return new CambiosTransaccion();
+        }
+        for (TransactionSynchronization sincronizacion : TransactionSynchronizationManager.getSynchronizations()) {
+            if (sincronizacion instanceof CambiosTransaccion cambios && cambios.listener() == this) {
+                return cambios;
+            }
+        }
+        CambiosTransaccion cambios = new CambiosTransaccion();
+        TransactionSynchronizationManager.registerSynchronization(cambios);
+        return cambios;
+    }
+
+    private void aplicarSinTransaccion(CambiosTransaccion cambios) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            cambios.aplicar();
+        }
+    }
+
+    private static String clave(ElementoBusqueda elemento) {
+        return elemento.tipo() + ":" + elemento.id();
+    }
+
+    private final class CambiosTransaccion implements TransactionSynchronization {
+        private final Map<String, ElementoBusqueda> guardados = new LinkedHashMap<>();
+        private final Map<String, ElementoBusqueda> eliminados = new LinkedHashMap<>();
+
+        @Override
+        public void afterCommit() {
+            //La transacción ya está confirmada: un fallo del índice no debe llegar a quien la hizo
+            try {
+                aplicar();
+            } catch (RuntimeException e) {
+                log.error("No se ha podido actualizar el índice de búsqueda", e);
+            }
+        }
+
+        ListenerIndiceBusqueda listener() {
+            return ListenerIndiceBusqueda.this;
+        }
+
+        void aplicar() {
+            IndiceBusqueda indice = indiceBusqueda.getIfAvailable();
+            if (indice != null) {
+                indice.actualizar(guardados.values(), eliminados.values());
+            }
+            SugerenciasTitulos sugerencias = sugerenciasTitulos.getIfAvailable();
+            if (sugerencias != null) {
+                //Solo los libros y revistas tienen título
+                guardados.values().stream()
+                        .filter(elemento -> !IndiceBusqueda.TIPO_AUTOR.equals(elemento.tipo()))
+                        .forEach(elemento -> sugerencias.guardar(elemento.id(), elemento.texto()));
+                eliminados.values().stream()
+                        .filter(elemento -> !IndiceBusqueda.TIPO_AUTOR.equals(elemento.tipo()))
+                        .forEach(elemento -> sugerencias.eliminar(elemento.id()));
+            }
+        }
+    }
+
+    static ElementoBusqueda elemento(Object entidad) {
+        if (entidad instanceof Libro libro) {
+            return new ElementoBusqueda(IndiceBusqueda.TIPO_LIBRO, libro.getId(), libro.getTitulo(), libro.getIsbn(), null);
+        }
+        if (entidad instanceof Revista revista) {
+            return new ElementoBusqueda(IndiceBusqueda.TIPO_REVISTA, revista.getId(), revista.getTitulo(), null, revista.getPeriodicidad());
+        }
+        if (entidad instanceof Autor autor) {
+            return new ElementoBusqueda(IndiceBusqueda.TIPO_AUTOR, autor.getId(), autor.getNombre(), null, null);
+        }
+        throw new IllegalArgumentException("Entidad sin índice de búsqueda: " + entidad.getClass().getName());
+    }
+}
@@ -0,0 +1,178 @@
+package com.example.biblioteca.busqueda;
+
+import org.springframework.stereotype.Component;
+
+import java.text.Normalizer;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+import java.util.regex.Pattern;
+
+/**
+ * Títulos de libros y revistas en memoria para sugerirlos por prefijo mientras se escribe
+ * (GET /Materiales/sugerencias y consola de préstamos).
+ *
+ * - Los títulos están en un {@link TrieTitulos} con la clave normalizada: da igual mayúsculas, acentos
+ *   y espacios repetidos. Una sugerencia no consulta la base de datos.
+ * - Se llena al arrancar ({@code BusquedaService}) y se actualiza al guardar o borrar libros y revistas
+ *   ({@link ListenerIndiceBusqueda}), después del commit. Como el índice de búsqueda, es de cada instancia:
+ *   los cambios de otras instancias llegan al volver a cargarlo ({@code ConciliacionBusqueda}).
+ * - Las sugerencias se leen en paralelo; los cambios, que son mucho menos frecuentes, son exclusivos.
+ */
+@Component
+public class SugerenciasTitulos {
+    private static final Pattern MARCAS = Pattern.compile("\\p{M}+");
+    private static final Pattern ESPACIOS = Pattern.compile("\\s+");
+
+    private final ReadWriteLock cerrojo = new ReentrantReadWriteLock();
+    private TrieTitulos trie = new TrieTitulos();
+    //Título de cada material, para quitar el anterior del árbol cuando cambia o se borra
+    private Map<Integer, String> titulos = new HashMap<>();
+    //Una carga a la vez (al arrancar, POST /Busqueda/reconstruccion y la conciliación periódica)
+    private final Lock reconstruccion = new ReentrantLock();
+    //Cambios que llegan mientras se carga, por id (título null: borrado); null si no se está cargando
+    private Map<Integer, String> cambiadosAlReconstruir;
+
+    /**
+     * @param prefijo comienzo del título, tal como lo escribe el usuario.
+     * @param limite  número máximo de títulos.
+     * @return los títulos que empiezan por el prefijo, en orden alfabético.
+     */
+    public List<String> sugerir(String prefijo, int limite) {
+        String clave = normalizar(prefijo);
+        if (clave.isEmpty()) {
+            return List.of();
+        }
+        cerrojo.readLock().lock();
+        try {
+            return trie.buscar(clave, limite);
+        } finally {
+            cerrojo.readLock().unlock();
+        }
+    }
+
+    //Alta o cambio de título de un material
+    public void guardar(int id, String titulo) {
+        cerrojo.writeLock().lock();
+        try {
+            guardar(trie, titulos, id, titulo);
+            anotarCambio(id, titulo);
+        } finally {
+            cerrojo.writeLock().unlock();
+        }
+    }
+
+    public void eliminar(int id) {
+        cerrojo.writeLock().lock();
+        try {
+            eliminar(trie, titulos, id);
+            anotarCambio(id, null);
+        } finally {
+            cerrojo.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Sustituye todos los títulos por los que entrega {@code cargar} (id y título de cada material).
+     * Las sugerencias siguen usando los títulos anteriores hasta que se termina de cargar.
+     *
+     * Los cambios que llegan mientras tanto ({@link #guardar}, {@link #eliminar}) se aplican a los títulos anteriores
+     * y se vuelven a aplicar sobre los nuevos al sustituirlos: el listener los hace después del commit y pueden
+     * ser más nuevos que lo que ha leído {@code cargar}.
+     *
+     * @return número de títulos.
+     */
+    public int reconstruir(Consumer<TituloCargado> cargar) {
+        reconstruccion.lock();
+        try {
+            cambiadosAlReconstruir(new LinkedHashMap<>());
+            TrieTitulos nuevoTrie = new TrieTitulos();
+            Map<Integer, String> nuevosTitulos = new HashMap<>();
+            cargar.accept((id, titulo) -> {
+                nuevosTitulos.put(id, titulo);
+                nuevoTrie.añadir(normalizar(titulo), titulo);
+            });
+            cerrojo.writeLock().lock();
+            try {
+                cambiadosAlReconstruir.forEach((id, titulo) -> {
+                    if (titulo == null) {
+                        eliminar(nuevoTrie, nuevosTitulos, id);
+                    } else {
+                        guardar(nuevoTrie, nuevosTitulos, id, titulo);
+                    }
+                });
+                trie = nuevoTrie;
+                titulos = nuevosTitulos;
+                return titulos.size();
+            } finally {
+                cerrojo.writeLock().unlock();
+            }
+        } finally {
+            cambiadosAlReconstruir(null);
+            reconstruccion.unlock();
+        }
+    }
+
+    public int numeroTitulos() {
+        cerrojo.readLock().lock();
+        try {
+            return titulos.size();
+        } finally {
+            cerrojo.readLock().unlock();
+        }
+    }
+
+    //Sin acentos, en mayúsculas y con un solo espacio entre palabras: "  Crónica  de" -> "CRONICA DE"
+    static String normalizar(String texto) {
+        String sinAcentos = MARCAS.matcher(Normalizer.normalize(texto, Normalizer.Form.NFD)).replaceAll("");
+        return ESPACIOS.matcher(sinAcentos.strip()).replaceAll(" ").toUpperCase(Locale.ROOT);
+    }
+
+    private static void guardar(TrieTitulos trie, Map<Integer, String> titulos, int id, String titulo) {
+        String anterior = titulos.put(id, titulo);
+        if (anterior != null && !anterior.equals(titulo)) {
+            quitar(trie, anterior);
+        }
+        trie.añadir(normalizar(titulo), titulo);
+    }
+
+    private static void eliminar(TrieTitulos trie, Map<Integer, String> titulos, int id) {
+        String anterior = titulos.remove(id);
+        if (anterior != null) {
+            quitar(trie, anterior);
+        }
+    }
+
+    //El título es único (ux_material_titulo): ningún otro material lo comparte
+    private static void quitar(TrieTitulos trie, String titulo) {
+        trie.eliminar(normalizar(titulo), titulo);
+    }
+
+    //Con el cerrojo de escritura
+    private void anotarCambio(int id, String titulo) {
+        if (cambiadosAlReconstruir != null) {
+            cambiadosAlReconstruir.put(id, titulo);
+        }
+    }
+
+    private void cambiadosAlReconstruir(Map<Integer, String> cambiados) {
+        cerrojo.writeLock().lock();
+        try {
+            cambiadosAlReconstruir = cambiados;
+        } finally {
+            cerrojo.writeLock().unlock();
+        }
+    }
+
+    @FunctionalInterface
+    public interface TituloCargado {
+        void cargar(int id, String titulo);
+    }
+}
@@ -0,0 +1,214 @@
+package com.example.biblioteca.busqueda;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.List;
+
+/**
+ * Árbol de prefijos compacto (radix trie) de títulos, para las sugerencias por prefijo ({@link SugerenciasTitulos}).
+ *
+ * - Cada título se guarda con una clave normalizada; las claves con un prefijo común comparten los nodos
+ *   de ese prefijo, y cada arista lleva un fragmento de la clave en lugar de un solo carácter. Con títulos
+ *   distintos hay como mucho dos nodos por título.
+ * - Los hijos de cada nodo están en un array ordenado por su primer carácter: se recorren en orden alfabético
+ *   y se encuentra el hijo de un carácter con una búsqueda binaria.
+ * - Buscar un prefijo recorre solo los nodos del prefijo y después los primeros títulos que cuelgan de él,
+ *   sin depender del número total de títulos.
+ *
+ * No es seguro para hilos: {@link SugerenciasTitulos} lo protege con un cerrojo.
+ */
+public class TrieTitulos {
+    private static final Nodo[] SIN_HIJOS = new Nodo[0];
+
+    private final Nodo raiz = new Nodo("");
+    private int tamanio;
+
+    private static final class Nodo {
+        //Fragmento de la clave en la arista que llega a este nodo
+        private String etiqueta;
+        private Nodo[] hijos = SIN_HIJOS;
+        //Títulos cuya clave termina en este nodo (normalmente uno). Null si no termina ninguno
+        private String[] titulos;
+
+        private Nodo(String etiqueta) {
+            this.etiqueta = etiqueta;
+        }
+    }
+
+    /**
+     * Añade el título con su clave normalizada. Un título que ya está con esa clave no se repite.
+     */
+    public void añadir(String clave, String titulo) {
+        Nodo nodo = raiz;
+        int posicion = 0;
+        while (posicion < clave.length()) {
+            int indice = indiceHijo(nodo, clave.charAt(posicion));
+            if (indice < 0) {
+                Nodo hoja = new Nodo(clave.substring(posicion));
+                hoja.titulos = new String[]{titulo};
+                insertarHijo(nodo, -indice - 1, hoja);
+                tamanio++;
+                return;
+            }
+            Nodo hijo = nodo.hijos[indice];
+            int comun = prefijoComun(hijo.etiqueta, clave, posicion);
+            if (comun < hijo.etiqueta.length()) {
+                //La clave se separa a mitad de la arista: se parte con un nodo intermedio
+                Nodo intermedio = new Nodo(hijo.etiqueta.substring(0, comun));
+                hijo.etiqueta = hijo.etiqueta.substring(comun);
+                intermedio.hijos = new Nodo[]{hijo};
+                nodo.hijos[indice] = intermedio;
+                hijo = intermedio;
+            }
+            nodo = hijo;
+            posicion += comun;
+        }
+        if (nodo.titulos == null) {
+            nodo.titulos = new String[]{titulo};
+        } else if (Arrays.asList(nodo.titulos).contains(titulo)) {
+            return;
+        } else {
+            nodo.titulos = Arrays.copyOf(nodo.titulos, nodo.titulos.length + 1);
+            nodo.titulos[nodo.titulos.length - 1] = titulo;
+        }
+        tamanio++;
+    }
+
+    /**
+     * Quita el título de su clave. Los nodos que se quedan sin títulos ni hijos se borran, y los que se quedan
+     * con un solo hijo se unen con él, para que el árbol siga siendo compacto.
+     *
+     * @return true si el título estaba.
+     */
+    public boolean eliminar(String clave, String titulo) {
+        Deque<Nodo> camino = new ArrayDeque<>();
+        Nodo nodo = raiz;
+        int posicion = 0;
+        while (posicion < clave.length()) {
+            int indice = indiceHijo(nodo, clave.charAt(posicion));
+            if (indice < 0 || !clave.startsWith(nodo.hijos[indice].etiqueta, posicion)) {
+                return false;
+            }
+            camino.push(nodo);
+            nodo = nodo.hijos[indice];
+            posicion += nodo.etiqueta.length();
+        }
+        if (nodo.titulos == null || !Arrays.asList(nodo.titulos).contains(titulo)) {
+            return false;
+        }
+        nodo.titulos = nodo.titulos.length == 1 ? null
+                : Arrays.stream(nodo.titulos).filter(t -> !t.equals(titulo)).toArray(String[]::new);
+        tamanio--;
+
+        //Se compacta desde el nodo hacia la raíz
+        while (nodo != raiz && nodo.titulos == null && nodo.hijos.length <= 1) {
+            Nodo padre = camino.pop();
+            int indice = indiceHijo(padre, nodo.etiqueta.charAt(0));
+            if (nodo.hijos.length == 0) {
+                quitarHijo(padre, indice);
+                nodo = padre;
+            } else {
+                Nodo unico = nodo.hijos[0];
+                unico.etiqueta = nodo.etiqueta + unico.etiqueta;
+                padre.hijos[indice] = unico;
+                break;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Títulos cuya clave empieza por el prefijo, en orden alfabético de la clave.
+     *
+     * @param prefijo prefijo ya normalizado.
+     * @param limite  número máximo de títulos.
+     */
+    public List<String> buscar(String prefijo, int limite) {
+        Nodo nodo = raiz;
+        int posicion = 0;
+        while (posicion < prefijo.length()) {
+            int indice = indiceHijo(nodo, prefijo.charAt(posicion));
+            if (indice < 0) {
+                return List.of();
+            }
+            Nodo hijo = nodo.hijos[indice];
+            int comun = prefijoComun(hijo.etiqueta, prefijo, posicion);
+            //El prefijo tiene que coincidir con toda la arista o terminar dentro de ella
+            if (comun < hijo.etiqueta.length() && posicion + comun < prefijo.length()) {
+                return List.of();
+            }
+            nodo = hijo;
+            posicion += comun;
+        }
+        List<String> titulos = new ArrayList<>(Math.min(limite, tamanio));
+        recoger(nodo, titulos, limite);
+        return titulos;
+    }
+
+    public int tamanio() {
+        return tamanio;
+    }
+
+    //Recorrido en preorden: primero los títulos del nodo y después los de sus hijos, en orden
+    private static void recoger(Nodo nodo, List<String> titulos, int limite) {
+        if (nodo.titulos != null) {
+            for (String titulo : nodo.titulos) {
+                if (titulos.size() == limite) {
+                    return;
+                }
+                titulos.add(titulo);
+            }
+        }
+        for (Nodo hijo : nodo.hijos) {
+            if (titulos.size() == limite) {
+                return;
+            }
+            recoger(hijo, titulos, limite);
+        }
+    }
+
+    //Posición del hijo que empieza por el carácter o, si no hay, -(posición donde iría) - 1
+    private static int indiceHijo(Nodo nodo, char caracter) {
+        int desde = 0;
+        int hasta = nodo.hijos.length - 1;
+        while (desde <= hasta) {
+            int medio = (desde + hasta) >>> 1;
+            char otro = nodo.hijos[medio].etiqueta.charAt(0);
+            if (otro < caracter) {
+                desde = medio + 1;
+            } else if (otro > caracter) {
+                hasta = medio - 1;
+            } else {
+                return medio;
+            }
+        }
+        return -desde - 1;
+    }
+
+    private static void insertarHijo(Nodo nodo, int posicion, Nodo hijo) {
+        Nodo[] hijos = new Nodo[nodo.hijos.length + 1];
+        System.arraycopy(nodo.hijos, 0, hijos, 0, posicion);
+        hijos[posicion] = hijo;
+        System.arraycopy(nodo.hijos, posicion, hijos, posicion + 1, nodo.hijos.length - posicion);
+        nodo.hijos = hijos;
+    }
+
+    private static void quitarHijo(Nodo nodo, int posicion) {
+        Nodo[] hijos = new Nodo[nodo.hijos.length - 1];
+        System.arraycopy(nodo.hijos, 0, hijos, 0, posicion);
+        System.arraycopy(nodo.hijos, posicion + 1, hijos, posicion, hijos.length - posicion);
+        nodo.hijos = hijos.length == 0 ? SIN_HIJOS : hijos;
+    }
+
+    //Caracteres iguales al principio de la etiqueta y de la clave a partir de la posición
+    private static int prefijoComun(String etiqueta, String clave, int posicion) {
+        int maximo = Math.min(etiqueta.length(), clave.length() - posicion);
+        int comun = 0;
+        while (comun < maximo && etiqueta.charAt(comun) == clave.charAt(posicion + comun)) {
+            comun++;
+        }
+        return comun;
+    }
+}
@@ -0,0 +1,47 @@
+package com.example.biblioteca.component;
+
+import com.example.biblioteca.service.ArchivoPrestamosService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.EnableScheduling;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+/**
+ * Archivo periódico de préstamos devueltos ({@link ArchivoPrestamosService}), cada {@code app.archivo-prestamos.intervalo}.
+ *
+ * Cada ejecución dura como mucho {@code app.archivo-prestamos.tiempo-maximo} (más lo que tarde el último lote),
+ * en transacciones de {@code app.archivo-prestamos.tamanio-lote} préstamos.
+ */
+@Component
+@EnableScheduling
+@ConditionalOnProperty(name = "app.archivo-prestamos.enabled", havingValue = "true", matchIfMissing = false)
+public class ArchivoPrestamos {
+
+    private static final Logger log = LoggerFactory.getLogger(ArchivoPrestamos.class);
+
+    private final ArchivoPrestamosService archivoPrestamosService;
+    private final int tamanioLote;
+    private final Duration tiempoMaximo;
+
+    public ArchivoPrestamos(ArchivoPrestamosService archivoPrestamosService,
+                            @Value("${app.archivo-prestamos.tamanio-lote:500}") int tamanioLote,
+                            @Value("${app.archivo-prestamos.tiempo-maximo:PT10S}") Duration tiempoMaximo) {
+        this.archivoPrestamosService = archivoPrestamosService;
+        this.tamanioLote = tamanioLote;
+        this.tiempoMaximo = tiempoMaximo;
+    }
+
+    @Scheduled(initialDelayString = "${app.archivo-prestamos.retraso-inicial:PT2M}",
+            fixedDelayString = "${app.archivo-prestamos.intervalo:PT1H}")
+    public void archivar() {
+        long archivados = archivoPrestamosService.archivarDevueltos(tamanioLote, tiempoMaximo);
+        if (archivados > 0) {
+            log.info("Archivo de préstamos: {} préstamos devueltos movidos al histórico", archivados);
+        }
+    }
+}
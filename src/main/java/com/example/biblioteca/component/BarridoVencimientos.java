@@ -0,0 +1,48 @@
+package com.example.biblioteca.component;
+
+import com.example.biblioteca.service.VencimientoService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.EnableScheduling;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.LocalDate;
+
+/**
+ * Barrido periódico de préstamos vencidos ({@link VencimientoService}), cada {@code app.vencimientos.intervalo}.
+ *
+ * Cada ejecución dura como mucho {@code app.vencimientos.tiempo-maximo} (más lo que tarde el último lote),
+ * en transacciones de {@code app.vencimientos.tamanio-lote} préstamos.
+ */
+@Component
+@EnableScheduling
+@ConditionalOnProperty(name = "app.vencimientos.enabled", havingValue = "true", matchIfMissing = false)
+public class BarridoVencimientos {
+
+    private static final Logger log = LoggerFactory.getLogger(BarridoVencimientos.class);
+
+    private final VencimientoService vencimientoService;
+    private final int tamanioLote;
+    private final Duration tiempoMaximo;
+
+    public BarridoVencimientos(VencimientoService vencimientoService,
+                               @Value("${app.vencimientos.tamanio-lote:200}") int tamanioLote,
+                               @Value("${app.vencimientos.tiempo-maximo:PT10S}") Duration tiempoMaximo) {
+        this.vencimientoService = vencimientoService;
+        this.tamanioLote = tamanioLote;
+        this.tiempoMaximo = tiempoMaximo;
+    }
+
+    @Scheduled(initialDelayString = "${app.vencimientos.retraso-inicial:PT1M}",
+            fixedDelayString = "${app.vencimientos.intervalo:PT15M}")
+    public void barrer() {
+        long procesados = vencimientoService.procesarVencidos(LocalDate.now(), tamanioLote, tiempoMaximo);
+        if (procesados > 0) {
+            log.info("Barrido de vencimientos: {} préstamos vencidos", procesados);
+        }
+    }
+}
@@ -0,0 +1,42 @@
+package com.example.biblioteca.component;
+
+import com.example.biblioteca.busqueda.IndiceBusqueda;
+import com.example.biblioteca.busqueda.ListenerIndiceBusqueda;
+import com.example.biblioteca.busqueda.SugerenciasTitulos;
+import com.example.biblioteca.service.BusquedaService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.EnableScheduling;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * Conciliación periódica del {@link IndiceBusqueda} y las {@link SugerenciasTitulos} con la base de datos,
+ * cada {@code app.busqueda.intervalo-conciliacion}.
+ *
+ * Cada instancia los actualiza solo con los cambios que hace ella ({@link ListenerIndiceBusqueda}):
+ * con varias instancias hay que activarla ({@code app.busqueda.conciliacion.enabled}) para que los cambios
+ * de las demás lleguen a las búsquedas.
+ */
+@Component
+@EnableScheduling
+@ConditionalOnProperty(name = "app.busqueda.conciliacion.enabled", havingValue = "true", matchIfMissing = false)
+public class ConciliacionBusqueda {
+
+    private static final Logger log = LoggerFactory.getLogger(ConciliacionBusqueda.class);
+
+    private final BusquedaService busquedaService;
+
+    public ConciliacionBusqueda(BusquedaService busquedaService) {
+        this.busquedaService = busquedaService;
+    }
+
+    @Scheduled(initialDelayString = "${app.busqueda.intervalo-conciliacion:PT15M}",
+            fixedDelayString = "${app.busqueda.intervalo-conciliacion:PT15M}")
+    public void conciliar() {
+        long indexados = busquedaService.reconstruir();
+        int titulos = busquedaService.reconstruirSugerencias();
+        log.info("Índice de búsqueda conciliado con {} elementos y sugerencias con {} títulos", indexados, titulos);
+    }
+}
@@ -0,0 +1,47 @@
+package com.example.biblioteca.component;
+
+import com.example.biblioteca.disponibilidad.RegistroDisponibilidad;
+import com.example.biblioteca.service.DisponibilidadService;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.EnableScheduling;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * Conciliación periódica del {@link RegistroDisponibilidad} con la base de datos, cada
+ * {@code app.disponibilidad.intervalo-conciliacion}: una consulta con los ejemplares de todos los materiales.
+ *
+ * Las diferencias se corrigen y se cuentan en {@code biblioteca_disponibilidad_diferencias_total}: si no es 0
+ * de forma continuada, algún cambio de disponibles no pasa por DisponibilidadService ni por la entidad.
+ */
+@Component
+@EnableScheduling
+@ConditionalOnProperty(name = "app.disponibilidad.memoria.enabled", havingValue = "true", matchIfMissing = false)
+public class ConciliacionDisponibilidad {
+
+    private static final Logger log = LoggerFactory.getLogger(ConciliacionDisponibilidad.class);
+
+    private final DisponibilidadService disponibilidadService;
+    private final Counter diferencias;
+
+    public ConciliacionDisponibilidad(DisponibilidadService disponibilidadService, MeterRegistry meterRegistry) {
+        this.disponibilidadService = disponibilidadService;
+        this.diferencias = Counter.builder("biblioteca.disponibilidad.diferencias")
+                .description("Materiales cuyo registro de disponibilidad en memoria no coincidía con la base de datos")
+                .register(meterRegistry);
+    }
+
+    @Scheduled(initialDelayString = "${app.disponibilidad.retraso-inicial:PT5M}",
+            fixedDelayString = "${app.disponibilidad.intervalo-conciliacion:PT15M}")
+    public void conciliar() {
+        int encontradas = disponibilidadService.conciliarRegistro();
+        if (encontradas > 0) {
+            diferencias.increment(encontradas);
+            log.warn("Conciliación de disponibilidad: {} materiales corregidos", encontradas);
+        }
+    }
+}
@@ -1,5 +1,6 @@
 package com.example.biblioteca.component;
 
+import com.example.biblioteca.metricas.PresupuestoSentencias;
 import com.example.biblioteca.model.Autor;
 import com.example.biblioteca.model.Libro;
 import com.example.biblioteca.service.AutorService;
@@ -20,14 +21,17 @@ public class ConsolaAutor {
     private final AutorService autorService;
     private final CommonService commonService;
     private final CommonUtil commonUtil;
+    private final PresupuestoSentencias presupuestoSentencias;
 
     @Autowired
     public ConsolaAutor(AutorService autorService,
                         CommonService commonService,
-                        CommonUtil commonUtil){
+                        CommonUtil commonUtil,
+                        PresupuestoSentencias presupuestoSentencias){
         this.autorService = autorService;
         this.commonService = commonService;
         this.commonUtil = commonUtil;
+        this.presupuestoSentencias = presupuestoSentencias;
     }
 
     public void menuAutor () {
@@ -37,12 +41,15 @@ public class ConsolaAutor {
             mostrarMenuAutor();
             opcion = commonUtil.leerEntrada();
 
-            switch (opcion) {
-                case OPCION_ALTA -> procesarAltaAutor(); //Alta
-                case OPCION_BAJA -> procesarBajaAutor(); //Baja
-                case OPCION_CONSULTA -> procesarConsultaAutor(); //Consulta
-                case OPCION_SALIR -> commonService.volverMenuPrincipal(); //Volver al menu principal
-                default -> commonService.mostrarError(); //Otra opcion
+            //Sentencias SQL de la opción: se avisa si se supera app.sentencias.maximo-por-comando
+            try (var medicion = presupuestoSentencias.medirComando("Autores, opción " + opcion)) {
+                switch (opcion) {
+                    case OPCION_ALTA -> procesarAltaAutor(); //Alta
+                    case OPCION_BAJA -> procesarBajaAutor(); //Baja
+                    case OPCION_CONSULTA -> procesarConsultaAutor(); //Consulta
+                    case OPCION_SALIR -> commonService.volverMenuPrincipal(); //Volver al menu principal
+                    default -> commonService.mostrarError(); //Otra opcion
+                }
             }
         }while (!OPCION_SALIR.equals(opcion));
     }
@@ -1,18 +1,26 @@
 package com.example.biblioteca.component;
 
+import com.example.biblioteca.dto.ResultadoImportacionDTO;
+import com.example.biblioteca.metricas.PresupuestoSentencias;
 import com.example.biblioteca.model.Autor;
 import com.example.biblioteca.model.Libro;
 import com.example.biblioteca.model.MaterialBiblioteca;
 import com.example.biblioteca.service.AutorService;
 import com.example.biblioteca.service.CommonService;
+import com.example.biblioteca.service.ImportacionLibrosService;
 import com.example.biblioteca.service.LibroService;
 import com.example.biblioteca.service.MaterialBibliotecaService;
 import com.example.biblioteca.util.CommonUtil;
+import com.example.biblioteca.util.FormatoFichero;
 import jakarta.validation.ConstraintViolation;
 import jakarta.validation.ConstraintViolationException;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Scanner;
@@ -27,18 +35,24 @@ public class ConsolaLibro {
     private final AutorService autorService;
     private final CommonService commonService;
     private final CommonUtil commonUtil;
+    private final PresupuestoSentencias presupuestoSentencias;
+    private final ImportacionLibrosService importacionLibrosService;
 
     @Autowired
     public ConsolaLibro(LibroService libroService,
                         MaterialBibliotecaService materialBibliotecaService,
                         AutorService autorService,
                         CommonService commonService,
-                        CommonUtil commonUtil) {
+                        CommonUtil commonUtil,
+                        ImportacionLibrosService importacionLibrosService,
+                        PresupuestoSentencias presupuestoSentencias) {
         this.libroService = libroService;
         this.materialBibliotecaService = materialBibliotecaService;
         this.autorService = autorService;
         this.commonService = commonService;
         this.commonUtil = commonUtil;
+        this.importacionLibrosService = importacionLibrosService;
+        this.presupuestoSentencias = presupuestoSentencias;
     }
 
     public void menuLibro() {
@@ -48,15 +62,19 @@ public class ConsolaLibro {
             mostrarMenuLibro();
             opcion = commonUtil.leerEntrada();
 
-            switch (opcion) {
-                case OPCION_ALTA -> procesarAltaLibro(); //Alta
-                case OPCION_BAJA -> procesarBajaLibro(); //Baja
-                case OPCION_CONSULTA_BY_ISBN -> procesarConsultaByIsbn(); // Consulta por isbn
-                case OPCION_CONSULTA_BY_TITULO -> procesarConsultaByTitulo(); // Consulta por título
-                case OPCION_CONSULTA_COMPLETA -> procesarConsultaTotal(); // Consulta completa
-                case OPCION_SALIR -> commonService.volverMenuPrincipal(); //Salir
-                default -> commonService.mostrarError(); // Otra opcion
-
+            //Sentencias SQL de la opción: se avisa si se supera app.sentencias.maximo-por-comando
+            try (var medicion = presupuestoSentencias.medirComando("Libros, opción " + opcion)) {
+                switch (opcion) {
+                    case OPCION_ALTA -> procesarAltaLibro(); //Alta
+                    case OPCION_BAJA -> procesarBajaLibro(); //Baja
+                    case OPCION_CONSULTA_BY_ISBN -> procesarConsultaByIsbn(); // Consulta por isbn
+                    case OPCION_CONSULTA_BY_TITULO -> procesarConsultaByTitulo(); // Consulta por título
+                    case OPCION_CONSULTA_COMPLETA -> procesarConsultaTotal(); // Consulta completa
+                    case OPCION_IMPORTACION -> procesarImportacion(); // Importación desde fichero
+                    case OPCION_SALIR -> commonService.volverMenuPrincipal(); //Salir
+                    default -> commonService.mostrarError(); // Otra opcion
+
+                }
             }
         } while (!OPCION_SALIR.equals(opcion));
     }
@@ -150,7 +168,9 @@ public class ConsolaLibro {
     }
 
     /* Consulta completa:
-     * Se devuelven todos los libros de la biblioteca
+     * Se devuelven todos los libros de la biblioteca.
+     * listarLibros ya trae los autores de cada libro en la misma consulta,
+     * así que no hace falta buscar cada libro por su isbn.
      */
     void procesarConsultaTotal() {
         List<Libro> libroList = libroService.listarLibros();
@@ -160,24 +180,31 @@ public class ConsolaLibro {
             return;
         }
 
-        //Añade a cada libro sus autores
-        libroList.stream() //Convierte libroList en un stream. Tengo libros basicos
-                .map(libro -> libroService.buscarLibroByIsbn(libro.getIsbn())) //A cada libro le añado el autor, convirtiendolo en un libro completo
-                .forEach(this::mostrarDatos); // muestra los datos del libro completo.
+        libroList.forEach(this::mostrarDatos);
+    }
 
-        /*Tambien se podria hacer asi:
+    /* Importación:
+     * Se solicita la ruta de un fichero .csv o .jsonl y se dan de alta sus libros por lotes.
+     * El nombre del fichero identifica la importación: si se corta, al repetirla continúa donde se quedó.
+     */
+    void procesarImportacion() {
+        commonUtil.mostrarMensaje("Ruta del fichero (.csv o .jsonl)");
+        Path fichero = Path.of(commonUtil.leerEntrada());
 
-        Optional.of(libroList)
-                .filter(libroL -> !libroList.isEmpty())
-                .ifPresentOrElse(
-                        libroL -> libroL.stream()
-                                .map(libro -> libroService.buscarLibroByIsbn(libro.getIsbn()))
-                                .forEach(this::mostrarDatos),
-                        () -> commonUtil.mostrarMensaje("No hay libros en la biblioteca")
-                );
+        try (Reader reader = Files.newBufferedReader(fichero, StandardCharsets.UTF_8)) {
+            ResultadoImportacionDTO resultado = importacionLibrosService.importar(
+                    fichero.getFileName().toString(),
+                    FormatoFichero.desde(fichero.getFileName().toString()),
+                    reader,
+                    null);
 
-         */
+            commonUtil.mostrarMensaje("Libros insertados: " + resultado.getLibrosInsertados()
+                    + ". Líneas descartadas: " + resultado.getLineasDescartadas());
+            resultado.getErrores().forEach(error -> System.out.println("- " + error));
 
+        } catch (Exception e) {
+            commonUtil.mostrarMensajeError("importación libros", e);
+        }
     }
 
     void mostrarMenuLibro() {
@@ -188,6 +215,7 @@ public class ConsolaLibro {
                         C.- Consulta libro por Isbn
                         D.- Consulta libro por Titulo
                         E.- Consulta todos los libros
+                        F.- Importar libros desde fichero (CSV o JSONL)
                         S.- Salir al menu principal
                         Elige una opción:
                         """);
@@ -1,6 +1,9 @@
 package com.example.biblioteca.component;
 
+import com.example.biblioteca.metricas.PresupuestoSentencias;
 import com.example.biblioteca.model.*;
+import com.example.biblioteca.proyeccion.EjemplaresMaterial;
+import com.example.biblioteca.proyeccion.PrestamoADevolver;
 import com.example.biblioteca.service.*;
 import com.example.biblioteca.util.CommonUtil;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -8,20 +11,27 @@ import org.springframework.stereotype.Component;
 
 import java.time.LocalDate;
 import java.util.List;
+import java.util.Optional;
 import java.util.Scanner;
 
 import static com.example.biblioteca.util.ConstantesMenu.*;
 
 @Component
 public class ConsolaPrestamo {
+    private static final int MAXIMO_SUGERENCIAS = 5;
     private final Scanner scanner = new Scanner(System.in);
     private final PrestamoService prestamoService;
     private final MaterialBibliotecaService materialBibliotecaService;
     private final LibroService libroService;
     private final RevistaService revistaService;
     private final UsuarioService usuarioService;
+    private final ReservaService reservaService;
     private final CommonService commonService;
     private final CommonUtil commonUtil;
+    private final PresupuestoSentencias presupuestoSentencias;
+    private final BusquedaService busquedaService;
+    private final DevolucionService devolucionService;
+    private final DisponibilidadService disponibilidadService;
 
 
     @Autowired
@@ -30,15 +40,25 @@ public class ConsolaPrestamo {
                            LibroService libroService,
                            RevistaService revistaService,
                            UsuarioService usuarioService,
+                           ReservaService reservaService,
                            CommonService commonService,
-                           CommonUtil commonUtil){
+                           CommonUtil commonUtil,
+                           PresupuestoSentencias presupuestoSentencias,
+                           BusquedaService busquedaService,
+                           DevolucionService devolucionService,
+                           DisponibilidadService disponibilidadService){
         this.prestamoService = prestamoService;
         this.materialBibliotecaService = materialBibliotecaService;
         this.libroService = libroService;
         this.revistaService = revistaService;
         this.usuarioService = usuarioService;
+        this.reservaService = reservaService;
         this.commonService = commonService;
         this.commonUtil = commonUtil;
+        this.presupuestoSentencias = presupuestoSentencias;
+        this.busquedaService = busquedaService;
+        this.devolucionService = devolucionService;
+        this.disponibilidadService = disponibilidadService;
     }
 
 
@@ -49,13 +69,17 @@ public class ConsolaPrestamo {
             mostrarMenuPrestamo();
             opcion = commonUtil.leerEntrada();
 
-            switch (opcion) {
-                case OPCION_ALTA -> procesarAltaPrestamo(); //Alta
-                case OPCION_DEVOLUCION -> procesarDevolucionPrestamo(); //Devolución
-                case OPCION_CONSULTA_BY_USUARIO -> procesarConsultaPorUsuario(); // Consulta de préstamo por usuario
-                case OPCION_CONSULTA_BY_TITULO -> procesarConsultaPorTitulo(); // Consulta de préstamo por título
-                case OPCION_SALIR -> commonService.volverMenuPrincipal(); //Salir
-                default -> commonService.mostrarError(); //Otra opcion
+            //Sentencias SQL de la opción: se avisa si se supera app.sentencias.maximo-por-comando
+            try (var medicion = presupuestoSentencias.medirComando("Préstamos, opción " + opcion)) {
+                switch (opcion) {
+                    case OPCION_ALTA -> procesarAltaPrestamo(); //Alta
+                    case OPCION_DEVOLUCION -> procesarDevolucionPrestamo(); //Devolución
+                    case OPCION_CONSULTA_BY_USUARIO -> procesarConsultaPorUsuario(); // Consulta de préstamo por usuario
+                    case OPCION_CONSULTA_BY_TITULO -> procesarConsultaPorTitulo(); // Consulta de préstamo por título
+                    case OPCION_RESERVA -> procesarReserva(); // Reserva de un material sin ejemplares
+                    case OPCION_SALIR -> commonService.volverMenuPrincipal(); //Salir
+                    default -> commonService.mostrarError(); //Otra opcion
+                }
             }
         }while (!OPCION_SALIR.equals(opcion));
     }
@@ -63,8 +87,7 @@ public class ConsolaPrestamo {
     /* Alta:
      * Se solicita el titulo del libro a prestar y se comprueba que exista y este disponible
      * Se solicita el nombre del usuario. Se comprueba que exista
-     * Se da de alta el prestamo
-     * Se actualiza que hay un ejemplar menos disponible en la biblioteca para poder prestar
+     * Se da de alta el prestamo y, en la misma transacción, se descuenta un ejemplar disponible
      */
     void procesarAltaPrestamo() {
         //Solicitar titulo del libro a prestar
@@ -80,9 +103,9 @@ public class ConsolaPrestamo {
         //Alta del préstamo
         Prestamo prestamo = crearPrestamo(usuario, materialBiblioteca);
 
-        //Insertar préstamo y actualizar disponibilidad
+        //Insertar préstamo y descontar el ejemplar
         try {
-            registrarPrestamo(prestamo, materialBiblioteca);
+            registrarPrestamo(prestamo);
             commonUtil.mostrarMensaje("Préstamo registrado correctamente");
         }catch (Exception e){
             commonUtil.mostrarMensajeError ("alta préstamo", e);
@@ -93,7 +116,8 @@ public class ConsolaPrestamo {
      * Se solicita el titulo del libro a devolver y se comprueba que exista y que esta prestado
      * Se solicita el nombre del usuario. Se comprueba que exista
      * Se comprueba si el usuario quiere devolver un titulo prestado
-     * Se actualiza que hay un ejemplar mas disponible en la biblioteca para poder prestar
+     * Si el material tiene reservas, el ejemplar se presta a la primera de la cola.
+     * Si no, se actualiza que hay un ejemplar mas disponible en la biblioteca para poder prestar
      * Se actualiza que el usuario ya no tiene prestado el libro.
      */
     public void procesarDevolucionPrestamo(){
@@ -109,36 +133,51 @@ public class ConsolaPrestamo {
         Usuario usuario = solicitarDatosUsuario();
         if (usuario == null) return;
 
-        //Se obtiene una lista con todos los prestamosId activos del usuario de la tabla prestamos
-        List<Prestamo> prestamoList = obtenerPrestamoList(usuario.getId());
-        if (prestamoList == null) return;
-
-
-        List <Integer> idPrestamosList = prestamoList.stream()
-                .map (Prestamo::getId) //transforma cada préstamo en su ID.
-                .toList(); //recoge los IDs en una nueva lista (List<Integer>).
-
-        List<Integer> idMaterialList = prestamoService.obtenerMaterialIdsPorPrestamos(idPrestamosList);
-
-        if (!idMaterialList.contains(materialBiblioteca.getId())) {
+        //Préstamo activo del usuario con el material, con una sola consulta
+        Optional<PrestamoADevolver> prestamo = devolucionService.buscarPrestamoActivo(usuario.getId(), materialBiblioteca.getId());
+        if (prestamo.isEmpty()) {
             mostrarMensajeNoTienePrestado(usuario.getNombre(), titulo);
             return;
         }
 
         try {
-            //Actualizar disponibilidad
-            materialBibliotecaService.actualizarDisponible(materialBiblioteca, materialBiblioteca.getDisponibles() + 1);
-
-            //Devolver un préstamo -> Actualizar préstamo como no prestado.
-            prestamoService.desactivarPrestamoConMaterial(idPrestamosList, materialBiblioteca.getId());
+            //Cerrar el préstamo y actualizar disponibilidad: el ejemplar se presta a la primera reserva de la cola o vuelve a estar disponible
+            Optional<Reserva> reservaAtendida = devolucionService.devolver(prestamo.get());
 
             commonUtil.mostrarMensaje("Préstamo devuelto");
+            reservaAtendida.ifPresent(reserva ->
+                    commonUtil.mostrarMensaje("El ejemplar queda prestado a " + reserva.getUsuario().getNombre() + ", que lo tenía reservado"));
         }catch (Exception e){
             commonUtil.mostrarMensajeError("devolución préstamo", e);
         }
 
     }
 
+    /* Reserva:
+     * Se solicita el titulo del libro o revista y se comprueba que exista
+     * Se solicita el nombre del usuario. Se comprueba que exista
+     * Se pone al usuario al final de la cola de reservas del material, si no tiene ejemplares disponibles.
+     * Cuando se devuelva un ejemplar, se le prestará directamente al primero de la cola.
+     */
+    void procesarReserva() {
+        MaterialBiblioteca materialBiblioteca = solicitarTituloPrestamo();
+        if (materialBiblioteca == null) {
+            commonUtil.mostrarMensaje("El material no existe en la biblioteca");
+            return;
+        }
+
+        //Solicitar el nombre del usuario
+        Usuario usuario = solicitarDatosUsuario();
+        if (usuario == null) return;
+
+        try {
+            Reserva reserva = reservaService.reservar(usuario, materialBiblioteca);
+            commonUtil.mostrarMensaje("Reserva registrada. Posición en la cola: " + reservaService.obtenerPosicion(reserva));
+        }catch (Exception e){
+            commonUtil.mostrarMensajeError("reserva", e);
+        }
+    }
+
     /* Consulta de préstamo por usuario:
      * Se solicita el nombre del usuario
      * Se devuelven los datos de todos los prestamos vigentes del usuario
@@ -247,9 +286,11 @@ public class ConsolaPrestamo {
             return false;
         }
 
-        if (   materialBiblioteca.getTotales() == null
-                || materialBiblioteca.getDisponibles() == null
-                || materialBiblioteca.getTotales().equals(materialBiblioteca.getDisponibles())){
+        //Con el registro de disponibilidad activo, los ejemplares salen de memoria
+        EjemplaresMaterial ejemplares = ejemplares(materialBiblioteca);
+        if (   ejemplares.totales() == null
+                || ejemplares.disponibles() == null
+                || ejemplares.totales().equals(ejemplares.disponibles())){
             commonUtil.mostrarMensaje("El material \"" + titulo + "\" no está prestado");
             return false;
         }
@@ -278,13 +319,22 @@ public class ConsolaPrestamo {
             return false;
         }
 
-        if (materialBiblioteca.getDisponibles()==null || materialBiblioteca.getDisponibles()<=0){
+        Integer disponibles = ejemplares(materialBiblioteca).disponibles();
+        if (disponibles==null || disponibles<=0){
             commonUtil.mostrarMensaje("No hay ejemplares disponibles del material \"" + materialBiblioteca.getTitulo() + "\"");
+            commonUtil.mostrarMensaje("Se puede reservar con la opción E del menú de préstamos");
             return false;
         }
 
         return true;
     }
+    //Ejemplares del registro de disponibilidad o, si no está activo, los de la entidad
+    EjemplaresMaterial ejemplares(MaterialBiblioteca materialBiblioteca) {
+        return disponibilidadService.consultarRegistro(materialBiblioteca.getId())
+                .orElseGet(() -> new EjemplaresMaterial(materialBiblioteca.getId(),
+                        materialBiblioteca.getTotales(), materialBiblioteca.getDisponibles()));
+    }
+
     public List<Prestamo> obtenerPrestamoList(int id){
         List<Prestamo> prestamoList = prestamoService.buscarPrestamoByUsuarioIdAndActivo(id);
 
@@ -302,6 +352,7 @@ public class ConsolaPrestamo {
                 B.- Devolución préstamo
                 C.- Consulta préstamo por Usuario
                 D.- Consulta préstamo por Titulo
+                E.- Reserva de material sin ejemplares
                 S.- Salir al menu principal
                 Elige una opción:""");
     }
@@ -315,28 +366,15 @@ public class ConsolaPrestamo {
         return prestamo;
     }
 
-    void registrarPrestamo(Prestamo prestamo, MaterialBiblioteca materialBiblioteca) {
-        boolean prestamoRegistrado = false;
-
-        //Registrar prestamo
+    //El préstamo y el ejemplar que se descuenta van en la misma transacción: si el material se ha quedado
+    //sin ejemplares entre la comprobación y el alta, no se registra nada
+    void registrarPrestamo(Prestamo prestamo) {
         try {
             prestamoService.insertarPrestamo(prestamo);
             commonUtil.mostrarMensaje("Préstamo registrado");
-            prestamoRegistrado = true;
         }catch (Exception e){
             commonUtil.mostrarMensajeError("registrar Préstamo", e);
         }
-
-        //Actualizar disponibilidad
-        if (prestamoRegistrado) {
-            try {
-                materialBibliotecaService.actualizarDisponible(materialBiblioteca, materialBiblioteca.getDisponibles() - 1);
-                commonUtil.mostrarMensaje("Disponibilidad actualizada");
-            } catch (Exception e) {
-                commonUtil.mostrarMensajeError("actualizar disponibilidad", e);
-            }
-        }
-
     }
 
     public MaterialBiblioteca solicitarTituloPrestamo (){
@@ -345,7 +383,17 @@ public class ConsolaPrestamo {
         //Titulo del libro o revista
         commonUtil.mostrarMensaje("Titulo del libro o revista" );
         titulo=commonUtil.leerEntrada();
-        return materialBibliotecaService.obtenerMaterialDelPrestamoByTitulo(titulo);
+        MaterialBiblioteca materialBiblioteca = materialBibliotecaService.obtenerMaterialDelPrestamoByTitulo(titulo);
+
+        //Si no hay ninguno con ese título exacto, se muestran los que empiezan por lo escrito
+        if (materialBiblioteca == null) {
+            List<String> sugerencias = busquedaService.sugerir(titulo, MAXIMO_SUGERENCIAS);
+            if (!sugerencias.isEmpty()) {
+                commonUtil.mostrarMensaje("Títulos que empiezan por \"" + titulo + "\":");
+                sugerencias.forEach(sugerencia -> commonUtil.mostrarMensaje("  " + sugerencia));
+            }
+        }
+        return materialBiblioteca;
     }
 
     //Este método devuelve true si el usuario escribe exactamente "LIBRO" (en mayúsculas),
@@ -1,5 +1,6 @@
 package com.example.biblioteca.component;
 
+import com.example.biblioteca.metricas.PresupuestoSentencias;
 import com.example.biblioteca.model.MaterialBiblioteca;
 import com.example.biblioteca.model.Revista;
 import com.example.biblioteca.service.CommonService;
@@ -25,16 +26,19 @@ public class ConsolaRevista {
     private final MaterialBibliotecaService materialBibliotecaService;
     private final CommonService commonService;
     private final CommonUtil commonUtil;
+    private final PresupuestoSentencias presupuestoSentencias;
 
     @Autowired
     public ConsolaRevista(RevistaService revistaService,
                           MaterialBibliotecaService materialBibliotecaService,
                           CommonService commonService,
-                          CommonUtil commonUtil) {
+                          CommonUtil commonUtil,
+                          PresupuestoSentencias presupuestoSentencias) {
         this.revistaService = revistaService;
         this.materialBibliotecaService = materialBibliotecaService;
         this.commonService = commonService;
         this.commonUtil = commonUtil;
+        this.presupuestoSentencias = presupuestoSentencias;
     }
 
 
@@ -45,13 +49,16 @@ public class ConsolaRevista {
             mostrarMenuRevista();
             opcion = scanner.nextLine().trim().toUpperCase();
 
-            switch (opcion) {
-                case OPCION_ALTA -> procesarAltaRevista(); //Alta
-                case OPCION_BAJA -> procesarBajaRevista(); // Baja
-                case OPCION_CONSULTA_TITULO -> procesarConsultaByTitulo(); // Consulta por título
-                case OPCION_CONSULTA_TOTAL -> procesarConsultaTotal(); // Consulta de todas las revistas existentes
-                case OPCION_SALIR -> commonService.volverMenuPrincipal(); // Salir
-                default -> commonService.mostrarError(); //Otra opcion
+            //Sentencias SQL de la opción: se avisa si se supera app.sentencias.maximo-por-comando
+            try (var medicion = presupuestoSentencias.medirComando("Revistas, opción " + opcion)) {
+                switch (opcion) {
+                    case OPCION_ALTA -> procesarAltaRevista(); //Alta
+                    case OPCION_BAJA -> procesarBajaRevista(); // Baja
+                    case OPCION_CONSULTA_TITULO -> procesarConsultaByTitulo(); // Consulta por título
+                    case OPCION_CONSULTA_TOTAL -> procesarConsultaTotal(); // Consulta de todas las revistas existentes
+                    case OPCION_SALIR -> commonService.volverMenuPrincipal(); // Salir
+                    default -> commonService.mostrarError(); //Otra opcion
+                }
             }
         }while (!OPCION_SALIR.equals(opcion));
     }
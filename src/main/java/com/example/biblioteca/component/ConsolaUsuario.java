@@ -1,5 +1,6 @@
 package com.example.biblioteca.component;
 
+import com.example.biblioteca.metricas.PresupuestoSentencias;
 import com.example.biblioteca.model.Prestamo;
 import com.example.biblioteca.model.Usuario;
 import com.example.biblioteca.service.CommonService;
@@ -20,16 +21,18 @@ public class ConsolaUsuario {
     private final PrestamoService prestamoService;
     private final CommonService commonService;
     private final CommonUtil commonUtil;
+    private final PresupuestoSentencias presupuestoSentencias;
 
     public ConsolaUsuario(UsuarioService usuarioService,
                           PrestamoService prestamoService,
                           CommonService commonService,
-                          CommonUtil commonUtil
-                          ) {
+                          CommonUtil commonUtil,
+                          PresupuestoSentencias presupuestoSentencias) {
         this.usuarioService = usuarioService;
         this.prestamoService = prestamoService;
         this.commonService = commonService;
         this.commonUtil = commonUtil;
+        this.presupuestoSentencias = presupuestoSentencias;
     }
 
     public void menuUsuario() {
@@ -39,12 +42,15 @@ public class ConsolaUsuario {
             mostrarMenuUsuario();
             opcion = commonUtil.leerEntrada();
 
-            switch (opcion) {
-                case OPCION_ALTA -> procesarAltaUsuario(); // Alta:
-                case OPCION_BAJA -> procesarBajaUsuario(); // Baja
-                case OPCION_CONSULTA_BY_USUARIO -> procesarConsultaUsuario(); // Consulta por usuario
-                case OPCION_SALIR -> commonService.volverMenuPrincipal(); // Salir: se vuelve al menu principal
-                default -> commonService.mostrarError(); // Otra opcion:
+            //Sentencias SQL de la opción: se avisa si se supera app.sentencias.maximo-por-comando
+            try (var medicion = presupuestoSentencias.medirComando("Usuarios, opción " + opcion)) {
+                switch (opcion) {
+                    case OPCION_ALTA -> procesarAltaUsuario(); // Alta:
+                    case OPCION_BAJA -> procesarBajaUsuario(); // Baja
+                    case OPCION_CONSULTA_BY_USUARIO -> procesarConsultaUsuario(); // Consulta por usuario
+                    case OPCION_SALIR -> commonService.volverMenuPrincipal(); // Salir: se vuelve al menu principal
+                    default -> commonService.mostrarError(); // Otra opcion:
+                }
             }
         } while (!OPCION_SALIR.equals(opcion));
     }
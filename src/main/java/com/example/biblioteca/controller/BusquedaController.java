@@ -0,0 +1,34 @@
+package com.example.biblioteca.controller;
+
+import com.example.biblioteca.dto.ResultadoBusquedaDTO;
+import com.example.biblioteca.service.BusquedaService;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/Busqueda")
+public class BusquedaController {
+    private BusquedaService busquedaService;
+
+    public BusquedaController(BusquedaService busquedaService) {
+        this.busquedaService = busquedaService;
+    }
+
+    //Busca en los títulos de libros y revistas, los nombres de los autores, la periodicidad de las revistas
+    //y el isbn. Da igual mayúsculas, acentos y plurales.
+    //Ej.: GET /Busqueda?q=cronica muerte  ->  [{"tipo":"LIBRO","id":21,"nombre":"CRÓNICA DE UNA MUERTE ANUNCIADA",...}]
+    @GetMapping
+    public List<ResultadoBusquedaDTO> buscar(@RequestParam String q,
+                                             @RequestParam(defaultValue = "20") int size) {
+        return busquedaService.buscar(q, size);
+    }
+
+    //Vuelve a crear el índice desde la base de datos, sin vaciarlo mientras tanto
+    @PostMapping("/reconstruccion")
+    public ResponseEntity<String> reconstruir() {
+        long indexados = busquedaService.reconstruir();
+        return ResponseEntity.ok("Índice de búsqueda reconstruido con " + indexados + " elementos");
+    }
+}
@@ -0,0 +1,21 @@
+package com.example.biblioteca.controller;
+
+import com.example.biblioteca.dto.EstadisticasCacheDTO;
+import com.example.biblioteca.serviceDTO.EstadisticasCacheDTOService;
+import org.springframework.web.bind.annotation.*;
+
+@RestController
+@RequestMapping("/Estadisticas")
+public class EstadisticasController {
+    private final EstadisticasCacheDTOService estadisticasCacheDTOService;
+
+    public EstadisticasController(EstadisticasCacheDTOService estadisticasCacheDTOService) {
+        this.estadisticasCacheDTOService = estadisticasCacheDTOService;
+    }
+
+    //Aciertos / fallos de la caché de segundo nivel y de la caché de consultas
+    @GetMapping("/cache")
+    public EstadisticasCacheDTO consultarCache() {
+        return estadisticasCacheDTOService.consultarEstadisticas();
+    }
+}
@@ -0,0 +1,52 @@
+package com.example.biblioteca.controller;
+
+import com.example.biblioteca.dto.EventoDTO;
+import com.example.biblioteca.serviceDTO.EventoDTOService;
+import com.example.biblioteca.util.Paginacion;
+import org.springframework.http.CacheControl;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.Callable;
+
+//Eventos de cambio de libros, revistas, autores, usuarios y préstamos, en orden, desde el último id recibido.
+//Los consumidores (índice de búsqueda, estadísticas, avisos) leen solo lo nuevo en lugar de recorrer las tablas.
+@RestController
+@RequestMapping("/Eventos")
+public class EventoController {
+    private EventoDTOService eventoDTOService;
+
+    public EventoController(EventoDTOService eventoDTOService) {
+        this.eventoDTOService = eventoDTOService;
+    }
+
+    //Long-poll: responde en cuanto hay eventos con id mayor que desde o, si no llega ninguno en espera segundos
+    //(como mucho 60), con una lista vacía. La siguiente petición se hace con el id del último evento recibido.
+    //La espera se hace en el executor de las respuestas asíncronas, no en un hilo de Tomcat, y sin conexión a la base de datos.
+    //Ej.: GET /Eventos?desde=0&size=100  ->  GET /Eventos?desde=<id del último>&size=100
+    @GetMapping(produces = MediaType.APPLICATION_JSON_VALUE)
+    public Callable<List<EventoDTO>> leerEventos(@RequestParam(defaultValue = "0") long desde,
+                                                 @RequestParam(defaultValue = Paginacion.TAMANIO_POR_DEFECTO) int size,
+                                                 @RequestParam(defaultValue = "30") int espera) {
+        Paginacion.limite(size); //Valida el tamaño antes de pasar al hilo asíncrono
+        return () -> eventoDTOService.esperarEventos(desde, size, Duration.ofSeconds(Math.max(espera, 0)));
+    }
+
+    //Server-Sent Events (Accept: text/event-stream): los eventos se envían según se confirman. Al reconectar,
+    //el cliente manda el id del último evento recibido en la cabecera Last-Event-ID y se continúa desde ahí.
+    //Ej.: curl -N -H "Accept: text/event-stream" "localhost:8081/Eventos?desde=0"
+    @GetMapping(produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<StreamingResponseBody> seguirEventos(@RequestParam(defaultValue = "0") long desde,
+                                                               @RequestHeader(name = "Last-Event-ID", required = false) Long ultimoEvento) {
+        long cursor = ultimoEvento != null ? ultimoEvento : desde;
+        StreamingResponseBody cuerpo = salida -> eventoDTOService.enviarEventos(cursor, salida);
+        return ResponseEntity.ok()
+                .contentType(MediaType.TEXT_EVENT_STREAM)
+                .cacheControl(CacheControl.noCache())
+                .body(cuerpo);
+    }
+}
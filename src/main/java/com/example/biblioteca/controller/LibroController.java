@@ -1,27 +1,68 @@
 package com.example.biblioteca.controller;
 
 import com.example.biblioteca.dto.LibroDTO;
+import com.example.biblioteca.dto.ResultadoImportacionDTO;
+import com.example.biblioteca.service.ImportacionLibrosService;
+import com.example.biblioteca.serviceDTO.ExportacionDTOService;
 import com.example.biblioteca.serviceDTO.LibroDTOService;
+import com.example.biblioteca.util.FormatoFichero;
+import com.example.biblioteca.util.Paginacion;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
 import java.util.List;
 
 @RestController
 @RequestMapping("/Libros")
 public class LibroController {
     private LibroDTOService libroDTOService;
+    private ImportacionLibrosService importacionLibrosService;
+    private ExportacionDTOService exportacionDTOService;
 
-    public LibroController(LibroDTOService libroDTOService) {
+    public LibroController(LibroDTOService libroDTOService, ImportacionLibrosService importacionLibrosService,
+                           ExportacionDTOService exportacionDTOService) {
         this.libroDTOService = libroDTOService;
+        this.importacionLibrosService = importacionLibrosService;
+        this.exportacionDTOService = exportacionDTOService;
     }
 
 
-    //Listar libros
+    //Listar libros por páginas de como mucho Paginacion.TAMANIO_MAXIMO elementos
+    //-- Con afterId se devuelven los libros con id mayor que afterId (keyset). Es la forma de recorrer todo el catálogo:
+    //   la siguiente página se pide con el id del último libro recibido.
+    //-- Sin afterId se devuelve la página page (empieza en 0).
+    //   Ej.: GET /Libros?size=100  ->  GET /Libros?afterId=<id del último>&size=100
+    //-- Lleva ETag por página: con If-None-Match y la página sin cambios se responde 304 leyendo solo las versiones.
     @GetMapping
-    public List<LibroDTO> listarLibro () {
-        return libroDTOService.listarLibrosDTO();
+    public List<LibroDTO> listarLibro (@RequestParam(defaultValue = "0") int page,
+                                       @RequestParam(defaultValue = Paginacion.TAMANIO_POR_DEFECTO) int size,
+                                       @RequestParam(required = false) Integer afterId,
+                                       WebRequest request) {
+        String etag = afterId != null ? libroDTOService.etagLibrosDesde(afterId, size) : libroDTOService.etagLibros(page, size);
+        if (request.checkNotModified(etag)) {
+            return null;
+        }
+        if (afterId != null) {
+            return libroDTOService.listarLibrosDTODesde(afterId, size);
+        }
+        return libroDTOService.listarLibrosDTO(page, size);
+    }
+
+    //Consultar un libro dado su titulo. Con If-None-Match y el libro sin cambios se responde 304 sin cargarlo
+    @GetMapping("/{titulo}")
+    public LibroDTO consultarLibro(@PathVariable String titulo, WebRequest request) {
+        if (request.checkNotModified(libroDTOService.etagLibro(titulo))) {
+            return null;
+        }
+        return libroDTOService.consultarLibroDTO(titulo);
     }
 
     //Alta libro
@@ -31,6 +72,34 @@ public class LibroController {
         return ResponseEntity.status(HttpStatus.CREATED).body(libroCreado);
     }
 
+    //Importación de libros desde un CSV o JSON Lines enviado en el cuerpo, que se lee línea a línea.
+    //Cada tamanioLote libros se confirman (por defecto app.importacion.tamanio-lote). Si se corta,
+    //se repite con el mismo nombre y continúa después del último lote confirmado.
+    //Ej.: curl --data-binary @adquisicion.csv -H "Content-Type: text/csv" "localhost:8081/Libros/importacion?nombre=adquisicion.csv&formato=csv"
+    @PostMapping("/importacion")
+    public ResponseEntity<ResultadoImportacionDTO> importarLibros(@RequestParam String nombre,
+                                                                  @RequestParam(defaultValue = "csv") String formato,
+                                                                  @RequestParam(required = false) Integer tamanioLote,
+                                                                  InputStream cuerpo) throws IOException {
+        var resultado = importacionLibrosService.importar(nombre,
+                FormatoFichero.desde(formato),
+                new InputStreamReader(cuerpo, StandardCharsets.UTF_8),
+                tamanioLote);
+        return ResponseEntity.ok(resultado);
+    }
+
+    //Exportación de libros en JSON Lines (por defecto) o CSV. La respuesta se escribe según se leen las filas
+    //de la base de datos, sin cargar el catálogo en memoria.
+    //Ej.: curl -o libros.csv "localhost:8081/Libros/export?formato=csv"
+    @GetMapping("/export")
+    public ResponseEntity<StreamingResponseBody> exportarLibros(@RequestParam(defaultValue = "jsonl") String formato) {
+        FormatoFichero formatoFichero = FormatoFichero.desde(formato);
+        StreamingResponseBody cuerpo = salida -> exportacionDTOService.exportarLibros(formatoFichero, salida);
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(formatoFichero.getTipoContenido()))
+                .body(cuerpo);
+    }
+
     //Actualizar un libro dado su titulo
     @PutMapping("/{titulo}")
     public ResponseEntity<LibroDTO> actualizarLibro(@PathVariable String titulo, @RequestBody LibroDTO dto) {
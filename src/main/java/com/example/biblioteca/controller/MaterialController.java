@@ -0,0 +1,25 @@
+package com.example.biblioteca.controller;
+
+import com.example.biblioteca.service.BusquedaService;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/Materiales")
+public class MaterialController {
+    private BusquedaService busquedaService;
+
+    public MaterialController(BusquedaService busquedaService) {
+        this.busquedaService = busquedaService;
+    }
+
+    //Títulos de libros y revistas que empiezan por el prefijo, para autocompletar mientras se escribe.
+    //Da igual mayúsculas y acentos. Se responde desde memoria, sin consultar la base de datos.
+    //Ej.: GET /Materiales/sugerencias?prefijo=cronica  ->  ["CRÓNICA DE UNA MUERTE ANUNCIADA"]
+    @GetMapping("/sugerencias")
+    public List<String> sugerir(@RequestParam String prefijo,
+                                @RequestParam(defaultValue = "10") int size) {
+        return busquedaService.sugerir(prefijo, size);
+    }
+}
@@ -1,20 +1,37 @@
 package com.example.biblioteca.controller;
 
 import com.example.biblioteca.dto.PrestamoDTO;
+import com.example.biblioteca.dto.ResultadoPrestamoDTO;
 
+import com.example.biblioteca.serviceDTO.ExportacionDTOService;
 import com.example.biblioteca.serviceDTO.PrestamoDTOService;
+import com.example.biblioteca.util.FormatoFichero;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.util.List;
 
 
 @RestController
 @RequestMapping("/Prestamos")
 public class PrestamoController {
     private PrestamoDTOService prestamoDTOService;
+    private ExportacionDTOService exportacionDTOService;
 
-    public PrestamoController(PrestamoDTOService prestamoDTOService) {
+    public PrestamoController(PrestamoDTOService prestamoDTOService, ExportacionDTOService exportacionDTOService) {
         this.prestamoDTOService = prestamoDTOService;
+        this.exportacionDTOService = exportacionDTOService;
+    }
+
+    //Préstamos de un usuario. Con historico=true se incluyen los devueltos que ya se han archivado
+    //Ej.: GET /Prestamos?usuario=Francisco Garcia&historico=true
+    @GetMapping
+    public List<PrestamoDTO> listarPrestamosUsuario(@RequestParam String usuario,
+                                                    @RequestParam(defaultValue = "false") boolean historico) {
+        return prestamoDTOService.listarPrestamosUsuario(usuario, historico);
     }
 
     //Alta prestamo
@@ -24,6 +41,24 @@ public class PrestamoController {
         return ResponseEntity.status(HttpStatus.CREATED).body(prestamoCreado);
     }
 
+    //Alta de varios préstamos a la vez. Cada resultado indica si ese préstamo se ha dado de alta o el motivo del error
+    @PostMapping("/batch")
+    public ResponseEntity<List<ResultadoPrestamoDTO>> crearPrestamos(@RequestBody List<PrestamoDTO> dtos) {
+        return ResponseEntity.ok(prestamoDTOService.guardarPrestamos(dtos));
+    }
+
+    //Exportación de prestamos en JSON Lines (por defecto) o CSV. La respuesta se escribe según se leen las filas
+    //de la base de datos, sin cargar todos los préstamos en memoria.
+    //Ej.: curl -o prestamos.csv "localhost:8081/Prestamos/export?formato=csv"
+    @GetMapping("/export")
+    public ResponseEntity<StreamingResponseBody> exportarPrestamos(@RequestParam(defaultValue = "jsonl") String formato) {
+        FormatoFichero formatoFichero = FormatoFichero.desde(formato);
+        StreamingResponseBody cuerpo = salida -> exportacionDTOService.exportarPrestamos(formatoFichero, salida);
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(formatoFichero.getTipoContenido()))
+                .body(cuerpo);
+    }
+
     //Devolver un préstamo -> Actualizar un préstamo dado su titulo
     @PutMapping("/{titulo}")
     public ResponseEntity<PrestamoDTO> actualizarPrestamo(@PathVariable String titulo, @RequestBody PrestamoDTO dto) {
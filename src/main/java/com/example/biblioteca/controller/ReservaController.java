@@ -0,0 +1,48 @@
+package com.example.biblioteca.controller;
+
+import com.example.biblioteca.dto.ReservaDTO;
+import com.example.biblioteca.serviceDTO.ReservaDTOService;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/Reservas")
+public class ReservaController {
+    private ReservaDTOService reservaDTOService;
+
+    public ReservaController(ReservaDTOService reservaDTOService) {
+        this.reservaDTOService = reservaDTOService;
+    }
+
+    //Alta reserva de un material sin ejemplares disponibles. Cuando se devuelva un ejemplar,
+    //se presta a la primera reserva de la cola (PUT /Prestamos/{titulo}).
+    @PostMapping
+    public ResponseEntity<ReservaDTO> crearReserva(@RequestBody ReservaDTO dto) {
+        var reservaCreada = reservaDTOService.guardarReserva(dto);
+        return ResponseEntity.status(HttpStatus.CREATED).body(reservaCreada);
+    }
+
+    //Cola de reservas activas de un material, en el orden en que se atenderán
+    @GetMapping("/{titulo}")
+    public List<ReservaDTO> listarCola(@PathVariable String titulo) {
+        return reservaDTOService.listarCola(titulo);
+    }
+
+    //Cancelar una reserva que todavía no se ha atendido
+    @DeleteMapping("/{id}")
+    public ResponseEntity<String> cancelarReserva(@PathVariable int id) {
+        reservaDTOService.cancelarReserva(id);
+        return ResponseEntity.ok("La reserva ha sido cancelada correctamente");
+    }
+
+    //Body ReservaDTO - En el PostMan para el Post
+    /*
+    {
+        "nombreUsuario": "Paco Recio",
+        "tituloMaterial": "FILOSOFIA DE ANDAR POR CASA"
+    }
+    */
+}
@@ -1,10 +1,16 @@
 package com.example.biblioteca.controller;
 
 import com.example.biblioteca.dto.RevistaDTO;
+import com.example.biblioteca.serviceDTO.ExportacionDTOService;
 import com.example.biblioteca.serviceDTO.RevistaDTOService;
+import com.example.biblioteca.util.FormatoFichero;
+import com.example.biblioteca.util.Paginacion;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.util.List;
 
@@ -12,15 +18,39 @@ import java.util.List;
 @RequestMapping("/Revistas")
 public class RevistaController {
     private RevistaDTOService revistaDTOService;
+    private ExportacionDTOService exportacionDTOService;
 
-    public RevistaController(RevistaDTOService revistaDTOService) {
+    public RevistaController(RevistaDTOService revistaDTOService, ExportacionDTOService exportacionDTOService) {
         this.revistaDTOService = revistaDTOService;
+        this.exportacionDTOService = exportacionDTOService;
     }
 
-    //Listar revistas
+    //Listar revistas por páginas de como mucho Paginacion.TAMANIO_MAXIMO elementos
+    //-- Con afterId se devuelven las revistas con id mayor que afterId (keyset).
+    //-- Sin afterId se devuelve la página page (empieza en 0).
+    //-- Lleva ETag por página: con If-None-Match y la página sin cambios se responde 304 leyendo solo las versiones.
     @GetMapping
-    public List<RevistaDTO> listarRevista () {
-        return revistaDTOService.listarRevistasDTO();
+    public List<RevistaDTO> listarRevista (@RequestParam(defaultValue = "0") int page,
+                                           @RequestParam(defaultValue = Paginacion.TAMANIO_POR_DEFECTO) int size,
+                                           @RequestParam(required = false) Integer afterId,
+                                           WebRequest request) {
+        String etag = afterId != null ? revistaDTOService.etagRevistasDesde(afterId, size) : revistaDTOService.etagRevistas(page, size);
+        if (request.checkNotModified(etag)) {
+            return null;
+        }
+        if (afterId != null) {
+            return revistaDTOService.listarRevistasDTODesde(afterId, size);
+        }
+        return revistaDTOService.listarRevistasDTO(page, size);
+    }
+
+    //Consultar una revista dado su titulo. Con If-None-Match y la revista sin cambios se responde 304 sin cargarla
+    @GetMapping("/{titulo}")
+    public RevistaDTO consultarRevista(@PathVariable String titulo, WebRequest request) {
+        if (request.checkNotModified(revistaDTOService.etagRevista(titulo))) {
+            return null;
+        }
+        return revistaDTOService.consultarRevistaDTO(titulo);
     }
 
     //Alta revista
@@ -30,6 +60,18 @@ public class RevistaController {
         return ResponseEntity.status(HttpStatus.CREATED).body(revistaCreada);
     }
 
+    //Exportación de revistas en JSON Lines (por defecto) o CSV. La respuesta se escribe según se leen las filas
+    //de la base de datos, sin cargar todas las revistas en memoria.
+    //Ej.: curl -o revistas.csv "localhost:8081/Revistas/export?formato=csv"
+    @GetMapping("/export")
+    public ResponseEntity<StreamingResponseBody> exportarRevistas(@RequestParam(defaultValue = "jsonl") String formato) {
+        FormatoFichero formatoFichero = FormatoFichero.desde(formato);
+        StreamingResponseBody cuerpo = salida -> exportacionDTOService.exportarRevistas(formatoFichero, salida);
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(formatoFichero.getTipoContenido()))
+                .body(cuerpo);
+    }
+
     //Actualizar uns revista dado su titulo
     //-- Se puede actualizar el numeroEdicion, periodicidad, totales y disponibles.
     @PutMapping("/{titulo}")
@@ -0,0 +1,39 @@
+package com.example.biblioteca.disponibilidad;
+
+import com.example.biblioteca.model.MaterialBiblioteca;
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.stereotype.Component;
+
+/**
+ * Listener JPA de Libro y Revista (@EntityListeners en MaterialBiblioteca) que lleva al {@link RegistroDisponibilidad}
+ * las altas, los cambios guardados con la entidad (totales, disponibles desde la consola) y las bajas, después del commit.
+ *
+ * Los préstamos y devoluciones son UPDATE masivos que no pasan por aquí: los anota {@code DisponibilidadService}.
+ */
+@Component
+public class ListenerDisponibilidad {
+
+    private final ObjectProvider<RegistroDisponibilidad> registroDisponibilidad;
+
+    public ListenerDisponibilidad(ObjectProvider<RegistroDisponibilidad> registroDisponibilidad) {
+        this.registroDisponibilidad = registroDisponibilidad;
+    }
+
+    @PostPersist
+    @PostUpdate
+    void guardado(MaterialBiblioteca material) {
+        int id = material.getId();
+        Integer totales = material.getTotales();
+        Integer disponibles = material.getDisponibles();
+        RegistroDisponibilidad.despuesDelCommit(registroDisponibilidad, registro -> registro.guardar(id, totales, disponibles));
+    }
+
+    @PostRemove
+    void borrado(MaterialBiblioteca material) {
+        int id = material.getId();
+        RegistroDisponibilidad.despuesDelCommit(registroDisponibilidad, registro -> registro.eliminar(id));
+    }
+}
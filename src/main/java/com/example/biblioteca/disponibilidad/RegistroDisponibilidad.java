@@ -0,0 +1,244 @@
+package com.example.biblioteca.disponibilidad;
+
+import com.example.biblioteca.proyeccion.EjemplaresMaterial;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+
+/**
+ * Ejemplares totales y disponibles de cada libro y revista en memoria, para comprobar la disponibilidad
+ * sin consultar la base de datos. Solo existe con {@code app.disponibilidad.memoria.enabled=true}.
+ *
+ * - Un long por material en un array indexado por id: los totales en los 32 bits altos y los disponibles
+ *   en los bajos. Una lectura ve los dos valores del mismo momento y un préstamo o devolución es un solo CAS.
+ * - La base de datos sigue siendo la referencia: los ejemplares se descuentan y se suman con un UPDATE
+ *   condicional ({@code DisponibilidadService}) y el registro se actualiza después del commit. Lo que se lee
+ *   aquí es una comprobación previa; si no coincide con la base de datos, decide el UPDATE condicional.
+ * - Se carga al arrancar y {@code ConciliacionDisponibilidad} lo compara cada cierto tiempo con la base de datos
+ *   y corrige las diferencias.
+ */
+@Component
+@ConditionalOnProperty(name = "app.disponibilidad.memoria.enabled", havingValue = "true", matchIfMissing = false)
+public class RegistroDisponibilidad {
+
+    private static final Logger log = LoggerFactory.getLogger(RegistroDisponibilidad.class);
+
+    //Material que no está en el registro (totales y disponibles -1, que no pueden darse)
+    private static final long DESCONOCIDO = -1L;
+    //Como mucho 32 MB. Los materiales con un id mayor se consultan en la base de datos
+    static final int MAXIMO_ID = 1 << 22;
+
+    //Consultas y cambios de un material: bloqueo de lectura (el array ya es atómico). Crecer o sustituir el array: de escritura
+    private final ReadWriteLock cerrojo = new ReentrantReadWriteLock();
+    private AtomicLongArray ejemplares = nuevoArray(0);
+
+    /**
+     * @return los ejemplares del material, o vacío si no está en el registro.
+     */
+    public Optional<EjemplaresMaterial> consultar(int id) {
+        cerrojo.readLock().lock();
+        try {
+            long valor = id >= 0 && id < ejemplares.length() ? ejemplares.get(id) : DESCONOCIDO;
+            return valor == DESCONOCIDO ? Optional.empty() : Optional.of(desempaquetar(id, valor));
+        } finally {
+            cerrojo.readLock().unlock();
+        }
+    }
+
+    //Alta o cambio de un material con los valores de la entidad. Sin totales o disponibles deja de estar en el registro
+    public void guardar(int id, Integer totales, Integer disponibles) {
+        if (totales == null || disponibles == null || id < 0 || id >= MAXIMO_ID) {
+            eliminar(id);
+            return;
+        }
+        cerrojo.writeLock().lock();
+        try {
+            if (id >= ejemplares.length()) {
+                ejemplares = copiar(ejemplares, Math.min(MAXIMO_ID, Math.max(id + 1, ejemplares.length() * 2)));
+            }
+            ejemplares.set(id, empaquetar(totales, disponibles));
+        } finally {
+            cerrojo.writeLock().unlock();
+        }
+    }
+
+    //Suma (devolución) o resta (préstamo) ejemplares disponibles. Un material que no está en el registro se ignora
+    public void ajustar(int id, int cambio) {
+        cerrojo.readLock().lock();
+        try {
+            if (id < 0 || id >= ejemplares.length()) {
+                return;
+            }
+            long valor;
+            do {
+                valor = ejemplares.get(id);
+                if (valor == DESCONOCIDO) {
+                    return;
+                }
+            } while (!ejemplares.compareAndSet(id, valor, empaquetar(totales(valor), disponibles(valor) + cambio)));
+        } finally {
+            cerrojo.readLock().unlock();
+        }
+    }
+
+    public void eliminar(int id) {
+        cerrojo.readLock().lock();
+        try {
+            if (id >= 0 && id < ejemplares.length()) {
+                ejemplares.set(id, DESCONOCIDO);
+            }
+        } finally {
+            cerrojo.readLock().unlock();
+        }
+    }
+
+    /**
+     * Sustituye el registro por los ejemplares de la base de datos.
+     *
+     * @return número de materiales registrados.
+     */
+    public int reconstruir(List<EjemplaresMaterial> materiales) {
+        AtomicLongArray nuevo = cargar(materiales);
+        cerrojo.writeLock().lock();
+        try {
+            ejemplares = nuevo;
+        } finally {
+            cerrojo.writeLock().unlock();
+        }
+        return contar(nuevo);
+    }
+
+    /**
+     * Compara el registro con los ejemplares de la base de datos y se queda con estos.
+     *
+     * Un préstamo que se confirma mientras se concilia puede contar como diferencia y, si su cambio llega
+     * al registro después, dejarlo descuadrado hasta la siguiente conciliación.
+     *
+     * @return número de materiales que no coincidían (distintos, que faltaban o que ya no existen).
+     */
+    public int conciliar(List<EjemplaresMaterial> materiales) {
+        AtomicLongArray correcto = cargar(materiales);
+        cerrojo.writeLock().lock();
+        try {
+            int diferencias = 0;
+            for (int id = 0; id < Math.max(correcto.length(), ejemplares.length()); id++) {
+                long actual = id < ejemplares.length() ? ejemplares.get(id) : DESCONOCIDO;
+                long esperado = id < correcto.length() ? correcto.get(id) : DESCONOCIDO;
+                if (actual != esperado) {
+                    diferencias++;
+                    if (diferencias <= 10) {
+                        log.warn("Registro de disponibilidad descuadrado en el material {}: {} en memoria, {} en la base de datos",
+                                id, texto(actual), texto(esperado));
+                    }
+                }
+            }
+            ejemplares = correcto;
+            return diferencias;
+        } finally {
+            cerrojo.writeLock().unlock();
+        }
+    }
+
+    public int numeroMateriales() {
+        cerrojo.readLock().lock();
+        try {
+            return contar(ejemplares);
+        } finally {
+            cerrojo.readLock().unlock();
+        }
+    }
+
+    /**
+     * Aplica el cambio al registro, si está activo, cuando se confirme la transacción en curso
+     * (en el momento si no hay ninguna). Un cambio que se deshace no llega al registro.
+     */
+    public static void despuesDelCommit(ObjectProvider<RegistroDisponibilidad> registro, Consumer<RegistroDisponibilidad> cambio) {
+        RegistroDisponibilidad actualizar = registro.getIfAvailable();
+        if (actualizar == null) {
+            return;
+        }
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            cambio.accept(actualizar);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                cambio.accept(actualizar);
+            }
+        });
+    }
+
+    private static AtomicLongArray cargar(List<EjemplaresMaterial> materiales) {
+        int longitud = materiales.stream()
+                .mapToInt(EjemplaresMaterial::id)
+                .filter(id -> id >= 0 && id < MAXIMO_ID)
+                .max()
+                .orElse(-1) + 1;
+        AtomicLongArray array = nuevoArray(longitud);
+        for (EjemplaresMaterial material : materiales) {
+            if (material.id() >= 0 && material.id() < MAXIMO_ID
+                    && material.totales() != null && material.disponibles() != null) {
+                array.set(material.id(), empaquetar(material.totales(), material.disponibles()));
+            }
+        }
+        return array;
+    }
+
+    private static AtomicLongArray nuevoArray(int longitud) {
+        AtomicLongArray array = new AtomicLongArray(longitud);
+        for (int id = 0; id < longitud; id++) {
+            array.set(id, DESCONOCIDO);
+        }
+        return array;
+    }
+
+    private static AtomicLongArray copiar(AtomicLongArray origen, int longitud) {
+        AtomicLongArray array = nuevoArray(longitud);
+        for (int id = 0; id < origen.length(); id++) {
+            array.set(id, origen.get(id));
+        }
+        return array;
+    }
+
+    private static int contar(AtomicLongArray array) {
+        int materiales = 0;
+        for (int id = 0; id < array.length(); id++) {
+            if (array.get(id) != DESCONOCIDO) {
+                materiales++;
+            }
+        }
+        return materiales;
+    }
+
+    private static long empaquetar(int totales, int disponibles) {
+        return ((long) totales << 32) | (disponibles & 0xFFFFFFFFL);
+    }
+
+    private static int totales(long valor) {
+        return (int) (valor >> 32);
+    }
+
+    private static int disponibles(long valor) {
+        return (int) valor;
+    }
+
+    private static EjemplaresMaterial desempaquetar(int id, long valor) {
+        return new EjemplaresMaterial(id, totales(valor), disponibles(valor));
+    }
+
+    private static String texto(long valor) {
+        return valor == DESCONOCIDO ? "sin datos" : disponibles(valor) + " de " + totales(valor) + " disponibles";
+    }
+}
@@ -0,0 +1,30 @@
+package com.example.biblioteca.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+/**
+ * Aciertos y fallos de la caché de segundo nivel y de la caché de consultas de Hibernate,
+ * y de la búsqueda de materiales por título (IdsMaterialPorTitulo), acumulados desde el arranque de la aplicación.
+ */
+public class EstadisticasCacheDTO {
+    private long aciertos;
+    private long fallos;
+    private long escrituras;
+
+    private long aciertosConsultas;
+    private long fallosConsultas;
+    private long escriturasConsultas;
+
+    private long aciertosTitulos;
+    private long fallosTitulos;
+
+    /** Detalle por región (una por entidad cacheada, más la de resultados de consultas). */
+    private List<RegionCacheDTO> regiones;
+}
@@ -0,0 +1,26 @@
+package com.example.biblioteca.dto;
+
+import com.example.biblioteca.model.AccionEvento;
+import com.example.biblioteca.model.TipoEvento;
+import com.fasterxml.jackson.annotation.JsonRawValue;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class EventoDTO {
+    /** Cursor: el consumidor pide los siguientes con GET /Eventos?desde=<id del último recibido>. */
+    private long id;
+    private LocalDateTime fecha;
+    private TipoEvento tipo;
+    private AccionEvento accion;
+    private int entidadId;
+
+    /** DTO de la entidad en JSON; se incluye como objeto en la respuesta, no como texto. */
+    @JsonRawValue
+    private String datos;
+}
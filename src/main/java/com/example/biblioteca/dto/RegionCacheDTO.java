@@ -0,0 +1,15 @@
+package com.example.biblioteca.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class RegionCacheDTO {
+    private String nombre;
+    private long aciertos;
+    private long fallos;
+    private long escrituras;
+}
@@ -0,0 +1,20 @@
+package com.example.biblioteca.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ReservaDTO {
+    private int id;
+    private String nombreUsuario;
+    private String tituloMaterial;
+    private LocalDateTime fechaReserva;
+
+    /** Posición en la cola del material, empezando en 1. 0 si la reserva ya no está activa. */
+    private long posicion;
+}
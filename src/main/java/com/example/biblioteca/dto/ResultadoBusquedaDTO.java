@@ -0,0 +1,19 @@
+package com.example.biblioteca.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+/**
+ * Un resultado de GET /Busqueda: un libro, revista o autor, con su título o nombre.
+ * Los resultados vienen ordenados de mayor a menor puntuación.
+ */
+public class ResultadoBusquedaDTO {
+    private String tipo;
+    private int id;
+    private String nombre;
+    private float puntuacion;
+}
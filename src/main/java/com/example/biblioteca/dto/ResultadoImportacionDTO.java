@@ -0,0 +1,25 @@
+package com.example.biblioteca.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+/**
+ * Resumen de una importación de libros (POST /Libros/importacion).
+ * Los contadores son los acumulados de la importación, también los de ejecuciones anteriores con el mismo nombre.
+ */
+public class ResultadoImportacionDTO {
+    private String nombre;
+    private long lineasProcesadas;
+    private long librosInsertados;
+    private long lineasDescartadas;
+    private boolean terminada;
+
+    /** Motivo de las líneas descartadas en esta ejecución (como mucho las primeras 100). */
+    private List<String> errores;
+}
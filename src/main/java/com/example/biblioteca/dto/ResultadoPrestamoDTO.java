@@ -0,0 +1,24 @@
+package com.example.biblioteca.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+/**
+ * Resultado de un préstamo dentro de un alta por lotes (POST /Prestamos/batch).
+ */
+public class ResultadoPrestamoDTO {
+    /** Posición del préstamo en la lista recibida (empieza en 0). */
+    private int indice;
+
+    private boolean correcto;
+
+    /** Préstamo dado de alta, con su id. Null si no se ha podido dar de alta. */
+    private PrestamoDTO prestamo;
+
+    /** Motivo por el que no se ha dado de alta. Null si es correcto. */
+    private String error;
+}
@@ -0,0 +1,69 @@
+package com.example.biblioteca.eventos;
+
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Despierta a los consumidores de GET /Eventos que esperan eventos nuevos cuando se confirma una transacción
+ * que los ha insertado ({@code EventoService}), para que no tengan que consultar la tabla sin parar.
+ *
+ * - Solo avisa dentro de esta instancia de la aplicación: los eventos que insertan otras instancias
+ *   se encuentran al volver a consultar, cuando vence la espera.
+ * - Un contador de avisos: quien espera guarda el valor antes de consultar la tabla y espera a que cambie,
+ *   de modo que un aviso que llega entre la consulta y la espera no se pierde.
+ * - Lock y Condition en lugar de synchronized: con hilos virtuales (perfil "virtual") la espera no bloquea
+ *   el hilo de plataforma.
+ */
+@Component
+public class AvisoEventos {
+
+    private final Lock cerrojo = new ReentrantLock();
+    private final Condition cambio = cerrojo.newCondition();
+    private long avisos;
+
+    public void avisar() {
+        cerrojo.lock();
+        try {
+            avisos++;
+            cambio.signalAll();
+        } finally {
+            cerrojo.unlock();
+        }
+    }
+
+    //Valor que se pasa a esperar(): se lee antes de consultar los eventos
+    public long avisos() {
+        cerrojo.lock();
+        try {
+            return avisos;
+        } finally {
+            cerrojo.unlock();
+        }
+    }
+
+    /**
+     * Espera a que llegue un aviso posterior a {@code desde} o a que pase el tiempo.
+     *
+     * @param desde valor de {@link #avisos()} leído antes de consultar los eventos.
+     * @return true si ha llegado algún aviso.
+     */
+    public boolean esperar(long desde, Duration tiempo) throws InterruptedException {
+        long restante = tiempo.toNanos();
+        cerrojo.lock();
+        try {
+            while (avisos == desde) {
+                if (restante <= 0) {
+                    return false;
+                }
+                restante = cambio.awaitNanos(restante);
+            }
+            return true;
+        } finally {
+            cerrojo.unlock();
+        }
+    }
+}
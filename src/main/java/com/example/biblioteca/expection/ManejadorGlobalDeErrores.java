@@ -1,6 +1,7 @@
 package com.example.biblioteca.expection;
 
 import com.example.biblioteca.model.MaterialBiblioteca;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.ExceptionHandler;
@@ -48,4 +49,20 @@ public class ManejadorGlobalDeErrores {
     public ResponseEntity<String> manejarMaterialNoEncontrado(MaterialNoEncontradoException ex) {
         return ResponseEntity.status(HttpStatus.NOT_FOUND).body(ex.getMessage());
     }
+
+    @ExceptionHandler(MaterialNoDisponibleException.class)
+    public ResponseEntity<String> manejarMaterialNoDisponible(MaterialNoDisponibleException ex) {
+        return ResponseEntity.status(HttpStatus.CONFLICT).body(ex.getMessage());
+    }
+
+    @ExceptionHandler(ReservaNoEncontradaException.class)
+    public ResponseEntity<String> manejarReservaNoEncontrada(ReservaNoEncontradaException ex) {
+        return ResponseEntity.status(HttpStatus.NOT_FOUND).body(ex.getMessage());
+    }
+
+    //Dos cambios a la vez del mismo libro, revista o autor (@Version): el segundo se rechaza y se puede repetir
+    @ExceptionHandler(OptimisticLockingFailureException.class)
+    public ResponseEntity<String> manejarCambioConcurrente(OptimisticLockingFailureException ex) {
+        return ResponseEntity.status(HttpStatus.CONFLICT).body("El registro ha cambiado mientras se modificaba. Vuelva a intentarlo.");
+    }
 }
@@ -0,0 +1,11 @@
+package com.example.biblioteca.expection;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+@ResponseStatus(HttpStatus.CONFLICT)
+public class MaterialNoDisponibleException extends RuntimeException {
+    public MaterialNoDisponibleException(String mensaje) {
+        super(mensaje);
+    }
+}
@@ -0,0 +1,11 @@
+package com.example.biblioteca.expection;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+@ResponseStatus(HttpStatus.NOT_FOUND)
+public class ReservaNoEncontradaException extends RuntimeException {
+    public ReservaNoEncontradaException(String mensaje) {
+        super(mensaje);
+    }
+}
@@ -0,0 +1,92 @@
+package com.example.biblioteca.metricas;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.servlet.DispatcherType;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.EventType;
+import org.hibernate.event.spi.PostLoadEvent;
+import org.hibernate.event.spi.PostLoadEventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.AsyncHandlerInterceptor;
+import org.springframework.web.servlet.HandlerMapping;
+
+/**
+ * Entidades que carga Hibernate en cada petición REST ({@code biblioteca.peticion.entidades.cargadas}, por uri).
+ *
+ * Las estadísticas de Hibernate solo dan el total de la aplicación; aquí se cuenta cada carga (PostLoad)
+ * en el hilo de la petición, entre preHandle y afterCompletion. Sirve para ver qué endpoints cargan
+ * más entidades de las que devuelven (N+1).
+ *
+ * En las peticiones asíncronas se cuentan las cargas del hilo de la petición hasta que empieza la parte asíncrona,
+ * como en {@link PresupuestoSentencias}.
+ */
+@Component
+public class CargasPorPeticion implements AsyncHandlerInterceptor, PostLoadEventListener {
+
+    private static final ThreadLocal<long[]> CARGAS = new ThreadLocal<>();
+    private static final String ATRIBUTO_CARGAS = CargasPorPeticion.class.getName() + ".cargas";
+
+    private final MeterRegistry meterRegistry;
+    private final EntityManagerFactory entityManagerFactory;
+
+    public CargasPorPeticion(MeterRegistry meterRegistry, EntityManagerFactory entityManagerFactory) {
+        this.meterRegistry = meterRegistry;
+        this.entityManagerFactory = entityManagerFactory;
+    }
+
+    @PostConstruct
+    void registrarEnHibernate() {
+        entityManagerFactory.unwrap(SessionFactoryImplementor.class)
+                .getServiceRegistry()
+                .getService(EventListenerRegistry.class)
+                .appendListeners(EventType.POST_LOAD, this);
+    }
+
+    @Override
+    public void onPostLoad(PostLoadEvent event) {
+        long[] cargas = CARGAS.get();
+        if (cargas != null) {
+            cargas[0]++;
+        }
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        //Vuelta de una petición asíncrona: el contador del primer tramo está en la petición y se publica en afterCompletion
+        if (request.getDispatcherType() == DispatcherType.ASYNC) {
+            return true;
+        }
+        long[] cargas = new long[1];
+        CARGAS.set(cargas);
+        request.setAttribute(ATRIBUTO_CARGAS, cargas);
+        return true;
+    }
+
+    //El hilo de la petición queda libre para otras: deja de contar en él
+    @Override
+    public void afterConcurrentHandlingStarted(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        CARGAS.remove();
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler, Exception ex) {
+        CARGAS.remove();
+        if (!(request.getAttribute(ATRIBUTO_CARGAS) instanceof long[] cargas)) {
+            return;
+        }
+        Object uri = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        DistributionSummary.builder("biblioteca.peticion.entidades.cargadas")
+                .description("Entidades cargadas por Hibernate en una petición")
+                .baseUnit("entidades")
+                .tag("method", request.getMethod())
+                .tag("uri", uri == null ? "UNKNOWN" : uri.toString())
+                .register(meterRegistry)
+                .record(cargas[0]);
+    }
+}
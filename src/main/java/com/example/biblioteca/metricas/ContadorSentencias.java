@@ -0,0 +1,101 @@
+package com.example.biblioteca.metricas;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Consumer;
+
+/**
+ * Cuenta las sentencias SQL que prepara Hibernate en el hilo actual mientras hay una {@link Medicion} abierta.
+ *
+ * Hibernate lo instancia a partir de {@code hibernate.session_factory.statement_inspector}, por eso el estado
+ * es estático (un ThreadLocal). Una sentencia de un lote JDBC se cuenta una vez, como un solo viaje a la base de datos.
+ *
+ * Ejemplo:
+ * try (var medicion = ContadorSentencias.iniciar("listado")) {
+ *     libroDTOService.listarLibrosDTO(0, 50);
+ *     medicion.getSentencias();
+ * }
+ */
+public class ContadorSentencias implements StatementInspector {
+
+    private static final ThreadLocal<Medicion> ACTUAL = new ThreadLocal<>();
+
+    @Override
+    public String inspect(String sql) {
+        //Se suma también a las mediciones que contienen a la actual (p. ej. un test dentro de una petición)
+        for (Medicion medicion = ACTUAL.get(); medicion != null; medicion = medicion.anterior) {
+            medicion.registrar(sql);
+        }
+        return sql;
+    }
+
+    public static Medicion iniciar(String llamada) {
+        return iniciar(llamada, medicion -> { });
+    }
+
+    /**
+     * Empieza a contar las sentencias del hilo actual hasta que se cierra la medición.
+     *
+     * @param llamada    qué se está midiendo (endpoint, opción de consola...), para los mensajes.
+     * @param alTerminar se ejecuta al cerrar la medición, con el total ya contado.
+     */
+    public static Medicion iniciar(String llamada, Consumer<Medicion> alTerminar) {
+        Medicion medicion = new Medicion(llamada, ACTUAL.get(), alTerminar);
+        ACTUAL.set(medicion);
+        return medicion;
+    }
+
+    public static final class Medicion implements AutoCloseable {
+        private final String llamada;
+        private final Medicion anterior;
+        private final Consumer<Medicion> alTerminar;
+        //Veces que se ha ejecutado cada sentencia distinta, en orden de primera ejecución
+        private final Map<String, Integer> repeticiones = new LinkedHashMap<>();
+        private int sentencias;
+        private boolean cerrada;
+
+        private Medicion(String llamada, Medicion anterior, Consumer<Medicion> alTerminar) {
+            this.llamada = llamada;
+            this.anterior = anterior;
+            this.alTerminar = alTerminar;
+        }
+
+        private void registrar(String sql) {
+            sentencias++;
+            repeticiones.merge(sql, 1, Integer::sum);
+        }
+
+        public String getLlamada() {
+            return llamada;
+        }
+
+        public int getSentencias() {
+            return sentencias;
+        }
+
+        public Map<String, Integer> getRepeticiones() {
+            return repeticiones;
+        }
+
+        //La sentencia que más se repite, si se repite: la señal de un N+1 (una consulta por cada elemento de una lista)
+        public Optional<Map.Entry<String, Integer>> getMasRepetida() {
+            return repeticiones.entrySet().stream()
+                    .filter(sentencia -> sentencia.getValue() > 1)
+                    .max(Comparator.comparingInt(Map.Entry::getValue));
+        }
+
+        @Override
+        public void close() {
+            if (cerrada) {
+                return;
+            }
+            cerrada = true;
+            ACTUAL.set(anterior);
+            alTerminar.accept(this);
+        }
+    }
+}
@@ -0,0 +1,50 @@
+package com.example.biblioteca.metricas;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.stereotype.Component;
+
+/**
+ * Contadores de negocio de los préstamos, publicados en /actuator/prometheus como
+ * {@code biblioteca_prestamos_creados_total}, {@code biblioteca_prestamos_devueltos_total},
+ * {@code biblioteca_prestamos_vencidos_total} y {@code biblioteca_prestamos_archivados_total}.
+ */
+@Component
+public class MetricasPrestamo {
+
+    private final Counter creados;
+    private final Counter devueltos;
+    private final Counter vencidos;
+    private final Counter archivados;
+
+    public MetricasPrestamo(MeterRegistry meterRegistry) {
+        this.creados = Counter.builder("biblioteca.prestamos.creados")
+                .description("Préstamos dados de alta")
+                .register(meterRegistry);
+        this.devueltos = Counter.builder("biblioteca.prestamos.devueltos")
+                .description("Préstamos devueltos")
+                .register(meterRegistry);
+        this.vencidos = Counter.builder("biblioteca.prestamos.vencidos")
+                .description("Préstamos marcados como vencidos por el barrido de vencimientos")
+                .register(meterRegistry);
+        this.archivados = Counter.builder("biblioteca.prestamos.archivados")
+                .description("Préstamos devueltos movidos al histórico")
+                .register(meterRegistry);
+    }
+
+    public void prestamosCreados(int cantidad) {
+        creados.increment(cantidad);
+    }
+
+    public void prestamoDevuelto() {
+        devueltos.increment();
+    }
+
+    public void prestamosVencidos(int cantidad) {
+        vencidos.increment(cantidad);
+    }
+
+    public void prestamosArchivados(int cantidad) {
+        archivados.increment(cantidad);
+    }
+}
@@ -0,0 +1,24 @@
+package com.example.biblioteca.metricas;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+//Cuenta las entidades cargadas y las sentencias SQL de las peticiones a la API (no las de /actuator)
+@Configuration
+public class MetricasWebConfig implements WebMvcConfigurer {
+
+    private final CargasPorPeticion cargasPorPeticion;
+    private final PresupuestoSentencias presupuestoSentencias;
+
+    public MetricasWebConfig(CargasPorPeticion cargasPorPeticion, PresupuestoSentencias presupuestoSentencias) {
+        this.cargasPorPeticion = cargasPorPeticion;
+        this.presupuestoSentencias = presupuestoSentencias;
+    }
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        registry.addInterceptor(cargasPorPeticion).excludePathPatterns("/actuator/**");
+        registry.addInterceptor(presupuestoSentencias).excludePathPatterns("/actuator/**");
+    }
+}
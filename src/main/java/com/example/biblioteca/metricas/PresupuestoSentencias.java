@@ -0,0 +1,101 @@
+package com.example.biblioteca.metricas;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.DispatcherType;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.AsyncHandlerInterceptor;
+import org.springframework.web.servlet.HandlerMapping;
+
+/**
+ * Presupuesto de sentencias SQL por petición REST y por opción de la consola.
+ *
+ * Cuenta las sentencias con {@link ContadorSentencias} y, si se supera el presupuesto, escribe un aviso con
+ * el método que atendía la petición y la sentencia más repetida. Las sentencias por petición se publican
+ * también en la métrica {@code biblioteca.peticion.sentencias}, por uri.
+ *
+ * En las peticiones asíncronas (long-poll y SSE de GET /Eventos, exportaciones en streaming) se miden las sentencias
+ * del hilo de la petición hasta que empieza la parte asíncrona, y se publican al terminar la petición. Las del hilo
+ * que genera la respuesta no se cuentan.
+ */
+@Component
+public class PresupuestoSentencias implements AsyncHandlerInterceptor {
+
+    private static final Logger log = LoggerFactory.getLogger(PresupuestoSentencias.class);
+    private static final String ATRIBUTO_MEDICION = PresupuestoSentencias.class.getName() + ".medicion";
+
+    private final MeterRegistry meterRegistry;
+    private final int maximoPorPeticion;
+    private final int maximoPorComando;
+
+    public PresupuestoSentencias(MeterRegistry meterRegistry,
+                                 @Value("${app.sentencias.maximo-por-peticion:20}") int maximoPorPeticion,
+                                 @Value("${app.sentencias.maximo-por-comando:50}") int maximoPorComando) {
+        this.meterRegistry = meterRegistry;
+        this.maximoPorPeticion = maximoPorPeticion;
+        this.maximoPorComando = maximoPorComando;
+    }
+
+    /**
+     * Mide una opción de la consola. Se usa con try-with-resources alrededor de la opción.
+     *
+     * @param comando menú y opción elegida, para el aviso.
+     */
+    public ContadorSentencias.Medicion medirComando(String comando) {
+        return ContadorSentencias.iniciar("Consola " + comando, medicion -> comprobar(medicion, maximoPorComando));
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        //Vuelta de una petición asíncrona: la medición del primer tramo ya está cerrada y se publica en afterCompletion
+        if (request.getDispatcherType() == DispatcherType.ASYNC) {
+            return true;
+        }
+        String llamada = request.getMethod() + " " + request.getRequestURI()
+                + (handler instanceof HandlerMethod metodo ? " (" + metodo.getShortLogMessage() + ")" : "");
+        request.setAttribute(ATRIBUTO_MEDICION, ContadorSentencias.iniciar(llamada));
+        return true;
+    }
+
+    //El hilo de la petición queda libre para otras: la medición no puede seguir abierta en él
+    @Override
+    public void afterConcurrentHandlingStarted(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        if (request.getAttribute(ATRIBUTO_MEDICION) instanceof ContadorSentencias.Medicion medicion) {
+            medicion.close();
+        }
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler, Exception ex) {
+        if (!(request.getAttribute(ATRIBUTO_MEDICION) instanceof ContadorSentencias.Medicion medicion)) {
+            return;
+        }
+        medicion.close();
+        Object uri = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        DistributionSummary.builder("biblioteca.peticion.sentencias")
+                .description("Sentencias SQL ejecutadas en una petición")
+                .baseUnit("sentencias")
+                .tag("method", request.getMethod())
+                .tag("uri", uri == null ? "UNKNOWN" : uri.toString())
+                .register(meterRegistry)
+                .record(medicion.getSentencias());
+        comprobar(medicion, maximoPorPeticion);
+    }
+
+    private void comprobar(ContadorSentencias.Medicion medicion, int maximo) {
+        if (medicion.getSentencias() <= maximo) {
+            return;
+        }
+        String masRepetida = medicion.getMasRepetida()
+                .map(sentencia -> " La más repetida (" + sentencia.getValue() + " veces): " + sentencia.getKey())
+                .orElse("");
+        log.warn("{} ha ejecutado {} sentencias SQL (máximo {}).{}",
+                medicion.getLlamada(), medicion.getSentencias(), maximo, masRepetida);
+    }
+}
@@ -0,0 +1,13 @@
+package com.example.biblioteca.model;
+
+//Cambio que recoge un evento. DEVOLUCION es la devolución de un material de un préstamo.
+//VENCIMIENTO y ARCHIVO son de los trabajos por lotes: un préstamo marcado como vencido y un préstamo devuelto
+//que pasa al histórico (deja de estar en GET /Prestamos)
+public enum AccionEvento {
+    ALTA,
+    CAMBIO,
+    BAJA,
+    DEVOLUCION,
+    VENCIMIENTO,
+    ARCHIVO
+}
@@ -1,28 +1,42 @@
 package com.example.biblioteca.model;
 
 
+import com.example.biblioteca.busqueda.ListenerIndiceBusqueda;
 import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
 import java.util.List;
 
 @Entity
 @Table(name = "autor")
+//Caché de segundo nivel: se consulta por nombre en cada alta de libro
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
+//Mantiene el índice de búsqueda (GET /Busqueda) al guardar o borrar autores
+@EntityListeners(ListenerIndiceBusqueda.class)
 @Data //Genera automáticamente getters, setters, toString(), equals() y hashCode()
 @NoArgsConstructor //Genera un constructor sin argumentos.
 @AllArgsConstructor //Genera un constructor con todos los campos.
 
 public class Autor {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY) //Para claves primaria autogeneradas
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "autor_seq")
+    @SequenceGenerator(name = "autor_seq", sequenceName = "autor_seq", allocationSize = 50)
     @Column(name = "id", nullable = false)
     private int id;
 
     @Column (name = "nombre", nullable = false, unique = true)
     private String nombre;
 
+    //Forma parte del ETag de GET /Libros/{titulo} y de las páginas de GET /Libros: el nombre del autor sale en el libro
+    @Version
+    @Column(name = "version", nullable = false)
+    private long version;
+
     @ManyToMany(mappedBy = "autores", cascade = CascadeType.ALL)
     private List<Libro> libro;
 
@@ -0,0 +1,54 @@
+package com.example.biblioteca.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Entity
+/*
+Evento de cambio del catálogo, los usuarios o los préstamos (tabla de salida u "outbox").
+Se inserta en la misma transacción que el cambio: si el cambio se deshace, el evento también.
+Los consumidores lo leen en orden de id con GET /Eventos?desde=<último id leído>.
+*/
+@Table(name = "Evento")
+@Data //Genera automáticamente getters, setters, toString(), equals() y hashCode()
+@NoArgsConstructor //Genera un constructor sin argumentos.
+@AllArgsConstructor //Genera un constructor con todos los campos.
+
+public class Evento {
+    //IDENTITY y no una secuencia con bloques de 50: el id es el cursor de los consumidores y tiene que crecer
+    //en el orden en que se insertan los eventos, también entre varias instancias de la aplicación
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Column(name = "id", nullable = false)
+    private long id;
+
+    @Column(name = "fecha", nullable = false)
+    private LocalDateTime fecha;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "tipo", nullable = false)
+    private TipoEvento tipo;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "accion", nullable = false)
+    private AccionEvento accion;
+
+    @Column(name = "entidadId", nullable = false)
+    private int entidadId;
+
+    //DTO de la entidad en JSON tal como queda después del cambio (antes de borrarla, en una baja)
+    @Column(name = "datos", columnDefinition = "text")
+    private String datos;
+
+    public Evento(TipoEvento tipo, AccionEvento accion, int entidadId, String datos) {
+        this.fecha = LocalDateTime.now();
+        this.tipo = tipo;
+        this.accion = accion;
+        this.entidadId = entidadId;
+        this.datos = datos;
+    }
+}
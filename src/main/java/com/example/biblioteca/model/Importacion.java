@@ -0,0 +1,48 @@
+package com.example.biblioteca.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Entity
+/*
+Punto de control de una importación de libros por lotes.
+Se actualiza en la misma transacción que cada lote de libros: si la importación se corta,
+se puede repetir con el mismo nombre y continúa en la línea siguiente al último lote confirmado.
+*/
+@Table(name = "Importacion",
+        indexes = @Index(name = "ux_importacion_nombre", columnList = "nombre", unique = true))
+@Data //Genera automáticamente getters, setters, toString(), equals() y hashCode()
+@NoArgsConstructor //Genera un constructor sin argumentos.
+@AllArgsConstructor //Genera un constructor con todos los campos.
+
+public class Importacion {
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "importacion_seq")
+    @SequenceGenerator(name = "importacion_seq", sequenceName = "importacion_seq", allocationSize = 50)
+    @Column(name = "id", nullable = false)
+    private int id;
+
+    //Nombre que da el cliente a la importación (por ejemplo, el del fichero). Identifica la importación al repetirla.
+    @Column(name = "nombre", nullable = false)
+    private String nombre;
+
+    //Líneas de datos ya confirmadas (sin contar la cabecera del CSV)
+    @Column(name = "lineasProcesadas", nullable = false)
+    private long lineasProcesadas;
+
+    @Column(name = "librosInsertados", nullable = false)
+    private long librosInsertados;
+
+    @Column(name = "lineasDescartadas", nullable = false)
+    private long lineasDescartadas;
+
+    @Column(name = "terminada", nullable = false)
+    private boolean terminada;
+
+    @Column(name = "fechaActualizacion")
+    private LocalDateTime fechaActualizacion;
+}
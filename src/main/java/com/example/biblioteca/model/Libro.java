@@ -4,6 +4,7 @@ import jakarta.persistence.*;
 import jakarta.validation.constraints.NotEmpty;
 import jakarta.validation.constraints.NotNull;
 import lombok.*;
+import org.hibernate.annotations.BatchSize;
 
 import java.util.List;
 
@@ -28,12 +29,21 @@ public class Libro extends MaterialBiblioteca{
     /**
      * Para establecer una relación entra las tablas Libro y Autor como un libro puede tener varios autores
      * y un autor puede tener varios libros, es necesario usar la relación @ManyToMany
+     *
+     * Con @BatchSize, al recorrer una página de libros los autores se cargan en bloques de hasta 100 libros
+     * con una sola consulta (WHERE libroIsbn IN (...)) en vez de una consulta por libro.
      */
     @ManyToMany
+    @BatchSize(size = 100)
     @JoinTable(
             name = "LibroAutor",
             joinColumns = @JoinColumn(name = "libroIsbn"),
-            inverseJoinColumns = @JoinColumn(name = "AutorId")
+            inverseJoinColumns = @JoinColumn(name = "AutorId"),
+            //Se recorre en los dos sentidos: autores de un libro y libros de un autor
+            indexes = {
+                    @Index(name = "ix_libro_autor_libro", columnList = "libroIsbn, AutorId"),
+                    @Index(name = "ix_libro_autor_autor", columnList = "AutorId, libroIsbn")
+            }
     )
     @NotEmpty(message="Un libro debe tener al menos un autor")
     private List<Autor> autores;
@@ -0,0 +1,23 @@
+package com.example.biblioteca.model;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Embeddable;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+
+//Material de un préstamo archivado (PrestamoHistorico) y cuándo se devolvió. En un préstamo archivado todas las
+//líneas están devueltas, así que no hace falta su estado. La fecha es null en las devueltas antes de V8
+@Embeddable
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class LineaPrestamoHistorico {
+    @Column(name = "MaterialId", nullable = false)
+    private int materialId;
+
+    @Column(name = "fecha_devolucion")
+    private LocalDate fechaDevolucion;
+}
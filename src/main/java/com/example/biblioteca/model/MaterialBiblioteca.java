@@ -1,22 +1,41 @@
 package com.example.biblioteca.model;
 
 import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.example.biblioteca.busqueda.ListenerIndiceBusqueda;
+import com.example.biblioteca.disponibilidad.ListenerDisponibilidad;
 import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
 import java.util.List;
 
 @Entity
-@Table(name="MaterialBiblioteca")
+/*
+Título e isbn son claves naturales: se buscan en cada préstamo, devolución y baja de libro.
+El isbn solo lo tienen los libros; en las revistas es null y el índice único admite varios null.
+*/
+@Table(name="MaterialBiblioteca",
+        indexes = {
+                @Index(name = "ux_material_titulo", columnList = "titulo", unique = true),
+                @Index(name = "ux_material_isbn", columnList = "isbn", unique = true)
+        })
+//Caché de segundo nivel: se lee por id después de buscarlo por título (IdsMaterialPorTitulo). Libro y Revista comparten la región
+//de esta clase; los UPDATE de disponibles solo descartan de ella el material que cambian
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
+//Mantienen el índice de búsqueda (GET /Busqueda) y el registro de disponibilidad al guardar o borrar libros y revistas
+@EntityListeners({ListenerIndiceBusqueda.class, ListenerDisponibilidad.class})
 @Data //Genera automáticamente getters, setters, toString(), equals() y hashCode()
 @NoArgsConstructor //Genera un constructor sin argumentos.
 @AllArgsConstructor //Genera un constructor con todos los campos.
 
 public abstract class MaterialBiblioteca {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY) //Para claves primaria autogeneradas
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "material_biblioteca_seq")
+    @SequenceGenerator(name = "material_biblioteca_seq", sequenceName = "material_biblioteca_seq", allocationSize = 50)
     @Column(name = "id", nullable = false)
     protected int id;
 
@@ -31,9 +50,22 @@ public abstract class MaterialBiblioteca {
     @Column(name = "disponibles")
     protected Integer disponibles;
 
-    @ManyToMany(mappedBy = "materiales", cascade = CascadeType.ALL)
+    //Versión del material: ETag de GET /Libros/{titulo}, de GET /Revistas/{titulo} y de las páginas de los listados.
+    //Hibernate la incrementa al guardar la entidad (y rechaza el cambio si otra transacción la ha guardado antes);
+    //los UPDATE de disponibles, en la consulta
+    @Version
+    @Column(name = "version", nullable = false)
+    protected long version;
+
+    //Posición de la última reserva de la cola del material. La siguiente reserva recibe ultimaReserva + 1
+    @Column(name = "ultimaReserva", nullable = false)
+    protected int ultimaReserva;
+
+    //Líneas de préstamo del material. Al dar de baja el material se borran sus líneas, no los préstamos
+    //(la baja solo se permite sin ejemplares prestados)
+    @OneToMany(mappedBy = "material", cascade = CascadeType.REMOVE)
     @JsonIgnore // ← evita serializar los préstamos desde el material
-    private List<Prestamo> prestamos;
+    private List<PrestamoMaterial> lineasPrestamo;
 
 
 }
@@ -16,7 +16,8 @@ import java.sql.Date;
 
 public class Membresia {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY) //Para claves primaria autogeneradas
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "membresia_seq")
+    @SequenceGenerator(name = "membresia_seq", sequenceName = "membresia_seq", allocationSize = 50)
     @Column(name = "id", nullable = false)
     private int id;
 
@@ -1,53 +1,110 @@
 package com.example.biblioteca.model;
 
 import com.fasterxml.jackson.annotation.JsonBackReference;
-import com.fasterxml.jackson.annotation.JsonManagedReference;
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
 import java.time.LocalDate;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Optional;
 
 @Entity
-@Table(name="Prestamo")
+//Índices para los préstamos activos de un usuario (findByUsuario_idAndActivo)
+//y para los préstamos activos sin marcar como vencidos por fecha de vencimiento (barrido de vencimientos)
+@Table(name="Prestamo",
+        indexes = {
+                @Index(name = "ix_prestamo_usuario_activo", columnList = "usuario_id, activo"),
+                @Index(name = "ix_prestamo_activo_vencido_vencimiento", columnList = "activo, vencido, fecha_vencimiento")
+        })
 @Data //Genera automáticamente getters, setters, toString(), equals() y hashCode()
 @NoArgsConstructor //Genera un constructor sin argumentos.
 @AllArgsConstructor //Genera un constructor con todos los campos.
 
 public class Prestamo {
+    //Plazo de un préstamo: vence DIAS_PRESTAMO días después de la fecha de préstamo
+    public static final int DIAS_PRESTAMO = 21;
+
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY) //Para claves primaria autogeneradas
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "prestamo_seq")
+    @SequenceGenerator(name = "prestamo_seq", sequenceName = "prestamo_seq", allocationSize = 50)
     @Column(name = "id", nullable = false)
     private int id;
 
     @Column(name = "fecha_prestamo", nullable = false)
     private LocalDate fechaPrestamo;
 
+    //Si no se indica, se calcula al insertar (calcularFechaVencimiento)
+    @Column(name = "fecha_vencimiento", nullable = false)
+    private LocalDate fechaVencimiento;
+
     @ManyToOne
     //@JsonIgnoreProperties("prestamos") // Evita que Usuario serialice sus Prestamos
     @JoinColumn(name="usuario_id", referencedColumnName = "id", nullable = false)
     @JsonBackReference
     private Usuario usuario;
 
-    /**
-     * Para establecer una relación entra las tablas Libro y Autor como un libro puede tener varios autores
-     * y un autor puede tener varios libros, es necesario usar la relación @ManyToMany
-     */
-    @ManyToMany
-    @JoinTable(
-            name = "PrestamoMaterial",
-            joinColumns = @JoinColumn(name = "PrestamoId"),
-            inverseJoinColumns = @JoinColumn(name = "MaterialId")
-    )
-    @JsonManagedReference
-    private List<MaterialBiblioteca> materiales;
-
-
+    //Materiales del préstamo, cada uno con su estado (PrestamoMaterial). Se guardan y se borran con el préstamo
+    @OneToMany(mappedBy = "prestamo", cascade = CascadeType.ALL, orphanRemoval = true)
+    @JsonIgnore //En JSON se ven los materiales (getMateriales)
+    private List<PrestamoMaterial> lineas = new ArrayList<>();
 
+    //Sigue activo mientras quede algún material sin devolver
     @Column(name="activo", nullable = false)
     private boolean activo;
 
+    //Lo marca el barrido de vencimientos cuando el préstamo sigue activo después de la fecha de vencimiento
+    @Column(name="vencido", nullable = false)
+    private boolean vencido;
+
+    //Todos los materiales del préstamo, devueltos o no
+    public List<MaterialBiblioteca> getMateriales() {
+        return lineas.stream().map(PrestamoMaterial::getMaterial).toList();
+    }
+
+    //Materiales que siguen prestados
+    @JsonIgnore
+    public List<MaterialBiblioteca> getMaterialesActivos() {
+        return lineas.stream().filter(PrestamoMaterial::isActivo).map(PrestamoMaterial::getMaterial).toList();
+    }
+
+    //Sustituye los materiales del préstamo por líneas activas. Un material repetido es una sola línea
+    public void setMateriales(List<MaterialBiblioteca> materiales) {
+        lineas.clear();
+        for (MaterialBiblioteca material : materiales) {
+            if (lineas.stream().noneMatch(linea -> linea.getMaterial().getId() == material.getId())) {
+                lineas.add(new PrestamoMaterial(this, material));
+            }
+        }
+    }
+
+    /**
+     * Devuelve el material: cierra solo su línea, y el préstamo cuando ya no queda ningún material prestado.
+     *
+     * @return false si el material no está prestado en este préstamo.
+     */
+    public boolean devolver(int materialId, LocalDate fecha) {
+        Optional<PrestamoMaterial> linea = lineas.stream()
+                .filter(l -> l.isActivo() && l.getMaterial().getId() == materialId)
+                .findFirst();
+        if (linea.isEmpty()) {
+            return false;
+        }
+        linea.get().devolver(fecha);
+        activo = lineas.stream().anyMatch(PrestamoMaterial::isActivo);
+        return true;
+    }
+
+    //Todas las altas de préstamos (REST, consola, lotes y reservas) pasan por aquí
+    @PrePersist
+    void calcularFechaVencimiento() {
+        if (fechaVencimiento == null && fechaPrestamo != null) {
+            fechaVencimiento = fechaPrestamo.plusDays(DIAS_PRESTAMO);
+        }
+    }
+
 }
 
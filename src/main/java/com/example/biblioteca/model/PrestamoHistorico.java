@@ -0,0 +1,83 @@
+package com.example.biblioteca.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.domain.Persistable;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.HashSet;
+import java.util.Set;
+
+@Entity
+/*
+Préstamo devuelto que se ha movido de Prestamo al histórico (ArchivoPrestamosService).
+Conserva el id del préstamo. El usuario y los materiales se guardan por id, sin relaciones ni claves ajenas:
+el histórico no se carga al trabajar con los préstamos activos y se conserva aunque se dé de baja el material.
+De cada material se guarda también la fecha en que se devolvió (LineaPrestamoHistorico).
+*/
+@Table(name = "PrestamoHistorico",
+        indexes = @Index(name = "ix_prestamo_historico_usuario", columnList = "usuario_id, id"))
+@Data //Genera automáticamente getters, setters, toString(), equals() y hashCode()
+@NoArgsConstructor //Genera un constructor sin argumentos.
+@AllArgsConstructor //Genera un constructor con todos los campos.
+
+public class PrestamoHistorico implements Persistable<Integer> {
+    //Id asignado (el del préstamo), sin @GeneratedValue
+    @Id
+    @Column(name = "id", nullable = false)
+    private int id;
+
+    @Column(name = "fecha_prestamo", nullable = false)
+    private LocalDate fechaPrestamo;
+
+    @Column(name = "fecha_vencimiento", nullable = false)
+    private LocalDate fechaVencimiento;
+
+    @Column(name = "usuario_id", nullable = false)
+    private int usuarioId;
+
+    @ElementCollection
+    @CollectionTable(name = "PrestamoMaterialHistorico", joinColumns = @JoinColumn(name = "PrestamoId"))
+    private Set<LineaPrestamoHistorico> lineas = new HashSet<>();
+
+    @Column(name = "vencido", nullable = false)
+    private boolean vencido;
+
+    @Column(name = "fechaArchivo", nullable = false)
+    private LocalDateTime fechaArchivo;
+
+    //Con el id asignado, save() haría un SELECT por cada fila para decidir entre insertar y actualizar
+    @Transient
+    private boolean nuevo;
+
+    public PrestamoHistorico(Prestamo prestamo, LocalDateTime fechaArchivo) {
+        this.id = prestamo.getId();
+        this.fechaPrestamo = prestamo.getFechaPrestamo();
+        this.fechaVencimiento = prestamo.getFechaVencimiento();
+        this.usuarioId = prestamo.getUsuario().getId();
+        prestamo.getLineas().forEach(linea ->
+                lineas.add(new LineaPrestamoHistorico(linea.getMaterial().getId(), linea.getFechaDevolucion())));
+        this.vencido = prestamo.isVencido();
+        this.fechaArchivo = fechaArchivo;
+        this.nuevo = true;
+    }
+
+    @Override
+    public Integer getId() {
+        return id;
+    }
+
+    @Override
+    public boolean isNew() {
+        return nuevo;
+    }
+
+    @PostPersist
+    @PostLoad
+    void marcarGuardado() {
+        nuevo = false;
+    }
+}
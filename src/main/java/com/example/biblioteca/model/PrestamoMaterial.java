@@ -0,0 +1,81 @@
+package com.example.biblioteca.model;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.LocalDate;
+import java.util.Objects;
+
+@Entity
+/*
+Línea de un préstamo: un material prestado, con su propio estado. Un préstamo de varios materiales sigue activo
+hasta que se devuelve el último (Prestamo.devolver).
+- La clave (prestamo_id, material_id) lleva los materiales de un préstamo.
+- El índice (material_id, activo, prestamo_id) lleva los préstamos activos de un material y la línea que se devuelve,
+  sin leer las líneas ya devueltas.
+- Las columnas se nombran ya en snake_case: con @MapsId Hibernate toma para la clave el nombre de @JoinColumn tal cual,
+  sin la estrategia de nombres, y con "PrestamoId" la entidad tendría dos columnas (PrestamoId y prestamo_id).
+*/
+@Table(name = "PrestamoMaterial",
+        indexes = @Index(name = "ix_prestamo_material_material_activo", columnList = "material_id, activo, prestamo_id"))
+//Sin @Data: equals, hashCode y toString de Lombok recorrerían Prestamo -> líneas -> Prestamo (ver equals)
+@Getter
+@Setter
+@NoArgsConstructor
+public class PrestamoMaterial {
+    @EmbeddedId
+    private PrestamoMaterialId id = new PrestamoMaterialId();
+
+    @MapsId("prestamoId")
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "prestamo_id", nullable = false)
+    private Prestamo prestamo;
+
+    //El id del material se copia en la clave (constructor) en lugar de usar @MapsId: con @MapsId Hibernate
+    //intentaría persistir un material que no esté en la sesión al guardar el préstamo
+    @ManyToOne
+    @JoinColumn(name = "material_id", nullable = false, insertable = false, updatable = false)
+    private MaterialBiblioteca material;
+
+    @Column(name = "activo", nullable = false)
+    private boolean activo;
+
+    //Null mientras el material sigue prestado
+    @Column(name = "fecha_devolucion")
+    private LocalDate fechaDevolucion;
+
+    public PrestamoMaterial(Prestamo prestamo, MaterialBiblioteca material) {
+        this.prestamo = prestamo;
+        this.material = material;
+        this.id.setMaterialId(material.getId());
+        this.activo = true;
+    }
+
+    public void devolver(LocalDate fecha) {
+        this.activo = false;
+        this.fechaDevolucion = fecha;
+    }
+
+    //Misma clave, material y estado. Sin el préstamo, que a su vez compara sus líneas
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof PrestamoMaterial linea)) {
+            return false;
+        }
+        return activo == linea.activo
+                && Objects.equals(id, linea.id)
+                && Objects.equals(fechaDevolucion, linea.fechaDevolucion)
+                && (material == null ? linea.material == null
+                        : linea.material != null && material.getId() == linea.material.getId());
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(id, activo);
+    }
+}
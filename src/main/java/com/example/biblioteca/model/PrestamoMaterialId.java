@@ -0,0 +1,23 @@
+package com.example.biblioteca.model;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Embeddable;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+
+//Clave de una línea de préstamo: el préstamo (@MapsId en PrestamoMaterial) y el material.
+//Columnas con el nombre final, como en PrestamoMaterial
+@Embeddable
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class PrestamoMaterialId implements Serializable {
+    @Column(name = "prestamo_id")
+    private int prestamoId;
+
+    @Column(name = "material_id")
+    private int materialId;
+}
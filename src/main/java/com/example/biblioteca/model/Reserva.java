@@ -0,0 +1,60 @@
+package com.example.biblioteca.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Entity
+/*
+Reserva de un material que no tiene ejemplares disponibles.
+Las reservas de cada material forman una cola: la posición crece con cada reserva nueva y, al devolver
+un ejemplar, se presta a la primera reserva activa. El índice (material_id, activa, posicion) deja esa
+reserva al principio del rango de su material, así que se lee una sola fila sin recorrer las ya atendidas.
+*/
+@Table(name = "Reserva",
+        indexes = {
+                @Index(name = "ux_reserva_material_posicion", columnList = "material_id, posicion", unique = true),
+                @Index(name = "ix_reserva_material_activa_posicion", columnList = "material_id, activa, posicion"),
+                @Index(name = "ix_reserva_usuario_activa", columnList = "usuario_id, activa")
+        })
+@Data //Genera automáticamente getters, setters, toString(), equals() y hashCode()
+@NoArgsConstructor //Genera un constructor sin argumentos.
+@AllArgsConstructor //Genera un constructor con todos los campos.
+
+public class Reserva {
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "reserva_seq")
+    @SequenceGenerator(name = "reserva_seq", sequenceName = "reserva_seq", allocationSize = 50)
+    @Column(name = "id", nullable = false)
+    private int id;
+
+    @ManyToOne
+    @JoinColumn(name = "material_id", referencedColumnName = "id", nullable = false)
+    private MaterialBiblioteca material;
+
+    @ManyToOne
+    @JoinColumn(name = "usuario_id", referencedColumnName = "id", nullable = false)
+    private Usuario usuario;
+
+    //Posición en la cola del material (MaterialBiblioteca.ultimaReserva al reservar). No se renumera al atender o cancelar
+    @Column(name = "posicion", nullable = false)
+    private int posicion;
+
+    @Column(name = "fechaReserva", nullable = false)
+    private LocalDateTime fechaReserva;
+
+    //False cuando se ha atendido (tiene préstamo) o se ha cancelado
+    @Column(name = "activa", nullable = false)
+    private boolean activa;
+
+    //Préstamo creado al devolverse un ejemplar. Null mientras espera o si se ha cancelado
+    @ManyToOne
+    @JoinColumn(name = "prestamo_id", referencedColumnName = "id")
+    private Prestamo prestamo;
+
+    @Column(name = "fechaAtencion")
+    private LocalDateTime fechaAtencion;
+}
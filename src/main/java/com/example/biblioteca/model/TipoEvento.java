@@ -0,0 +1,10 @@
+package com.example.biblioteca.model;
+
+//Entidad a la que se refiere un evento
+public enum TipoEvento {
+    LIBRO,
+    REVISTA,
+    AUTOR,
+    USUARIO,
+    PRESTAMO
+}
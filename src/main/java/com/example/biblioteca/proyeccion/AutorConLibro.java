@@ -0,0 +1,8 @@
+package com.example.biblioteca.proyeccion;
+
+/**
+ * Fila (autor, id de libro) obtenida con un LEFT JOIN entre autores y libros.
+ * Un autor sin libros devuelve una única fila con {@code libroId} a null.
+ */
+public record AutorConLibro(int id, String nombre, Integer libroId) {
+}
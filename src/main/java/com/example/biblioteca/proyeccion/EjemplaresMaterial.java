@@ -0,0 +1,10 @@
+package com.example.biblioteca.proyeccion;
+
+//Ejemplares totales y disponibles de un material (registro de disponibilidad en memoria y su conciliación)
+public record EjemplaresMaterial(int id, Integer totales, Integer disponibles) {
+
+    //Ejemplares que están prestados o entregados a una reserva
+    public int prestados() {
+        return totales - disponibles;
+    }
+}
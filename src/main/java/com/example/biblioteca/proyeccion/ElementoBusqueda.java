@@ -0,0 +1,17 @@
+package com.example.biblioteca.proyeccion;
+
+/**
+ * Datos de un libro, revista o autor que se guardan en el índice de búsqueda (IndiceBusqueda).
+ * Se obtiene de la entidad al guardarla o con una consulta al reconstruir el índice.
+ *
+ * @param tipo         LIBRO, REVISTA o AUTOR.
+ * @param texto        título del material o nombre del autor.
+ * @param isbn         solo en los libros.
+ * @param periodicidad solo en las revistas.
+ */
+public record ElementoBusqueda(String tipo,
+                               int id,
+                               String texto,
+                               String isbn,
+                               String periodicidad) {
+}
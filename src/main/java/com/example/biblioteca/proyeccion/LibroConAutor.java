@@ -0,0 +1,14 @@
+package com.example.biblioteca.proyeccion;
+
+/**
+ * Fila (libro, nombre de autor) obtenida con un LEFT JOIN entre libros y autores, para la exportación del catálogo.
+ * Un libro con varios autores devuelve una fila por autor; uno sin autores, una fila con {@code autor} a null.
+ */
+public record LibroConAutor(int id,
+                            String isbn,
+                            int añoPublicacion,
+                            String titulo,
+                            String autor,
+                            Integer totales,
+                            Integer disponibles) {
+}
@@ -0,0 +1,15 @@
+package com.example.biblioteca.proyeccion;
+
+/**
+ * Proyección con las columnas de un {@code Libro} que necesita {@code LibroDTO}, salvo los autores.
+ *
+ * Se construye directamente en la consulta JPQL ({@code SELECT new ...}), de modo que Hibernate
+ * no crea entidades gestionadas ni las vigila para el dirty checking.
+ */
+public record LibroResumen(int id,
+                           String isbn,
+                           int añoPublicacion,
+                           String titulo,
+                           int totales,
+                           int disponibles) {
+}
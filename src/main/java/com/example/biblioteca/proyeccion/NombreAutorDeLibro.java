@@ -0,0 +1,8 @@
+package com.example.biblioteca.proyeccion;
+
+/**
+ * Fila (libro, nombre de autor) de la relación entre libros y autores.
+ * El servicio agrupa estas filas por {@code libroId} para componer la lista de autores de cada libro.
+ */
+public record NombreAutorDeLibro(int libroId, String nombre) {
+}
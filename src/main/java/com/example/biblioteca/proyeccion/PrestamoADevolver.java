@@ -0,0 +1,5 @@
+package com.example.biblioteca.proyeccion;
+
+//Préstamo activo de un usuario que incluye el material que se devuelve
+public record PrestamoADevolver(int prestamoId, int materialId, String titulo) {
+}
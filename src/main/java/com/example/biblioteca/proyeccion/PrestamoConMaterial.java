@@ -0,0 +1,14 @@
+package com.example.biblioteca.proyeccion;
+
+import java.time.LocalDate;
+
+/**
+ * Fila (préstamo, título de material) obtenida con un LEFT JOIN entre préstamos y materiales, para la exportación.
+ * Un préstamo con varios materiales devuelve una fila por material.
+ */
+public record PrestamoConMaterial(int id,
+                                  LocalDate fechaPrestamo,
+                                  String nombreUsuario,
+                                  boolean activo,
+                                  String titulo) {
+}
@@ -0,0 +1,8 @@
+package com.example.biblioteca.proyeccion;
+
+/**
+ * Fila (usuario, id de préstamo) obtenida con un LEFT JOIN entre usuarios y préstamos.
+ * Un usuario sin préstamos devuelve una única fila con {@code prestamoId} a null.
+ */
+public record UsuarioConPrestamo(int id, String nombre, String email, Integer prestamoId) {
+}
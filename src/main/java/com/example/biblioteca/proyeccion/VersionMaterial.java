@@ -0,0 +1,33 @@
+package com.example.biblioteca.proyeccion;
+
+import java.util.List;
+
+/**
+ * Versión de un libro o revista para su ETag (GET /Libros/{titulo} y GET /Revistas/{titulo})
+ * y para el de la página de un listado (GET /Libros y GET /Revistas).
+ *
+ * Se lee con una consulta de columnas, sin cargar la entidad. {@code versionAutores} es la suma de las versiones
+ * de los autores del libro (0 en una revista): el nombre de un autor sale en el libro y su versión solo crece.
+ */
+public record VersionMaterial(int id, long version, long versionAutores) {
+
+    //ETag fuerte (sin comillas: las pone WebRequest.checkNotModified)
+    public String etag() {
+        return id + "-" + version + "-" + versionAutores;
+    }
+
+    /**
+     * ETag de una página de un listado, con las versiones de sus materiales en el orden del listado.
+     * Cambia si entra o sale un material de la página (altas, bajas, páginas desplazadas) o si cambia alguno de ellos,
+     * incluidos sus disponibles y los nombres de sus autores.
+     */
+    public static String etagPagina(List<VersionMaterial> versiones) {
+        long resumen = 1;
+        for (VersionMaterial versionMaterial : versiones) {
+            resumen = 31 * resumen + versionMaterial.id();
+            resumen = 31 * resumen + versionMaterial.version();
+            resumen = 31 * resumen + versionMaterial.versionAutores();
+        }
+        return "pagina-" + versiones.size() + "-" + Long.toHexString(resumen);
+    }
+}
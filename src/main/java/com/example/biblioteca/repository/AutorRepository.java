@@ -1,12 +1,20 @@
 package com.example.biblioteca.repository;
 
 import com.example.biblioteca.model.Autor;
+import com.example.biblioteca.proyeccion.AutorConLibro;
+import com.example.biblioteca.proyeccion.ElementoBusqueda;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.AvailableHints;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
 public interface AutorRepository extends JpaRepository<Autor,Integer> {
@@ -22,4 +30,26 @@ public interface AutorRepository extends JpaRepository<Autor,Integer> {
             @Param("nombre") String nombre)
             ;
 
+    /*
+    Devuelve solo el autor, sin sus libros, para asociarlo a un libro nuevo.
+    Al no tener JOIN FETCH se puede cachear: la consulta guarda el id del autor y la entidad
+    se sirve desde la caché de segundo nivel.
+    */
+    @Query("SELECT a FROM Autor a WHERE a.nombre = :nombre")
+    @QueryHints(@QueryHint(name = AvailableHints.HINT_CACHEABLE, value = "true"))
+    Optional<Autor> findSoloAutorByNombre(@Param("nombre") String nombre);
+
+    //Autores de un lote de la importación de libros, con una sola consulta
+    List<Autor> findByNombreIn(Collection<String> nombres);
+
+    //Datos del autor para el AutorDTO: una fila por libro (o una sola con libroId null si no tiene libros)
+    @Query("SELECT new com.example.biblioteca.proyeccion.AutorConLibro(a.id, a.nombre, l.id) " +
+            "FROM Autor a LEFT JOIN a.libro l WHERE a.nombre = :nombre ORDER BY l.id")
+    List<AutorConLibro> findResumenByNombre(@Param("nombre") String nombre);
+
+    //Reconstrucción del índice de búsqueda: en streaming, como la exportación
+    @Query("SELECT new com.example.biblioteca.proyeccion.ElementoBusqueda('AUTOR', a.id, a.nombre, CAST(NULL AS String), CAST(NULL AS String)) " +
+            "FROM Autor a")
+    @QueryHints(@QueryHint(name = AvailableHints.HINT_FETCH_SIZE, value = "1000"))
+    Stream<ElementoBusqueda> findTodosParaIndexar();
 }
@@ -0,0 +1,35 @@
+package com.example.biblioteca.repository;
+
+/**
+ * Cambios de ejemplares disponibles y de la cola de reservas de un material, cada uno con un único UPDATE condicional
+ * ({@link DisponiblesMaterialRepositoryImpl}). Forma parte de {@link MaterialBibliotecaRepository}.
+ *
+ * Los UPDATE de disponibles incrementan también la versión del material (ETag de GET /Libros/{titulo}).
+ */
+public interface DisponiblesMaterialRepository {
+
+    /*
+    Descuenta un ejemplar solo si queda alguno disponible.
+    La comprobación y la resta se hacen en la misma sentencia, así que dos préstamos simultáneos
+    del último ejemplar no pueden dejar disponibles en negativo: solo uno de ellos modifica la fila.
+    Devuelve el número de filas actualizadas (0 si no quedaban ejemplares).
+    */
+    int disminuirDisponible(int id);
+
+    //Suma un ejemplar solo si hay alguno prestado (disponibles < totales).
+    int aumentarDisponible(int id);
+
+    //Descuenta varios ejemplares a la vez, solo si quedan todos los pedidos. Devuelve 0 si no se ha descontado ninguno.
+    int disminuirDisponibles(int id, int cantidad);
+
+    //Suma varios ejemplares a la vez, sin pasar nunca de totales.
+    int aumentarDisponibles(int id, int cantidad);
+
+    /*
+    Reserva la siguiente posición de la cola del material, solo si no le quedan ejemplares disponibles.
+    Como en disminuirDisponible, la comprobación y el cambio van en la misma sentencia. La fila del material
+    queda bloqueada hasta el final de la transacción, así que una devolución del mismo material espera a que
+    la reserva se confirme. Devuelve 0 si el material tiene ejemplares disponibles.
+    */
+    int avanzarUltimaReserva(int id);
+}
@@ -0,0 +1,126 @@
+package com.example.biblioteca.repository;
+
+import com.example.biblioteca.model.MaterialBiblioteca;
+import jakarta.persistence.Cache;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.hibernate.persister.entity.AbstractEntityPersister;
+import org.hibernate.query.NativeQuery;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * UPDATE de {@link DisponiblesMaterialRepository} en SQL nativo.
+ *
+ * - Con un UPDATE en JPQL, Hibernate vacía toda la región de MaterialBiblioteca de la caché de segundo nivel
+ *   (Libro y Revista la comparten): cada préstamo dejaría sin caché a todos los materiales. En SQL nativo con un
+ *   espacio de consulta vacío no vacía nada, y aquí se descarta solo el material actualizado.
+ * - Se descarta al ejecutar el UPDATE y otra vez al terminar la transacción: hasta el commit, otra transacción
+ *   puede leer la fila anterior y volver a cachearla.
+ * - Antes del UPDATE se vuelcan los cambios pendientes de materiales de la sesión, como haría Hibernate con el de JPQL
+ *   (un material dado de alta en la misma transacción).
+ * - La tabla y las columnas salen del mapeo de Hibernate: los tests crean el esquema con otros nombres físicos.
+ */
+class DisponiblesMaterialRepositoryImpl implements DisponiblesMaterialRepository {
+
+    private final EntityManager entityManager;
+    private final Cache cache;
+    private final Set<String> tablasMaterial;
+
+    private final String disminuirDisponible;
+    private final String aumentarDisponible;
+    private final String disminuirDisponibles;
+    private final String aumentarDisponibles;
+    private final String avanzarUltimaReserva;
+
+    public DisponiblesMaterialRepositoryImpl(EntityManager entityManager, EntityManagerFactory entityManagerFactory) {
+        this.entityManager = entityManager;
+        this.cache = entityManagerFactory.getCache();
+
+        AbstractEntityPersister material = (AbstractEntityPersister) entityManagerFactory.unwrap(SessionFactoryImplementor.class)
+                .getMappingMetamodel()
+                .getEntityDescriptor(MaterialBiblioteca.class);
+        tablasMaterial = Arrays.stream(material.getQuerySpaces()).map(String.class::cast).collect(Collectors.toSet());
+        Map<String, String> nombres = Map.of(
+                "{tabla}", material.getTableName(),
+                "{id}", material.getIdentifierColumnNames()[0],
+                "{disponibles}", material.getPropertyColumnNames("disponibles")[0],
+                "{totales}", material.getPropertyColumnNames("totales")[0],
+                "{version}", material.getPropertyColumnNames("version")[0],
+                "{ultimaReserva}", material.getPropertyColumnNames("ultimaReserva")[0]);
+
+        disminuirDisponible = sql(nombres, "UPDATE {tabla} SET {disponibles} = {disponibles} - 1, {version} = {version} + 1 WHERE {id} = :id AND {disponibles} > 0");
+        aumentarDisponible = sql(nombres, "UPDATE {tabla} SET {disponibles} = {disponibles} + 1, {version} = {version} + 1 WHERE {id} = :id AND {disponibles} < {totales}");
+        disminuirDisponibles = sql(nombres, "UPDATE {tabla} SET {disponibles} = {disponibles} - :cantidad, {version} = {version} + 1 WHERE {id} = :id AND {disponibles} >= :cantidad");
+        aumentarDisponibles = sql(nombres, "UPDATE {tabla} SET {disponibles} = {disponibles} + :cantidad, {version} = {version} + 1 WHERE {id} = :id AND {disponibles} + :cantidad <= {totales}");
+        avanzarUltimaReserva = sql(nombres, "UPDATE {tabla} SET {ultimaReserva} = {ultimaReserva} + 1 WHERE {id} = :id AND {disponibles} = 0");
+    }
+
+    @Override
+    public int disminuirDisponible(int id) {
+        return actualizar(disminuirDisponible, id, null);
+    }
+
+    @Override
+    public int aumentarDisponible(int id) {
+        return actualizar(aumentarDisponible, id, null);
+    }
+
+    @Override
+    public int disminuirDisponibles(int id, int cantidad) {
+        return actualizar(disminuirDisponibles, id, cantidad);
+    }
+
+    @Override
+    public int aumentarDisponibles(int id, int cantidad) {
+        return actualizar(aumentarDisponibles, id, cantidad);
+    }
+
+    @Override
+    public int avanzarUltimaReserva(int id) {
+        return actualizar(avanzarUltimaReserva, id, null);
+    }
+
+    private int actualizar(String sql, int id, Integer cantidad) {
+        entityManager.unwrap(SharedSessionContractImplementor.class).autoFlushIfRequired(tablasMaterial);
+        NativeQuery<?> update = entityManager.createNativeQuery(sql)
+                .unwrap(NativeQuery.class)
+                .addSynchronizedQuerySpace("");
+        update.setParameter("id", id);
+        if (cantidad != null) {
+            update.setParameter("cantidad", cantidad);
+        }
+        int filas = update.executeUpdate();
+        if (filas > 0) {
+            desalojar(id);
+        }
+        return filas;
+    }
+
+    private void desalojar(int id) {
+        cache.evict(MaterialBiblioteca.class, id);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    cache.evict(MaterialBiblioteca.class, id);
+                }
+            });
+        }
+    }
+
+    private static String sql(Map<String, String> nombres, String plantilla) {
+        String sql = plantilla;
+        for (Map.Entry<String, String> nombre : nombres.entrySet()) {
+            sql = sql.replace(nombre.getKey(), nombre.getValue());
+        }
+        return sql;
+    }
+}
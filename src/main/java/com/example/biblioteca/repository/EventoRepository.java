@@ -0,0 +1,14 @@
+package com.example.biblioteca.repository;
+
+import com.example.biblioteca.model.Evento;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface EventoRepository extends JpaRepository<Evento, Long>, InsercionEventosRepository {
+    //Eventos posteriores al cursor, en orden. Recorre la clave primaria: no depende del tamaño de la tabla
+    List<Evento> findByIdGreaterThanOrderByIdAsc(long desde, Pageable pageable);
+}
@@ -0,0 +1,12 @@
+package com.example.biblioteca.repository;
+
+import com.example.biblioteca.model.Importacion;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.Optional;
+
+@Repository
+public interface ImportacionRepository extends JpaRepository<Importacion, Integer> {
+    Optional<Importacion> findByNombre(String nombre);
+}
@@ -0,0 +1,20 @@
+package com.example.biblioteca.repository;
+
+import com.example.biblioteca.model.Evento;
+
+import java.util.List;
+
+/**
+ * Inserción de los eventos de un lote ({@link InsercionEventosRepositoryImpl}). Forma parte de {@link EventoRepository}.
+ *
+ * El id de {@link Evento} es IDENTITY, así que saveAll haría un INSERT (un viaje a la base de datos) por evento:
+ * en la importación de libros, tantos como libros.
+ */
+public interface InsercionEventosRepository {
+
+    /*
+    Inserta los eventos con INSERT de varias filas, en el orden de la lista. No asigna los ids a los objetos
+    ni los deja en la sesión.
+    */
+    void insertarTodos(List<Evento> eventos);
+}
@@ -0,0 +1,73 @@
+package com.example.biblioteca.repository;
+
+import com.example.biblioteca.model.Evento;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.persister.entity.AbstractEntityPersister;
+import org.hibernate.query.NativeQuery;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.StringJoiner;
+
+/**
+ * INSERT de {@link InsercionEventosRepository} en SQL nativo.
+ *
+ * - Cada sentencia inserta como mucho {@link #FILAS_POR_SENTENCIA} eventos: un lote de 1.000 libros importados son
+ *   2 sentencias y no 1.000.
+ * - MariaDB asigna los ids auto_increment de una sentencia de varias filas en el orden de las filas.
+ * - El espacio de consulta es el de Evento: no se vacía ninguna región de la caché de segundo nivel.
+ * - La tabla y las columnas salen del mapeo de Hibernate: los tests crean el esquema con otros nombres físicos.
+ */
+class InsercionEventosRepositoryImpl implements InsercionEventosRepository {
+
+    static final int FILAS_POR_SENTENCIA = 500;
+    private static final int COLUMNAS = 5;
+
+    private final EntityManager entityManager;
+    private final String insert;
+
+    public InsercionEventosRepositoryImpl(EntityManager entityManager, EntityManagerFactory entityManagerFactory) {
+        this.entityManager = entityManager;
+
+        AbstractEntityPersister evento = (AbstractEntityPersister) entityManagerFactory.unwrap(SessionFactoryImplementor.class)
+                .getMappingMetamodel()
+                .getEntityDescriptor(Evento.class);
+        insert = "INSERT INTO " + evento.getTableName() + " ("
+                + evento.getPropertyColumnNames("fecha")[0] + ", "
+                + evento.getPropertyColumnNames("tipo")[0] + ", "
+                + evento.getPropertyColumnNames("accion")[0] + ", "
+                + evento.getPropertyColumnNames("entidadId")[0] + ", "
+                + evento.getPropertyColumnNames("datos")[0] + ") VALUES ";
+    }
+
+    @Override
+    public void insertarTodos(List<Evento> eventos) {
+        for (int desde = 0; desde < eventos.size(); desde += FILAS_POR_SENTENCIA) {
+            insertar(eventos.subList(desde, Math.min(desde + FILAS_POR_SENTENCIA, eventos.size())));
+        }
+    }
+
+    private void insertar(List<Evento> eventos) {
+        StringJoiner filas = new StringJoiner(", ");
+        for (int i = 0; i < eventos.size(); i++) {
+            int primera = i * COLUMNAS + 1;
+            filas.add("(?" + primera + ", ?" + (primera + 1) + ", ?" + (primera + 2) + ", ?" + (primera + 3) + ", ?" + (primera + 4) + ")");
+        }
+
+        NativeQuery<?> insercion = entityManager.createNativeQuery(insert + filas)
+                .unwrap(NativeQuery.class)
+                .addSynchronizedEntityClass(Evento.class);
+        for (int i = 0; i < eventos.size(); i++) {
+            Evento evento = eventos.get(i);
+            int primera = i * COLUMNAS + 1;
+            insercion.setParameter(primera, evento.getFecha(), LocalDateTime.class);
+            insercion.setParameter(primera + 1, evento.getTipo().name(), String.class);
+            insercion.setParameter(primera + 2, evento.getAccion().name(), String.class);
+            insercion.setParameter(primera + 3, evento.getEntidadId(), Integer.class);
+            insercion.setParameter(primera + 4, evento.getDatos(), String.class);
+        }
+        insercion.executeUpdate();
+    }
+}
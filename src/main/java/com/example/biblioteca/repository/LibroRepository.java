@@ -1,13 +1,24 @@
 package com.example.biblioteca.repository;
 
 import com.example.biblioteca.model.Libro;
+import com.example.biblioteca.proyeccion.ElementoBusqueda;
+import com.example.biblioteca.proyeccion.LibroConAutor;
+import com.example.biblioteca.proyeccion.LibroResumen;
+import com.example.biblioteca.proyeccion.NombreAutorDeLibro;
+import com.example.biblioteca.proyeccion.VersionMaterial;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.AvailableHints;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
 public interface LibroRepository extends JpaRepository<Libro, Integer> {
@@ -17,13 +28,68 @@ public interface LibroRepository extends JpaRepository<Libro, Integer> {
     @Query("SELECT l FROM Libro l LEFT JOIN FETCH l.autores WHERE l.isbn = :isbn")
     Optional<Libro> findLibroConAutores(@Param("isbn") String isbn);
 
+    //Devuelve todos los libros con sus autores en una sola consulta (evita una consulta de autores por libro)
+    @Query("SELECT DISTINCT l FROM Libro l LEFT JOIN FETCH l.autores ORDER BY l.id")
+    List<Libro> findAllConAutores();
+
     //Dado el nombre de un autor, obtener un libro
     @Query("SELECT l FROM Libro l LEFT JOIN FETCH l.autores a WHERE a.nombre = :nombre")
     List<Optional<Libro>> findLibroByAutor(@Param("nombre") String nombre);
 
 
+    /*
+    Las consultas de listado devuelven proyecciones (LibroResumen) en vez de entidades:
+    solo se leen las columnas del DTO y no se cargan entidades en el contexto de persistencia.
+    */
+    //Listado paginado por desplazamiento (page/size). El Pageable aporta el límite y el offset.
+    @Query("SELECT new com.example.biblioteca.proyeccion.LibroResumen(l.id, l.isbn, l.añoPublicacion, l.titulo, l.totales, l.disponibles) " +
+            "FROM Libro l ORDER BY l.id")
+    List<LibroResumen> findPagina(Pageable pageable);
+
+    /*
+    Listado paginado por clave (keyset): libros con id mayor que afterId, ordenados por id.
+    El Pageable solo aporta el límite. La búsqueda entra directamente por la clave primaria,
+    así que el coste no depende de cuántas páginas se hayan recorrido antes.
+    */
+    @Query("SELECT new com.example.biblioteca.proyeccion.LibroResumen(l.id, l.isbn, l.añoPublicacion, l.titulo, l.totales, l.disponibles) " +
+            "FROM Libro l WHERE l.id > :afterId ORDER BY l.id")
+    List<LibroResumen> findSiguientes(@Param("afterId") int afterId, Pageable pageable);
+
+    //Nombres de los autores de un conjunto de libros, en una sola consulta para toda la página
+    @Query("SELECT new com.example.biblioteca.proyeccion.NombreAutorDeLibro(l.id, a.nombre) " +
+            "FROM Libro l JOIN l.autores a WHERE l.id IN :ids")
+    List<NombreAutorDeLibro> findNombresAutores(@Param("ids") Collection<Integer> ids);
+
+    //Versión del libro y de sus autores para el ETag de GET /Libros/{titulo}, sin cargar entidades
+    @Query("SELECT new com.example.biblioteca.proyeccion.VersionMaterial(l.id, l.version, COALESCE(SUM(a.version), 0L)) " +
+            "FROM Libro l LEFT JOIN l.autores a WHERE l.titulo = :titulo GROUP BY l.id, l.version")
+    Optional<VersionMaterial> findVersion(@Param("titulo") String titulo);
+
+    /*
+    Versiones de los libros de una página del listado, para su ETag (GET /Libros): las mismas filas que findPagina
+    y findSiguientes, pero solo columnas de MaterialBiblioteca y, por cada libro, la suma de las versiones de sus autores.
+    */
+    @Query("SELECT new com.example.biblioteca.proyeccion.VersionMaterial(l.id, l.version, " +
+            "(SELECT COALESCE(SUM(a.version), 0L) FROM l.autores a)) FROM Libro l ORDER BY l.id")
+    List<VersionMaterial> findVersionesPagina(Pageable pageable);
+
+    @Query("SELECT new com.example.biblioteca.proyeccion.VersionMaterial(l.id, l.version, " +
+            "(SELECT COALESCE(SUM(a.version), 0L) FROM l.autores a)) FROM Libro l WHERE l.id > :afterId ORDER BY l.id")
+    List<VersionMaterial> findVersionesSiguientes(@Param("afterId") int afterId, Pageable pageable);
+
     Optional<Libro> deleteByIsbn (String isbn);
     Optional<Libro> findByIsbn (String isbn);
 
+    //Exportación: se lee en streaming (fetch size) y se debe recorrer dentro de una transacción, cerrando el Stream.
+    //Una fila por libro y autor, ordenadas por libro para poder agruparlas al escribirlas.
+    @Query("SELECT new com.example.biblioteca.proyeccion.LibroConAutor(l.id, l.isbn, l.añoPublicacion, l.titulo, a.nombre, l.totales, l.disponibles) " +
+            "FROM Libro l LEFT JOIN l.autores a ORDER BY l.id, a.id")
+    @QueryHints(@QueryHint(name = AvailableHints.HINT_FETCH_SIZE, value = "1000"))
+    Stream<LibroConAutor> findTodosParaExportar();
 
+    //Reconstrucción del índice de búsqueda: en streaming, como la exportación
+    @Query("SELECT new com.example.biblioteca.proyeccion.ElementoBusqueda('LIBRO', l.id, l.titulo, l.isbn, CAST(NULL AS String)) " +
+            "FROM Libro l")
+    @QueryHints(@QueryHint(name = AvailableHints.HINT_FETCH_SIZE, value = "1000"))
+    Stream<ElementoBusqueda> findTodosParaIndexar();
 }
@@ -1,15 +1,47 @@
 package com.example.biblioteca.repository;
 
 import com.example.biblioteca.model.MaterialBiblioteca;
+import com.example.biblioteca.proyeccion.EjemplaresMaterial;
+import jakarta.persistence.LockModeType;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 @Repository
-public interface MaterialBibliotecaRepository extends JpaRepository<MaterialBiblioteca, Integer> {
+public interface MaterialBibliotecaRepository extends JpaRepository<MaterialBiblioteca, Integer>, DisponiblesMaterialRepository {
+    //Sin caché de consultas: cada alta, baja o importación de materiales descartaría todos los resultados cacheados.
+    //Los préstamos y reservas buscan el id por título en IdsMaterialPorTitulo.
     MaterialBiblioteca findByTitulo(String titulo); //Devuelve un Optional para poder manejarlo en caso de que no exista
 
+    //Materiales de un lote de préstamos, con una sola consulta
+    List<MaterialBiblioteca> findByTituloIn(Collection<String> titulos);
+
+    //Títulos e isbn de un lote de la importación de libros que ya están en la biblioteca
+    @Query("SELECT m.titulo FROM MaterialBiblioteca m WHERE m.titulo IN :titulos")
+    List<String> findTitulosExistentes(@Param("titulos") Collection<String> titulos);
+
+    @Query("SELECT l.isbn FROM Libro l WHERE l.isbn IN :isbns")
+    List<String> findIsbnExistentes(@Param("isbns") Collection<String> isbns);
+
+    //Se lee después de avanzarUltimaReserva en la misma transacción: es la posición reservada
+    @Query("SELECT m.ultimaReserva FROM MaterialBiblioteca m WHERE m.id = :id")
+    int findUltimaReserva(@Param("id") int id);
+
+    //Bloquea la fila del material hasta el final de la transacción: las devoluciones y reservas del material van de una en una
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT m.id FROM MaterialBiblioteca m WHERE m.id = :id")
+    Integer bloquear(@Param("id") int id);
+
+    //Ejemplares de todos los materiales, sin cargar entidades: carga y conciliación del registro de disponibilidad
+    @Query("SELECT new com.example.biblioteca.proyeccion.EjemplaresMaterial(m.id, m.totales, m.disponibles) FROM MaterialBiblioteca m")
+    List<EjemplaresMaterial> findEjemplares();
+
     /*
     //Devuelve el libro y sus autores
     @Query("SELECT l FROM Libro l LEFT JOIN FETCH l.autores WHERE l.isbn = :isbn")
@@ -0,0 +1,37 @@
+package com.example.biblioteca.repository;
+
+import com.example.biblioteca.model.PrestamoHistorico;
+import com.example.biblioteca.proyeccion.PrestamoConMaterial;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.AvailableHints;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+import java.util.stream.Stream;
+
+@Repository
+public interface PrestamoHistoricoRepository extends JpaRepository<PrestamoHistorico, Integer> {
+
+    //Exportación: las mismas filas que PrestamoRepository.findTodosParaExportar, ordenadas por id, para mezclarlas.
+    //Sin relaciones en el histórico, el usuario y los materiales se unen por id (LEFT JOIN por si se han dado de baja).
+    @Query("SELECT new com.example.biblioteca.proyeccion.PrestamoConMaterial(h.id, h.fechaPrestamo, u.nombre, false, m.titulo) " +
+            "FROM PrestamoHistorico h LEFT JOIN Usuario u ON u.id = h.usuarioId " +
+            "LEFT JOIN h.lineas l LEFT JOIN MaterialBiblioteca m ON m.id = l.materialId " +
+            "ORDER BY h.id, m.id")
+    @QueryHints(@QueryHint(name = AvailableHints.HINT_FETCH_SIZE, value = "1000"))
+    Stream<PrestamoConMaterial> findTodosParaExportar();
+
+    //Historial de un usuario: una fila por préstamo y material, por el índice (usuario_id, id)
+    @Query("SELECT new com.example.biblioteca.proyeccion.PrestamoConMaterial(h.id, h.fechaPrestamo, u.nombre, false, m.titulo) " +
+            "FROM PrestamoHistorico h JOIN Usuario u ON u.id = h.usuarioId " +
+            "LEFT JOIN h.lineas l LEFT JOIN MaterialBiblioteca m ON m.id = l.materialId " +
+            "WHERE h.usuarioId = :usuarioId ORDER BY h.id, m.id")
+    List<PrestamoConMaterial> findResumenByUsuarioId(@Param("usuarioId") int usuarioId);
+
+    //Baja de un usuario: también se borra su historial
+    void deleteByUsuarioId(int usuarioId);
+}
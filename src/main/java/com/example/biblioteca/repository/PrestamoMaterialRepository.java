@@ -0,0 +1,46 @@
+package com.example.biblioteca.repository;
+
+import com.example.biblioteca.model.PrestamoMaterial;
+import com.example.biblioteca.model.PrestamoMaterialId;
+import com.example.biblioteca.proyeccion.PrestamoADevolver;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.util.List;
+
+@Repository
+public interface PrestamoMaterialRepository extends JpaRepository<PrestamoMaterial, PrestamoMaterialId> {
+    /*
+    Devolución: la línea activa más antigua del usuario con el material, con una sola consulta.
+    Usuario y material se buscan por sus índices únicos (nombre, título), la línea por el índice
+    (material_id, activo, prestamo_id) y el préstamo por su id, sin leer los demás préstamos del usuario
+    ni las líneas ya devueltas. El Pageable solo aporta el límite.
+    */
+    @Query("SELECT new com.example.biblioteca.proyeccion.PrestamoADevolver(p.id, m.id, m.titulo) " +
+            "FROM PrestamoMaterial l JOIN l.prestamo p JOIN p.usuario u JOIN l.material m " +
+            "WHERE u.nombre = :nombreUsuario AND m.titulo = :titulo AND l.activo = true ORDER BY p.id")
+    List<PrestamoADevolver> findParaDevolver(@Param("nombreUsuario") String nombreUsuario,
+                                             @Param("titulo") String titulo,
+                                             Pageable pageable);
+
+    //Como findParaDevolver, cuando ya se conocen los ids (consola)
+    @Query("SELECT new com.example.biblioteca.proyeccion.PrestamoADevolver(p.id, m.id, m.titulo) " +
+            "FROM PrestamoMaterial l JOIN l.prestamo p JOIN l.material m " +
+            "WHERE p.usuario.id = :usuarioId AND m.id = :materialId AND l.activo = true ORDER BY p.id")
+    List<PrestamoADevolver> findParaDevolverByIds(@Param("usuarioId") int usuarioId,
+                                                  @Param("materialId") int materialId,
+                                                  Pageable pageable);
+
+    //Cierra la línea solo si sigue activa: de dos devoluciones simultáneas de la misma línea solo una la modifica
+    @Modifying
+    @Query("UPDATE PrestamoMaterial l SET l.activo = false, l.fechaDevolucion = :fecha " +
+            "WHERE l.id.prestamoId = :prestamoId AND l.id.materialId = :materialId AND l.activo = true")
+    int devolver(@Param("prestamoId") int prestamoId,
+                 @Param("materialId") int materialId,
+                 @Param("fecha") LocalDate fecha);
+}
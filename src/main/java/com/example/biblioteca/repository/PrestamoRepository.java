@@ -1,23 +1,32 @@
 package com.example.biblioteca.repository;
 
 import com.example.biblioteca.model.Prestamo;
+import com.example.biblioteca.proyeccion.PrestamoConMaterial;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.AvailableHints;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDate;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
 public interface PrestamoRepository extends JpaRepository <Prestamo, Integer> {
     List<Prestamo> findByUsuario_Id (Integer usuario_id);
 
-    @Query("SELECT p FROM Prestamo p JOIN p.materiales m WHERE m.id = :materialId AND p.activo = true")
+    //Préstamos con el material todavía sin devolver
+    @Query("SELECT p FROM Prestamo p JOIN p.lineas l WHERE l.material.id = :materialId AND l.activo = true")
     List<Prestamo> findMaterialById(@Param("materialId") int materialId);
 
-    @Query("SELECT p FROM Prestamo p JOIN p.materiales m WHERE p.usuario.id = :usuarioId AND p.activo = true")
+    @Query("SELECT p FROM Prestamo p JOIN p.lineas l WHERE p.usuario.id = :usuarioId AND p.activo = true")
     Prestamo findMaterialByUsuarioId(@Param("usuarioId") int usuarioId);
 
     @Query("SELECT p FROM Prestamo p WHERE p.usuario.id = :usuario_id and p.activo = true")
@@ -26,9 +35,51 @@ public interface PrestamoRepository extends JpaRepository <Prestamo, Integer> {
     @Query(value = "SELECT material_id FROM PrestamoMaterial WHERE prestamo_id = :prestamoId", nativeQuery = true)
     Integer findMaterialIdsByPrestamoIds(@Param("prestamoId") Integer prestamoId);
 
-    @Query("SELECT DISTINCT p FROM Prestamo p JOIN FETCH p.materiales WHERE p.id IN :ids")
+    @Query("SELECT DISTINCT p FROM Prestamo p JOIN FETCH p.lineas l JOIN FETCH l.material WHERE p.id IN :ids")
     List<Prestamo> findAllWithMaterialesById(@Param("ids") List<Integer> ids);
 
+    //Cierra el préstamo cuando ya no le queda ninguna línea activa (después de PrestamoMaterialRepository.devolver)
+    @Modifying
+    @Query("UPDATE Prestamo p SET p.activo = false WHERE p.id = :id AND p.activo = true " +
+            "AND NOT EXISTS (SELECT 1 FROM PrestamoMaterial l WHERE l.prestamo.id = :id AND l.activo = true)")
+    int cerrarSiEstaDevuelto(@Param("id") int id);
 
+    //Exportación: se lee en streaming (fetch size) y se debe recorrer dentro de una transacción, cerrando el Stream.
+    //Una fila por préstamo y material, ordenadas por préstamo para poder agruparlas al escribirlas.
+    @Query("SELECT new com.example.biblioteca.proyeccion.PrestamoConMaterial(p.id, p.fechaPrestamo, u.nombre, p.activo, m.titulo) " +
+            "FROM Prestamo p JOIN p.usuario u LEFT JOIN p.lineas l LEFT JOIN l.material m ORDER BY p.id, m.id")
+    @QueryHints(@QueryHint(name = AvailableHints.HINT_FETCH_SIZE, value = "1000"))
+    Stream<PrestamoConMaterial> findTodosParaExportar();
 
+    //Préstamos de un usuario que siguen en la tabla (activos y devueltos sin archivar), con las mismas filas que la exportación
+    @Query("SELECT new com.example.biblioteca.proyeccion.PrestamoConMaterial(p.id, p.fechaPrestamo, u.nombre, p.activo, m.titulo) " +
+            "FROM Prestamo p JOIN p.usuario u LEFT JOIN p.lineas l LEFT JOIN l.material m WHERE u.id = :usuarioId ORDER BY p.id, m.id")
+    List<PrestamoConMaterial> findResumenByUsuarioId(@Param("usuarioId") int usuarioId);
+
+    /*
+    Barrido de vencimientos: los primeros préstamos activos sin marcar como vencidos con fecha de vencimiento anterior
+    a hoy, por (fechaVencimiento, id). Se recorre el índice (activo, vencido, fecha_vencimiento): los ya marcados
+    quedan fuera del rango, así que cada lote empieza donde acabó el anterior sin punto de control, y los préstamos
+    dados de alta con una fecha pasada también se encuentran. El Pageable solo aporta el límite.
+    */
+    @Query("SELECT p.id FROM Prestamo p WHERE p.activo = true AND p.vencido = false AND p.fechaVencimiento < :hoy " +
+            "ORDER BY p.fechaVencimiento, p.id")
+    List<Integer> findIdsVencidosSinMarcar(@Param("hoy") LocalDate hoy, Pageable pageable);
+
+    //Un UPDATE por lote del barrido. Solo los que siguen activos: un préstamo devuelto mientras tanto no se marca
+    @Modifying
+    @Query("UPDATE Prestamo p SET p.vencido = true WHERE p.id IN :ids AND p.activo = true")
+    int marcarVencidos(@Param("ids") List<Integer> ids);
+
+    /*
+    Archivo de préstamos devueltos: los primeros préstamos no activos. Al archivarlos se borran de la tabla,
+    así que no hace falta punto de control: la consulta siempre empieza por el principio del índice
+    (activo, vencido, fecha_vencimiento) y solo recorre los devueltos pendientes de archivar. El Pageable solo aporta el límite.
+    */
+    @Query("SELECT p.id FROM Prestamo p WHERE p.activo = false")
+    List<Integer> findIdsDevueltos(Pageable pageable);
+
+    //Como findAllWithMaterialesById, pero incluye los préstamos sin materiales
+    @Query("SELECT DISTINCT p FROM Prestamo p JOIN FETCH p.usuario LEFT JOIN FETCH p.lineas l LEFT JOIN FETCH l.material WHERE p.id IN :ids")
+    List<Prestamo> findParaArchivarById(@Param("ids") List<Integer> ids);
 }
@@ -0,0 +1,45 @@
+package com.example.biblioteca.repository;
+
+import com.example.biblioteca.model.MaterialBiblioteca;
+import com.example.biblioteca.model.Reserva;
+import com.example.biblioteca.model.Usuario;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface ReservaRepository extends JpaRepository<Reserva, Integer> {
+    /*
+    Primera reserva activa de la cola del material: la primera entrada del índice (material_id, activa, posicion).
+    Es una lectura con bloqueo (FOR UPDATE): lee las reservas ya confirmadas por otras transacciones
+    y la reserva queda bloqueada hasta que se confirma el préstamo que la atiende.
+    */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    Optional<Reserva> findFirstByMaterialAndActivaTrueOrderByPosicionAsc(MaterialBiblioteca material);
+
+    //Reservas activas del material, en el orden de la cola
+    @Query("SELECT r FROM Reserva r JOIN FETCH r.usuario WHERE r.material.id = :materialId AND r.activa = true ORDER BY r.posicion")
+    List<Reserva> findColaByMaterialId(@Param("materialId") int materialId);
+
+    //Reservas activas que hay delante de una posición de la cola
+    long countByMaterialAndActivaTrueAndPosicionLessThan(MaterialBiblioteca material, int posicion);
+
+    boolean existsByMaterialAndUsuarioAndActivaTrue(MaterialBiblioteca material, Usuario usuario);
+
+    //Cancela la reserva solo si sigue activa: una reserva que ya se ha atendido no se puede cancelar.
+    @Modifying
+    @Query("UPDATE Reserva r SET r.activa = false WHERE r.id = :id AND r.activa = true")
+    int cancelar(@Param("id") int id);
+
+    //Los préstamos que se archivan dejan de existir en Prestamo: las reservas atendidas dejan de apuntar a ellos
+    @Modifying
+    @Query("UPDATE Reserva r SET r.prestamo = null WHERE r.prestamo.id IN :prestamoIds")
+    int desvincularPrestamos(@Param("prestamoIds") List<Integer> prestamoIds);
+}
@@ -1,13 +1,58 @@
 package com.example.biblioteca.repository;
 
+import com.example.biblioteca.dto.RevistaDTO;
 import com.example.biblioteca.model.Revista;
+import com.example.biblioteca.proyeccion.ElementoBusqueda;
+import com.example.biblioteca.proyeccion.VersionMaterial;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.AvailableHints;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
 public interface RevistaRepository extends JpaRepository<Revista, Integer> {
     Optional<Revista> findByTitulo(String titulo); //Devuelve un Optional para poder manejarlo en caso de que no exista
 
+    //Los listados construyen el RevistaDTO directamente en la consulta, sin cargar entidades Revista.
+    //Listado paginado por desplazamiento (page/size). El Pageable aporta el límite y el offset.
+    @Query("SELECT new com.example.biblioteca.dto.RevistaDTO(r.id, r.titulo, r.numeroEdicion, r.periodicidad, r.totales, r.disponibles) " +
+            "FROM Revista r ORDER BY r.id")
+    List<RevistaDTO> findPagina(Pageable pageable);
+
+    //Listado paginado por clave (keyset): revistas con id mayor que afterId, ordenadas por id.
+    @Query("SELECT new com.example.biblioteca.dto.RevistaDTO(r.id, r.titulo, r.numeroEdicion, r.periodicidad, r.totales, r.disponibles) " +
+            "FROM Revista r WHERE r.id > :afterId ORDER BY r.id")
+    List<RevistaDTO> findSiguientes(@Param("afterId") int afterId, Pageable pageable);
+
+    //Versión de la revista para el ETag de GET /Revistas/{titulo}, sin cargar la entidad
+    @Query("SELECT new com.example.biblioteca.proyeccion.VersionMaterial(r.id, r.version, 0L) " +
+            "FROM Revista r WHERE r.titulo = :titulo")
+    Optional<VersionMaterial> findVersion(@Param("titulo") String titulo);
+
+    //Versiones de las revistas de una página del listado, para su ETag (GET /Revistas): las mismas filas que findPagina y findSiguientes
+    @Query("SELECT new com.example.biblioteca.proyeccion.VersionMaterial(r.id, r.version, 0L) FROM Revista r ORDER BY r.id")
+    List<VersionMaterial> findVersionesPagina(Pageable pageable);
+
+    @Query("SELECT new com.example.biblioteca.proyeccion.VersionMaterial(r.id, r.version, 0L) FROM Revista r WHERE r.id > :afterId ORDER BY r.id")
+    List<VersionMaterial> findVersionesSiguientes(@Param("afterId") int afterId, Pageable pageable);
+
+    //Exportación: se lee en streaming (fetch size) y se debe recorrer dentro de una transacción, cerrando el Stream.
+    @Query("SELECT new com.example.biblioteca.dto.RevistaDTO(r.id, r.titulo, r.numeroEdicion, r.periodicidad, r.totales, r.disponibles) " +
+            "FROM Revista r ORDER BY r.id")
+    @QueryHints(@QueryHint(name = AvailableHints.HINT_FETCH_SIZE, value = "1000"))
+    Stream<RevistaDTO> findTodasParaExportar();
+
+    //Reconstrucción del índice de búsqueda: en streaming, como la exportación
+    @Query("SELECT new com.example.biblioteca.proyeccion.ElementoBusqueda('REVISTA', r.id, r.titulo, CAST(NULL AS String), r.periodicidad) " +
+            "FROM Revista r")
+    @QueryHints(@QueryHint(name = AvailableHints.HINT_FETCH_SIZE, value = "1000"))
+    Stream<ElementoBusqueda> findTodasParaIndexar();
 }
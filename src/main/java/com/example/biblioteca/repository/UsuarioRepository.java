@@ -1,12 +1,30 @@
 package com.example.biblioteca.repository;
 
 import com.example.biblioteca.model.Usuario;
+import com.example.biblioteca.proyeccion.UsuarioConPrestamo;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.AvailableHints;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 @Repository
 public interface UsuarioRepository extends JpaRepository<Usuario, Integer> {
+    //Consulta cacheable (caché de consultas + caché de segundo nivel de Usuario)
+    @QueryHints(@QueryHint(name = AvailableHints.HINT_CACHEABLE, value = "true"))
     Optional<Usuario> findByNombre(String nombre); //Devuelve un Optional para poder manejarlo en caso de que no exista
+
+    //Usuarios de un lote de préstamos, con una sola consulta
+    List<Usuario> findByNombreIn(Collection<String> nombres);
+
+    //Datos del usuario para el UsuarioDTO: una fila por préstamo (o una sola con prestamoId null si no tiene préstamos)
+    @Query("SELECT new com.example.biblioteca.proyeccion.UsuarioConPrestamo(u.id, u.nombre, u.email, p.id) " +
+            "FROM Usuario u LEFT JOIN u.prestamos p WHERE u.nombre = :nombre ORDER BY p.id")
+    List<UsuarioConPrestamo> findResumenByNombre(@Param("nombre") String nombre);
 }
@@ -0,0 +1,96 @@
+package com.example.biblioteca.service;
+
+import com.example.biblioteca.metricas.MetricasPrestamo;
+import com.example.biblioteca.model.AccionEvento;
+import com.example.biblioteca.model.Prestamo;
+import com.example.biblioteca.model.PrestamoHistorico;
+import com.example.biblioteca.model.TipoEvento;
+import com.example.biblioteca.repository.PrestamoHistoricoRepository;
+import com.example.biblioteca.repository.PrestamoRepository;
+import com.example.biblioteca.repository.ReservaRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Mueve los préstamos devueltos (y sus filas de PrestamoMaterial) a {@link PrestamoHistorico}, para que las
+ * tablas de préstamos solo tengan los activos y las consultas de préstamos activos no crezcan con el tiempo.
+ *
+ * - Cada lote es una transacción corta: inserta los préstamos en el histórico (inserciones por lotes JDBC)
+ *   y los borra de Prestamo. Si falla, el lote se deshace entero y se repite en la siguiente llamada.
+ * - Las reservas atendidas con alguno de esos préstamos dejan de apuntar a él.
+ * - Cada préstamo archivado tiene un evento ARCHIVO en la misma transacción. La transacción tiene el timeout
+ *   de las que registran eventos ({@code app.eventos.segundos-maximos-transaccion}).
+ * - Se procesan lotes hasta que no quedan préstamos devueltos o se agota el tiempo máximo.
+ */
+@Service
+public class ArchivoPrestamosService {
+
+    private final PrestamoRepository prestamoRepository;
+    private final PrestamoHistoricoRepository prestamoHistoricoRepository;
+    private final ReservaRepository reservaRepository;
+    private final MetricasPrestamo metricasPrestamo;
+    private final EventoService eventoService;
+    private final TransactionTemplate transactionTemplate;
+
+    public ArchivoPrestamosService(PrestamoRepository prestamoRepository,
+                                   PrestamoHistoricoRepository prestamoHistoricoRepository,
+                                   ReservaRepository reservaRepository,
+                                   MetricasPrestamo metricasPrestamo,
+                                   EventoService eventoService,
+                                   PlatformTransactionManager transactionManager,
+                                   @Value("${app.eventos.segundos-maximos-transaccion:5}") int segundosMaximosTransaccion) {
+        this.prestamoRepository = prestamoRepository;
+        this.prestamoHistoricoRepository = prestamoHistoricoRepository;
+        this.reservaRepository = reservaRepository;
+        this.metricasPrestamo = metricasPrestamo;
+        this.eventoService = eventoService;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setTimeout(segundosMaximosTransaccion);
+    }
+
+    /**
+     * Archiva los préstamos devueltos, por lotes.
+     *
+     * @param tamanioLote préstamos por transacción.
+     * @param tiempoMaximo no se empieza un lote nuevo pasado este tiempo.
+     * @return número de préstamos archivados.
+     */
+    public long archivarDevueltos(int tamanioLote, Duration tiempoMaximo) {
+        long limite = System.nanoTime() + tiempoMaximo.toNanos();
+        long total = 0;
+        int archivados;
+        do {
+            archivados = transactionTemplate.execute(estado -> archivarLote(tamanioLote));
+            total += archivados;
+        } while (archivados == tamanioLote && System.nanoTime() < limite);
+        return total;
+    }
+
+    private int archivarLote(int tamanioLote) {
+        List<Integer> ids = prestamoRepository.findIdsDevueltos(PageRequest.of(0, tamanioLote));
+        if (ids.isEmpty()) {
+            return 0;
+        }
+
+        List<Prestamo> prestamos = prestamoRepository.findParaArchivarById(ids);
+        LocalDateTime ahora = LocalDateTime.now();
+        prestamoHistoricoRepository.saveAll(prestamos.stream()
+                .map(prestamo -> new PrestamoHistorico(prestamo, ahora))
+                .toList());
+
+        reservaRepository.desvincularPrestamos(ids);
+        //Borra también sus filas de PrestamoMaterial
+        prestamoRepository.deleteAll(prestamos);
+        eventoService.registrarLote(TipoEvento.PRESTAMO, AccionEvento.ARCHIVO, ids);
+
+        metricasPrestamo.prestamosArchivados(prestamos.size());
+        return ids.size();
+    }
+}
@@ -31,6 +31,7 @@ public class AutorService {
         autorRepository.save(autor);
     }
 
+    @Transactional(readOnly = true)
     public Autor buscarAutorByNombre (String nombre){
        Optional<Autor> autor = autorRepository.findByNombre(nombre);
        return autor.orElse(null);
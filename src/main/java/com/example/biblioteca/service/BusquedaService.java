@@ -0,0 +1,126 @@
+package com.example.biblioteca.service;
+
+import com.example.biblioteca.busqueda.IndiceBusqueda;
+import com.example.biblioteca.busqueda.SugerenciasTitulos;
+import com.example.biblioteca.dto.ResultadoBusquedaDTO;
+import com.example.biblioteca.expection.OperacionNoPermitidaException;
+import com.example.biblioteca.proyeccion.ElementoBusqueda;
+import com.example.biblioteca.repository.AutorRepository;
+import com.example.biblioteca.repository.LibroRepository;
+import com.example.biblioteca.repository.RevistaRepository;
+import com.example.biblioteca.util.Paginacion;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationStartedEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+/**
+ * Búsqueda de texto en libros, revistas y autores con el {@link IndiceBusqueda} (GET /Busqueda)
+ * y sugerencias de títulos por prefijo con {@link SugerenciasTitulos} (GET /Materiales/sugerencias).
+ */
+@Service
+public class BusquedaService {
+
+    private static final Logger log = LoggerFactory.getLogger(BusquedaService.class);
+
+    private final IndiceBusqueda indiceBusqueda;
+    private final SugerenciasTitulos sugerenciasTitulos;
+    private final LibroRepository libroRepository;
+    private final RevistaRepository revistaRepository;
+    private final AutorRepository autorRepository;
+    private final TransactionTemplate transactionTemplate;
+
+    public BusquedaService(IndiceBusqueda indiceBusqueda,
+                           SugerenciasTitulos sugerenciasTitulos,
+                           LibroRepository libroRepository,
+                           RevistaRepository revistaRepository,
+                           AutorRepository autorRepository,
+                           PlatformTransactionManager transactionManager) {
+        this.indiceBusqueda = indiceBusqueda;
+        this.sugerenciasTitulos = sugerenciasTitulos;
+        this.libroRepository = libroRepository;
+        this.revistaRepository = revistaRepository;
+        this.autorRepository = autorRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setReadOnly(true);
+    }
+
+    /**
+     * @param texto  palabras a buscar o un isbn.
+     * @param tamanio número máximo de resultados (como mucho {@link Paginacion#TAMANIO_MAXIMO}).
+     * @throws OperacionNoPermitidaException si el texto está vacío.
+     */
+    public List<ResultadoBusquedaDTO> buscar(String texto, int tamanio) {
+        if (texto == null || texto.isBlank()) {
+            throw new OperacionNoPermitidaException("El texto de búsqueda no puede estar vacío");
+        }
+        return indiceBusqueda.buscar(texto, Paginacion.limite(tamanio).getPageSize());
+    }
+
+    /**
+     * @param prefijo comienzo del título de un libro o revista; da igual mayúsculas y acentos.
+     * @param tamanio número máximo de títulos (como mucho {@link Paginacion#TAMANIO_MAXIMO}).
+     * @return los títulos que empiezan por el prefijo, en orden alfabético. Vacía si el prefijo está vacío.
+     */
+    public List<String> sugerir(String prefijo, int tamanio) {
+        if (prefijo == null) {
+            return List.of();
+        }
+        return sugerenciasTitulos.sugerir(prefijo, Paginacion.limite(tamanio).getPageSize());
+    }
+
+    /**
+     * Concilia el índice con todos los libros, revistas y autores de la base de datos ({@link IndiceBusqueda#reconstruir}).
+     * Las tablas se leen en streaming, una detrás de otra, sin cargar entidades.
+     *
+     * @return número de elementos indexados.
+     */
+    public long reconstruir() {
+        return transactionTemplate.execute(estado -> indiceBusqueda.reconstruir(indexar -> {
+            leer(libroRepository::findTodosParaIndexar, indexar);
+            leer(revistaRepository::findTodasParaIndexar, indexar);
+            leer(autorRepository::findTodosParaIndexar, indexar);
+        }));
+    }
+
+    /**
+     * Vuelve a cargar las sugerencias con los títulos de todos los libros y revistas de la base de datos.
+     *
+     * @return número de títulos.
+     */
+    public int reconstruirSugerencias() {
+        return transactionTemplate.execute(estado -> sugerenciasTitulos.reconstruir(cargar -> {
+            Consumer<ElementoBusqueda> titulo = elemento -> cargar.cargar(elemento.id(), elemento.texto());
+            leer(libroRepository::findTodosParaIndexar, titulo);
+            leer(revistaRepository::findTodasParaIndexar, titulo);
+        }));
+    }
+
+    /*
+    Al arrancar: las sugerencias están solo en memoria y se cargan siempre. El índice del disco se concilia con
+    la base de datos, que ha podido cambiar mientras la aplicación estaba parada o desde otra instancia;
+    las búsquedas lo usan mientras tanto.
+    Es antes de los CommandLineRunner: la consola no termina hasta que se sale de ella.
+    */
+    @EventListener(ApplicationStartedEvent.class)
+    public void cargarAlArrancar() {
+        int titulos = reconstruirSugerencias();
+        log.info("Sugerencias de títulos cargadas con {} títulos", titulos);
+        long indexados = reconstruir();
+        log.info("Índice de búsqueda conciliado con {} elementos", indexados);
+    }
+
+    private static void leer(Supplier<Stream<ElementoBusqueda>> consulta, Consumer<ElementoBusqueda> indexar) {
+        try (Stream<ElementoBusqueda> elementos = consulta.get()) {
+            elementos.forEach(indexar);
+        }
+    }
+}
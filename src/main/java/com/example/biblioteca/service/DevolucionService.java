@@ -0,0 +1,122 @@
+package com.example.biblioteca.service;
+
+import com.example.biblioteca.expection.MaterialNoEncontradoException;
+import com.example.biblioteca.expection.OperacionNoPermitidaException;
+import com.example.biblioteca.expection.UsuarioNoEncontradoException;
+import com.example.biblioteca.metricas.MetricasPrestamo;
+import com.example.biblioteca.model.Reserva;
+import com.example.biblioteca.proyeccion.PrestamoADevolver;
+import com.example.biblioteca.repository.MaterialBibliotecaRepository;
+import com.example.biblioteca.repository.PrestamoMaterialRepository;
+import com.example.biblioteca.repository.PrestamoRepository;
+import com.example.biblioteca.repository.UsuarioRepository;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.util.Optional;
+
+/**
+ * Devolución de un material prestado a un usuario (PUT /Prestamos/{titulo} y consola de préstamos).
+ *
+ * Se devuelve una línea del préstamo ({@code PrestamoMaterial}): el préstamo sigue activo mientras le queden
+ * otros materiales sin devolver.
+ *
+ * Siempre son las mismas sentencias, tenga el usuario los préstamos que tenga:
+ * - una consulta con la línea activa del usuario con el material ({@link PrestamoMaterialRepository#findParaDevolver});
+ * - un UPDATE condicional que cierra esa línea y otro que cierra el préstamo si era la última
+ *   ({@link PrestamoRepository#cerrarSiEstaDevuelto});
+ * - la entrega del ejemplar ({@link ReservaService#devolverEjemplar}): bloqueo del material, primera reserva
+ *   de la cola y un UPDATE de disponibles o el alta del préstamo de la reserva.
+ * Solo cuando no se encuentra el préstamo se hacen más consultas, para explicar por qué.
+ */
+@Service
+@Transactional
+public class DevolucionService {
+    //Un usuario puede tener el mismo material en varios préstamos activos: se devuelve el más antiguo
+    private static final Pageable PRIMERO = PageRequest.of(0, 1);
+
+    private final PrestamoRepository prestamoRepository;
+    private final PrestamoMaterialRepository prestamoMaterialRepository;
+    private final UsuarioRepository usuarioRepository;
+    private final MaterialBibliotecaRepository materialBibliotecaRepository;
+    private final ReservaService reservaService;
+    private final MetricasPrestamo metricasPrestamo;
+
+    public DevolucionService(PrestamoRepository prestamoRepository,
+                             PrestamoMaterialRepository prestamoMaterialRepository,
+                             UsuarioRepository usuarioRepository,
+                             MaterialBibliotecaRepository materialBibliotecaRepository,
+                             ReservaService reservaService,
+                             MetricasPrestamo metricasPrestamo) {
+        this.prestamoRepository = prestamoRepository;
+        this.prestamoMaterialRepository = prestamoMaterialRepository;
+        this.usuarioRepository = usuarioRepository;
+        this.materialBibliotecaRepository = materialBibliotecaRepository;
+        this.reservaService = reservaService;
+        this.metricasPrestamo = metricasPrestamo;
+    }
+
+    /**
+     * Devuelve el material prestado al usuario.
+     *
+     * @param nombreUsuario nombre del usuario; da igual mayúsculas.
+     * @param titulo título del libro o revista.
+     * @return la reserva que recibe el ejemplar, o vacío si vuelve a estar disponible.
+     * @throws UsuarioNoEncontradoException si no existe el usuario.
+     * @throws MaterialNoEncontradoException si no existe el material o el usuario no lo tiene prestado.
+     */
+    public Optional<Reserva> devolver(String nombreUsuario, String titulo) {
+        return devolver(buscarParaDevolver(nombreUsuario, titulo));
+    }
+
+    /**
+     * Línea activa del usuario con el material, con una sola consulta.
+     *
+     * @throws UsuarioNoEncontradoException si no existe el usuario.
+     * @throws MaterialNoEncontradoException si no existe el material o el usuario no lo tiene prestado.
+     */
+    @Transactional(readOnly = true)
+    public PrestamoADevolver buscarParaDevolver(String nombreUsuario, String titulo) {
+        String nombre = nombreUsuario.toUpperCase();
+        return prestamoMaterialRepository.findParaDevolver(nombre, titulo, PRIMERO).stream()
+                .findFirst()
+                .orElseThrow(() -> sinPrestamo(nombre, titulo));
+    }
+
+    //Préstamo activo del usuario con el material sin devolver, si lo tiene
+    @Transactional(readOnly = true)
+    public Optional<PrestamoADevolver> buscarPrestamoActivo(int usuarioId, int materialId) {
+        return prestamoMaterialRepository.findParaDevolverByIds(usuarioId, materialId, PRIMERO).stream().findFirst();
+    }
+
+    /**
+     * Cierra la línea del material (y el préstamo, si no le quedan más) y entrega el ejemplar a la primera reserva de la cola o lo deja disponible.
+     *
+     * @return la reserva que recibe el ejemplar, o vacío si vuelve a estar disponible.
+     * @throws OperacionNoPermitidaException si el material ya se ha devuelto.
+     */
+    public Optional<Reserva> devolver(PrestamoADevolver prestamo) {
+        if (prestamoMaterialRepository.devolver(prestamo.prestamoId(), prestamo.materialId(), LocalDate.now()) == 0) {
+            throw new OperacionNoPermitidaException("El material " + prestamo.materialId() + " del préstamo "
+                    + prestamo.prestamoId() + " ya se ha devuelto");
+        }
+        prestamoRepository.cerrarSiEstaDevuelto(prestamo.prestamoId());
+        metricasPrestamo.prestamoDevuelto();
+
+        //Referencia sin consulta: el servicio de reservas solo necesita el id del material
+        return reservaService.devolverEjemplar(materialBibliotecaRepository.getReferenceById(prestamo.materialId()));
+    }
+
+    private RuntimeException sinPrestamo(String nombreUsuario, String titulo) {
+        if (usuarioRepository.findByNombre(nombreUsuario).isEmpty()) {
+            return new UsuarioNoEncontradoException("Usuario no encontrado con nombre: '" + nombreUsuario + "'");
+        }
+        if (materialBibliotecaRepository.findByTitulo(titulo) == null) {
+            return new MaterialNoEncontradoException("Material no encontrado con tituloMaterial: '" + titulo + "'");
+        }
+        return new MaterialNoEncontradoException("El libro / revista con titulo '" + titulo + "' no esta prestado para el usuario: '" + nombreUsuario + "'");
+    }
+}
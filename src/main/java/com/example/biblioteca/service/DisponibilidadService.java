@@ -0,0 +1,145 @@
+package com.example.biblioteca.service;
+
+import com.example.biblioteca.disponibilidad.RegistroDisponibilidad;
+import com.example.biblioteca.expection.MaterialNoDisponibleException;
+import com.example.biblioteca.expection.MaterialNoEncontradoException;
+import com.example.biblioteca.model.MaterialBiblioteca;
+import com.example.biblioteca.proyeccion.EjemplaresMaterial;
+import com.example.biblioteca.repository.MaterialBibliotecaRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationStartedEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Optional;
+
+/**
+ * Gestiona los ejemplares disponibles de un {@link MaterialBiblioteca} en préstamos y devoluciones.
+ *
+ * No lee el valor de {@code disponibles} para después guardarlo: cada cambio es un único UPDATE
+ * condicional, de modo que las peticiones concurrentes sobre el mismo título no se pisan entre sí
+ * y no hace falta bloquear la tabla.
+ *
+ * Con {@code app.disponibilidad.memoria.enabled=true} mantiene además el {@link RegistroDisponibilidad}:
+ * cada cambio se le aplica después del commit y las comprobaciones previas (consola de préstamos) lo leen
+ * en lugar de la base de datos.
+ *
+ * Los UPDATE de disponibles no pasan por la entidad: cada uno incrementa la versión del material en la misma
+ * sentencia (ETag del material y de las páginas de los listados en las que sale).
+ */
+@Service
+@Transactional
+public class DisponibilidadService {
+
+    private static final Logger log = LoggerFactory.getLogger(DisponibilidadService.class);
+
+    @Autowired
+    private final MaterialBibliotecaRepository materialBibliotecaRepository;
+
+    private final ObjectProvider<RegistroDisponibilidad> registroDisponibilidad;
+
+    public DisponibilidadService(MaterialBibliotecaRepository materialBibliotecaRepository,
+                                 ObjectProvider<RegistroDisponibilidad> registroDisponibilidad) {
+        this.materialBibliotecaRepository = materialBibliotecaRepository;
+        this.registroDisponibilidad = registroDisponibilidad;
+    }
+
+    /**
+     * Descuenta un ejemplar disponible del material.
+     *
+     * @param materialBiblioteca material que se presta.
+     * @throws MaterialNoDisponibleException si no queda ningún ejemplar disponible. Al ser una excepción
+     *         de runtime, la transacción del préstamo se deshace por completo.
+     */
+    public void reservarEjemplar(MaterialBiblioteca materialBiblioteca) {
+        if (materialBibliotecaRepository.disminuirDisponible(materialBiblioteca.getId()) == 0) {
+            throw new MaterialNoDisponibleException("No hay ejemplares disponibles del material '" + materialBiblioteca.getTitulo() + "'");
+        }
+        ajustarRegistro(materialBiblioteca, -1);
+    }
+
+    /**
+     * Devuelve un ejemplar del material a la biblioteca.
+     *
+     * @param materialBiblioteca material que se devuelve.
+     * @throws MaterialNoEncontradoException si el material no tiene ningún ejemplar prestado.
+     */
+    public void devolverEjemplar(MaterialBiblioteca materialBiblioteca) {
+        if (materialBibliotecaRepository.aumentarDisponible(materialBiblioteca.getId()) == 0) {
+            throw new MaterialNoEncontradoException("El libro / revista con titulo '" + materialBiblioteca.getTitulo() + "' no esta prestado");
+        }
+        ajustarRegistro(materialBiblioteca, 1);
+    }
+
+    /**
+     * Descuenta varios ejemplares del material con un único UPDATE condicional (préstamos por lotes).
+     *
+     * @param materialBiblioteca material que se presta.
+     * @param cantidad número de ejemplares a descontar.
+     * @return {@code true} si quedaban ejemplares suficientes y se han descontado todos;
+     *         {@code false} si no, y en ese caso no se ha descontado ninguno.
+     */
+    public boolean reservarEjemplares(MaterialBiblioteca materialBiblioteca, int cantidad) {
+        if (materialBibliotecaRepository.disminuirDisponibles(materialBiblioteca.getId(), cantidad) == 0) {
+            return false;
+        }
+        ajustarRegistro(materialBiblioteca, -cantidad);
+        return true;
+    }
+
+    /**
+     * Devuelve varios ejemplares del material con un único UPDATE condicional.
+     *
+     * @param materialBiblioteca material que se devuelve.
+     * @param cantidad número de ejemplares a devolver.
+     * @throws MaterialNoEncontradoException si al sumarlos se superaría el total de ejemplares del material.
+     */
+    public void devolverEjemplares(MaterialBiblioteca materialBiblioteca, int cantidad) {
+        if (materialBibliotecaRepository.aumentarDisponibles(materialBiblioteca.getId(), cantidad) == 0) {
+            throw new MaterialNoEncontradoException("El libro / revista con titulo '" + materialBiblioteca.getTitulo() + "' no tiene " + cantidad + " ejemplares prestados");
+        }
+        ajustarRegistro(materialBiblioteca, cantidad);
+    }
+
+    /**
+     * Ejemplares del material según el registro de disponibilidad, sin consultar la base de datos.
+     *
+     * @return vacío si el registro no está activo o no tiene el material: se usan los valores de la entidad.
+     */
+    @Transactional(propagation = Propagation.SUPPORTS)
+    public Optional<EjemplaresMaterial> consultarRegistro(int materialId) {
+        RegistroDisponibilidad registro = registroDisponibilidad.getIfAvailable();
+        return registro == null ? Optional.empty() : registro.consultar(materialId);
+    }
+
+    //Carga el registro al arrancar. Es antes de los CommandLineRunner, como las sugerencias de títulos (BusquedaService)
+    @EventListener(ApplicationStartedEvent.class)
+    @Transactional(readOnly = true)
+    public void cargarRegistro() {
+        RegistroDisponibilidad registro = registroDisponibilidad.getIfAvailable();
+        if (registro != null) {
+            log.info("Registro de disponibilidad cargado con {} materiales", registro.reconstruir(materialBibliotecaRepository.findEjemplares()));
+        }
+    }
+
+    /**
+     * Compara el registro de disponibilidad con la base de datos y corrige las diferencias ({@code ConciliacionDisponibilidad}).
+     *
+     * @return número de materiales que no coincidían; 0 si el registro no está activo.
+     */
+    @Transactional(readOnly = true)
+    public int conciliarRegistro() {
+        RegistroDisponibilidad registro = registroDisponibilidad.getIfAvailable();
+        return registro == null ? 0 : registro.conciliar(materialBibliotecaRepository.findEjemplares());
+    }
+
+    private void ajustarRegistro(MaterialBiblioteca materialBiblioteca, int cambio) {
+        int id = materialBiblioteca.getId();
+        RegistroDisponibilidad.despuesDelCommit(registroDisponibilidad, registro -> registro.ajustar(id, cambio));
+    }
+}
@@ -0,0 +1,154 @@
+package com.example.biblioteca.service;
+
+import com.example.biblioteca.eventos.AvisoEventos;
+import com.example.biblioteca.model.AccionEvento;
+import com.example.biblioteca.model.Evento;
+import com.example.biblioteca.model.TipoEvento;
+import com.example.biblioteca.repository.EventoRepository;
+import com.example.biblioteca.util.Paginacion;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Tabla de salida de eventos ({@link Evento}): los servicios DTO registran cada cambio en la misma transacción
+ * que lo hace y los consumidores los leen en orden desde el último id que han recibido (GET /Eventos).
+ *
+ * El id es auto_increment: crece en el orden de inserción, pero no en el de commit. Una transacción que tarda
+ * más puede confirmar su evento después de que un consumidor haya leído otros con ids mayores, y el consumidor,
+ * que sigue desde el último id recibido, no lo vería nunca. Por eso {@link #leer} se para en el primer hueco
+ * de ids que todavía sea reciente ({@code app.eventos.margen-huecos}): o lo ocupa una transacción en curso o es
+ * un id perdido por un rollback, y en ese caso se salta cuando pasa el margen.
+ *
+ * Para que un hueco que se salta no sea nunca el de una transacción que todavía puede confirmarse, las transacciones
+ * que registran eventos tienen un timeout ({@code app.eventos.segundos-maximos-transaccion}) menor que el margen:
+ * las de los servicios DTO y {@link PrestamoService} en su {@code @Transactional} y las de los trabajos por lotes
+ * (importación de libros, barrido de vencimientos, archivo de préstamos) en su TransactionTemplate. Pasado el timeout,
+ * las sentencias de la transacción fallan y se deshace. Al arrancar se comprueba que el timeout es menor que el margen.
+ */
+@Service
+public class EventoService {
+
+    private final EventoRepository eventoRepository;
+    private final ObjectMapper objectMapper;
+    private final AvisoEventos avisoEventos;
+    private final Duration margenHuecos;
+
+    public EventoService(EventoRepository eventoRepository,
+                         ObjectMapper objectMapper,
+                         AvisoEventos avisoEventos,
+                         @Value("${app.eventos.margen-huecos:PT10S}") Duration margenHuecos,
+                         @Value("${app.eventos.segundos-maximos-transaccion:5}") int segundosMaximosTransaccion) {
+        if (segundosMaximosTransaccion <= 0 || Duration.ofSeconds(segundosMaximosTransaccion).compareTo(margenHuecos) >= 0) {
+            throw new IllegalStateException("app.eventos.segundos-maximos-transaccion (" + segundosMaximosTransaccion
+                    + ") debe ser positivo y menor que app.eventos.margen-huecos (" + margenHuecos + ")");
+        }
+        this.eventoRepository = eventoRepository;
+        this.objectMapper = objectMapper;
+        this.avisoEventos = avisoEventos;
+        this.margenHuecos = margenHuecos;
+    }
+
+    /**
+     * Inserta el evento en la transacción en curso y avisa a los consumidores que esperan cuando se confirma.
+     *
+     * @param datos DTO de la entidad después del cambio; se guarda en JSON. Puede ser null.
+     * @throws org.springframework.transaction.IllegalTransactionStateException si no hay una transacción en curso:
+     *         un evento fuera de la transacción del cambio podría quedarse sin cambio o el cambio sin evento.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public Evento registrar(TipoEvento tipo, AccionEvento accion, int entidadId, Object datos) {
+        Evento evento = eventoRepository.save(new Evento(tipo, accion, entidadId, json(datos)));
+        avisarAlConfirmar();
+        return evento;
+    }
+
+    /**
+     * Como {@link #registrar}, para los cambios de un lote: un evento por entidad, en el orden del mapa,
+     * insertados con INSERT de varias filas.
+     *
+     * @param datosPorEntidad id de la entidad → DTO después del cambio.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void registrarLote(TipoEvento tipo, AccionEvento accion, Map<Integer, ?> datosPorEntidad) {
+        List<Evento> eventos = new ArrayList<>(datosPorEntidad.size());
+        datosPorEntidad.forEach((entidadId, datos) -> eventos.add(new Evento(tipo, accion, entidadId, json(datos))));
+        registrarTodos(eventos);
+    }
+
+    /**
+     * Como {@link #registrarLote(TipoEvento, AccionEvento, Map)}, con eventos sin datos: el barrido de vencimientos
+     * y el archivo de préstamos no cargan los préstamos que cambian.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void registrarLote(TipoEvento tipo, AccionEvento accion, Collection<Integer> entidadIds) {
+        List<Evento> eventos = new ArrayList<>(entidadIds.size());
+        entidadIds.forEach(entidadId -> eventos.add(new Evento(tipo, accion, entidadId, null)));
+        registrarTodos(eventos);
+    }
+
+    private void registrarTodos(List<Evento> eventos) {
+        if (eventos.isEmpty()) {
+            return;
+        }
+        eventoRepository.insertarTodos(eventos);
+        avisarAlConfirmar();
+    }
+
+    private void avisarAlConfirmar() {
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                avisoEventos.avisar();
+            }
+        });
+    }
+
+    /**
+     * Eventos posteriores a {@code desde}, en orden de id, hasta el primer hueco reciente.
+     *
+     * @param desde último id que ha recibido el consumidor (0 para empezar por el principio).
+     * @param limite número máximo de eventos; como mucho {@link Paginacion#TAMANIO_MAXIMO}.
+     * @return los eventos que ya no pueden cambiar de orden; vacío si no hay ninguno nuevo.
+     */
+    @Transactional(readOnly = true)
+    public List<Evento> leer(long desde, int limite) {
+        List<Evento> eventos = eventoRepository.findByIdGreaterThanOrderByIdAsc(desde, Paginacion.limite(limite));
+
+        LocalDateTime reciente = LocalDateTime.now().minus(margenHuecos);
+        List<Evento> estables = new ArrayList<>();
+        long anterior = desde;
+        for (Evento evento : eventos) {
+            if (evento.getId() != anterior + 1 && evento.getFecha().isAfter(reciente)) {
+                break;
+            }
+            estables.add(evento);
+            anterior = evento.getId();
+        }
+        return estables;
+    }
+
+    private String json(Object datos) {
+        if (datos == null) {
+            return null;
+        }
+        try {
+            return objectMapper.writeValueAsString(datos);
+        } catch (JsonProcessingException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
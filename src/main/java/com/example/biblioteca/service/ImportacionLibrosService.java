@@ -0,0 +1,372 @@
+package com.example.biblioteca.service;
+
+import com.example.biblioteca.dto.AutorDTO;
+import com.example.biblioteca.dto.LibroDTO;
+import com.example.biblioteca.dto.ResultadoImportacionDTO;
+import com.example.biblioteca.expection.OperacionNoPermitidaException;
+import com.example.biblioteca.model.AccionEvento;
+import com.example.biblioteca.model.Autor;
+import com.example.biblioteca.model.Importacion;
+import com.example.biblioteca.model.Libro;
+import com.example.biblioteca.model.TipoEvento;
+import com.example.biblioteca.repository.AutorRepository;
+import com.example.biblioteca.repository.ImportacionRepository;
+import com.example.biblioteca.repository.LibroRepository;
+import com.example.biblioteca.repository.MaterialBibliotecaRepository;
+import com.example.biblioteca.util.Csv;
+import com.example.biblioteca.util.FormatoFichero;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.stream.Collectors;
+
+/**
+ * Importación de libros desde un fichero CSV o JSON Lines, leído línea a línea.
+ *
+ * - Memoria constante: solo se tiene en memoria el lote en curso y el mapa nombre → id de los autores ya resueltos.
+ * - Los autores de cada lote que no están en el mapa se buscan con una sola consulta IN; los que no existen se dan de alta.
+ * - Cada lote se confirma en su propia transacción junto con el punto de control ({@link Importacion}) y los eventos
+ *   de alta de sus libros y autores nuevos ({@link EventoService#registrarLote}).
+ *   Si la importación se corta, se repite con el mismo nombre y continúa en la línea siguiente al último lote confirmado.
+ * - La transacción de cada lote tiene el timeout de las que registran eventos ({@code app.eventos.segundos-maximos-transaccion}).
+ * - Se descartan (y se informa de ello) las líneas mal formadas, las que no pasan la validación del {@link Libro}
+ *   y los libros cuyo título o isbn ya están en la biblioteca o repetidos en el fichero.
+ *
+ * Formato CSV: una línea de cabecera y las columnas isbn,titulo,añoPublicacion,autores,totales.
+ * Los autores van separados por '|'. Los campos con comas van entre comillas dobles ("" para una comilla).
+ *
+ * Formato JSONL: un {@link LibroDTO} en JSON por línea.
+ *
+ * En los dos formatos el número de ejemplares disponibles es el de totales, como en el alta de un libro.
+ */
+@Service
+public class ImportacionLibrosService {
+    public static final int TAMANIO_LOTE_MAXIMO = 10_000;
+    //Número máximo de errores que se devuelven en el resumen
+    static final int MAXIMO_ERRORES = 100;
+
+    private final LibroRepository libroRepository;
+    private final AutorRepository autorRepository;
+    private final MaterialBibliotecaRepository materialBibliotecaRepository;
+    private final ImportacionRepository importacionRepository;
+    private final Validator validator;
+    private final ObjectMapper objectMapper;
+    private final EventoService eventoService;
+    private final TransactionTemplate transactionTemplate;
+    private final int tamanioLotePorDefecto;
+
+    public ImportacionLibrosService(LibroRepository libroRepository,
+                                    AutorRepository autorRepository,
+                                    MaterialBibliotecaRepository materialBibliotecaRepository,
+                                    ImportacionRepository importacionRepository,
+                                    Validator validator,
+                                    ObjectMapper objectMapper,
+                                    EventoService eventoService,
+                                    PlatformTransactionManager transactionManager,
+                                    @Value("${app.importacion.tamanio-lote:1000}") int tamanioLotePorDefecto,
+                                    @Value("${app.eventos.segundos-maximos-transaccion:5}") int segundosMaximosTransaccion) {
+        this.libroRepository = libroRepository;
+        this.autorRepository = autorRepository;
+        this.materialBibliotecaRepository = materialBibliotecaRepository;
+        this.importacionRepository = importacionRepository;
+        this.validator = validator;
+        this.objectMapper = objectMapper;
+        this.eventoService = eventoService;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setTimeout(segundosMaximosTransaccion);
+        this.tamanioLotePorDefecto = tamanioLotePorDefecto;
+    }
+
+    /**
+     * Importa los libros que se leen de {@code reader}.
+     *
+     * @param nombre identifica la importación; con el mismo nombre se continúa una importación cortada.
+     * @param formato formato del contenido.
+     * @param reader contenido a importar. No se cierra.
+     * @param tamanioLote libros por transacción; si es null, el de {@code app.importacion.tamanio-lote}.
+     * @return el resumen acumulado de la importación.
+     * @throws IOException si falla la lectura. Los lotes anteriores ya están confirmados.
+     * @throws OperacionNoPermitidaException si falta el nombre o el tamaño de lote no está entre 1 y {@link #TAMANIO_LOTE_MAXIMO}.
+     */
+    public ResultadoImportacionDTO importar(String nombre, FormatoFichero formato, Reader reader, Integer tamanioLote) throws IOException {
+        if (nombre == null || nombre.isBlank()) {
+            throw new OperacionNoPermitidaException("La importación debe tener un nombre");
+        }
+        int tamanio = tamanioLote == null ? tamanioLotePorDefecto : tamanioLote;
+        if (tamanio < 1 || tamanio > TAMANIO_LOTE_MAXIMO) {
+            throw new OperacionNoPermitidaException("El tamaño de lote debe estar entre 1 y " + TAMANIO_LOTE_MAXIMO + ": " + tamanio);
+        }
+
+        Importacion importacion = importacionRepository.findByNombre(nombre)
+                .orElseGet(() -> nuevaImportacion(nombre));
+        List<String> errores = new ArrayList<>();
+        if (importacion.isTerminada()) {
+            return resumen(importacion, errores);
+        }
+
+        Map<String, Integer> autoresPorNombre = new HashMap<>();
+        BufferedReader lector = new BufferedReader(reader);
+        int lineaFichero = 0;
+        if (formato == FormatoFichero.CSV) {
+            lector.readLine(); //Cabecera
+            lineaFichero++;
+        }
+
+        long lineaDatos = 0;
+        List<Linea> lote = new ArrayList<>(tamanio);
+        String texto;
+        while ((texto = lector.readLine()) != null) {
+            lineaFichero++;
+            lineaDatos++;
+            //Las líneas de un lote ya confirmado en una ejecución anterior se saltan
+            if (lineaDatos <= importacion.getLineasProcesadas()) {
+                continue;
+            }
+            lote.add(new Linea(lineaFichero, texto));
+            if (lote.size() == tamanio) {
+                importacion = guardarLote(importacion, formato, lote, false, autoresPorNombre, errores);
+                lote.clear();
+            }
+        }
+        importacion = guardarLote(importacion, formato, lote, true, autoresPorNombre, errores);
+
+        return resumen(importacion, errores);
+    }
+
+    private static Importacion nuevaImportacion(String nombre) {
+        Importacion importacion = new Importacion();
+        importacion.setNombre(nombre);
+        return importacion;
+    }
+
+    private static ResultadoImportacionDTO resumen(Importacion importacion, List<String> errores) {
+        return new ResultadoImportacionDTO(
+                importacion.getNombre(),
+                importacion.getLineasProcesadas(),
+                importacion.getLibrosInsertados(),
+                importacion.getLineasDescartadas(),
+                importacion.isTerminada(),
+                errores);
+    }
+
+    /**
+     * Da de alta los libros de un lote, registra sus eventos y actualiza el punto de control, todo en una transacción.
+     * Los autores creados en el lote solo se añaden al mapa si la transacción se confirma.
+     */
+    private Importacion guardarLote(Importacion importacion, FormatoFichero formato, List<Linea> lote, boolean ultimo,
+                                    Map<String, Integer> autoresPorNombre, List<String> errores) {
+        Map<String, Integer> autoresNuevos = new HashMap<>();
+        List<String> erroresLote = new ArrayList<>();
+
+        Importacion guardada = transactionTemplate.execute(estado -> {
+            List<LibroLeido> libros = descartarRepetidos(leer(formato, lote, erroresLote), erroresLote);
+
+            Set<String> pendientes = libros.stream()
+                    .flatMap(libro -> libro.autores().stream())
+                    .filter(nombreAutor -> !autoresPorNombre.containsKey(nombreAutor))
+                    .collect(Collectors.toSet());
+            List<Autor> creados = new ArrayList<>();
+            autoresNuevos.putAll(resolverAutores(pendientes, creados));
+
+            List<Libro> validos = new ArrayList<>();
+            List<LibroLeido> leidosValidos = new ArrayList<>();
+            for (LibroLeido leido : libros) {
+                Libro libro = crearLibro(leido, autoresPorNombre, autoresNuevos);
+                Set<ConstraintViolation<Libro>> violaciones = validator.validate(libro);
+                if (violaciones.isEmpty()) {
+                    validos.add(libro);
+                    leidosValidos.add(leido);
+                } else {
+                    erroresLote.add(error(leido.linea(), violaciones.stream()
+                            .map(ConstraintViolation::getMessage)
+                            .sorted()
+                            .collect(Collectors.joining(", "))));
+                }
+            }
+            libroRepository.saveAll(validos);
+            registrarEventos(validos, leidosValidos, creados);
+
+            importacion.setLineasProcesadas(importacion.getLineasProcesadas() + lote.size());
+            importacion.setLibrosInsertados(importacion.getLibrosInsertados() + validos.size());
+            importacion.setLineasDescartadas(importacion.getLineasDescartadas() + erroresLote.size());
+            importacion.setTerminada(ultimo);
+            importacion.setFechaActualizacion(LocalDateTime.now());
+            return importacionRepository.save(importacion);
+        });
+
+        autoresPorNombre.putAll(autoresNuevos);
+        erroresLote.stream().limit(MAXIMO_ERRORES - errores.size()).forEach(errores::add);
+        return guardada;
+    }
+
+    /*
+    Eventos de alta de los libros del lote y de los autores creados para ellos. Los DTO se construyen con lo leído
+    del fichero: los autores de los libros son referencias sin cargar.
+    */
+    private void registrarEventos(List<Libro> libros, List<LibroLeido> leidos, List<Autor> creados) {
+        Map<Integer, LibroDTO> altasLibros = new LinkedHashMap<>();
+        Map<String, List<Integer>> librosPorAutor = new HashMap<>();
+        for (int i = 0; i < libros.size(); i++) {
+            Libro libro = libros.get(i);
+            List<String> autores = leidos.get(i).autores();
+            altasLibros.put(libro.getId(), new LibroDTO(libro.getId(), libro.getIsbn(), libro.getAñoPublicacion(),
+                    libro.getTitulo(), autores, libro.getTotales(), libro.getDisponibles()));
+            autores.forEach(nombreAutor -> librosPorAutor.computeIfAbsent(nombreAutor, n -> new ArrayList<>()).add(libro.getId()));
+        }
+
+        Map<Integer, AutorDTO> altasAutores = new LinkedHashMap<>();
+        for (Autor autor : creados) {
+            altasAutores.put(autor.getId(), new AutorDTO(autor.getId(), autor.getNombre(),
+                    librosPorAutor.getOrDefault(autor.getNombre(), List.of())));
+        }
+        eventoService.registrarLote(TipoEvento.AUTOR, AccionEvento.ALTA, altasAutores);
+        eventoService.registrarLote(TipoEvento.LIBRO, AccionEvento.ALTA, altasLibros);
+    }
+
+    //Convierte las líneas del lote en libros. Las líneas vacías se saltan; las mal formadas se anotan como error.
+    private List<LibroLeido> leer(FormatoFichero formato, List<Linea> lote, List<String> erroresLote) {
+        List<LibroLeido> libros = new ArrayList<>();
+        for (Linea linea : lote) {
+            if (linea.texto().isBlank()) {
+                continue;
+            }
+            try {
+                LibroDTO dto = formato == FormatoFichero.CSV ? leerCsv(linea.texto()) : objectMapper.readValue(linea.texto(), LibroDTO.class);
+                if (dto.getTitulo() == null || dto.getTitulo().isBlank()) {
+                    erroresLote.add(error(linea.numero(), "el libro debe tener un título"));
+                    continue;
+                }
+                List<String> autores = dto.getNombresAutores() == null ? List.of() : dto.getNombresAutores().stream()
+                        .filter(Objects::nonNull)
+                        .map(nombreAutor -> nombreAutor.trim().toUpperCase())
+                        .filter(nombreAutor -> !nombreAutor.isEmpty())
+                        .distinct()
+                        .toList();
+                libros.add(new LibroLeido(linea.numero(), dto, dto.getTitulo().trim().toUpperCase(), autores));
+            } catch (JsonProcessingException e) {
+                erroresLote.add(error(linea.numero(), "JSON no válido (" + e.getOriginalMessage() + ")"));
+            } catch (IllegalArgumentException e) {
+                erroresLote.add(error(linea.numero(), e.getMessage()));
+            }
+        }
+        return libros;
+    }
+
+    //isbn,titulo,añoPublicacion,autores,totales
+    static LibroDTO leerCsv(String linea) {
+        List<String> campos = Csv.separarCampos(linea);
+        if (campos.size() != 5) {
+            throw new IllegalArgumentException("se esperaban 5 columnas y hay " + campos.size());
+        }
+        LibroDTO dto = new LibroDTO();
+        dto.setIsbn(campos.get(0).isBlank() ? null : campos.get(0).trim());
+        dto.setTitulo(campos.get(1));
+        dto.setAñoPublicacion(entero(campos.get(2), "año de publicación"));
+        dto.setNombresAutores(Arrays.asList(campos.get(3).split("\\|")));
+        dto.setTotales(entero(campos.get(4), "número de ejemplares"));
+        return dto;
+    }
+
+    private static int entero(String campo, String descripcion) {
+        try {
+            return Integer.parseInt(campo.trim());
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException(descripcion + " no válido: '" + campo + "'");
+        }
+    }
+
+    //Descarta los libros cuyo título o isbn ya están en la biblioteca o se repiten dentro del lote
+    private List<LibroLeido> descartarRepetidos(List<LibroLeido> libros, List<String> erroresLote) {
+        if (libros.isEmpty()) {
+            return libros;
+        }
+        Set<String> titulos = materialBibliotecaRepository.findTitulosExistentes(
+                        libros.stream().map(LibroLeido::titulo).collect(Collectors.toSet()))
+                .stream()
+                .map(String::toUpperCase)
+                .collect(Collectors.toCollection(HashSet::new));
+        Set<String> isbns = new HashSet<>(materialBibliotecaRepository.findIsbnExistentes(
+                libros.stream().map(libro -> libro.dto().getIsbn()).filter(Objects::nonNull).collect(Collectors.toSet())));
+
+        List<LibroLeido> nuevos = new ArrayList<>();
+        for (LibroLeido libro : libros) {
+            String isbn = libro.dto().getIsbn();
+            if (!titulos.add(libro.titulo())) {
+                erroresLote.add(error(libro.linea(), "ya existe un libro o revista con el título '" + libro.titulo() + "'"));
+            } else if (isbn != null && !isbns.add(isbn)) {
+                erroresLote.add(error(libro.linea(), "ya existe un libro con el isbn '" + isbn + "'"));
+            } else {
+                nuevos.add(libro);
+            }
+        }
+        return nuevos;
+    }
+
+    /**
+     * Obtiene el id de los autores con una sola consulta y da de alta los que no existen.
+     *
+     * @param nombres nombres en mayúsculas que aún no están en el mapa de autores.
+     * @param creados recibe los autores dados de alta.
+     * @return nombre → id de todos ellos.
+     */
+    private Map<String, Integer> resolverAutores(Set<String> nombres, List<Autor> creados) {
+        if (nombres.isEmpty()) {
+            return Map.of();
+        }
+        Map<String, Integer> ids = new HashMap<>();
+        for (Autor autor : autorRepository.findByNombreIn(nombres)) {
+            ids.put(autor.getNombre().toUpperCase(), autor.getId());
+        }
+
+        List<Autor> nuevos = nombres.stream()
+                .filter(nombreAutor -> !ids.containsKey(nombreAutor))
+                .map(Autor::new)
+                .toList();
+        for (Autor autor : autorRepository.saveAll(nuevos)) {
+            ids.put(autor.getNombre(), autor.getId());
+            creados.add(autor);
+        }
+        return ids;
+    }
+
+    private Libro crearLibro(LibroLeido leido, Map<String, Integer> autoresPorNombre, Map<String, Integer> autoresNuevos) {
+        Libro libro = new Libro();
+        libro.setIsbn(leido.dto().getIsbn());
+        libro.setTitulo(leido.titulo());
+        libro.setAñoPublicacion(leido.dto().getAñoPublicacion());
+
+        //Referencias a los autores por id: no se leen de la base de datos
+        List<Autor> autores = new ArrayList<>();
+        for (String nombreAutor : leido.autores()) {
+            Integer id = autoresPorNombre.getOrDefault(nombreAutor, autoresNuevos.get(nombreAutor));
+            autores.add(autorRepository.getReferenceById(id));
+        }
+        libro.setAutores(autores);
+
+        //En el alta el número de ejemplares disponibles es el mismo que el número de ejemplares totales
+        libro.setTotales(leido.dto().getTotales());
+        libro.setDisponibles(leido.dto().getTotales());
+        return libro;
+    }
+
+    private static String error(int linea, String motivo) {
+        return "Línea " + linea + ": " + motivo;
+    }
+
+    private record Linea(int numero, String texto) {
+    }
+
+    private record LibroLeido(int linea, LibroDTO dto, String titulo, List<String> autores) {
+    }
+}
@@ -13,6 +13,11 @@ import org.springframework.transaction.annotation.Transactional;
 
 import java.util.*;
 
+/*
+Los métodos de consulta se anotan con @Transactional(readOnly = true). En una transacción de solo lectura
+Hibernate trabaja con FlushMode.MANUAL y carga las entidades como read-only (sin copia para el dirty checking),
+y la conexión JDBC se marca como de solo lectura. Las operaciones de alta y baja siguen con el @Transactional de la clase.
+*/
 @Service
 @Transactional
 public class LibroService {
@@ -41,14 +46,18 @@ public class LibroService {
         libroRepository.save(libro);
     }
 
+    //Los libros se devuelven con sus autores ya cargados
+    @Transactional(readOnly = true)
     public List<Libro> listarLibros() {
-        return libroRepository.findAll();
+        return libroRepository.findAllConAutores();
     }
 
+    @Transactional(readOnly = true)
     public Libro buscarLibroByIsbn (String isbn){
         return libroRepository.findLibroConAutores(isbn).orElse(null);
     }
 
+    @Transactional(readOnly = true)
     public Libro buscarLibroByTitulo (String titulo){
        Optional<Libro> libro = libroRepository.findByTitulo(titulo);
        return libro.orElse(null);
@@ -28,24 +28,19 @@ public class MaterialBibliotecaService {
     }
 
 
+    @Transactional(readOnly = true)
     public List<MaterialBiblioteca> obtenerMaterialesDelPrestamoById(int prestamoId) {
         Prestamo prestamo = prestamoRepository.findById(prestamoId).orElse(null);
         if (prestamo == null) {
             return Collections.emptyList();
         }
 
-        // Forzar la carga de la colección
-        prestamo.getMateriales().size(); // accede para inicializar
-
-        return prestamo.getMateriales(); // ahora sí se puede acceder
+        // Solo los materiales que el usuario todavía no ha devuelto
+        return prestamo.getMaterialesActivos();
     }
 
+    @Transactional(readOnly = true)
     public MaterialBiblioteca obtenerMaterialDelPrestamoByTitulo (String titulo){
         return materialBibliotecaRepository.findByTitulo(titulo);
     }
-
-    public void actualizarDisponible(MaterialBiblioteca materialBiblioteca, int disponible){
-        materialBiblioteca.setDisponibles(disponible);
-        materialBibliotecaRepository.save(materialBiblioteca);
-    }
 }
\ No newline at end of file
@@ -1,38 +1,72 @@
 package com.example.biblioteca.service;
 
+import com.example.biblioteca.dto.PrestamoDTO;
+import com.example.biblioteca.expection.MaterialNoDisponibleException;
+import com.example.biblioteca.metricas.MetricasPrestamo;
 import com.example.biblioteca.model.*;
 import com.example.biblioteca.repository.PrestamoRepository;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDate;
 import java.util.List;
 import java.util.stream.Collectors;
 
 @Service
-@Transactional
+@Transactional(timeoutString = "${app.eventos.segundos-maximos-transaccion:5}")
 public class PrestamoService {
 
     @Autowired
     private PrestamoRepository prestamoRepository;
 
-    public PrestamoService(PrestamoRepository prestamoRepository) {
+    private final MetricasPrestamo metricasPrestamo;
+
+    private final DisponibilidadService disponibilidadService;
+
+    private final EventoService eventoService;
+
+    public PrestamoService(PrestamoRepository prestamoRepository, MetricasPrestamo metricasPrestamo,
+                           DisponibilidadService disponibilidadService, EventoService eventoService) {
         this.prestamoRepository = prestamoRepository;
+        this.metricasPrestamo = metricasPrestamo;
+        this.disponibilidadService = disponibilidadService;
+        this.eventoService = eventoService;
     }
 
 
-    public void insertarPrestamo (Prestamo prestamo){
-        prestamoRepository.save(prestamo);
+    /**
+     * Alta de un préstamo (POST /Prestamos y consola de préstamos).
+     *
+     * En la misma transacción se descuenta un ejemplar de cada material con un UPDATE condicional
+     * ({@link DisponibilidadService#reservarEjemplar}), se inserta el préstamo y su evento.
+     *
+     * @return el préstamo guardado.
+     * @throws MaterialNoDisponibleException si algún material se ha quedado sin ejemplares: no se guarda nada.
+     */
+    public Prestamo insertarPrestamo (Prestamo prestamo){
+        prestamo.getMateriales().forEach(disponibilidadService::reservarEjemplar);
+        Prestamo prestamoGuardado = prestamoRepository.save(prestamo);
+        metricasPrestamo.prestamosCreados(1);
+
+        var titulos = prestamoGuardado.getMateriales().stream().map(MaterialBiblioteca::getTitulo).toList();
+        eventoService.registrar(TipoEvento.PRESTAMO, AccionEvento.ALTA, prestamoGuardado.getId(),
+                new PrestamoDTO(prestamoGuardado.getId(), prestamoGuardado.getFechaPrestamo(),
+                        prestamoGuardado.getUsuario().getNombre(), titulos, prestamoGuardado.isActivo()));
+        return prestamoGuardado;
     }
 
+    @Transactional(readOnly = true)
     public List<Prestamo> buscarPrestamoByMaterialId (int id){
         return prestamoRepository.findMaterialById(id);
     }
 
+    @Transactional(readOnly = true)
     public List<Prestamo> buscarPrestamoByUsuarioIdAndActivo (int usuario_id){
         return prestamoRepository.findByUsuario_idAndActivo(usuario_id);
     }
 
+    @Transactional(readOnly = true)
     public List<Integer> obtenerMaterialIdsPorPrestamos(List<Integer> prestamoIds) {
         List<Prestamo> prestamos = prestamoRepository.findAllById(prestamoIds);
 
@@ -44,16 +78,16 @@ public class PrestamoService {
     }
 
 
+    //Devuelve el material en el primer préstamo que lo tiene sin devolver; el préstamo solo se cierra con su último material
     public void desactivarPrestamoConMaterial(List<Integer> prestamoIds, int materialId) {
         List<Prestamo> prestamos = prestamoRepository.findAllWithMaterialesById(prestamoIds);
 
         prestamos.stream()
-                .filter(prestamo -> prestamo.getMateriales().stream()
-                        .anyMatch(material -> material.getId() == materialId))
+                .filter(prestamo -> prestamo.devolver(materialId, LocalDate.now()))
                 .findFirst()
                 .ifPresent(prestamo -> {
-                    prestamo.setActivo(false);
                     prestamoRepository.save(prestamo);
+                    metricasPrestamo.prestamoDevuelto();
                 });
     }
 
@@ -0,0 +1,136 @@
+package com.example.biblioteca.service;
+
+import com.example.biblioteca.expection.OperacionNoPermitidaException;
+import com.example.biblioteca.expection.ReservaNoEncontradaException;
+import com.example.biblioteca.metricas.MetricasPrestamo;
+import com.example.biblioteca.model.MaterialBiblioteca;
+import com.example.biblioteca.model.Prestamo;
+import com.example.biblioteca.model.Reserva;
+import com.example.biblioteca.model.Usuario;
+import com.example.biblioteca.repository.MaterialBibliotecaRepository;
+import com.example.biblioteca.repository.PrestamoRepository;
+import com.example.biblioteca.repository.ReservaRepository;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Cola de reservas de los materiales sin ejemplares disponibles.
+ *
+ * Cuando un material no tiene ejemplares, el usuario se pone a la cola en lugar de repetir el préstamo
+ * hasta que quede uno libre. Al devolver un ejemplar ({@link #devolverEjemplar}) no vuelve a estar disponible:
+ * se presta directamente a la primera reserva activa de la cola.
+ *
+ * Las reservas y devoluciones de un mismo material se hacen de una en una, bloqueando la fila del material,
+ * para que una reserva no se quede esperando mientras hay un ejemplar disponible.
+ */
+@Service
+@Transactional
+public class ReservaService {
+
+    private final ReservaRepository reservaRepository;
+    private final MaterialBibliotecaRepository materialBibliotecaRepository;
+    private final PrestamoRepository prestamoRepository;
+    private final DisponibilidadService disponibilidadService;
+    private final MetricasPrestamo metricasPrestamo;
+
+    public ReservaService(ReservaRepository reservaRepository,
+                          MaterialBibliotecaRepository materialBibliotecaRepository,
+                          PrestamoRepository prestamoRepository,
+                          DisponibilidadService disponibilidadService,
+                          MetricasPrestamo metricasPrestamo) {
+        this.reservaRepository = reservaRepository;
+        this.materialBibliotecaRepository = materialBibliotecaRepository;
+        this.prestamoRepository = prestamoRepository;
+        this.disponibilidadService = disponibilidadService;
+        this.metricasPrestamo = metricasPrestamo;
+    }
+
+    /**
+     * Pone al usuario al final de la cola de reservas del material.
+     *
+     * @throws OperacionNoPermitidaException si el material tiene ejemplares disponibles (se puede prestar)
+     *         o si el usuario ya tiene una reserva activa del material.
+     */
+    public Reserva reservar(Usuario usuario, MaterialBiblioteca materialBiblioteca) {
+        if (reservaRepository.existsByMaterialAndUsuarioAndActivaTrue(materialBiblioteca, usuario)) {
+            throw new OperacionNoPermitidaException("El usuario '" + usuario.getNombre() + "' ya tiene una reserva del material '" + materialBiblioteca.getTitulo() + "'");
+        }
+        if (materialBibliotecaRepository.avanzarUltimaReserva(materialBiblioteca.getId()) == 0) {
+            throw new OperacionNoPermitidaException("Hay ejemplares disponibles del material '" + materialBiblioteca.getTitulo() + "': se puede prestar sin reservarlo");
+        }
+
+        Reserva reserva = new Reserva();
+        reserva.setMaterial(materialBiblioteca);
+        reserva.setUsuario(usuario);
+        reserva.setPosicion(materialBibliotecaRepository.findUltimaReserva(materialBiblioteca.getId()));
+        reserva.setFechaReserva(LocalDateTime.now());
+        reserva.setActiva(true);
+        return reservaRepository.save(reserva);
+    }
+
+    /**
+     * Devuelve un ejemplar del material: si hay reservas, se presta a la primera de la cola; si no,
+     * vuelve a estar disponible.
+     *
+     * @return la reserva atendida, con el préstamo creado, o vacío si no había ninguna reserva.
+     * @throws com.example.biblioteca.expection.MaterialNoEncontradoException si no hay reservas
+     *         y el material no tiene ningún ejemplar prestado.
+     */
+    public Optional<Reserva> devolverEjemplar(MaterialBiblioteca materialBiblioteca) {
+        materialBibliotecaRepository.bloquear(materialBiblioteca.getId());
+
+        Optional<Reserva> primera = reservaRepository.findFirstByMaterialAndActivaTrueOrderByPosicionAsc(materialBiblioteca);
+        if (primera.isEmpty()) {
+            disponibilidadService.devolverEjemplar(materialBiblioteca);
+            return Optional.empty();
+        }
+
+        //El ejemplar no pasa por disponibles: se presta al usuario de la reserva
+        Reserva reserva = primera.get();
+        Prestamo prestamo = new Prestamo();
+        prestamo.setFechaPrestamo(LocalDate.now());
+        prestamo.setUsuario(reserva.getUsuario());
+        prestamo.setMateriales(new ArrayList<>(List.of(materialBiblioteca)));
+        prestamo.setActivo(true);
+        prestamoRepository.save(prestamo);
+        metricasPrestamo.prestamosCreados(1);
+
+        reserva.setActiva(false);
+        reserva.setPrestamo(prestamo);
+        reserva.setFechaAtencion(LocalDateTime.now());
+        return Optional.of(reserva);
+    }
+
+    /**
+     * Cancela una reserva que todavía no se ha atendido.
+     *
+     * @throws ReservaNoEncontradaException si no existe la reserva.
+     * @throws OperacionNoPermitidaException si la reserva ya se ha atendido o cancelado.
+     */
+    public void cancelar(int id) {
+        if (reservaRepository.cancelar(id) == 0) {
+            if (!reservaRepository.existsById(id)) {
+                throw new ReservaNoEncontradaException("Reserva no encontrada con id: " + id);
+            }
+            throw new OperacionNoPermitidaException("La reserva " + id + " ya se ha atendido o cancelado");
+        }
+    }
+
+    //Posición de la reserva en la cola de su material, empezando en 1
+    @Transactional(readOnly = true)
+    public long obtenerPosicion(Reserva reserva) {
+        return reservaRepository.countByMaterialAndActivaTrueAndPosicionLessThan(reserva.getMaterial(), reserva.getPosicion()) + 1;
+    }
+
+    //Reservas activas del material, en el orden en que se atenderán
+    @Transactional(readOnly = true)
+    public List<Reserva> obtenerCola(MaterialBiblioteca materialBiblioteca) {
+        return reservaRepository.findColaByMaterialId(materialBiblioteca.getId());
+    }
+}
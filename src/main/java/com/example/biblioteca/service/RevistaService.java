@@ -26,6 +26,7 @@ public class RevistaService {
         revistaRepository.save(revista);
     }
 
+    @Transactional(readOnly = true)
     public Revista buscarRevistaByTitulo (String titulo){
        Optional<Revista> revista = revistaRepository.findByTitulo(titulo);
        return revista.orElse(null);
@@ -35,6 +36,7 @@ public class RevistaService {
         revistaRepository.deleteById(id);
     }
 
+    @Transactional(readOnly = true)
     public List<Revista> listarRevistas (){
         return revistaRepository.findAll();
     }
@@ -4,11 +4,12 @@ import com.example.biblioteca.expection.OperacionNoPermitidaException;
 import com.example.biblioteca.expection.UsuarioNoEncontradoException;
 import com.example.biblioteca.model.Prestamo;
 import com.example.biblioteca.model.Usuario;
+import com.example.biblioteca.repository.PrestamoHistoricoRepository;
 import com.example.biblioteca.repository.PrestamoRepository;
 import com.example.biblioteca.repository.UsuarioRepository;
-import jakarta.transaction.Transactional;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.ArrayList;
 import java.util.List;
@@ -24,22 +25,27 @@ public class UsuarioService {
     @Autowired
     PrestamoRepository prestamoRepository;
 
-    public UsuarioService(UsuarioRepository usuarioRepository
-                          ) {
+    private final PrestamoHistoricoRepository prestamoHistoricoRepository;
+
+    public UsuarioService(UsuarioRepository usuarioRepository,
+                          PrestamoHistoricoRepository prestamoHistoricoRepository) {
         this.usuarioRepository=usuarioRepository;
+        this.prestamoHistoricoRepository = prestamoHistoricoRepository;
     }
 
     public void insertarUsuario (Usuario usuario){
         usuarioRepository.save(usuario);
     }
 
-    @Transactional
+    @Transactional(readOnly = true)
     public Usuario consultarUsuarioByNombre(String nombre) {
         Optional<Usuario> usuario = usuarioRepository.findByNombre(nombre);
         return usuario.orElse(null);
     }
 
     public void eliminarUsuarioById (int id){
+        //Los préstamos que siguen en Prestamo se borran en cascada; los archivados, aquí
+        prestamoHistoricoRepository.deleteByUsuarioId(id);
         usuarioRepository.deleteById(id);
     }
 
@@ -0,0 +1,83 @@
+package com.example.biblioteca.service;
+
+import com.example.biblioteca.metricas.MetricasPrestamo;
+import com.example.biblioteca.model.AccionEvento;
+import com.example.biblioteca.model.Prestamo;
+import com.example.biblioteca.model.TipoEvento;
+import com.example.biblioteca.repository.PrestamoRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Marca como vencidos los préstamos activos cuya fecha de vencimiento ({@link Prestamo#getFechaVencimiento()}) ya ha pasado.
+ *
+ * - Cada lote lee los primeros préstamos activos sin marcar como vencidos, por (fechaVencimiento, id), con el
+ *   índice (activo, vencido, fecha_vencimiento). Al marcarlos salen del rango del índice, así que nunca se
+ *   vuelven a leer los ya procesados.
+ * - Cada lote es una transacción corta que marca sus préstamos con un UPDATE y registra un evento VENCIMIENTO
+ *   por préstamo. No hay ninguna sentencia que recorra o bloquee toda la tabla. La transacción tiene el timeout
+ *   de las que registran eventos ({@code app.eventos.segundos-maximos-transaccion}).
+ * - Se procesan lotes hasta que no quedan préstamos vencidos o se agota el tiempo máximo; el resto
+ *   se procesa en la siguiente llamada.
+ *
+ * No se guarda la última clave procesada: POST /Prestamos acepta la fecha de préstamo del cliente, así que un
+ * préstamo nuevo puede vencer antes que los ya procesados y se marca igualmente en el siguiente lote.
+ */
+@Service
+public class VencimientoService {
+    private final PrestamoRepository prestamoRepository;
+    private final MetricasPrestamo metricasPrestamo;
+    private final EventoService eventoService;
+    private final TransactionTemplate transactionTemplate;
+
+    public VencimientoService(PrestamoRepository prestamoRepository,
+                              MetricasPrestamo metricasPrestamo,
+                              EventoService eventoService,
+                              PlatformTransactionManager transactionManager,
+                              @Value("${app.eventos.segundos-maximos-transaccion:5}") int segundosMaximosTransaccion) {
+        this.prestamoRepository = prestamoRepository;
+        this.metricasPrestamo = metricasPrestamo;
+        this.eventoService = eventoService;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setTimeout(segundosMaximosTransaccion);
+    }
+
+    /**
+     * Procesa los préstamos vencidos pendientes, por lotes.
+     *
+     * @param hoy fecha de referencia: vencen los préstamos con fecha de vencimiento anterior.
+     * @param tamanioLote préstamos por transacción.
+     * @param tiempoMaximo no se empieza un lote nuevo pasado este tiempo.
+     * @return número de préstamos vencidos procesados.
+     */
+    public long procesarVencidos(LocalDate hoy, int tamanioLote, Duration tiempoMaximo) {
+        long limite = System.nanoTime() + tiempoMaximo.toNanos();
+        long total = 0;
+        int procesados;
+        do {
+            procesados = transactionTemplate.execute(estado -> procesarLote(hoy, tamanioLote));
+            total += procesados;
+        } while (procesados == tamanioLote && System.nanoTime() < limite);
+        return total;
+    }
+
+    //Un lote: los primeros préstamos vencidos todavía sin marcar
+    private int procesarLote(LocalDate hoy, int tamanioLote) {
+        List<Integer> vencidos = prestamoRepository.findIdsVencidosSinMarcar(hoy, PageRequest.of(0, tamanioLote));
+        if (vencidos.isEmpty()) {
+            return 0;
+        }
+
+        int marcados = prestamoRepository.marcarVencidos(vencidos);
+        eventoService.registrarLote(TipoEvento.PRESTAMO, AccionEvento.VENCIMIENTO, vencidos);
+        metricasPrestamo.prestamosVencidos(marcados);
+        return vencidos.size();
+    }
+}
@@ -3,13 +3,17 @@ import com.example.biblioteca.dto.AutorDTO;
 import com.example.biblioteca.expection.AutorNoEncontradoException;
 import com.example.biblioteca.expection.LibroNoEncontradoException;
 import com.example.biblioteca.expection.OperacionNoPermitidaException;
+import com.example.biblioteca.model.AccionEvento;
 import com.example.biblioteca.model.Autor;
 import com.example.biblioteca.model.Libro;
+import com.example.biblioteca.model.TipoEvento;
+import com.example.biblioteca.proyeccion.AutorConLibro;
 import com.example.biblioteca.repository.AutorRepository;
 import com.example.biblioteca.repository.LibroRepository;
-import jakarta.transaction.Transactional;
+import com.example.biblioteca.service.EventoService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.ArrayList;
 import java.util.List;
@@ -17,7 +21,7 @@ import java.util.Objects;
 import java.util.Optional;
 
 @Service
-@Transactional
+@Transactional(timeoutString = "${app.eventos.segundos-maximos-transaccion:5}")
 public class AutorDTOService {
     @Autowired
     AutorRepository autorRepository;
@@ -25,10 +29,14 @@ public class AutorDTOService {
     @Autowired
     LibroRepository libroRepository;
 
+    private final EventoService eventoService;
+
     public AutorDTOService(AutorRepository autorRepository,
-                           LibroRepository libroRepository) {
+                           LibroRepository libroRepository,
+                           EventoService eventoService) {
         this.autorRepository=autorRepository;
         this.libroRepository=libroRepository;
+        this.eventoService=eventoService;
     }
 
     //******************************************
@@ -80,23 +88,35 @@ public class AutorDTOService {
         return autor;
     }
 
+    @Transactional(readOnly = true)
     public Libro obtenerPorId(Integer id) {
         return libroRepository.findById(id)
                 .orElseThrow(() -> new LibroNoEncontradoException("Libro no encontrado con id: " + id));
     }
 
     //Para hacer el Get desde Postman - Consultar autor por nombre
-    @Transactional
+    @Transactional(readOnly = true)
     public Optional<AutorDTO> consultarAutorDTO(String nombre){
         Objects.requireNonNull(nombre, "El nombre del autor a consultar no puede ser nulo o vacío");
 
         String nombreValido = validarNombre(nombre);
 
-        return autorRepository.findByNombre(nombreValido).stream()
+        //Una fila por libro del autor. Se leen solo el id, el nombre y los ids de los libros, sin cargar entidades.
+        List<AutorConLibro> filas = autorRepository.findResumenByNombre(nombreValido);
+        if (filas.isEmpty()) {
+            return Optional.empty();
+        }
+
+        var listaLibrosId = filas.stream()
+                .map(AutorConLibro::libroId)
                 .filter(Objects::nonNull)
-                .findFirst()
-                .map(this::convertirAAutorDTO)
-                ;
+                .toList();
+
+        return Optional.of(new AutorDTO(
+                filas.get(0).id(),
+                filas.get(0).nombre(),
+                listaLibrosId
+        ));
     }
 
     private String validarNombre (String nombre){
@@ -111,7 +131,9 @@ public class AutorDTOService {
     public AutorDTO guardarAutor(AutorDTO dto){
         var autor = convertirAAutor(dto);
         var autorGuardado = autorRepository.save(autor);
-        return convertirAAutorDTO(autorGuardado);
+        var autorDTO = convertirAAutorDTO(autorGuardado);
+        eventoService.registrar(TipoEvento.AUTOR, AccionEvento.ALTA, autorDTO.getId(), autorDTO);
+        return autorDTO;
     }
 
 
@@ -135,10 +157,13 @@ public class AutorDTOService {
         }
         autor.setLibro(libroList);
 
-        return (convertirAAutorDTO(autorRepository.save(autor)));
+        var autorDTO = convertirAAutorDTO(autorRepository.save(autor));
+        eventoService.registrar(TipoEvento.AUTOR, AccionEvento.CAMBIO, autorDTO.getId(), autorDTO);
+        return autorDTO;
     }
 
 
+    @Transactional(readOnly = true)
     public List<Optional<Libro>> obtenerPorNombre(String nombre) {
         return libroRepository.findLibroByAutor(nombre);
     }
@@ -160,6 +185,9 @@ public class AutorDTOService {
             throw new OperacionNoPermitidaException("Autor '" + nombre + "' no se puede dar de baja. Tiene libros en la biblioteca");
         }
 
+        //Sin libros: el DTO de la baja no necesita cargarlos
+        eventoService.registrar(TipoEvento.AUTOR, AccionEvento.BAJA, autor.get().getId(),
+                new AutorDTO(autor.get().getId(), autor.get().getNombre(), List.of()));
         autorRepository.deleteById(autor.get().getId());
 
     }
@@ -0,0 +1,61 @@
+package com.example.biblioteca.serviceDTO;
+
+import com.example.biblioteca.dto.EstadisticasCacheDTO;
+import com.example.biblioteca.dto.RegionCacheDTO;
+import com.example.biblioteca.titulos.IdsMaterialPorTitulo;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.CacheRegionStatistics;
+import org.hibernate.stat.Statistics;
+import org.springframework.stereotype.Service;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Expone las estadísticas de la caché de segundo nivel de Hibernate y las de {@link IdsMaterialPorTitulo}.
+ *
+ * Los contadores de Hibernate solo avanzan si {@code hibernate.generate_statistics} está activo.
+ */
+@Service
+public class EstadisticasCacheDTOService {
+
+    private final Statistics estadisticas;
+    private final IdsMaterialPorTitulo idsMaterialPorTitulo;
+
+    public EstadisticasCacheDTOService(EntityManagerFactory entityManagerFactory, IdsMaterialPorTitulo idsMaterialPorTitulo) {
+        this.estadisticas = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        this.idsMaterialPorTitulo = idsMaterialPorTitulo;
+    }
+
+    //Para hacer el Get desde Postman - Consultar las estadísticas de la caché
+    public EstadisticasCacheDTO consultarEstadisticas() {
+        List<RegionCacheDTO> regiones = Arrays.stream(estadisticas.getSecondLevelCacheRegionNames())
+                .sorted()
+                .map(this::convertirARegionCacheDTO)
+                .toList();
+
+        return new EstadisticasCacheDTO(
+                estadisticas.getSecondLevelCacheHitCount(),
+                estadisticas.getSecondLevelCacheMissCount(),
+                estadisticas.getSecondLevelCachePutCount(),
+                estadisticas.getQueryCacheHitCount(),
+                estadisticas.getQueryCacheMissCount(),
+                estadisticas.getQueryCachePutCount(),
+                idsMaterialPorTitulo.getAciertos(),
+                idsMaterialPorTitulo.getFallos(),
+                regiones
+        );
+    }
+
+    private RegionCacheDTO convertirARegionCacheDTO(String region) {
+        CacheRegionStatistics estadisticasRegion = estadisticas.getCacheRegionStatistics(region);
+
+        return new RegionCacheDTO(
+                region,
+                estadisticasRegion.getHitCount(),
+                estadisticasRegion.getMissCount(),
+                estadisticasRegion.getPutCount()
+        );
+    }
+}
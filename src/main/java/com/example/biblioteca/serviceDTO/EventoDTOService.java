@@ -0,0 +1,134 @@
+package com.example.biblioteca.serviceDTO;
+
+import com.example.biblioteca.dto.EventoDTO;
+import com.example.biblioteca.eventos.AvisoEventos;
+import com.example.biblioteca.model.Evento;
+import com.example.biblioteca.service.EventoService;
+import com.example.biblioteca.util.Paginacion;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Lectura de eventos para los consumidores (GET /Eventos), en long-poll o en Server-Sent Events.
+ *
+ * Sin transacción propia: cada consulta de {@link EventoService#leer} usa la suya y entre una y otra se espera
+ * sin conexión a la base de datos. La espera termina con el aviso de {@link AvisoEventos} cuando se confirman
+ * eventos en esta instancia, o cada {@code app.eventos.intervalo-sondeo} para ver los de otras instancias
+ * y los que estaban detrás de un hueco.
+ */
+@Service
+public class EventoDTOService {
+    //Espera máxima de una petición long-poll, pida lo que pida el cliente
+    public static final Duration ESPERA_MAXIMA = Duration.ofSeconds(60);
+
+    //Con SSE, si no hay eventos, se manda un comentario cada cierto tiempo para que los proxies no cierren
+    //la conexión y para enterarse de que el cliente se ha ido
+    private static final Duration LATIDO = Duration.ofSeconds(15);
+
+    private final EventoService eventoService;
+    private final AvisoEventos avisoEventos;
+    private final ObjectMapper objectMapper;
+    private final Duration intervaloSondeo;
+    private final Duration duracionSse;
+
+    public EventoDTOService(EventoService eventoService,
+                            AvisoEventos avisoEventos,
+                            ObjectMapper objectMapper,
+                            @Value("${app.eventos.intervalo-sondeo:PT2S}") Duration intervaloSondeo,
+                            @Value("${app.eventos.duracion-sse:PT10M}") Duration duracionSse) {
+        this.eventoService = eventoService;
+        this.avisoEventos = avisoEventos;
+        this.objectMapper = objectMapper;
+        this.intervaloSondeo = intervaloSondeo;
+        this.duracionSse = duracionSse;
+    }
+
+    public EventoDTO convertirAEventoDTO(Evento evento) {
+        return new EventoDTO(
+                evento.getId(),
+                evento.getFecha(),
+                evento.getTipo(),
+                evento.getAccion(),
+                evento.getEntidadId(),
+                evento.getDatos()
+        );
+    }
+
+    /**
+     * Long-poll: devuelve los eventos posteriores a {@code desde} en cuanto hay alguno, o una lista vacía
+     * si no llega ninguno en {@code espera} (como mucho {@link #ESPERA_MAXIMA}).
+     *
+     * @param desde último id recibido por el consumidor.
+     * @param limite número máximo de eventos.
+     */
+    public List<EventoDTO> esperarEventos(long desde, int limite, Duration espera) throws InterruptedException {
+        long fin = System.nanoTime() + min(espera, ESPERA_MAXIMA).toNanos();
+        while (true) {
+            //Antes de consultar: un aviso que llegue durante la consulta despierta la espera siguiente
+            long avisos = avisoEventos.avisos();
+            List<Evento> eventos = eventoService.leer(desde, limite);
+            long restante = fin - System.nanoTime();
+            if (!eventos.isEmpty() || restante <= 0) {
+                return eventos.stream().map(this::convertirAEventoDTO).toList();
+            }
+            avisoEventos.esperar(avisos, min(Duration.ofNanos(restante), intervaloSondeo));
+        }
+    }
+
+    /**
+     * Server-Sent Events: escribe los eventos posteriores a {@code desde} y los que se van confirmando,
+     * con el id de cada uno en la línea {@code id:} y el {@link EventoDTO} en JSON en la línea {@code data:}.
+     *
+     * Termina a los {@code app.eventos.duracion-sse} (antes de que venza {@code spring.mvc.async.request-timeout})
+     * o cuando el cliente cierra la conexión; el cliente vuelve a conectar con la cabecera Last-Event-ID.
+     *
+     * @param salida destino; no se cierra, solo se vacía después de cada grupo de eventos.
+     */
+    public void enviarEventos(long desde, OutputStream salida) throws IOException {
+        Writer escritor = new BufferedWriter(new OutputStreamWriter(salida, StandardCharsets.UTF_8));
+        long cursor = desde;
+        long fin = System.nanoTime() + duracionSse.toNanos();
+        long ultimoEnvio = System.nanoTime();
+        try {
+            while (System.nanoTime() < fin) {
+                long avisos = avisoEventos.avisos();
+                List<Evento> eventos = eventoService.leer(cursor, Paginacion.TAMANIO_MAXIMO);
+                for (Evento evento : eventos) {
+                    escritor.write("id: " + evento.getId() + "\n");
+                    escritor.write("data: " + objectMapper.writeValueAsString(convertirAEventoDTO(evento)) + "\n\n");
+                    cursor = evento.getId();
+                }
+                if (!eventos.isEmpty()) {
+                    escritor.flush();
+                    ultimoEnvio = System.nanoTime();
+                    continue;
+                }
+
+                if (System.nanoTime() - ultimoEnvio >= LATIDO.toNanos()) {
+                    escritor.write(":\n\n");
+                    escritor.flush();
+                    ultimoEnvio = System.nanoTime();
+                }
+                avisoEventos.esperar(avisos, min(Duration.ofNanos(fin - System.nanoTime()), intervaloSondeo));
+            }
+        } catch (InterruptedException e) {
+            //Se para la aplicación: se corta el envío y el cliente volverá a conectar
+            Thread.currentThread().interrupt();
+        }
+        escritor.flush();
+    }
+
+    private static Duration min(Duration a, Duration b) {
+        return a.compareTo(b) <= 0 ? a : b;
+    }
+}
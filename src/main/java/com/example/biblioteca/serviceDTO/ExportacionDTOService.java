@@ -0,0 +1,233 @@
+package com.example.biblioteca.serviceDTO;
+
+import com.example.biblioteca.dto.LibroDTO;
+import com.example.biblioteca.dto.PrestamoDTO;
+import com.example.biblioteca.dto.RevistaDTO;
+import com.example.biblioteca.proyeccion.LibroConAutor;
+import com.example.biblioteca.proyeccion.PrestamoConMaterial;
+import com.example.biblioteca.repository.LibroRepository;
+import com.example.biblioteca.repository.PrestamoHistoricoRepository;
+import com.example.biblioteca.repository.PrestamoRepository;
+import com.example.biblioteca.repository.RevistaRepository;
+import com.example.biblioteca.util.Csv;
+import com.example.biblioteca.util.FormatoFichero;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.function.ToIntFunction;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Exportación del catálogo y de los préstamos en CSV o JSON Lines.
+ *
+ * Las filas se leen en streaming con proyecciones (no son entidades, así que no se quedan en el contexto de
+ * persistencia) y se escriben según llegan, de modo que la memoria usada no depende del tamaño de la tabla.
+ */
+@Service
+@Transactional(readOnly = true)
+public class ExportacionDTOService {
+
+    private final LibroRepository libroRepository;
+    private final RevistaRepository revistaRepository;
+    private final PrestamoRepository prestamoRepository;
+    private final PrestamoHistoricoRepository prestamoHistoricoRepository;
+    private final ObjectMapper objectMapper;
+
+    public ExportacionDTOService(LibroRepository libroRepository,
+                                 RevistaRepository revistaRepository,
+                                 PrestamoRepository prestamoRepository,
+                                 PrestamoHistoricoRepository prestamoHistoricoRepository,
+                                 ObjectMapper objectMapper) {
+        this.libroRepository = libroRepository;
+        this.revistaRepository = revistaRepository;
+        this.prestamoRepository = prestamoRepository;
+        this.prestamoHistoricoRepository = prestamoHistoricoRepository;
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * Escribe todos los libros, ordenados por id. En CSV los autores van separados por '|'.
+     *
+     * @param formato formato de salida.
+     * @param salida  destino; no se cierra, solo se vacía al terminar.
+     * @return número de libros escritos.
+     */
+    public long exportarLibros(FormatoFichero formato, OutputStream salida) throws IOException {
+        try (Stream<LibroConAutor> filas = libroRepository.findTodosParaExportar()) {
+            Iterator<LibroDTO> libros = agrupar(filas, LibroConAutor::id,
+                    f -> new LibroDTO(f.id(), f.isbn(), f.añoPublicacion(), f.titulo(), new ArrayList<>(),
+                            valor(f.totales()), valor(f.disponibles())),
+                    (libro, f) -> {
+                        if (f.autor() != null) {
+                            libro.getNombresAutores().add(f.autor());
+                        }
+                    });
+            return escribir(libros, formato, salida,
+                    Csv.linea("id", "isbn", "titulo", "añoPublicacion", "autores", "totales", "disponibles"),
+                    l -> Csv.linea(l.getId(), l.getIsbn(), l.getTitulo(), l.getAñoPublicacion(),
+                            String.join("|", l.getNombresAutores()), l.getTotales(), l.getDisponibles()));
+        }
+    }
+
+    /**
+     * Escribe todas las revistas, ordenadas por id.
+     *
+     * @param formato formato de salida.
+     * @param salida  destino; no se cierra, solo se vacía al terminar.
+     * @return número de revistas escritas.
+     */
+    public long exportarRevistas(FormatoFichero formato, OutputStream salida) throws IOException {
+        try (Stream<RevistaDTO> revistas = revistaRepository.findTodasParaExportar()) {
+            return escribir(revistas.iterator(), formato, salida,
+                    Csv.linea("id", "titulo", "numeroEdicion", "periodicidad", "totales", "disponibles"),
+                    r -> Csv.linea(r.getId(), r.getTitulo(), r.getNumeroEdicion(), r.getPeriodicidad(),
+                            r.getTotales(), r.getDisponibles()));
+        }
+    }
+
+    /**
+     * Escribe todos los préstamos: primero los archivados en el histórico y después los de Prestamo, cada parte
+     * ordenada por id. En CSV los títulos van separados por '|'.
+     *
+     * @param formato formato de salida.
+     * @param salida  destino; no se cierra, solo se vacía al terminar.
+     * @return número de préstamos escritos.
+     */
+    public long exportarPrestamos(FormatoFichero formato, OutputStream salida) throws IOException {
+        try (Stream<PrestamoConMaterial> filas = encadenar(prestamoHistoricoRepository::findTodosParaExportar,
+                prestamoRepository::findTodosParaExportar)) {
+            Iterator<PrestamoDTO> prestamos = agrupar(filas, PrestamoConMaterial::id,
+                    f -> new PrestamoDTO(f.id(), f.fechaPrestamo(), f.nombreUsuario(), new ArrayList<>(), f.activo()),
+                    (prestamo, f) -> {
+                        if (f.titulo() != null) {
+                            prestamo.getTituloMateriales().add(f.titulo());
+                        }
+                    });
+            return escribir(prestamos, formato, salida,
+                    Csv.linea("id", "fechaPrestamo", "nombreUsuario", "titulos", "activo"),
+                    p -> Csv.linea(p.getId(), p.getFechaPrestamo(), p.getNombreUsuario(),
+                            String.join("|", p.getTituloMateriales()), p.isActivos()));
+        }
+    }
+
+    //Escribe un elemento por línea. Cada línea va al buffer del Writer, que la envía a la salida cuando se llena.
+    private <T> long escribir(Iterator<T> elementos, FormatoFichero formato, OutputStream salida,
+                              String cabeceraCsv, Function<T, String> lineaCsv) throws IOException {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(salida, StandardCharsets.UTF_8));
+        long escritos = 0;
+        if (formato == FormatoFichero.CSV) {
+            writer.write(cabeceraCsv);
+            writer.write('\n');
+        }
+        while (elementos.hasNext()) {
+            T elemento = elementos.next();
+            writer.write(formato == FormatoFichero.CSV ? lineaCsv.apply(elemento) : objectMapper.writeValueAsString(elemento));
+            writer.write('\n');
+            escritos++;
+        }
+        writer.flush();
+        return escritos;
+    }
+
+    /*
+    Junta en un solo elemento las filas consecutivas con el mismo id (las consultas vienen ordenadas por id).
+    Solo se guarda en memoria el elemento que se está formando.
+    */
+    private static <F, T> Iterator<T> agrupar(Stream<F> filas, ToIntFunction<F> id,
+                                              Function<F, T> crear, BiConsumer<T, F> añadir) {
+        Iterator<F> it = filas.iterator();
+        return new Iterator<>() {
+            private F siguiente = it.hasNext() ? it.next() : null;
+
+            @Override
+            public boolean hasNext() {
+                return siguiente != null;
+            }
+
+            @Override
+            public T next() {
+                if (siguiente == null) {
+                    throw new NoSuchElementException();
+                }
+                F fila = siguiente;
+                T elemento = crear.apply(fila);
+                añadir.accept(elemento, fila);
+                siguiente = null;
+                while (it.hasNext()) {
+                    F otra = it.next();
+                    if (id.applyAsInt(otra) != id.applyAsInt(fila)) {
+                        siguiente = otra;
+                        break;
+                    }
+                    añadir.accept(elemento, otra);
+                }
+                return elemento;
+            }
+        };
+    }
+
+    /*
+    Las filas de una consulta y después las de otra. La segunda consulta se lanza cuando se termina de leer
+    la primera, que se cierra antes: en la conexión solo hay un resultado en streaming abierto a la vez.
+    */
+    private static <F> Stream<F> encadenar(Supplier<Stream<F>> primera, Supplier<Stream<F>> segunda) {
+        Encadenadas<F> filas = new Encadenadas<>(primera.get(), segunda);
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(filas, Spliterator.ORDERED), false)
+                .onClose(filas::cerrar);
+    }
+
+    private static class Encadenadas<F> implements Iterator<F> {
+        private Stream<F> actual;
+        private Iterator<F> filas;
+        private Supplier<Stream<F>> siguiente;
+
+        Encadenadas(Stream<F> primera, Supplier<Stream<F>> segunda) {
+            this.actual = primera;
+            this.filas = primera.iterator();
+            this.siguiente = segunda;
+        }
+
+        @Override
+        public boolean hasNext() {
+            if (!filas.hasNext() && siguiente != null) {
+                actual.close();
+                actual = siguiente.get();
+                filas = actual.iterator();
+                siguiente = null;
+            }
+            return filas.hasNext();
+        }
+
+        @Override
+        public F next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            return filas.next();
+        }
+
+        void cerrar() {
+            actual.close();
+        }
+    }
+
+    private static int valor(Integer cantidad) {
+        return cantidad == null ? 0 : cantidad;
+    }
+}
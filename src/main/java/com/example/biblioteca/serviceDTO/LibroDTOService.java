@@ -4,18 +4,26 @@ import com.example.biblioteca.dto.LibroDTO;
 import com.example.biblioteca.expection.AutorNoEncontradoException;
 import com.example.biblioteca.expection.LibroNoEncontradoException;
 import com.example.biblioteca.expection.LibroPrestadoException;
+import com.example.biblioteca.model.AccionEvento;
 import com.example.biblioteca.model.Autor;
 import com.example.biblioteca.model.Libro;
+import com.example.biblioteca.model.TipoEvento;
+import com.example.biblioteca.proyeccion.LibroResumen;
+import com.example.biblioteca.proyeccion.NombreAutorDeLibro;
+import com.example.biblioteca.proyeccion.VersionMaterial;
 import com.example.biblioteca.repository.AutorRepository;
 import com.example.biblioteca.repository.LibroRepository;
+import com.example.biblioteca.service.EventoService;
+import com.example.biblioteca.util.Paginacion;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.util.*;
+import java.util.stream.Collectors;
 
 @Service
-@Transactional
+@Transactional(timeoutString = "${app.eventos.segundos-maximos-transaccion:5}")
 public class LibroDTOService {
 
     @Autowired
@@ -24,9 +32,12 @@ public class LibroDTOService {
     @Autowired
     private final AutorRepository autorRepository;
 
-    public LibroDTOService(LibroRepository libroRepository, AutorRepository autorRepository) {
+    private final EventoService eventoService;
+
+    public LibroDTOService(LibroRepository libroRepository, AutorRepository autorRepository, EventoService eventoService) {
         this.libroRepository = libroRepository;
         this.autorRepository = autorRepository;
+        this.eventoService = eventoService;
     }
 
 
@@ -70,7 +81,7 @@ public class LibroDTOService {
      *
      * Asigna los campos básicos (ISBN, año de publicación y título) y resuelve la lista
      * de autores a partir de sus nombres: por cada nombre en {@code dto.getNombresAutores()},
-     * intenta recuperar un {@link Autor} existente con {@code autorRepository.findByNombre(nombre)};
+     * intenta recuperar un {@link Autor} existente con {@code autorRepository.findSoloAutorByNombre(nombre)};
      * si no existe, crea y persiste un nuevo {@link Autor} con ese nombre y lo añade a la lista.
      * Finalmente, asocia la lista de autores al libro y devuelve la entidad construida.
      *
@@ -118,8 +129,8 @@ public class LibroDTOService {
         List<Autor> autorList = new ArrayList<>();
 
         for (String nombre : nombresAutoresLimpios) {
-            // Buscar si ya existe un autor con ese nombre
-            Optional<Autor> autorExistente = autorRepository.findByNombre(nombre);
+            // Buscar si ya existe un autor con ese nombre (consulta cacheable, no carga sus libros)
+            Optional<Autor> autorExistente = autorRepository.findSoloAutorByNombre(nombre);
 
             //Si el autor no existe, se da de alta
             Autor autor = autorExistente.orElseGet(() -> {
@@ -139,10 +150,87 @@ public class LibroDTOService {
     }
 
 
-    //Para hacer el Get desde Postman - Listar libros
-    public List<LibroDTO> listarLibrosDTO() {
-        return libroRepository.findAll().stream()
+    //Para hacer el Get desde Postman - Listar libros por páginas (page empieza en 0)
+    @Transactional(readOnly = true)
+    public List<LibroDTO> listarLibrosDTO(int pagina, int tamanio) {
+        return convertirALibrosDTO(libroRepository.findPagina(Paginacion.pagina(pagina, tamanio)));
+    }
+
+    //Para hacer el Get desde Postman - Listar libros a partir de un id (keyset)
+    @Transactional(readOnly = true)
+    public List<LibroDTO> listarLibrosDTODesde(int afterId, int tamanio) {
+        return convertirALibrosDTO(libroRepository.findSiguientes(afterId, Paginacion.limite(tamanio)));
+    }
+
+    /**
+     * ETag de una página del listado de libros: los ids y versiones de sus libros y de sus autores
+     * ({@link VersionMaterial#etagPagina}), con una consulta de columnas. No se construye ningún LibroDTO.
+     *
+     * Solo depende de las filas de la página: un préstamo o un alta en otra parte del catálogo no lo cambia,
+     * y ninguna escritura tiene que actualizar una fila común a todo el catálogo.
+     * Se pide antes que el listado: si la página cambia entre las dos lecturas, el cliente recibe los datos nuevos
+     * con el ETag viejo y en la siguiente petición no coincide. Al revés se quedaría con datos viejos como si fueran actuales.
+     */
+    @Transactional(readOnly = true)
+    public String etagLibros(int pagina, int tamanio) {
+        return VersionMaterial.etagPagina(libroRepository.findVersionesPagina(Paginacion.pagina(pagina, tamanio)));
+    }
+
+    //ETag de una página del listado de libros a partir de un id (keyset), como etagLibros
+    @Transactional(readOnly = true)
+    public String etagLibrosDesde(int afterId, int tamanio) {
+        return VersionMaterial.etagPagina(libroRepository.findVersionesSiguientes(afterId, Paginacion.limite(tamanio)));
+    }
+
+    /**
+     * ETag de un libro: su versión y las de sus autores, con una consulta de columnas.
+     *
+     * @throws LibroNoEncontradoException si no existe el libro.
+     */
+    @Transactional(readOnly = true)
+    public String etagLibro(String titulo) {
+        return libroRepository.findVersion(titulo.toUpperCase())
+                .orElseThrow(() -> new LibroNoEncontradoException("Libro no encontrado con titulo '" + titulo + "'"))
+                .etag();
+    }
+
+    //Para hacer el Get desde Postman - Consultar un libro dado su título
+    @Transactional(readOnly = true)
+    public LibroDTO consultarLibroDTO(String titulo) {
+        return libroRepository.findByTitulo(titulo.toUpperCase())
                 .map(this::convertirALibroDTO)
+                .orElseThrow(() -> new LibroNoEncontradoException("Libro no encontrado con titulo '" + titulo + "'"));
+    }
+
+    /**
+     * Construye los {@link LibroDTO} de una página de {@link LibroResumen}.
+     *
+     * Los nombres de los autores de toda la página se obtienen con una única consulta
+     * ({@code findNombresAutores}) y se agrupan por id de libro. Ni los libros ni los autores
+     * se cargan como entidades.
+     *
+     * @param libros proyecciones de los libros de la página.
+     * @return los DTO en el mismo orden que {@code libros}; un libro sin autores tiene la lista vacía.
+     */
+    private List<LibroDTO> convertirALibrosDTO(List<LibroResumen> libros) {
+        if (libros.isEmpty()) {
+            return List.of();
+        }
+
+        var ids = libros.stream().map(LibroResumen::id).toList();
+        Map<Integer, List<String>> autoresPorLibro = libroRepository.findNombresAutores(ids).stream()
+                .collect(Collectors.groupingBy(NombreAutorDeLibro::libroId,
+                        Collectors.mapping(NombreAutorDeLibro::nombre, Collectors.toList())));
+
+        return libros.stream()
+                .map(libro -> new LibroDTO(
+                        libro.id(),
+                        libro.isbn(),
+                        libro.añoPublicacion(),
+                        libro.titulo(),
+                        autoresPorLibro.getOrDefault(libro.id(), List.of()),
+                        libro.totales(),
+                        libro.disponibles()))
                 .toList();
     }
 
@@ -151,7 +239,9 @@ public class LibroDTOService {
     public LibroDTO guardarLibro(LibroDTO dto) {
         var libro = convertirDesdeDTO(dto);
         var libroGuardado = libroRepository.save(libro);
-        return convertirALibroDTO(libroGuardado);
+        var libroDTO = convertirALibroDTO(libroGuardado);
+        eventoService.registrar(TipoEvento.LIBRO, AccionEvento.ALTA, libroDTO.getId(), libroDTO);
+        return libroDTO;
     }
 
     //Para hacer el Put desde Postman. Actualizar un libro
@@ -169,7 +259,7 @@ public class LibroDTOService {
         //Si no existiera el autor, se devuelve una excepción.
         List<Autor> autorList = new ArrayList<>();
         for (String nombre : dto.getNombresAutores()){
-            Optional<Autor> autorExistente = autorRepository.findByNombre(nombre);
+            Optional<Autor> autorExistente = autorRepository.findSoloAutorByNombre(nombre);
             Autor autor = autorExistente.orElseThrow(() -> new AutorNoEncontradoException("Autor no existente: " + nombre));
             autorList.add(autor);
         }
@@ -178,7 +268,9 @@ public class LibroDTOService {
         libro.setDisponibles(dto.getDisponibles());
 
         //Se salva el libro y se devuelve el libro en formato DTO.
-        return convertirALibroDTO(libroRepository.save(libro));
+        var libroDTO = convertirALibroDTO(libroRepository.save(libro));
+        eventoService.registrar(TipoEvento.LIBRO, AccionEvento.CAMBIO, libroDTO.getId(), libroDTO);
+        return libroDTO;
     }
 
     //Para hacer el Delete desde Postman. Borrar un libro dado su título
@@ -195,6 +287,7 @@ public class LibroDTOService {
             throw new LibroPrestadoException("Libro no se puede dar de baja. Está prestado.");
         }
 
+        eventoService.registrar(TipoEvento.LIBRO, AccionEvento.BAJA, libro.get().getId(), convertirALibroDTO(libro.get()));
         libroRepository.deleteById(libro.get().getId());
     }
 }
\ No newline at end of file
@@ -1,22 +1,35 @@
 package com.example.biblioteca.serviceDTO;
 
 import com.example.biblioteca.dto.PrestamoDTO;
+import com.example.biblioteca.dto.ResultadoPrestamoDTO;
 import com.example.biblioteca.expection.*;
+import com.example.biblioteca.metricas.MetricasPrestamo;
 import com.example.biblioteca.model.*;
 import com.example.biblioteca.repository.MaterialBibliotecaRepository;
+import com.example.biblioteca.proyeccion.PrestamoADevolver;
+import com.example.biblioteca.proyeccion.PrestamoConMaterial;
+import com.example.biblioteca.repository.PrestamoHistoricoRepository;
 import com.example.biblioteca.repository.PrestamoRepository;
 import com.example.biblioteca.repository.UsuarioRepository;
+import com.example.biblioteca.service.DisponibilidadService;
+import com.example.biblioteca.service.DevolucionService;
+import com.example.biblioteca.service.EventoService;
+import com.example.biblioteca.service.PrestamoService;
+import com.example.biblioteca.titulos.IdsMaterialPorTitulo;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
-import java.util.ArrayList;
-import java.util.List;
-import java.util.Optional;
+import java.util.*;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 @Service
-@Transactional
+@Transactional(timeoutString = "${app.eventos.segundos-maximos-transaccion:5}")
 public class PrestamoDTOService {
+    //Número máximo de préstamos que se aceptan en un alta por lotes
+    public static final int MAXIMO_PRESTAMOS_POR_LOTE = 500;
+
     @Autowired
     private final PrestamoRepository prestamoRepository;
 
@@ -26,12 +39,41 @@ public class PrestamoDTOService {
     @Autowired
     private final MaterialBibliotecaRepository materialBibliotecaRepository;
 
+    private final IdsMaterialPorTitulo idsMaterialPorTitulo;
+
+    private final PrestamoHistoricoRepository prestamoHistoricoRepository;
+
+    @Autowired
+    private final DisponibilidadService disponibilidadService;
+
+    private final DevolucionService devolucionService;
+
+    private final PrestamoService prestamoService;
+
+    private final MetricasPrestamo metricasPrestamo;
+
+    private final EventoService eventoService;
+
     public PrestamoDTOService(PrestamoRepository prestamoRepository,
                               UsuarioRepository usuarioRepository,
-                              MaterialBibliotecaRepository materialBibliotecaRepository) {
+                              MaterialBibliotecaRepository materialBibliotecaRepository,
+                              IdsMaterialPorTitulo idsMaterialPorTitulo,
+                              PrestamoHistoricoRepository prestamoHistoricoRepository,
+                              DisponibilidadService disponibilidadService,
+                              DevolucionService devolucionService,
+                              PrestamoService prestamoService,
+                              MetricasPrestamo metricasPrestamo,
+                              EventoService eventoService) {
         this.prestamoRepository= prestamoRepository;
         this.usuarioRepository = usuarioRepository;
         this.materialBibliotecaRepository = materialBibliotecaRepository;
+        this.idsMaterialPorTitulo = idsMaterialPorTitulo;
+        this.prestamoHistoricoRepository = prestamoHistoricoRepository;
+        this.disponibilidadService = disponibilidadService;
+        this.devolucionService = devolucionService;
+        this.prestamoService = prestamoService;
+        this.metricasPrestamo = metricasPrestamo;
+        this.eventoService = eventoService;
     }
 
 
@@ -101,96 +143,265 @@ public class PrestamoDTOService {
         return prestamo;
     }
 
+    @Transactional(readOnly = true)
     public MaterialBiblioteca buscarMaterialByTitulo(String tituloMaterial) {
 
-        return Optional.of(materialBibliotecaRepository.findByTitulo(tituloMaterial))
+        return Optional.ofNullable(idsMaterialPorTitulo.buscar(tituloMaterial))
                 .orElseThrow(() -> new MaterialNoEncontradoException("Material no encontrado con tituloMaterial: '" + tituloMaterial + "'"));
     }
 
 
+    /**
+     * Préstamos de un usuario (GET /Prestamos?usuario=...), ordenados por id.
+     *
+     * Sin el histórico se leen solo los que siguen en Prestamo: los activos y los devueltos que todavía
+     * no se han archivado. Con el histórico se añaden los archivados ({@link com.example.biblioteca.service.ArchivoPrestamosService}).
+     * En los dos casos son proyecciones: una consulta por tabla, sin cargar entidades.
+     *
+     * @param nombreUsuario nombre del usuario.
+     * @param incluirHistorico si se incluyen los préstamos archivados.
+     * @throws UsuarioNoEncontradoException si no existe el usuario.
+     */
+    @Transactional(readOnly = true)
+    public List<PrestamoDTO> listarPrestamosUsuario(String nombreUsuario, boolean incluirHistorico) {
+        Usuario usuario = usuarioRepository.findByNombre(nombreUsuario.toUpperCase())
+                .orElseThrow(() -> new UsuarioNoEncontradoException("Usuario no encontrado con nombre: '" + nombreUsuario + "'"));
+
+        List<PrestamoConMaterial> filas = new ArrayList<>(prestamoRepository.findResumenByUsuarioId(usuario.getId()));
+        if (incluirHistorico) {
+            filas.addAll(prestamoHistoricoRepository.findResumenByUsuarioId(usuario.getId()));
+        }
+
+        //Un préstamo está en Prestamo o en el histórico, nunca en los dos
+        Map<Integer, PrestamoDTO> prestamos = new TreeMap<>();
+        for (PrestamoConMaterial fila : filas) {
+            PrestamoDTO prestamo = prestamos.computeIfAbsent(fila.id(), id ->
+                    new PrestamoDTO(fila.id(), fila.fechaPrestamo(), fila.nombreUsuario(), new ArrayList<>(), fila.activo()));
+            if (fila.titulo() != null) {
+                prestamo.getTituloMateriales().add(fila.titulo());
+            }
+        }
+        return new ArrayList<>(prestamos.values());
+    }
+
     //Para hacer el Post desde Postman. - Insertar préstamo
+    //Los materiales se resuelven una sola vez en convertirDesdeDTO. El alta es la de la consola (PrestamoService):
+    //se descuenta un ejemplar de cada material con un UPDATE condicional y, si alguno se ha quedado sin ejemplares,
+    //la excepción deshace toda la transacción.
     public PrestamoDTO guardarPrestamo(PrestamoDTO dto) {
-        var prestamo = convertirDesdeDTO(dto);
-        disminuirMaterialDisponible(dto.getTituloMateriales());
-        var prestamoGuardado = prestamoRepository.save(prestamo);
-
-        return convertirAPrestamoDTO(prestamoGuardado);
+        return convertirAPrestamoDTO(prestamoService.insertarPrestamo(convertirDesdeDTO(dto)));
     }
 
 
-    //Para hacer el Put desde Postman. Devolver un préstamo
-    //Error -> desactiva un préstamo completo cuando es posible que tenga más de un título en el préstamo y solo se devuelva uno de ellos.
-    public PrestamoDTO actualizarPrestamo(String titulo, PrestamoDTO dto) {
+    /**
+     * Alta de varios préstamos en una sola transacción (POST /Prestamos/batch).
+     *
+     * - Los usuarios y los materiales de todo el lote se buscan con una consulta IN cada uno.
+     * - Los ejemplares se descuentan con un UPDATE por material, por la cantidad total pedida en el lote.
+     *   Solo cuando un material no tiene ejemplares para todos se descuentan de uno en uno, en el orden
+     *   del lote, hasta que se agota.
+     * - Los préstamos correctos se insertan juntos con {@code saveAll}, en lotes JDBC
+     *   ({@code hibernate.jdbc.batch_size}).
+     *
+     * Un préstamo que falla (usuario o material inexistente, sin ejemplares) no impide el alta de los demás;
+     * los ejemplares que ya tuviera reservados de otros materiales se devuelven.
+     *
+     * @param dtos préstamos a dar de alta.
+     * @return un resultado por préstamo, en el mismo orden que {@code dtos}.
+     * @throws OperacionNoPermitidaException si el lote tiene más de {@link #MAXIMO_PRESTAMOS_POR_LOTE} préstamos.
+     */
+    public List<ResultadoPrestamoDTO> guardarPrestamos(List<PrestamoDTO> dtos) {
+        Objects.requireNonNull(dtos, "La lista de préstamos no puede ser null");
+        if (dtos.size() > MAXIMO_PRESTAMOS_POR_LOTE) {
+            throw new OperacionNoPermitidaException("Un lote admite como máximo " + MAXIMO_PRESTAMOS_POR_LOTE + " préstamos");
+        }
+
+        //Usuarios y materiales de todo el lote, con una consulta cada uno
+        Map<String, Usuario> usuarios = usuarioRepository.findByNombreIn(dtos.stream()
+                        .map(PrestamoDTO::getNombreUsuario)
+                        .filter(Objects::nonNull)
+                        .map(String::toUpperCase)
+                        .collect(Collectors.toSet()))
+                .stream()
+                .collect(Collectors.toMap(Usuario::getNombre, Function.identity()));
+
+        Map<String, MaterialBiblioteca> materiales = materialBibliotecaRepository.findByTituloIn(dtos.stream()
+                        .flatMap(dto -> titulosDe(dto).stream())
+                        .collect(Collectors.toSet()))
+                .stream()
+                .collect(Collectors.toMap(MaterialBiblioteca::getTitulo, Function.identity()));
+
+        List<PrestamoDelLote> lote = new ArrayList<>();
+        for (PrestamoDTO dto : dtos) {
+            lote.add(resolver(dto, usuarios, materiales));
+        }
 
-        //Ir a materialBiblioteca y con el título del libro/revista obtener el material
-        MaterialBiblioteca materialBiblioteca = materialBibliotecaRepository.findByTitulo(titulo);
+        reservarEjemplares(lote);
 
-        //Comprobar que está prestado
-        if (   materialBiblioteca.getTotales() == null
-                || materialBiblioteca.getDisponibles() == null
-                || materialBiblioteca.getTotales().equals(materialBiblioteca.getDisponibles())){
-                throw new MaterialNoEncontradoException("El libro / revista con titulo '" + titulo + "' no esta prestado");
+        //Alta de los préstamos correctos
+        List<Prestamo> prestamos = lote.stream()
+                .filter(PrestamoDelLote::correcto)
+                .map(PrestamoDelLote::crearPrestamo)
+                .toList();
+        prestamoRepository.saveAll(prestamos);
+        metricasPrestamo.prestamosCreados(prestamos.size());
+
+        //Un evento por préstamo dado de alta, todos con el mismo INSERT
+        List<ResultadoPrestamoDTO> resultados = new ArrayList<>();
+        Map<Integer, PrestamoDTO> altas = new LinkedHashMap<>();
+        for (int i = 0; i < lote.size(); i++) {
+            PrestamoDelLote prestamoDelLote = lote.get(i);
+            if (prestamoDelLote.correcto()) {
+                var prestamoDTO = convertirAPrestamoDTO(prestamoDelLote.prestamo);
+                altas.put(prestamoDTO.getId(), prestamoDTO);
+                resultados.add(new ResultadoPrestamoDTO(i, true, prestamoDTO, null));
+            } else {
+                resultados.add(new ResultadoPrestamoDTO(i, false, null, prestamoDelLote.error));
+            }
         }
+        eventoService.registrarLote(TipoEvento.PRESTAMO, AccionEvento.ALTA, altas);
+        return resultados;
+    }
 
-        //Se obtiene una lista con todos los prestamosId activos del usuario de la tabla prestamos
-        Optional<Usuario> usuario = usuarioRepository.findByNombre(dto.getNombreUsuario());
-        if (usuario.isPresent()) {
-            List<Prestamo> prestamoList = prestamoRepository.findByUsuario_idAndActivo(usuario.get().getId());
-            if (!prestamoList.isEmpty()) {
-                List<Integer> idPrestamosList = prestamoList.stream()
-                        .map(Prestamo::getId) //transforma cada préstamo en su ID.
-                        .toList(); //recoge los IDs en una nueva lista (List<Integer>).
+    private static List<String> titulosDe(PrestamoDTO dto) {
+        return dto.getTituloMateriales() == null ? List.of() : dto.getTituloMateriales();
+    }
+
+    //Busca el usuario y los materiales de un préstamo del lote en los mapas ya cargados
+    private static PrestamoDelLote resolver(PrestamoDTO dto,
+                                            Map<String, Usuario> usuarios,
+                                            Map<String, MaterialBiblioteca> materiales) {
+        PrestamoDelLote prestamoDelLote = new PrestamoDelLote(dto);
+
+        if (dto.getNombreUsuario() != null) {
+            prestamoDelLote.usuario = usuarios.get(dto.getNombreUsuario().toUpperCase());
+        }
+        if (prestamoDelLote.usuario == null) {
+            prestamoDelLote.error = "Usuario no encontrado con nombre: '" + dto.getNombreUsuario() + "'";
+            return prestamoDelLote;
+        }
 
-                List<Integer> idMaterialList = obtenerMaterialIdsPorPrestamos(idPrestamosList);
+        for (String tituloMaterial : titulosDe(dto)) {
+            MaterialBiblioteca materialBiblioteca = materiales.get(tituloMaterial);
+            if (materialBiblioteca == null) {
+                prestamoDelLote.error = "Material no encontrado con tituloMaterial: '" + tituloMaterial + "'";
+                prestamoDelLote.materiales.clear();
+                return prestamoDelLote;
+            }
+            //Un título repetido es un solo material del préstamo (una línea, un ejemplar)
+            if (prestamoDelLote.materiales.stream().noneMatch(material -> material.getId() == materialBiblioteca.getId())) {
+                prestamoDelLote.materiales.add(materialBiblioteca);
+            }
+        }
+        return prestamoDelLote;
+    }
 
-                if (!idMaterialList.contains(materialBiblioteca.getId())) {
-                    throw new MaterialNoEncontradoException("El libro / revista con titulo '" + titulo + "' no esta prestado para el usuario: '" + dto.getNombreUsuario() + "'");
+    /**
+     * Descuenta los ejemplares de los préstamos correctos del lote.
+     *
+     * Primero intenta un UPDATE por material con la cantidad total pedida. Los materiales que no tienen
+     * ejemplares para todos se reparten de uno en uno en el orden del lote; el préstamo que no consigue
+     * un ejemplar pasa a ser erróneo y devuelve los que ya tenía reservados.
+     */
+    private void reservarEjemplares(List<PrestamoDelLote> lote) {
+        Map<Integer, MaterialBiblioteca> materialesPorId = new HashMap<>();
+        Map<Integer, Integer> pedidos = new LinkedHashMap<>();
+        for (PrestamoDelLote prestamoDelLote : lote) {
+            if (prestamoDelLote.correcto()) {
+                for (MaterialBiblioteca materialBiblioteca : prestamoDelLote.materiales) {
+                    materialesPorId.putIfAbsent(materialBiblioteca.getId(), materialBiblioteca);
+                    pedidos.merge(materialBiblioteca.getId(), 1, Integer::sum);
                 }
+            }
+        }
 
-                //Actualizar disponibilidad
-                aumentarMaterialDisponible(materialBiblioteca, materialBiblioteca.getDisponibles() + 1);
+        Set<Integer> agotados = new HashSet<>();
+        pedidos.forEach((id, cantidad) -> {
+            if (!disponibilidadService.reservarEjemplares(materialesPorId.get(id), cantidad)) {
+                agotados.add(id);
+            }
+        });
 
-                //Devolver un préstamo -> Actualizar préstamo como no prestado.
-                desactivarPrestamoConMaterial(idPrestamosList, materialBiblioteca.getId());
+        for (PrestamoDelLote prestamoDelLote : lote) {
+            if (!prestamoDelLote.correcto()) {
+                continue;
+            }
+            //Los descontados en bloque ya son de este préstamo
+            prestamoDelLote.materiales.stream()
+                    .filter(materialBiblioteca -> !agotados.contains(materialBiblioteca.getId()))
+                    .forEach(prestamoDelLote::reservar);
+
+            //Los agotados, de uno en uno hasta que no quede ninguno
+            for (MaterialBiblioteca materialBiblioteca : prestamoDelLote.materiales) {
+                if (!agotados.contains(materialBiblioteca.getId())) {
+                    continue;
+                }
+                if (!disponibilidadService.reservarEjemplares(materialBiblioteca, 1)) {
+                    prestamoDelLote.error = "No hay ejemplares disponibles del material '" + materialBiblioteca.getTitulo() + "'";
+                    break;
+                }
+                prestamoDelLote.reservar(materialBiblioteca);
             }
         }
 
-        return dto;
+        //Los préstamos que han fallado devuelven los ejemplares que ya tenían, agrupados por material
+        Map<Integer, Integer> devoluciones = new HashMap<>();
+        for (PrestamoDelLote prestamoDelLote : lote) {
+            if (!prestamoDelLote.correcto()) {
+                prestamoDelLote.reservados.forEach((id, cantidad) -> devoluciones.merge(id, cantidad, Integer::sum));
+            }
+        }
+        devoluciones.forEach((id, cantidad) ->
+                disponibilidadService.devolverEjemplares(materialesPorId.get(id), cantidad));
     }
 
-    public void  disminuirMaterialDisponible(List<String> materialTituloList){
-        for (String materialTitulo : materialTituloList){
-            MaterialBiblioteca materialBiblioteca = buscarMaterialByTitulo(materialTitulo);
-            materialBiblioteca.setDisponibles(materialBiblioteca.getDisponibles() - 1);
-            materialBibliotecaRepository.save(materialBiblioteca);
+    //Estado de un préstamo dentro de un alta por lotes
+    private static final class PrestamoDelLote {
+        private final PrestamoDTO dto;
+        private Usuario usuario;
+        private final List<MaterialBiblioteca> materiales = new ArrayList<>();
+        //Ejemplares descontados para este préstamo, por id de material
+        private final Map<Integer, Integer> reservados = new HashMap<>();
+        private String error;
+        private Prestamo prestamo;
+
+        private PrestamoDelLote(PrestamoDTO dto) {
+            this.dto = dto;
         }
-    }
 
-    public void aumentarMaterialDisponible(MaterialBiblioteca materialBiblioteca, int disponible){
-        materialBiblioteca.setDisponibles(disponible);
-        materialBibliotecaRepository.save(materialBiblioteca);
-    }
+        private boolean correcto() {
+            return error == null;
+        }
 
-    public void  desactivarPrestamoConMaterial(List<Integer> prestamoIds, int materialId) {
-        List<Prestamo> prestamos = prestamoRepository.findAllWithMaterialesById(prestamoIds);
-
-        prestamos.stream()
-                .filter(prestamo -> prestamo.getMateriales().stream()
-                        .anyMatch(material -> material.getId() == materialId))
-                .findFirst()
-                .ifPresent(prestamo -> {
-                    prestamo.setActivo(false);
-                    prestamoRepository.save(prestamo);
-                });
+        private void reservar(MaterialBiblioteca materialBiblioteca) {
+            reservados.merge(materialBiblioteca.getId(), 1, Integer::sum);
+        }
+
+        private Prestamo crearPrestamo() {
+            prestamo = new Prestamo();
+            prestamo.setFechaPrestamo(dto.getFechaPrestamo());
+            prestamo.setActivo(true);
+            prestamo.setUsuario(usuario);
+            prestamo.setMateriales(new ArrayList<>(materiales));
+            return prestamo;
+        }
     }
-    public  List<Integer> obtenerMaterialIdsPorPrestamos(List<Integer> idPrestamosList){
-        List<Prestamo> prestamos = prestamoRepository.findAllById(idPrestamosList);
 
-        return prestamos.stream()
-                .flatMap(prestamo -> prestamo.getMateriales().stream())
-                .map(MaterialBiblioteca::getId)
-                .distinct()
-                .toList();
+
+    //Para hacer el Put desde Postman. Devolver un préstamo
+    //El préstamo activo del usuario con ese título se busca con una sola consulta (DevolucionService).
+    //Si hay reservas del material, el ejemplar se presta a la primera de la cola; si no, vuelve a estar disponible.
+    //Se registra la devolución y, si el ejemplar pasa a una reserva, el alta de su préstamo.
+    public PrestamoDTO actualizarPrestamo(String titulo, PrestamoDTO dto) {
+        PrestamoADevolver devuelto = devolucionService.buscarParaDevolver(dto.getNombreUsuario(), titulo);
+        Optional<Reserva> reserva = devolucionService.devolver(devuelto);
+        eventoService.registrar(TipoEvento.PRESTAMO, AccionEvento.DEVOLUCION, devuelto.prestamoId(), devuelto);
+
+        reserva.map(Reserva::getPrestamo).ifPresent(prestamo -> {
+            var prestamoDTO = convertirAPrestamoDTO(prestamo);
+            eventoService.registrar(TipoEvento.PRESTAMO, AccionEvento.ALTA, prestamoDTO.getId(), prestamoDTO);
+        });
+        return dto;
     }
 
 }
\ No newline at end of file
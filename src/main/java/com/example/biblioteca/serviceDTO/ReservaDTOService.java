@@ -0,0 +1,75 @@
+package com.example.biblioteca.serviceDTO;
+
+import com.example.biblioteca.dto.ReservaDTO;
+import com.example.biblioteca.expection.MaterialNoEncontradoException;
+import com.example.biblioteca.expection.UsuarioNoEncontradoException;
+import com.example.biblioteca.model.MaterialBiblioteca;
+import com.example.biblioteca.model.Reserva;
+import com.example.biblioteca.model.Usuario;
+import com.example.biblioteca.repository.UsuarioRepository;
+import com.example.biblioteca.service.ReservaService;
+import com.example.biblioteca.titulos.IdsMaterialPorTitulo;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+@Service
+@Transactional
+public class ReservaDTOService {
+
+    private final ReservaService reservaService;
+    private final UsuarioRepository usuarioRepository;
+    private final IdsMaterialPorTitulo idsMaterialPorTitulo;
+
+    public ReservaDTOService(ReservaService reservaService,
+                             UsuarioRepository usuarioRepository,
+                             IdsMaterialPorTitulo idsMaterialPorTitulo) {
+        this.reservaService = reservaService;
+        this.usuarioRepository = usuarioRepository;
+        this.idsMaterialPorTitulo = idsMaterialPorTitulo;
+    }
+
+    public ReservaDTO convertirAReservaDTO(Reserva reserva, long posicion) {
+        return new ReservaDTO(
+                reserva.getId(),
+                reserva.getUsuario().getNombre(),
+                reserva.getMaterial().getTitulo(),
+                reserva.getFechaReserva(),
+                posicion
+        );
+    }
+
+    //Para hacer el Post desde Postman. - Reservar un material sin ejemplares disponibles
+    public ReservaDTO guardarReserva(ReservaDTO dto) {
+        Usuario usuario = usuarioRepository.findByNombre(dto.getNombreUsuario().toUpperCase())
+                .orElseThrow(() -> new UsuarioNoEncontradoException("Usuario no encontrado con nombre: '" + dto.getNombreUsuario() + "'"));
+        MaterialBiblioteca materialBiblioteca = buscarMaterialByTitulo(dto.getTituloMaterial());
+
+        Reserva reserva = reservaService.reservar(usuario, materialBiblioteca);
+        return convertirAReservaDTO(reserva, reservaService.obtenerPosicion(reserva));
+    }
+
+    //Cola de reservas de un material: la posición es el orden en la lista
+    @Transactional(readOnly = true)
+    public List<ReservaDTO> listarCola(String tituloMaterial) {
+        List<Reserva> cola = reservaService.obtenerCola(buscarMaterialByTitulo(tituloMaterial));
+
+        List<ReservaDTO> reservas = new ArrayList<>();
+        for (int i = 0; i < cola.size(); i++) {
+            reservas.add(convertirAReservaDTO(cola.get(i), i + 1));
+        }
+        return reservas;
+    }
+
+    public void cancelarReserva(int id) {
+        reservaService.cancelar(id);
+    }
+
+    private MaterialBiblioteca buscarMaterialByTitulo(String tituloMaterial) {
+        return Optional.ofNullable(idsMaterialPorTitulo.buscar(tituloMaterial))
+                .orElseThrow(() -> new MaterialNoEncontradoException("Material no encontrado con tituloMaterial: '" + tituloMaterial + "'"));
+    }
+}
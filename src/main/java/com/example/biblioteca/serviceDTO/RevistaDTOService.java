@@ -3,10 +3,15 @@ package com.example.biblioteca.serviceDTO;
 import com.example.biblioteca.dto.RevistaDTO;
 import com.example.biblioteca.expection.RevistaNoEncontradoException;
 import com.example.biblioteca.expection.RevistaPrestadaException;
+import com.example.biblioteca.model.AccionEvento;
 import com.example.biblioteca.model.Autor;
 import com.example.biblioteca.model.Libro;
 import com.example.biblioteca.model.Revista;
+import com.example.biblioteca.model.TipoEvento;
+import com.example.biblioteca.proyeccion.VersionMaterial;
 import com.example.biblioteca.repository.RevistaRepository;
+import com.example.biblioteca.service.EventoService;
+import com.example.biblioteca.util.Paginacion;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -15,15 +20,18 @@ import java.util.List;
 import java.util.Objects;
 
 @Service
-@Transactional
+@Transactional(timeoutString = "${app.eventos.segundos-maximos-transaccion:5}")
 public class RevistaDTOService {
 
     @Autowired
     private RevistaRepository revistaRepository;
 
+    private final EventoService eventoService;
 
-    public RevistaDTOService(RevistaRepository revistaRepository) {
+
+    public RevistaDTOService(RevistaRepository revistaRepository, EventoService eventoService) {
         this.revistaRepository = revistaRepository;
+        this.eventoService = eventoService;
     }
 
 
@@ -101,18 +109,54 @@ public class RevistaDTOService {
     }
 
 
-    //Para hacer el Get desde Postman - Listar revistas
-    public List<RevistaDTO> listarRevistasDTO() {
-        return revistaRepository.findAll().stream()
+    //Para hacer el Get desde Postman - Listar revistas por páginas (page empieza en 0)
+    //Los DTO se construyen en la propia consulta, sin cargar entidades Revista.
+    @Transactional(readOnly = true)
+    public List<RevistaDTO> listarRevistasDTO(int pagina, int tamanio) {
+        return revistaRepository.findPagina(Paginacion.pagina(pagina, tamanio));
+    }
+
+    //Para hacer el Get desde Postman - Listar revistas a partir de un id (keyset)
+    @Transactional(readOnly = true)
+    public List<RevistaDTO> listarRevistasDTODesde(int afterId, int tamanio) {
+        return revistaRepository.findSiguientes(afterId, Paginacion.limite(tamanio));
+    }
+
+    //ETag de una página del listado de revistas: los ids y versiones de sus revistas, como en LibroDTOService.etagLibros
+    @Transactional(readOnly = true)
+    public String etagRevistas(int pagina, int tamanio) {
+        return VersionMaterial.etagPagina(revistaRepository.findVersionesPagina(Paginacion.pagina(pagina, tamanio)));
+    }
+
+    //ETag de una página del listado de revistas a partir de un id (keyset)
+    @Transactional(readOnly = true)
+    public String etagRevistasDesde(int afterId, int tamanio) {
+        return VersionMaterial.etagPagina(revistaRepository.findVersionesSiguientes(afterId, Paginacion.limite(tamanio)));
+    }
+
+    //ETag de una revista: su versión, con una consulta de columnas
+    @Transactional(readOnly = true)
+    public String etagRevista(String titulo) {
+        return revistaRepository.findVersion(titulo.toUpperCase())
+                .orElseThrow(() -> new RevistaNoEncontradoException("Revista no encontrada con titulo:  '" + titulo + "'"))
+                .etag();
+    }
+
+    //Para hacer el Get desde Postman - Consultar una revista dado su título
+    @Transactional(readOnly = true)
+    public RevistaDTO consultarRevistaDTO(String titulo) {
+        return revistaRepository.findByTitulo(titulo.toUpperCase())
                 .map(this::convertirARevistaDTO)
-                .toList();
+                .orElseThrow(() -> new RevistaNoEncontradoException("Revista no encontrada con titulo:  '" + titulo + "'"));
     }
 
     //Para hacer el Post desde Postman. - Insertar revista
     public RevistaDTO guardarRevista(RevistaDTO dto) {
         var revista = convertirDesdeDTO(dto);
         var revistaGuardada = revistaRepository.save(revista);
-        return convertirARevistaDTO(revistaGuardada);
+        var revistaDTO = convertirARevistaDTO(revistaGuardada);
+        eventoService.registrar(TipoEvento.REVISTA, AccionEvento.ALTA, revistaDTO.getId(), revistaDTO);
+        return revistaDTO;
     }
 
     //Para hacer el Put desde Postman. Actualizar una revista
@@ -128,7 +172,9 @@ public class RevistaDTOService {
         revista.setTotales(dto.getTotales());
         revista.setDisponibles(dto.getDisponibles());
 
-        return convertirARevistaDTO(revistaRepository.save(revista));
+        var revistaDTO = convertirARevistaDTO(revistaRepository.save(revista));
+        eventoService.registrar(TipoEvento.REVISTA, AccionEvento.CAMBIO, revistaDTO.getId(), revistaDTO);
+        return revistaDTO;
     }
 
     //Para hacer el Delete desde Postman. Borrar una revista dado su titulo
@@ -142,6 +188,7 @@ public class RevistaDTOService {
             throw new RevistaPrestadaException("Revista no se puede dar de baja. Está prestada");
         }
 
+        eventoService.registrar(TipoEvento.REVISTA, AccionEvento.BAJA, revista.getId(), convertirARevistaDTO(revista));
         revistaRepository.deleteById(revista.getId());
     }
 
@@ -3,13 +3,18 @@ package com.example.biblioteca.serviceDTO;
 import com.example.biblioteca.dto.UsuarioDTO;
 import com.example.biblioteca.expection.OperacionNoPermitidaException;
 import com.example.biblioteca.expection.UsuarioNoEncontradoException;
+import com.example.biblioteca.model.AccionEvento;
 import com.example.biblioteca.model.Prestamo;
+import com.example.biblioteca.model.TipoEvento;
 import com.example.biblioteca.model.Usuario;
+import com.example.biblioteca.proyeccion.UsuarioConPrestamo;
+import com.example.biblioteca.repository.PrestamoHistoricoRepository;
 import com.example.biblioteca.repository.PrestamoRepository;
 import com.example.biblioteca.repository.UsuarioRepository;
-import jakarta.transaction.Transactional;
+import com.example.biblioteca.service.EventoService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.ArrayList;
 import java.util.List;
@@ -17,7 +22,7 @@ import java.util.Objects;
 import java.util.Optional;
 
 @Service
-@Transactional
+@Transactional(timeoutString = "${app.eventos.segundos-maximos-transaccion:5}")
 public class UsuarioDTOService {
     @Autowired
     UsuarioRepository usuarioRepository;
@@ -25,9 +30,15 @@ public class UsuarioDTOService {
     @Autowired
     PrestamoRepository prestamoRepository;
 
-    public UsuarioDTOService(UsuarioRepository usuarioRepository
-                          ) {
+    @Autowired
+    PrestamoHistoricoRepository prestamoHistoricoRepository;
+
+    private final EventoService eventoService;
+
+    public UsuarioDTOService(UsuarioRepository usuarioRepository,
+                             EventoService eventoService) {
         this.usuarioRepository=usuarioRepository;
+        this.eventoService=eventoService;
     }
 
     //******************************************
@@ -74,14 +85,27 @@ public class UsuarioDTOService {
     }
 
     //Para hacer el Get desde Postman - Consultar usuario por nombre
-    @Transactional
+    @Transactional(readOnly = true)
     public Optional<UsuarioDTO> consultarUsuarioDTO(String nombre){
         String nombreValido = validarNombre(nombre);
 
-        return usuarioRepository.findByNombre(nombreValido).stream()
-                .findFirst()
-                .map(this::convertirAUsuarioDTO)
-                ;
+        //Una fila por préstamo del usuario. Se leen solo las columnas del DTO, sin cargar entidades.
+        List<UsuarioConPrestamo> filas = usuarioRepository.findResumenByNombre(nombreValido);
+        if (filas.isEmpty()) {
+            return Optional.empty();
+        }
+
+        var listaPrestamosId = filas.stream()
+                .map(UsuarioConPrestamo::prestamoId)
+                .filter(Objects::nonNull)
+                .toList();
+
+        return Optional.of(new UsuarioDTO(
+                filas.get(0).id(),
+                filas.get(0).nombre().toUpperCase(),
+                filas.get(0).email().toUpperCase(),
+                listaPrestamosId
+        ));
     }
 
     //Se comprueba que el nombre no esta a nulos o vacío.
@@ -96,7 +120,9 @@ public class UsuarioDTOService {
     public UsuarioDTO guardarUsuario(UsuarioDTO dto){
         var usuario = convertirAUsuario(dto);
         var usuarioGuardado = usuarioRepository.save(usuario);
-        return convertirAUsuarioDTO(usuarioGuardado);
+        var usuarioDTO = convertirAUsuarioDTO(usuarioGuardado);
+        eventoService.registrar(TipoEvento.USUARIO, AccionEvento.ALTA, usuarioDTO.getId(), usuarioDTO);
+        return usuarioDTO;
     }
 
     //Para hacer el Put desde Postman. Actualizar un Usuario
@@ -121,7 +147,9 @@ public class UsuarioDTOService {
         }
         usuario.setPrestamos(prestamoList);
 
-        return convertirAUsuarioDTO(usuarioRepository.save(usuario));
+        var usuarioDTO = convertirAUsuarioDTO(usuarioRepository.save(usuario));
+        eventoService.registrar(TipoEvento.USUARIO, AccionEvento.CAMBIO, usuarioDTO.getId(), usuarioDTO);
+        return usuarioDTO;
     }
 
     //Para hacer el Delete desde Postman. Borrar un usuario dado su nombbre
@@ -139,6 +167,11 @@ public class UsuarioDTOService {
         if (!(prestamoList == null || prestamoList.isEmpty())){
             throw new OperacionNoPermitidaException("Usuario '" + nombre + "' no se puede dar de baja. Tiene préstamos activos");
         }
+        //Los préstamos que siguen en Prestamo se borran en cascada; los archivados, aquí
+        //El DTO de la baja va sin los préstamos, que se borran con el usuario
+        eventoService.registrar(TipoEvento.USUARIO, AccionEvento.BAJA, usuario.get().getId(),
+                new UsuarioDTO(usuario.get().getId(), usuario.get().getNombre(), usuario.get().getEmail(), List.of()));
+        prestamoHistoricoRepository.deleteByUsuarioId(usuario.get().getId());
         usuarioRepository.deleteById(usuario.get().getId());
 
     }
@@ -0,0 +1,74 @@
+package com.example.biblioteca.titulos;
+
+import com.example.biblioteca.model.MaterialBiblioteca;
+import com.example.biblioteca.repository.MaterialBibliotecaRepository;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Id de cada libro y revista por su título, en memoria: la búsqueda por título de cada préstamo y reserva.
+ *
+ * - No es una consulta cacheada: la caché de consultas de Hibernate descarta los resultados sobre la tabla con cada alta,
+ *   baja o importación de materiales. El título y el id no cambian con los préstamos, así que lo que se guarda aquí sigue valiendo.
+ * - Con el id, el material se lee por su clave primaria de la caché de segundo nivel. Cada préstamo y devolución solo
+ *   descarta de ella el material que cambia (DisponiblesMaterialRepositoryImpl), que se vuelve a leer con los disponibles al día.
+ * - Los cambios de título y las bajas no se anotan aquí: si el material leído ya no existe o tiene otro título,
+ *   se descarta la entrada y se busca por título.
+ */
+@Component
+public class IdsMaterialPorTitulo {
+
+    //Si se llega a este número de títulos se vacía el mapa (el catálogo cabe de sobra: es un tope frente a bajas acumuladas)
+    static final int MAXIMO_TITULOS = 100_000;
+
+    private final MaterialBibliotecaRepository materialBibliotecaRepository;
+
+    private final Map<String, Integer> ids = new ConcurrentHashMap<>();
+    private final LongAdder aciertos = new LongAdder();
+    private final LongAdder fallos = new LongAdder();
+
+    public IdsMaterialPorTitulo(MaterialBibliotecaRepository materialBibliotecaRepository) {
+        this.materialBibliotecaRepository = materialBibliotecaRepository;
+    }
+
+    /**
+     * @return el material con ese título, o null si no existe (como {@link MaterialBibliotecaRepository#findByTitulo}).
+     */
+    public MaterialBiblioteca buscar(String titulo) {
+        Integer id = ids.get(titulo);
+        if (id != null) {
+            //La comparación no distingue mayúsculas, como la del título en MariaDB
+            MaterialBiblioteca material = materialBibliotecaRepository.findById(id)
+                    .filter(encontrado -> titulo.equalsIgnoreCase(encontrado.getTitulo()))
+                    .orElse(null);
+            if (material != null) {
+                aciertos.increment();
+                return material;
+            }
+            ids.remove(titulo, id);
+        }
+
+        fallos.increment();
+        MaterialBiblioteca material = materialBibliotecaRepository.findByTitulo(titulo);
+        if (material != null) {
+            if (ids.size() >= MAXIMO_TITULOS) {
+                ids.clear();
+            }
+            ids.put(titulo, material.getId());
+        }
+        return material;
+    }
+
+    //Búsquedas resueltas con el id guardado
+    public long getAciertos() {
+        return aciertos.sum();
+    }
+
+    //Búsquedas que han tenido que consultar el título en la base de datos
+    public long getFallos() {
+        return fallos.sum();
+    }
+}
@@ -13,7 +13,9 @@ public final class ConstantesMenu {
     public static final String OPCION_CONSULTA_BY_TITULO = "D";
     public static final String OPCION_CONSULTA_TOTAL = "D";
     public static final String OPCION_CONSULTA_COMPLETA = "E";
+    public static final String OPCION_IMPORTACION = "F";
     public static final String OPCION_SALIR = "S";
     public static final String OPCION_DEVOLUCION = "B";
+    public static final String OPCION_RESERVA = "E";
 
 }
@@ -0,0 +1,60 @@
+package com.example.biblioteca.util;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.StringJoiner;
+
+//Lectura y escritura de líneas CSV separadas por comas. Los campos con comas, comillas o saltos de línea van
+//entre comillas dobles, y una comilla dentro de un campo se escribe "".
+//Se define la clase como final y el constructor como private para evitar que la clase Csv se pueda instanciar
+public final class Csv {
+    private Csv(){}
+
+    //Separa una línea CSV por comas, respetando los campos entre comillas dobles
+    public static List<String> separarCampos(String linea) {
+        List<String> campos = new ArrayList<>();
+        StringBuilder campo = new StringBuilder();
+        boolean entreComillas = false;
+        for (int i = 0; i < linea.length(); i++) {
+            char c = linea.charAt(i);
+            if (entreComillas) {
+                if (c == '"' && i + 1 < linea.length() && linea.charAt(i + 1) == '"') {
+                    campo.append('"');
+                    i++;
+                } else if (c == '"') {
+                    entreComillas = false;
+                } else {
+                    campo.append(c);
+                }
+            } else if (c == '"') {
+                entreComillas = true;
+            } else if (c == ',') {
+                campos.add(campo.toString());
+                campo.setLength(0);
+            } else {
+                campo.append(c);
+            }
+        }
+        if (entreComillas) {
+            throw new IllegalArgumentException("comillas sin cerrar");
+        }
+        campos.add(campo.toString());
+        return campos;
+    }
+
+    //Construye una línea CSV (sin el salto de línea final). Un campo null se escribe vacío.
+    public static String linea(Object... campos) {
+        StringJoiner linea = new StringJoiner(",");
+        for (Object campo : campos) {
+            linea.add(campo == null ? "" : escapar(campo.toString()));
+        }
+        return linea.toString();
+    }
+
+    private static String escapar(String campo) {
+        if (campo.indexOf(',') < 0 && campo.indexOf('"') < 0 && campo.indexOf('\n') < 0 && campo.indexOf('\r') < 0) {
+            return campo;
+        }
+        return '"' + campo.replace("\"", "\"\"") + '"';
+    }
+}
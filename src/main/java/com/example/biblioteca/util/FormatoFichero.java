@@ -0,0 +1,34 @@
+package com.example.biblioteca.util;
+
+import com.example.biblioteca.expection.OperacionNoPermitidaException;
+
+//Formatos de fichero de la importación y la exportación del catálogo
+public enum FormatoFichero {
+    CSV("text/csv"),
+    //JSON Lines, también llamado NDJSON: un objeto JSON por línea
+    JSONL("application/x-ndjson");
+
+    private final String tipoContenido;
+
+    FormatoFichero(String tipoContenido) {
+        this.tipoContenido = tipoContenido;
+    }
+
+    public String getTipoContenido() {
+        return tipoContenido;
+    }
+
+    /**
+     * Obtiene el formato a partir de su nombre ("csv", "jsonl" o "ndjson") o de la extensión de un fichero.
+     *
+     * @throws OperacionNoPermitidaException si no es ninguno de ellos.
+     */
+    public static FormatoFichero desde(String nombre) {
+        String extension = nombre.substring(nombre.lastIndexOf('.') + 1).trim().toUpperCase();
+        return switch (extension) {
+            case "CSV" -> CSV;
+            case "JSONL", "NDJSON" -> JSONL;
+            default -> throw new OperacionNoPermitidaException("Formato no admitido: '" + nombre + "'. Debe ser csv o jsonl");
+        };
+    }
+}
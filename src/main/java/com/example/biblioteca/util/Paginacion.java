@@ -0,0 +1,43 @@
+package com.example.biblioteca.util;
+
+import com.example.biblioteca.expection.OperacionNoPermitidaException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+
+//Se define la clase como final y el constructor como private para evitar que la clase Paginacion se pueda instanciar
+public final class Paginacion {
+    private Paginacion(){}
+
+    //Valor por defecto del parámetro size en los listados. Es un String porque se usa en @RequestParam(defaultValue)
+    public static final String TAMANIO_POR_DEFECTO = "50";
+
+    //Tamaño máximo de página: acota la memoria y el tamaño de la respuesta, pida lo que pida el cliente
+    public static final int TAMANIO_MAXIMO = 500;
+
+    /**
+     * Crea la página {@code pagina} (empezando en 0) con como mucho {@link #TAMANIO_MAXIMO} elementos.
+     *
+     * @throws OperacionNoPermitidaException si la página es negativa o el tamaño es menor que 1.
+     */
+    public static Pageable pagina(int pagina, int tamanio) {
+        if (pagina < 0) {
+            throw new OperacionNoPermitidaException("El número de página no puede ser negativo: " + pagina);
+        }
+        return PageRequest.of(pagina, tamanioValido(tamanio));
+    }
+
+    /**
+     * Límite para la paginación por clave (keyset): siempre la primera página, porque el punto
+     * de partida lo marca el último id recibido y no un desplazamiento.
+     */
+    public static Pageable limite(int tamanio) {
+        return PageRequest.of(0, tamanioValido(tamanio));
+    }
+
+    private static int tamanioValido(int tamanio) {
+        if (tamanio < 1) {
+            throw new OperacionNoPermitidaException("El tamaño de página debe ser mayor que 0: " + tamanio);
+        }
+        return Math.min(tamanio, TAMANIO_MAXIMO);
+    }
+}
@@ -0,0 +1,9 @@
+-- Versiones para las peticiones condicionales (ETag / If-None-Match) del catálogo
+
+-- Versión de cada libro, revista y autor (@Version): ETag de GET /Libros/{titulo} y GET /Revistas/{titulo}
+-- y de cada página de los listados GET /Libros y GET /Revistas (ids y versiones de los materiales de la página)
+alter table material_biblioteca
+   add column version bigint not null default 0;
+
+alter table autor
+   add column version bigint not null default 0;
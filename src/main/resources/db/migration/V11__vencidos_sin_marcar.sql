@@ -0,0 +1,13 @@
+-- Barrido de vencimientos por los préstamos sin marcar como vencidos (BarridoVencimientos)
+
+-- Préstamos activos sin marcar por fecha de vencimiento: los marcados salen del rango, así que el barrido
+-- no necesita punto de control y encuentra también los préstamos dados de alta con una fecha pasada
+create index ix_prestamo_activo_vencido_vencimiento
+   on prestamo (activo, vencido, fecha_vencimiento);
+
+drop index ix_prestamo_activo_vencimiento on prestamo;
+
+-- El barrido era el único proceso con punto de control
+drop table punto_control;
+
+drop sequence punto_control_seq;
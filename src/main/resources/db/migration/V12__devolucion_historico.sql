@@ -0,0 +1,6 @@
+-- Fecha de devolución de cada material de un préstamo archivado (PrestamoHistorico): desde V8 cada material
+-- de un préstamo se devuelve por separado y el histórico solo guardaba qué materiales tenía
+
+-- Los préstamos ya archivados no la tienen
+alter table prestamo_material_historico
+   add column fecha_devolucion date;
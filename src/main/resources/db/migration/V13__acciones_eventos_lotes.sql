@@ -0,0 +1,3 @@
+-- Eventos de los trabajos por lotes: préstamos marcados como vencidos (barrido de vencimientos)
+-- y préstamos devueltos que pasan al histórico (archivo de préstamos)
+alter table evento modify accion enum ('ALTA','CAMBIO','BAJA','DEVOLUCION','VENCIMIENTO','ARCHIVO') not null;
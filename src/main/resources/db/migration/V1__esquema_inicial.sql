@@ -0,0 +1,96 @@
+-- Esquema inicial de la biblioteca, tal como lo generaba Hibernate con ddl-auto=update.
+-- En las bases de datos ya existentes esta migración no se ejecuta: Flyway las marca como
+-- versión 1 (spring.flyway.baseline-on-migrate) y aplica solo las migraciones posteriores.
+
+create table autor (
+    id integer not null auto_increment,
+    nombre varchar(255) not null,
+    primary key (id)
+) engine=InnoDB;
+
+create table libro_autor (
+    autor_id integer not null,
+    libro_isbn integer not null
+) engine=InnoDB;
+
+create table material_biblioteca (
+    año_publicacion integer,
+    disponibles integer,
+    id integer not null auto_increment,
+    numero_edicion integer,
+    totales integer,
+    dtype varchar(31) not null,
+    isbn varchar(255),
+    periodicidad varchar(255),
+    titulo varchar(255) not null,
+    primary key (id)
+) engine=InnoDB;
+
+create table membresia (
+    activa bit,
+    fecha_expiracion date,
+    fecha_inicio date,
+    id integer not null auto_increment,
+    tipo_membresia enum ('ESTANDAR','ESTUDIANTE','PREMIUM','TEMPORAL'),
+    primary key (id)
+) engine=InnoDB;
+
+create table prestamo (
+    activo bit not null,
+    fecha_prestamo date not null,
+    id integer not null auto_increment,
+    usuario_id integer not null,
+    primary key (id)
+) engine=InnoDB;
+
+create table prestamo_material (
+    material_id integer not null,
+    prestamo_id integer not null
+) engine=InnoDB;
+
+create table usuario (
+    id integer not null auto_increment,
+    membresia_id integer,
+    email varchar(255) not null,
+    nombre varchar(255) not null,
+    primary key (id)
+) engine=InnoDB;
+
+alter table autor 
+   add constraint UKhrxnpr6qgsqoctag1ckjq2dcs unique (nombre);
+
+alter table usuario 
+   add constraint UKb23wsdjvjjlayqxrismk9d8fw unique (membresia_id);
+
+alter table usuario 
+   add constraint UKcto7dkti4t38iq8r4cqesbd8k unique (nombre);
+
+alter table libro_autor 
+   add constraint FKjf2fhkw7ta2mvhhiugwd6k2tn 
+   foreign key (autor_id) 
+   references autor (id);
+
+alter table libro_autor 
+   add constraint FK6ofpo4j5lfw0jyrfx0gj5i4u 
+   foreign key (libro_isbn) 
+   references material_biblioteca (id);
+
+alter table prestamo 
+   add constraint FKqxhq6d4w6fuv27c7j3af28wdu 
+   foreign key (usuario_id) 
+   references usuario (id);
+
+alter table prestamo_material 
+   add constraint FK7s5h0yxnjlofyawev13iu3889 
+   foreign key (material_id) 
+   references material_biblioteca (id);
+
+alter table prestamo_material 
+   add constraint FK29hwva6cobnns45gda0x8r7jg 
+   foreign key (prestamo_id) 
+   references prestamo (id);
+
+alter table usuario 
+   add constraint FKfvr05uvvithonof8jforl1bba 
+   foreign key (membresia_id) 
+   references membresia (id);
@@ -0,0 +1,27 @@
+-- Índices para las búsquedas más frecuentes.
+-- Si una base de datos existente tiene títulos o isbn repetidos, hay que depurarlos antes:
+-- la creación de los índices únicos fallaría.
+
+-- Claves naturales del material: findByTitulo (préstamos y devoluciones) y findByIsbn / deleteByIsbn
+alter table material_biblioteca
+   add constraint ux_material_titulo unique (titulo);
+
+alter table material_biblioteca
+   add constraint ux_material_isbn unique (isbn);
+
+-- Préstamos activos de un usuario
+create index ix_prestamo_usuario_activo
+   on prestamo (usuario_id, activo);
+
+-- Tablas de relación: se recorren en los dos sentidos
+create index ix_libro_autor_libro
+   on libro_autor (libro_isbn, autor_id);
+
+create index ix_libro_autor_autor
+   on libro_autor (autor_id, libro_isbn);
+
+create index ix_prestamo_material_prestamo
+   on prestamo_material (prestamo_id, material_id);
+
+create index ix_prestamo_material_material
+   on prestamo_material (material_id, prestamo_id);
@@ -0,0 +1,37 @@
+-- Los ids pasan de auto_increment a secuencias con incremento 50 (optimizador pooled de Hibernate),
+-- para que Hibernate pueda agrupar los INSERT en lotes JDBC.
+--
+-- Cada secuencia empieza en MAX(id) + 50: Hibernate toma el primer valor como el final de un bloque
+-- de 50 ids, así que el primer id que asigna es MAX(id) + 1. CREATE SEQUENCE solo admite literales
+-- en START WITH, por eso se construye con una sentencia preparada.
+-- Las columnas conservan auto_increment, pero la aplicación ya no lo usa.
+
+SET @inicio = (SELECT COALESCE(MAX(id), 0) + 50 FROM autor);
+SET @sentencia = CONCAT('create sequence autor_seq start with ', @inicio, ' increment by 50 nocache');
+PREPARE crear_secuencia FROM @sentencia;
+EXECUTE crear_secuencia;
+DEALLOCATE PREPARE crear_secuencia;
+
+SET @inicio = (SELECT COALESCE(MAX(id), 0) + 50 FROM material_biblioteca);
+SET @sentencia = CONCAT('create sequence material_biblioteca_seq start with ', @inicio, ' increment by 50 nocache');
+PREPARE crear_secuencia FROM @sentencia;
+EXECUTE crear_secuencia;
+DEALLOCATE PREPARE crear_secuencia;
+
+SET @inicio = (SELECT COALESCE(MAX(id), 0) + 50 FROM membresia);
+SET @sentencia = CONCAT('create sequence membresia_seq start with ', @inicio, ' increment by 50 nocache');
+PREPARE crear_secuencia FROM @sentencia;
+EXECUTE crear_secuencia;
+DEALLOCATE PREPARE crear_secuencia;
+
+SET @inicio = (SELECT COALESCE(MAX(id), 0) + 50 FROM prestamo);
+SET @sentencia = CONCAT('create sequence prestamo_seq start with ', @inicio, ' increment by 50 nocache');
+PREPARE crear_secuencia FROM @sentencia;
+EXECUTE crear_secuencia;
+DEALLOCATE PREPARE crear_secuencia;
+
+SET @inicio = (SELECT COALESCE(MAX(id), 0) + 50 FROM usuario);
+SET @sentencia = CONCAT('create sequence usuario_seq start with ', @inicio, ' increment by 50 nocache');
+PREPARE crear_secuencia FROM @sentencia;
+EXECUTE crear_secuencia;
+DEALLOCATE PREPARE crear_secuencia;
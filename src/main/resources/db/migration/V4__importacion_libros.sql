@@ -0,0 +1,17 @@
+-- Puntos de control de la importación de libros por lotes (POST /Libros/importacion)
+
+create sequence importacion_seq start with 1 increment by 50 nocache;
+
+create table importacion (
+    id integer not null,
+    terminada bit not null,
+    fecha_actualizacion datetime(6),
+    libros_insertados bigint not null,
+    lineas_descartadas bigint not null,
+    lineas_procesadas bigint not null,
+    nombre varchar(255) not null,
+    primary key (id)
+) engine=InnoDB;
+
+alter table importacion
+   add constraint ux_importacion_nombre unique (nombre);
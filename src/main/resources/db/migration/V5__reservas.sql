@@ -0,0 +1,45 @@
+-- Cola de reservas de los materiales sin ejemplares disponibles (POST /Reservas)
+
+-- Posición de la última reserva de la cola de cada material: la siguiente reserva recibe ultima_reserva + 1
+alter table material_biblioteca
+   add column ultima_reserva integer not null default 0;
+
+create sequence reserva_seq start with 1 increment by 50 nocache;
+
+create table reserva (
+    id integer not null,
+    activa bit not null,
+    posicion integer not null,
+    fecha_reserva datetime(6) not null,
+    fecha_atencion datetime(6),
+    material_id integer not null,
+    usuario_id integer not null,
+    prestamo_id integer,
+    primary key (id)
+) engine=InnoDB;
+
+alter table reserva
+   add constraint ux_reserva_material_posicion unique (material_id, posicion);
+
+-- Primera reserva activa de la cola de un material: es la primera entrada del rango (material_id, activa = 1)
+create index ix_reserva_material_activa_posicion
+   on reserva (material_id, activa, posicion);
+
+-- Reservas activas de un usuario
+create index ix_reserva_usuario_activa
+   on reserva (usuario_id, activa);
+
+alter table reserva
+   add constraint fk_reserva_material
+   foreign key (material_id)
+   references material_biblioteca (id);
+
+alter table reserva
+   add constraint fk_reserva_usuario
+   foreign key (usuario_id)
+   references usuario (id);
+
+alter table reserva
+   add constraint fk_reserva_prestamo
+   foreign key (prestamo_id)
+   references prestamo (id);
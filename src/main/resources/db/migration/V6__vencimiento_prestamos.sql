@@ -0,0 +1,33 @@
+-- Fecha de vencimiento de los préstamos y barrido de préstamos vencidos (BarridoVencimientos)
+
+-- Los préstamos existentes vencen a los 21 días de la fecha de préstamo (Prestamo.DIAS_PRESTAMO)
+alter table prestamo
+   add column fecha_vencimiento date;
+
+update prestamo
+   set fecha_vencimiento = date_add(fecha_prestamo, interval 21 day);
+
+alter table prestamo
+   modify fecha_vencimiento date not null;
+
+alter table prestamo
+   add column vencido bit not null default 0;
+
+-- Préstamos activos por fecha de vencimiento: el barrido los recorre en orden (fecha_vencimiento, id)
+create index ix_prestamo_activo_vencimiento
+   on prestamo (activo, fecha_vencimiento);
+
+-- Punto de control de los procesos que recorren una tabla por partes: la última fila procesada
+create sequence punto_control_seq start with 1 increment by 50 nocache;
+
+create table punto_control (
+    id integer not null,
+    nombre varchar(255) not null,
+    ultima_fecha date,
+    ultimo_id integer not null,
+    fecha_actualizacion datetime(6),
+    primary key (id)
+) engine=InnoDB;
+
+alter table punto_control
+   add constraint ux_punto_control_nombre unique (nombre);
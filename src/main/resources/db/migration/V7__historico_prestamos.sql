@@ -0,0 +1,29 @@
+-- Histórico de préstamos devueltos (ArchivoPrestamosService): la tabla prestamo y prestamo_material
+-- solo guardan los préstamos activos y los devueltos que todavía no se han archivado
+
+-- Mismo id que tenía el préstamo. Sin claves ajenas a usuario ni a material: el histórico se conserva
+-- aunque se dé de baja el material
+create table prestamo_historico (
+    id integer not null,
+    fecha_prestamo date not null,
+    fecha_vencimiento date not null,
+    usuario_id integer not null,
+    vencido bit not null,
+    fecha_archivo datetime(6) not null,
+    primary key (id)
+) engine=InnoDB;
+
+create table prestamo_material_historico (
+    prestamo_id integer not null,
+    material_id integer not null,
+    primary key (prestamo_id, material_id)
+) engine=InnoDB;
+
+alter table prestamo_material_historico
+   add constraint fk_prestamo_material_historico_prestamo
+   foreign key (prestamo_id)
+   references prestamo_historico (id);
+
+-- Historial de préstamos de un usuario
+create index ix_prestamo_historico_usuario
+   on prestamo_historico (usuario_id, id);
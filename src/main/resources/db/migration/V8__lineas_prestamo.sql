@@ -0,0 +1,47 @@
+-- Estado por línea de préstamo (PrestamoMaterial): cada material de un préstamo se devuelve por separado
+-- y el préstamo sigue activo hasta que se devuelve el último
+
+-- Un material aparece una sola vez en cada préstamo: la clave es (prestamo_id, material_id)
+create table prestamo_material_linea (
+    prestamo_id integer not null,
+    material_id integer not null,
+    activo bit not null,
+    fecha_devolucion date,
+    primary key (prestamo_id, material_id)
+) engine=InnoDB;
+
+-- Las líneas existentes tienen el estado de su préstamo; de las devueltas no se conoce la fecha
+insert into prestamo_material_linea (prestamo_id, material_id, activo, fecha_devolucion)
+select distinct pm.prestamo_id, pm.material_id, p.activo, null
+  from prestamo_material pm
+  join prestamo p on p.id = pm.prestamo_id;
+
+-- Un préstamo activo con el mismo material repetido tenía descontado un ejemplar por fila, pero queda una sola línea
+-- y solo se podrá devolver uno: los demás vuelven ahora a estar disponibles
+update material_biblioteca m
+  join (select pm.material_id, count(*) - count(distinct pm.prestamo_id) as repetidos
+          from prestamo_material pm
+          join prestamo p on p.id = pm.prestamo_id
+         where p.activo = 1
+         group by pm.material_id) r on r.material_id = m.id
+   set m.disponibles = least(m.totales, m.disponibles + r.repetidos)
+ where r.repetidos > 0;
+
+drop table prestamo_material;
+
+rename table prestamo_material_linea to prestamo_material;
+
+alter table prestamo_material
+   add constraint fk_prestamo_material_prestamo
+   foreign key (prestamo_id)
+   references prestamo (id);
+
+alter table prestamo_material
+   add constraint fk_prestamo_material_material
+   foreign key (material_id)
+   references material_biblioteca (id);
+
+-- Préstamos activos de un material y línea que se devuelve (PrestamoMaterialRepository.findParaDevolver),
+-- sin leer las líneas ya devueltas. Los materiales de un préstamo van por la clave primaria
+create index ix_prestamo_material_material_activo
+   on prestamo_material (material_id, activo, prestamo_id);
@@ -0,0 +1,12 @@
+-- Eventos de cambio del catálogo, los usuarios y los préstamos (tabla de salida que leen los consumidores con GET /Eventos)
+
+-- auto_increment y no una secuencia con bloques: el id es el cursor de los consumidores y crece en el orden de inserción
+create table evento (
+    id bigint not null auto_increment,
+    fecha datetime(6) not null,
+    tipo enum ('LIBRO','REVISTA','AUTOR','USUARIO','PRESTAMO') not null,
+    accion enum ('ALTA','CAMBIO','BAJA','DEVOLUCION') not null,
+    entidad_id integer not null,
+    datos text,
+    primary key (id)
+) engine=InnoDB;
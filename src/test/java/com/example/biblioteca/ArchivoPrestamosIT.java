@@ -0,0 +1,166 @@
+package com.example.biblioteca;
+
+import com.example.biblioteca.dto.PrestamoDTO;
+import com.example.biblioteca.eventos.AvisoEventos;
+import com.example.biblioteca.metricas.MetricasPrestamo;
+import com.example.biblioteca.model.*;
+import com.example.biblioteca.repository.*;
+import com.example.biblioteca.service.ArchivoPrestamosService;
+import com.example.biblioteca.service.DevolucionService;
+import com.example.biblioteca.service.DisponibilidadService;
+import com.example.biblioteca.service.EventoService;
+import com.example.biblioteca.service.PrestamoService;
+import com.example.biblioteca.service.ReservaService;
+import com.example.biblioteca.serviceDTO.ExportacionDTOService;
+import com.example.biblioteca.serviceDTO.PrestamoDTOService;
+import com.example.biblioteca.titulos.IdsMaterialPorTitulo;
+import com.example.biblioteca.util.FormatoFichero;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.jackson.JacksonAutoConfiguration;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Archivo de préstamos devueltos en el histórico.
+ *
+ * No hay transacción de test: cada lote se confirma en su propia transacción.
+ */
+@DataJpaTest
+@Import({ArchivoPrestamosService.class, PrestamoDTOService.class, IdsMaterialPorTitulo.class, PrestamoService.class, ReservaService.class, DevolucionService.class, DisponibilidadService.class,
+        ExportacionDTOService.class, MetricasPrestamo.class, SimpleMeterRegistry.class, JacksonAutoConfiguration.class,
+        EventoService.class, AvisoEventos.class})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class ArchivoPrestamosIT {
+
+    private static final LocalDate DEVOLUCION = LocalDate.of(2025, 2, 1);
+
+    @Autowired ArchivoPrestamosService archivoPrestamosService;
+    @Autowired PrestamoDTOService prestamoDTOService;
+    @Autowired ExportacionDTOService exportacionDTOService;
+    @Autowired PrestamoRepository prestamoRepository;
+    @Autowired PrestamoHistoricoRepository prestamoHistoricoRepository;
+    @Autowired ReservaRepository reservaRepository;
+    @Autowired UsuarioRepository usuarioRepository;
+    @Autowired LibroRepository libroRepository;
+    @Autowired AutorRepository autorRepository;
+    @Autowired EventoRepository eventoRepository;
+    @Autowired PlatformTransactionManager transactionManager;
+
+    @Test
+    @Timeout(20)
+    void archivarDevueltos_mueveLosDevueltosAlHistoricoYSeSiguenPudiendoConsultar() throws IOException {
+        //Arrange
+        Usuario usuario = new Usuario();
+        usuario.setNombre("ARCH USUARIO");
+        usuario.setEmail("ARCH@GMAIL.COM");
+        usuarioRepository.save(usuario);
+
+        Libro libro = new Libro();
+        libro.setTitulo("ARCH LIBRO");
+        libro.setIsbn("ARCH-1");
+        libro.setAñoPublicacion(2024);
+        libro.setAutores(List.of(autorRepository.save(new Autor("ARCH AUTOR"))));
+        libro.setTotales(5);
+        libro.setDisponibles(5);
+        libroRepository.save(libro);
+
+        Prestamo devueltoConLibro = prestamo(usuario, List.of(libro), false);
+        Prestamo devueltoSinMateriales = prestamo(usuario, List.of(), false);
+        Prestamo devueltoConReserva = prestamo(usuario, List.of(libro), false);
+        Prestamo activo = prestamo(usuario, List.of(libro), true);
+
+        Reserva reserva = new Reserva();
+        reserva.setMaterial(libro);
+        reserva.setUsuario(usuario);
+        reserva.setPosicion(1);
+        reserva.setFechaReserva(LocalDateTime.now());
+        reserva.setPrestamo(devueltoConReserva);
+        reservaRepository.save(reserva);
+        long cursor = eventoRepository.findAll().stream().mapToLong(Evento::getId).max().orElse(0);
+
+        //Act: lotes de 2 préstamos
+        long archivados = archivoPrestamosService.archivarDevueltos(2, Duration.ofSeconds(10));
+
+        //Assert: en Prestamo solo queda el activo
+        assertEquals(3, archivados);
+        assertTrue(prestamoRepository.findIdsDevueltos(PageRequest.of(0, 10)).isEmpty());
+        assertTrue(prestamoRepository.existsById(activo.getId()));
+        assertFalse(prestamoRepository.existsById(devueltoConLibro.getId()));
+        //Un evento ARCHIVO por préstamo archivado, confirmado con su lote
+        List<Evento> eventos = eventoRepository.findByIdGreaterThanOrderByIdAsc(cursor, PageRequest.of(0, 100));
+        assertEquals(List.of(devueltoConLibro.getId(), devueltoSinMateriales.getId(), devueltoConReserva.getId()),
+                eventos.stream().map(Evento::getEntidadId).toList());
+        assertTrue(eventos.stream().allMatch(evento -> evento.getTipo() == TipoEvento.PRESTAMO && evento.getAccion() == AccionEvento.ARCHIVO));
+
+        PrestamoHistorico historico = new TransactionTemplate(transactionManager).execute(estado -> {
+            PrestamoHistorico encontrado = prestamoHistoricoRepository.findById(devueltoConLibro.getId()).orElseThrow();
+            encontrado.getLineas().size();
+            return encontrado;
+        });
+        assertEquals(devueltoConLibro.getFechaVencimiento(), historico.getFechaVencimiento());
+        assertEquals(usuario.getId(), historico.getUsuarioId());
+        //Cada material con la fecha en que se devolvió
+        assertEquals(Set.of(new LineaPrestamoHistorico(libro.getId(), DEVOLUCION)), historico.getLineas());
+        assertTrue(prestamoHistoricoRepository.existsById(devueltoSinMateriales.getId()));
+        assertNull(reservaRepository.findById(reserva.getId()).orElseThrow().getPrestamo());
+
+        //Sin el histórico solo se ve el activo; con el histórico, todos en orden de id
+        assertEquals(List.of(activo.getId()), ids(prestamoDTOService.listarPrestamosUsuario("arch usuario", false)));
+        List<PrestamoDTO> todos = prestamoDTOService.listarPrestamosUsuario("arch usuario", true);
+        assertEquals(List.of(devueltoConLibro.getId(), devueltoSinMateriales.getId(), devueltoConReserva.getId(), activo.getId()), ids(todos));
+        assertEquals(List.of("ARCH LIBRO"), todos.get(0).getTituloMateriales());
+        assertTrue(todos.get(1).getTituloMateriales().isEmpty());
+        assertFalse(todos.get(0).isActivos());
+        assertTrue(todos.get(3).isActivos());
+
+        //La exportación incluye los archivados y los de Prestamo
+        ByteArrayOutputStream salida = new ByteArrayOutputStream();
+        exportacionDTOService.exportarPrestamos(FormatoFichero.CSV, salida);
+        List<String> lineas = salida.toString(StandardCharsets.UTF_8).lines()
+                .filter(linea -> linea.contains("ARCH USUARIO"))
+                .toList();
+        assertEquals(4, lineas.size());
+        assertTrue(lineas.contains(devueltoConLibro.getId() + "," + devueltoConLibro.getFechaPrestamo() + ",ARCH USUARIO,ARCH LIBRO,false"));
+
+        //Ya no queda nada por archivar
+        assertEquals(0, archivoPrestamosService.archivarDevueltos(2, Duration.ofSeconds(10)));
+    }
+
+    private Prestamo prestamo(Usuario usuario, List<MaterialBiblioteca> materiales, boolean activo) {
+        Prestamo prestamo = new Prestamo();
+        prestamo.setUsuario(usuario);
+        prestamo.setFechaPrestamo(LocalDate.of(2025, 1, 15));
+        prestamo.setMateriales(new ArrayList<>(materiales));
+        if (!activo) {
+            materiales.forEach(material -> prestamo.devolver(material.getId(), DEVOLUCION));
+        }
+        prestamo.setActivo(activo);
+        return prestamoRepository.save(prestamo);
+    }
+
+    private static List<Integer> ids(List<PrestamoDTO> prestamos) {
+        return prestamos.stream().map(PrestamoDTO::getId).toList();
+    }
+}
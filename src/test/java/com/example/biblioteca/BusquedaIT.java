@@ -0,0 +1,179 @@
+package com.example.biblioteca;
+
+import com.example.biblioteca.busqueda.IndiceBusqueda;
+import com.example.biblioteca.busqueda.ListenerIndiceBusqueda;
+import com.example.biblioteca.busqueda.SugerenciasTitulos;
+import com.example.biblioteca.dto.ResultadoBusquedaDTO;
+import com.example.biblioteca.model.Autor;
+import com.example.biblioteca.model.Libro;
+import com.example.biblioteca.model.Revista;
+import com.example.biblioteca.repository.AutorRepository;
+import com.example.biblioteca.repository.LibroRepository;
+import com.example.biblioteca.repository.RevistaRepository;
+import com.example.biblioteca.service.BusquedaService;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Índice de búsqueda y sugerencias de títulos actualizados por el listener de las entidades.
+ *
+ * No hay transacción de test: el índice solo cambia cuando se confirma la transacción que guarda la entidad.
+ * Las búsquedas ven los cambios en el siguiente refresco del lector, así que se espera a él antes de buscar.
+ * Sin app.busqueda.directorio el índice está en memoria.
+ */
+@DataJpaTest
+@Import({IndiceBusqueda.class, SugerenciasTitulos.class, ListenerIndiceBusqueda.class, BusquedaService.class})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class BusquedaIT {
+
+    @Autowired BusquedaService busquedaService;
+    @Autowired IndiceBusqueda indiceBusqueda;
+    @Autowired LibroRepository libroRepository;
+    @Autowired RevistaRepository revistaRepository;
+    @Autowired AutorRepository autorRepository;
+
+    @Test
+    @Timeout(20)
+    void buscar_encuentraLoGuardadoSinTenerEnCuentaMayusculasAcentosNiPlurales() throws InterruptedException {
+        //Arrange
+        Autor autor = autorRepository.save(new Autor("GABRIEL GARCÍA MÁRQUEZ BUSQ"));
+        Libro libro = libroRepository.save(libro("CRÓNICA DE UNA MUERTE ANUNCIADA", "BUSQ-978", autor));
+        Revista revista = revistaRepository.save(revista("BUSQ NOTICIAS DE LA CIENCIA", "MENSUAL"));
+        indiceBusqueda.esperarCambios();
+
+        //Act + Assert
+        assertEquals(List.of(libro.getId()), ids(busquedaService.buscar("cronicas muerte", 10)));
+        assertEquals(List.of(libro.getId()), ids(busquedaService.buscar("BUSQ-978", 10)));
+        assertEquals(List.of(autor.getId()), ids(busquedaService.buscar("garcia marquez", 10)));
+        ResultadoBusquedaDTO encontrado = busquedaService.buscar("noticia mensual", 10).get(0);
+        assertEquals(IndiceBusqueda.TIPO_REVISTA, encontrado.getTipo());
+        assertEquals(revista.getTitulo(), encontrado.getNombre());
+        //Todas las palabras tienen que estar
+        assertTrue(busquedaService.buscar("crónica ciencia", 10).isEmpty());
+    }
+
+    @Test
+    @Timeout(20)
+    void guardarYBorrar_actualizanElIndiceDespuesDelCommit() throws InterruptedException {
+        //Arrange
+        Autor autor = autorRepository.save(new Autor("AUTOR BUSQ CAMBIOS"));
+        Libro libro = libroRepository.save(libro("BUSQ PRIMER TITULO", "BUSQ-1", autor));
+        indiceBusqueda.esperarCambios();
+        assertEquals(1, busquedaService.buscar("busq primer", 10).size());
+
+        //Act: cambio de título
+        libro.setTitulo("BUSQ SEGUNDO TITULO");
+        libroRepository.save(libro);
+        indiceBusqueda.esperarCambios();
+
+        //Assert
+        assertTrue(busquedaService.buscar("busq primer", 10).isEmpty());
+        assertEquals(List.of(libro.getId()), ids(busquedaService.buscar("busq segundo", 10)));
+
+        //Act: baja
+        libroRepository.deleteById(libro.getId());
+        indiceBusqueda.esperarCambios();
+
+        //Assert
+        assertTrue(busquedaService.buscar("busq segundo", 10).isEmpty());
+    }
+
+    @Test
+    @Timeout(20)
+    void reconstruir_vuelveACrearElIndiceDesdeLaBaseDeDatos() throws InterruptedException {
+        //Arrange
+        Autor autor = autorRepository.save(new Autor("AUTOR BUSQ RECONSTRUCCION"));
+        Libro libro = libroRepository.save(libro("BUSQ RECONSTRUIDO", "BUSQ-2", autor));
+        indiceBusqueda.eliminar(IndiceBusqueda.TIPO_LIBRO, libro.getId());
+        indiceBusqueda.esperarCambios();
+        assertTrue(busquedaService.buscar("busq reconstruido", 10).isEmpty());
+
+        //Act
+        long indexados = busquedaService.reconstruir();
+
+        //Assert
+        assertTrue(indexados >= 2);
+        assertEquals(List.of(libro.getId()), ids(busquedaService.buscar("busq reconstruido", 10)));
+        assertEquals(1, busquedaService.buscar("autor busq reconstruccion", 10).size());
+    }
+
+    @Test
+    @Timeout(20)
+    void guardarVariosEnUnaTransaccion_losIndexaTodosDespuesDelCommit() throws InterruptedException {
+        //Arrange
+        Autor autor = autorRepository.save(new Autor("AUTOR BUSQ LOTE"));
+
+        //Act: como un lote de la importación
+        List<Libro> libros = libroRepository.saveAll(List.of(
+                libro("BUSQ LOTE UNO", "BUSQ-L1", autor),
+                libro("BUSQ LOTE DOS", "BUSQ-L2", autor),
+                libro("BUSQ LOTE TRES", "BUSQ-L3", autor)));
+        indiceBusqueda.esperarCambios();
+
+        //Assert: los tres libros (el autor también tiene esas palabras)
+        assertEquals(libros.stream().map(Libro::getId).sorted().toList(), busquedaService.buscar("busq lote", 10).stream()
+                .filter(resultado -> IndiceBusqueda.TIPO_LIBRO.equals(resultado.getTipo()))
+                .map(ResultadoBusquedaDTO::getId)
+                .sorted()
+                .toList());
+    }
+
+    @Test
+    @Timeout(20)
+    void sugerir_seActualizaAlGuardarYBorrarYSeReconstruyeDesdeLaBaseDeDatos() {
+        //Arrange
+        Autor autor = autorRepository.save(new Autor("AUTOR SUGERENCIAS"));
+        Libro libro = libroRepository.save(libro("SUGERENCIA PRIMER LIBRO", "SUGER-1", autor));
+        Revista revista = revistaRepository.save(revista("SUGERENCIA REVISTA", "SEMANAL"));
+
+        //Act + Assert: alta
+        assertEquals(List.of("SUGERENCIA PRIMER LIBRO", "SUGERENCIA REVISTA"), busquedaService.sugerir("sugerencia", 10));
+
+        //Act + Assert: cambio de título y baja
+        libro.setTitulo("SUGERENCIA SEGUNDO LIBRO");
+        libroRepository.save(libro);
+        revistaRepository.deleteById(revista.getId());
+        assertEquals(List.of("SUGERENCIA SEGUNDO LIBRO"), busquedaService.sugerir("Sugerencia", 10));
+
+        //Act + Assert: se cargan de nuevo desde la base de datos
+        int titulos = busquedaService.reconstruirSugerencias();
+        assertTrue(titulos >= 1);
+        assertEquals(List.of("SUGERENCIA SEGUNDO LIBRO"), busquedaService.sugerir("sugerencia s", 10));
+    }
+
+    private static Libro libro(String titulo, String isbn, Autor autor) {
+        Libro libro = new Libro();
+        libro.setTitulo(titulo);
+        libro.setIsbn(isbn);
+        libro.setAñoPublicacion(1981);
+        libro.setAutores(List.of(autor));
+        libro.setTotales(1);
+        libro.setDisponibles(1);
+        return libro;
+    }
+
+    private static Revista revista(String titulo, String periodicidad) {
+        Revista revista = new Revista();
+        revista.setTitulo(titulo);
+        revista.setNumeroEdicion(1);
+        revista.setPeriodicidad(periodicidad);
+        revista.setTotales(1);
+        revista.setDisponibles(1);
+        return revista;
+    }
+
+    private static List<Integer> ids(List<ResultadoBusquedaDTO> resultados) {
+        return resultados.stream().map(ResultadoBusquedaDTO::getId).toList();
+    }
+}
@@ -0,0 +1,224 @@
+package com.example.biblioteca;
+
+import com.example.biblioteca.dto.EstadisticasCacheDTO;
+import com.example.biblioteca.model.Autor;
+import com.example.biblioteca.model.Libro;
+import com.example.biblioteca.model.MaterialBiblioteca;
+import com.example.biblioteca.model.Usuario;
+import com.example.biblioteca.repository.AutorRepository;
+import com.example.biblioteca.repository.LibroRepository;
+import com.example.biblioteca.repository.MaterialBibliotecaRepository;
+import com.example.biblioteca.repository.UsuarioRepository;
+import com.example.biblioteca.service.DisponibilidadService;
+import com.example.biblioteca.serviceDTO.EstadisticasCacheDTOService;
+import com.example.biblioteca.titulos.IdsMaterialPorTitulo;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Caché de segundo nivel y caché de consultas de Autor, MaterialBiblioteca y Usuario, y búsqueda de materiales por título.
+ *
+ * No hay transacción de test: cada llamada a un repositorio abre y confirma la suya, de modo que
+ * las entidades se sirven desde la caché compartida y no desde el contexto de persistencia.
+ */
+@DataJpaTest
+@Import({DisponibilidadService.class, EstadisticasCacheDTOService.class, IdsMaterialPorTitulo.class})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class CacheSegundoNivelIT {
+
+    @Autowired MaterialBibliotecaRepository materialBibliotecaRepository;
+    @Autowired LibroRepository libroRepository;
+    @Autowired AutorRepository autorRepository;
+    @Autowired UsuarioRepository usuarioRepository;
+    @Autowired DisponibilidadService disponibilidadService;
+    @Autowired EstadisticasCacheDTOService estadisticasCacheDTOService;
+    @Autowired IdsMaterialPorTitulo idsMaterialPorTitulo;
+    @Autowired EntityManagerFactory entityManagerFactory;
+
+    //Las regiones de Ehcache son del proceso: las comparten los contextos de otros tests, que usan la misma base de datos
+    //y pueden haber dejado entradas con los mismos ids
+    @BeforeEach
+    void vaciarCache() {
+        entityManagerFactory.getCache().evictAll();
+    }
+
+    @Test
+    @Timeout(10)
+    void buscarPorTitulo_laSegundaBusquedaNoVaALaBaseDeDatos() {
+        //Arrange
+        crearLibro("CACHE PRIMERA BUSQUEDA", "9101", "AUTOR CACHE 1");
+        idsMaterialPorTitulo.buscar("CACHE PRIMERA BUSQUEDA");
+        long aciertosAntes = estadisticasCacheDTOService.consultarEstadisticas().getAciertosTitulos();
+        long sentenciasAntes = estadisticas().getPrepareStatementCount();
+
+        //Act: el id sale del mapa y la entidad de la caché de segundo nivel
+        MaterialBiblioteca material = idsMaterialPorTitulo.buscar("CACHE PRIMERA BUSQUEDA");
+
+        //Assert
+        assertEquals("CACHE PRIMERA BUSQUEDA", material.getTitulo());
+        assertEquals(sentenciasAntes, estadisticas().getPrepareStatementCount());
+        EstadisticasCacheDTO estadisticasCache = estadisticasCacheDTOService.consultarEstadisticas();
+        assertEquals(aciertosAntes + 1, estadisticasCache.getAciertosTitulos());
+        assertTrue(estadisticasCache.getRegiones().stream()
+                .anyMatch(region -> region.getNombre().equals(MaterialBiblioteca.class.getName())));
+    }
+
+    @Test
+    @Timeout(10)
+    void buscarPorTitulo_sigueAcertandoConPrestamosYDevoluciones() {
+        //Arrange
+        crearLibro("CACHE PRESTAMOS", "9103", "AUTOR CACHE 3");
+        idsMaterialPorTitulo.buscar("CACHE PRESTAMOS");
+        long aciertosAntes = idsMaterialPorTitulo.getAciertos();
+        long fallosAntes = idsMaterialPorTitulo.getFallos();
+
+        //Act + Assert: cada préstamo descarta el material de la caché de segundo nivel, pero no el id por título
+        for (int i = 0; i < 2; i++) {
+            disponibilidadService.reservarEjemplar(idsMaterialPorTitulo.buscar("CACHE PRESTAMOS"));
+            assertEquals(1 - i, idsMaterialPorTitulo.buscar("CACHE PRESTAMOS").getDisponibles());
+        }
+        disponibilidadService.devolverEjemplar(idsMaterialPorTitulo.buscar("CACHE PRESTAMOS"));
+        assertEquals(1, idsMaterialPorTitulo.buscar("CACHE PRESTAMOS").getDisponibles());
+
+        assertEquals(aciertosAntes + 6, idsMaterialPorTitulo.getAciertos());
+        assertEquals(fallosAntes, idsMaterialPorTitulo.getFallos());
+    }
+
+    @Test
+    @Timeout(10)
+    void buscarPorTitulo_materialRenombradoOBorrado_vuelveABuscarPorTitulo() {
+        //Arrange
+        crearLibro("CACHE RENOMBRADO", "9104", "AUTOR CACHE 4");
+        MaterialBiblioteca material = idsMaterialPorTitulo.buscar("CACHE RENOMBRADO");
+
+        //Act + Assert: renombrado
+        material.setTitulo("CACHE RENOMBRADO 2");
+        materialBibliotecaRepository.save(material);
+
+        assertNull(idsMaterialPorTitulo.buscar("CACHE RENOMBRADO"));
+        assertEquals(material.getId(), idsMaterialPorTitulo.buscar("CACHE RENOMBRADO 2").getId());
+
+        //Act + Assert: borrado
+        materialBibliotecaRepository.deleteById(material.getId());
+
+        assertNull(idsMaterialPorTitulo.buscar("CACHE RENOMBRADO 2"));
+    }
+
+    @Test
+    @Timeout(10)
+    void reservarYDevolverEjemplar_soloDescartanDeLaCacheElMaterialPrestado() {
+        //Arrange
+        crearLibro("CACHE PRESTADO", "9105", "AUTOR CACHE 5");
+        crearLibro("CACHE NO PRESTADO", "9106", "AUTOR CACHE 6");
+        MaterialBiblioteca prestado = idsMaterialPorTitulo.buscar("CACHE PRESTADO");
+        int otroId = idsMaterialPorTitulo.buscar("CACHE NO PRESTADO").getId();
+
+        //Act
+        disponibilidadService.reservarEjemplar(prestado);
+        disponibilidadService.devolverEjemplar(prestado);
+        disponibilidadService.reservarEjemplar(prestado);
+
+        //Assert: el otro material sigue en la caché
+        long aciertosAntes = estadisticas().getSecondLevelCacheHitCount();
+        long sentenciasAntes = estadisticas().getPrepareStatementCount();
+        assertEquals(2, materialBibliotecaRepository.findById(otroId).orElseThrow().getDisponibles());
+        assertEquals(aciertosAntes + 1, estadisticas().getSecondLevelCacheHitCount());
+        assertEquals(sentenciasAntes, estadisticas().getPrepareStatementCount());
+
+        //Assert: el prestado se vuelve a leer una vez, con los disponibles al día, y después se sirve de la caché
+        assertEquals(1, materialBibliotecaRepository.findById(prestado.getId()).orElseThrow().getDisponibles());
+        assertEquals(sentenciasAntes + 1, estadisticas().getPrepareStatementCount());
+        assertEquals(1, materialBibliotecaRepository.findById(prestado.getId()).orElseThrow().getDisponibles());
+        assertEquals(aciertosAntes + 2, estadisticas().getSecondLevelCacheHitCount());
+        assertEquals(sentenciasAntes + 1, estadisticas().getPrepareStatementCount());
+    }
+
+    @Test
+    @Timeout(10)
+    void findSoloAutorByNombre_laSegundaBusquedaNoVaALaBaseDeDatos() {
+        //Arrange
+        autorRepository.save(new Autor("AUTOR CACHE BUSQUEDA"));
+        autorRepository.findSoloAutorByNombre("AUTOR CACHE BUSQUEDA");
+        long sentenciasAntes = estadisticas().getPrepareStatementCount();
+
+        //Act
+        Autor autor = autorRepository.findSoloAutorByNombre("AUTOR CACHE BUSQUEDA").orElseThrow();
+
+        //Assert
+        assertEquals("AUTOR CACHE BUSQUEDA", autor.getNombre());
+        assertEquals(sentenciasAntes, estadisticas().getPrepareStatementCount());
+    }
+
+    @Test
+    @Timeout(10)
+    void reservarYDevolverEjemplar_invalidanElMaterialCacheado() {
+        //Arrange
+        crearLibro("CACHE DISPONIBLES", "9102", "AUTOR CACHE 2");
+        MaterialBiblioteca material = materialBibliotecaRepository.findByTitulo("CACHE DISPONIBLES");
+
+        //Act + Assert: el UPDATE de disponibles descarta la entidad cacheada
+        disponibilidadService.reservarEjemplar(material);
+        assertEquals(1, materialBibliotecaRepository.findByTitulo("CACHE DISPONIBLES").getDisponibles());
+
+        disponibilidadService.devolverEjemplar(material);
+        assertEquals(2, materialBibliotecaRepository.findByTitulo("CACHE DISPONIBLES").getDisponibles());
+    }
+
+    @Test
+    @Timeout(10)
+    void actualizarYBorrarUsuario_invalidanLaCache() {
+        //Arrange
+        Usuario usuario = new Usuario();
+        usuario.setNombre("USUARIO CACHE");
+        usuario.setEmail("CACHE@GMAIL.COM");
+        usuarioRepository.save(usuario);
+        usuario = usuarioRepository.findByNombre("USUARIO CACHE").orElseThrow();
+
+        //Act + Assert: actualización
+        usuario.setNombre("USUARIO CACHE RENOMBRADO");
+        usuario.setEmail("RENOMBRADO@GMAIL.COM");
+        usuarioRepository.save(usuario);
+
+        assertTrue(usuarioRepository.findByNombre("USUARIO CACHE").isEmpty());
+        assertEquals("RENOMBRADO@GMAIL.COM",
+                usuarioRepository.findByNombre("USUARIO CACHE RENOMBRADO").orElseThrow().getEmail());
+
+        //Act + Assert: borrado
+        usuarioRepository.deleteById(usuario.getId());
+
+        assertTrue(usuarioRepository.findByNombre("USUARIO CACHE RENOMBRADO").isEmpty());
+        assertTrue(usuarioRepository.findById(usuario.getId()).isEmpty());
+    }
+
+    private void crearLibro(String titulo, String isbn, String nombreAutor) {
+        Autor autor = autorRepository.save(new Autor(nombreAutor));
+
+        Libro libro = new Libro();
+        libro.setTitulo(titulo);
+        libro.setIsbn(isbn);
+        libro.setAñoPublicacion(2024);
+        libro.setAutores(List.of(autor));
+        libro.setTotales(2);
+        libro.setDisponibles(2);
+        libroRepository.save(libro);
+    }
+
+    private Statistics estadisticas() {
+        return entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    }
+}
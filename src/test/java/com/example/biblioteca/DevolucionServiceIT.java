@@ -0,0 +1,186 @@
+package com.example.biblioteca;
+
+import com.example.biblioteca.expection.MaterialNoEncontradoException;
+import com.example.biblioteca.expection.UsuarioNoEncontradoException;
+import com.example.biblioteca.metricas.MetricasPrestamo;
+import com.example.biblioteca.model.Autor;
+import com.example.biblioteca.model.Libro;
+import com.example.biblioteca.model.MaterialBiblioteca;
+import com.example.biblioteca.model.Prestamo;
+import com.example.biblioteca.model.Usuario;
+import com.example.biblioteca.repository.AutorRepository;
+import com.example.biblioteca.repository.LibroRepository;
+import com.example.biblioteca.repository.PrestamoRepository;
+import com.example.biblioteca.repository.UsuarioRepository;
+import com.example.biblioteca.service.DevolucionService;
+import com.example.biblioteca.service.DisponibilidadService;
+import com.example.biblioteca.service.ReservaService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest
+@Import({DevolucionService.class, ReservaService.class, DisponibilidadService.class,
+        MetricasPrestamo.class, SimpleMeterRegistry.class})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+class DevolucionServiceIT {
+
+    //Préstamos activos del usuario: la devolución no depende de cuántos sean
+    private static final int PRESTAMOS = 12;
+
+    @Autowired DevolucionService devolucionService;
+    @Autowired PrestamoRepository prestamoRepository;
+    @Autowired UsuarioRepository usuarioRepository;
+    @Autowired LibroRepository libroRepository;
+    @Autowired AutorRepository autorRepository;
+    @Autowired EntityManager entityManager;
+
+    private Usuario usuario;
+    private final List<Libro> libros = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        usuario = new Usuario();
+        usuario.setNombre("DEVOLUCION USUARIO");
+        usuario.setEmail("DEVOLUCION@GMAIL.COM");
+        usuarioRepository.save(usuario);
+
+        Autor autor = autorRepository.save(new Autor("AUTOR DEVOLUCION"));
+        for (int i = 0; i < PRESTAMOS; i++) {
+            Libro libro = new Libro();
+            libro.setTitulo("DEVOLUCION LIBRO " + i);
+            libro.setIsbn("DEV-" + i);
+            libro.setAñoPublicacion(2020);
+            libro.setAutores(List.of(autor));
+            libro.setTotales(2);
+            libro.setDisponibles(1);
+            libros.add(libroRepository.save(libro));
+
+            Prestamo prestamo = new Prestamo();
+            prestamo.setFechaPrestamo(LocalDate.now());
+            prestamo.setActivo(true);
+            prestamo.setUsuario(usuario);
+            prestamo.setMateriales(new ArrayList<>(List.of(libro)));
+            prestamoRepository.save(prestamo);
+        }
+        entityManager.flush();
+        entityManager.clear();
+    }
+
+    @Test
+    @Timeout(10)
+    void devolver_cierraSoloElPrestamoDelMaterialConUnNumeroFijoDeSentencias() {
+        //Arrange
+        Libro devuelto = libros.get(PRESTAMOS / 2);
+
+        //Act: consulta de la línea, cierre de la línea y del préstamo, bloqueo del material, primera reserva y UPDATE de disponibles
+        SentenciasSql.comprobarMaximo(6, () -> devolucionService.devolver("devolucion usuario", devuelto.getTitulo()));
+
+        //Assert
+        entityManager.flush();
+        entityManager.clear();
+        List<Prestamo> activos = prestamoRepository.findByUsuario_idAndActivo(usuario.getId());
+        assertEquals(PRESTAMOS - 1, activos.size());
+        assertEquals(2, disponibles(devuelto));
+        assertEquals(1, disponibles(libros.get(0)));
+
+        //El mismo material ya no está prestado al usuario
+        assertThrows(MaterialNoEncontradoException.class,
+                () -> devolucionService.devolver("DEVOLUCION USUARIO", devuelto.getTitulo()));
+    }
+
+    @Test
+    @Timeout(10)
+    void devolver_deUnMaterialDeUnPrestamoConVarios_dejaElPrestamoActivoHastaElUltimo() {
+        //Arrange: un préstamo con dos materiales, cada uno con su único ejemplar prestado
+        Autor autor = autorRepository.findAll().get(0);
+        Libro primero = libroPrestado("DEVOLUCION PARCIAL 1", autor);
+        Libro segundo = libroPrestado("DEVOLUCION PARCIAL 2", autor);
+        Prestamo prestamo = new Prestamo();
+        prestamo.setFechaPrestamo(LocalDate.now());
+        prestamo.setActivo(true);
+        prestamo.setUsuario(usuarioRepository.getReferenceById(usuario.getId()));
+        prestamo.setMateriales(new ArrayList<>(List.of(primero, segundo)));
+        int prestamoId = prestamoRepository.save(prestamo).getId();
+        entityManager.flush();
+        entityManager.clear();
+
+        //Act
+        devolucionService.devolver("DEVOLUCION USUARIO", primero.getTitulo());
+        entityManager.flush();
+        entityManager.clear();
+
+        //Assert: sigue activo con el segundo material pendiente
+        Prestamo parcial = prestamoRepository.findById(prestamoId).orElseThrow();
+        assertTrue(parcial.isActivo());
+        assertEquals(List.of(segundo.getId()), parcial.getMaterialesActivos().stream().map(MaterialBiblioteca::getId).toList());
+        assertEquals(2, parcial.getMateriales().size());
+        assertEquals(1, disponibles(primero));
+        assertTrue(devolucionService.buscarPrestamoActivo(usuario.getId(), primero.getId()).isEmpty());
+        assertEquals(prestamoId, devolucionService.buscarPrestamoActivo(usuario.getId(), segundo.getId()).orElseThrow().prestamoId());
+
+        //Act: se devuelve el último material
+        devolucionService.devolver("DEVOLUCION USUARIO", segundo.getTitulo());
+        entityManager.flush();
+        entityManager.clear();
+
+        //Assert
+        assertFalse(prestamoRepository.findById(prestamoId).orElseThrow().isActivo());
+    }
+
+    @Test
+    @Timeout(10)
+    void devolver_cuandoNoExisteElUsuarioOElMaterial_explicaPorQue() {
+        //Act + Assert
+        assertThrows(UsuarioNoEncontradoException.class,
+                () -> devolucionService.devolver("NADIE", libros.get(0).getTitulo()));
+        MaterialNoEncontradoException sinMaterial = assertThrows(MaterialNoEncontradoException.class,
+                () -> devolucionService.devolver("DEVOLUCION USUARIO", "NO EXISTE"));
+        assertTrue(sinMaterial.getMessage().startsWith("Material no encontrado"));
+        assertEquals(1, disponibles(libros.get(0)));
+    }
+
+    @Test
+    @Timeout(10)
+    void buscarPrestamoActivo_devuelveElPrestamoDelMaterial() {
+        //Arrange
+        Libro libro = libros.get(3);
+
+        //Act
+        var prestamo = devolucionService.buscarPrestamoActivo(usuario.getId(), libro.getId()).orElseThrow();
+
+        //Assert
+        assertEquals(libro.getId(), prestamo.materialId());
+        assertEquals(libro.getTitulo(), prestamo.titulo());
+        assertTrue(prestamoRepository.findById(prestamo.prestamoId()).orElseThrow().isActivo());
+        assertTrue(devolucionService.buscarPrestamoActivo(usuario.getId() + 1000, libro.getId()).isEmpty());
+    }
+
+    private Libro libroPrestado(String titulo, Autor autor) {
+        Libro libro = new Libro();
+        libro.setTitulo(titulo);
+        libro.setIsbn(titulo);
+        libro.setAñoPublicacion(2020);
+        libro.setAutores(List.of(autor));
+        libro.setTotales(1);
+        libro.setDisponibles(0);
+        return libroRepository.save(libro);
+    }
+
+    private int disponibles(MaterialBiblioteca material) {
+        entityManager.getEntityManagerFactory().getCache().evict(MaterialBiblioteca.class);
+        return libroRepository.findById(material.getId()).orElseThrow().getDisponibles();
+    }
+}
@@ -0,0 +1,99 @@
+package com.example.biblioteca;
+
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+import org.junit.jupiter.api.condition.EnabledIf;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.flyway.FlywayMigrationStrategy;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.context.TestPropertySource;
+import org.testcontainers.DockerClientFactory;
+import org.testcontainers.containers.MariaDBContainer;
+
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Esquema de las migraciones de Flyway en MariaDB, tal como lo tiene la aplicación.
+ *
+ * El resto de tests crean el esquema con Hibernate (ddl-auto=create), así que no comprueban que las migraciones
+ * coincidan con las entidades. Aquí se aplican todas las migraciones sobre una base de datos vacía, el contexto
+ * arranca con ddl-auto=validate y los nombres físicos de la aplicación, y se repiten las comprobaciones de índices
+ * de {@link IndicesIT} sobre ese esquema.
+ *
+ * La base de datos es un MariaDB desechable de Testcontainers: sin Docker, el test se salta. Con
+ * -Desquema.flyway.url=jdbc:mariadb://... (y esquema.flyway.usuario y esquema.flyway.password) se usa esa base de datos,
+ * que se vacía antes de migrar.
+ */
+@EnabledIf("hayBaseDeDatos")
+@TestPropertySource(properties = {
+        "spring.flyway.enabled=true",
+        "spring.flyway.clean-disabled=false",
+        "spring.jpa.hibernate.ddl-auto=validate",
+        "spring.jpa.hibernate.naming.implicit-strategy=org.springframework.boot.orm.jpa.hibernate.SpringImplicitNamingStrategy",
+        "spring.jpa.hibernate.naming.physical-strategy=org.hibernate.boot.model.naming.CamelCaseToUnderscoresNamingStrategy",
+        //Las secuencias de V3 reservan los ids de 50 en 50, como las entidades
+        "spring.jpa.properties.hibernate.id.optimizer.pooled.preferred=pooled"
+})
+class EsquemaFlywayIT extends IndicesIT {
+
+    private static final String URL = System.getProperty("esquema.flyway.url");
+
+    //Palabras con alguna minúscula: nombres de tablas y columnas (las palabras clave de las sentencias van en mayúsculas)
+    private static final Pattern NOMBRE = Pattern.compile("\\b(?=\\w*[a-z])\\w+\\b");
+
+    private static MariaDBContainer<?> mariadb;
+
+    @Autowired Flyway flyway;
+
+    static boolean hayBaseDeDatos() {
+        return URL != null || DockerClientFactory.instance().isDockerAvailable();
+    }
+
+    @DynamicPropertySource
+    static void baseDeDatos(DynamicPropertyRegistry registro) {
+        if (URL != null) {
+            registro.add("spring.datasource.url", () -> URL);
+            registro.add("spring.datasource.username", () -> System.getProperty("esquema.flyway.usuario", "root"));
+            registro.add("spring.datasource.password", () -> System.getProperty("esquema.flyway.password", ""));
+            return;
+        }
+        if (mariadb == null) {
+            mariadb = new MariaDBContainer<>("mariadb:11.4");
+            mariadb.start();
+        }
+        registro.add("spring.datasource.url", mariadb::getJdbcUrl);
+        registro.add("spring.datasource.username", mariadb::getUsername);
+        registro.add("spring.datasource.password", mariadb::getPassword);
+    }
+
+    @Test
+    @Timeout(10)
+    void migraciones_seAplicanTodas() {
+        assertEquals(0, flyway.info().pending().length);
+        assertEquals(flyway.info().all()[flyway.info().all().length - 1].getVersion(), flyway.info().current().getVersion());
+    }
+
+    //Nombres de la aplicación (CamelCaseToUnderscoresNamingStrategy): MaterialBiblioteca -> material_biblioteca
+    @Override
+    String sentencia(String sql) {
+        return NOMBRE.matcher(sql).replaceAll(nombre -> nombre.group().replaceAll("([a-z])([A-Z])", "$1_$2").toLowerCase());
+    }
+
+    //Cada ejecución empieza con la base de datos vacía: se aplican todas las migraciones, desde V1
+    @TestConfiguration
+    static class MigracionDesdeCero {
+        @Bean
+        FlywayMigrationStrategy migracionDesdeCero() {
+            return flyway -> {
+                flyway.clean();
+                flyway.migrate();
+            };
+        }
+    }
+}
@@ -0,0 +1,99 @@
+package com.example.biblioteca;
+
+import com.example.biblioteca.dto.EventoDTO;
+import com.example.biblioteca.dto.LibroDTO;
+import com.example.biblioteca.eventos.AvisoEventos;
+import com.example.biblioteca.expection.AutorNoEncontradoException;
+import com.example.biblioteca.model.AccionEvento;
+import com.example.biblioteca.model.Evento;
+import com.example.biblioteca.model.TipoEvento;
+import com.example.biblioteca.repository.EventoRepository;
+import com.example.biblioteca.service.EventoService;
+import com.example.biblioteca.serviceDTO.EventoDTOService;
+import com.example.biblioteca.serviceDTO.LibroDTOService;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.jackson.JacksonAutoConfiguration;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tabla de salida de eventos: cada cambio de LibroDTOService inserta su evento en la misma transacción
+ * y los consumidores lo leen desde su cursor, en long-poll o en SSE.
+ *
+ * No hay transacción de test: cada llamada al servicio confirma o deshace la suya.
+ */
+@DataJpaTest(properties = "app.eventos.duracion-sse=PT1S")
+@Import({LibroDTOService.class, EventoService.class, EventoDTOService.class, AvisoEventos.class, JacksonAutoConfiguration.class})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class EventosIT {
+
+    @Autowired LibroDTOService libroDTOService;
+    @Autowired EventoService eventoService;
+    @Autowired EventoDTOService eventoDTOService;
+    @Autowired EventoRepository eventoRepository;
+
+    @Test
+    @Timeout(20)
+    void cambios_seLeenEnOrdenDesdeElCursorYSoloSiSeConfirman() throws Exception {
+        long cursor = eventoRepository.findAll().stream().mapToLong(Evento::getId).max().orElse(0);
+
+        //Act: un alta confirmada y un cambio que falla y se deshace
+        LibroDTO libro = libroDTOService.guardarLibro(
+                new LibroDTO(0, "EVENTOS-1", 2024, "Eventos libro", List.of("Eventos autor"), 2, 2));
+        assertThrows(AutorNoEncontradoException.class, () -> libroDTOService.actualizarLibro(libro.getTitulo(),
+                new LibroDTO(0, "EVENTOS-1", 2024, "EVENTOS LIBRO", List.of("NO EXISTE"), 2, 2)));
+
+        //Assert: solo el alta, con el DTO en JSON
+        List<Evento> eventos = eventoService.leer(cursor, 50);
+        assertEquals(1, eventos.size());
+        Evento alta = eventos.get(0);
+        assertEquals(TipoEvento.LIBRO, alta.getTipo());
+        assertEquals(AccionEvento.ALTA, alta.getAccion());
+        assertEquals(libro.getId(), alta.getEntidadId());
+        assertTrue(alta.getDatos().contains("\"titulo\":\"EVENTOS LIBRO\""));
+        assertTrue(eventoService.leer(alta.getId(), 50).isEmpty());
+
+        //Act: un consumidor espera desde el alta y llega la baja
+        CompletableFuture<List<EventoDTO>> espera = CompletableFuture.supplyAsync(() -> {
+            try {
+                return eventoDTOService.esperarEventos(alta.getId(), 50, Duration.ofSeconds(15));
+            } catch (InterruptedException e) {
+                throw new IllegalStateException(e);
+            }
+        });
+        libroDTOService.eliminarLibro(libro.getTitulo());
+
+        //Assert: responde con la baja sin esperar los 15 s
+        List<EventoDTO> nuevos = espera.get(5, TimeUnit.SECONDS);
+        assertEquals(1, nuevos.size());
+        assertEquals(AccionEvento.BAJA, nuevos.get(0).getAccion());
+        assertEquals(libro.getId(), nuevos.get(0).getEntidadId());
+
+        //Act: SSE desde el cursor inicial, hasta que vence app.eventos.duracion-sse
+        ByteArrayOutputStream salida = new ByteArrayOutputStream();
+        eventoDTOService.enviarEventos(cursor, salida);
+
+        //Assert: los dos eventos, en orden, con el id de cada uno
+        String texto = salida.toString(StandardCharsets.UTF_8);
+        int posicionAlta = texto.indexOf("id: " + alta.getId() + "\n");
+        int posicionBaja = texto.indexOf("id: " + nuevos.get(0).getId() + "\n");
+        assertTrue(posicionAlta >= 0 && posicionBaja > posicionAlta, texto);
+        assertTrue(texto.contains("\"accion\":\"BAJA\""), texto);
+        assertTrue(texto.contains("\"datos\":{"), texto);
+    }
+}
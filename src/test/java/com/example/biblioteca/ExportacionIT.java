@@ -0,0 +1,136 @@
+package com.example.biblioteca;
+
+import com.example.biblioteca.model.Autor;
+import com.example.biblioteca.model.Libro;
+import com.example.biblioteca.model.Prestamo;
+import com.example.biblioteca.model.Revista;
+import com.example.biblioteca.model.Usuario;
+import com.example.biblioteca.repository.AutorRepository;
+import com.example.biblioteca.repository.LibroRepository;
+import com.example.biblioteca.repository.PrestamoRepository;
+import com.example.biblioteca.repository.RevistaRepository;
+import com.example.biblioteca.repository.UsuarioRepository;
+import com.example.biblioteca.serviceDTO.ExportacionDTOService;
+import com.example.biblioteca.util.FormatoFichero;
+import jakarta.persistence.EntityManager;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.jackson.JacksonAutoConfiguration;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Exportación en streaming de libros, revistas y préstamos.
+ *
+ * Puede haber datos de otros tests en la base de datos, así que solo se comprueban las líneas de los creados aquí.
+ */
+@DataJpaTest
+@Import({ExportacionDTOService.class, JacksonAutoConfiguration.class})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+class ExportacionIT {
+
+    @Autowired ExportacionDTOService exportacionDTOService;
+    @Autowired LibroRepository libroRepository;
+    @Autowired RevistaRepository revistaRepository;
+    @Autowired AutorRepository autorRepository;
+    @Autowired UsuarioRepository usuarioRepository;
+    @Autowired PrestamoRepository prestamoRepository;
+    @Autowired EntityManager entityManager;
+
+    @Test
+    @Timeout(10)
+    void exportarLibros_csv_unaLineaPorLibroConSusAutores() throws IOException {
+        //Arrange
+        Autor autorUno = autorRepository.save(new Autor("EXP AUTOR UNO"));
+        Autor autorDos = autorRepository.save(new Autor("EXP AUTOR DOS"));
+        Libro libro = crearLibro("EXP LIBRO, CON COMA", "EXP-1", autorUno, autorDos);
+        crearLibro("EXP LIBRO DOS", "EXP-2", autorDos);
+        entityManager.flush();
+        entityManager.clear();
+        long cargasAntes = estadisticas().getEntityLoadCount();
+
+        //Act
+        ByteArrayOutputStream salida = new ByteArrayOutputStream();
+        long escritos = exportacionDTOService.exportarLibros(FormatoFichero.CSV, salida);
+
+        //Assert
+        List<String> lineas = salida.toString(StandardCharsets.UTF_8).lines().toList();
+        assertEquals("id,isbn,titulo,añoPublicacion,autores,totales,disponibles", lineas.get(0));
+        assertEquals(escritos, lineas.size() - 1);
+        assertTrue(lineas.contains(libro.getId() + ",EXP-1,\"EXP LIBRO, CON COMA\",2020,EXP AUTOR UNO|EXP AUTOR DOS,3,3"));
+        assertTrue(lineas.stream().anyMatch(l -> l.endsWith(",EXP-2,EXP LIBRO DOS,2020,EXP AUTOR DOS,3,3")));
+        //Se leen proyecciones: ninguna entidad pasa por el contexto de persistencia
+        assertEquals(cargasAntes, estadisticas().getEntityLoadCount());
+    }
+
+    @Test
+    @Timeout(10)
+    void exportarRevistasYPrestamos_jsonl_unObjetoPorLinea() throws IOException {
+        //Arrange
+        Revista revista = new Revista();
+        revista.setTitulo("EXP REVISTA");
+        revista.setNumeroEdicion(7);
+        revista.setPeriodicidad("MENSUAL");
+        revista.setTotales(2);
+        revista.setDisponibles(1);
+        revistaRepository.save(revista);
+
+        Usuario usuario = new Usuario();
+        usuario.setNombre("EXP USUARIO");
+        usuario.setEmail("EXP@GMAIL.COM");
+        usuarioRepository.save(usuario);
+
+        Libro libro = crearLibro("EXP LIBRO PRESTADO", "EXP-3", autorRepository.save(new Autor("EXP AUTOR TRES")));
+        Prestamo prestamo = new Prestamo();
+        prestamo.setFechaPrestamo(LocalDate.of(2024, 5, 6));
+        prestamo.setActivo(true);
+        prestamo.setUsuario(usuario);
+        prestamo.setMateriales(List.of(libro, revista));
+        prestamoRepository.save(prestamo);
+        entityManager.flush();
+        entityManager.clear();
+
+        //Act
+        ByteArrayOutputStream revistas = new ByteArrayOutputStream();
+        exportacionDTOService.exportarRevistas(FormatoFichero.JSONL, revistas);
+        ByteArrayOutputStream prestamos = new ByteArrayOutputStream();
+        exportacionDTOService.exportarPrestamos(FormatoFichero.JSONL, prestamos);
+
+        //Assert
+        assertTrue(revistas.toString(StandardCharsets.UTF_8).lines().toList().contains(
+                "{\"id\":" + revista.getId() + ",\"titulo\":\"EXP REVISTA\",\"numeroEdicion\":7,\"periodicidad\":\"MENSUAL\",\"totales\":2,\"disponibles\":1}"));
+        List<String> lineasPrestamos = prestamos.toString(StandardCharsets.UTF_8).lines()
+                .filter(l -> l.contains("EXP USUARIO"))
+                .toList();
+        assertEquals(List.of("{\"id\":" + prestamo.getId() + ",\"fechaPrestamo\":\"2024-05-06\",\"nombreUsuario\":\"EXP USUARIO\","
+                + "\"tituloMateriales\":[\"EXP REVISTA\",\"EXP LIBRO PRESTADO\"],\"activos\":true}"), lineasPrestamos);
+    }
+
+    private Libro crearLibro(String titulo, String isbn, Autor... autores) {
+        Libro libro = new Libro();
+        libro.setTitulo(titulo);
+        libro.setIsbn(isbn);
+        libro.setAñoPublicacion(2020);
+        libro.setTotales(3);
+        libro.setDisponibles(3);
+        libro.setAutores(new ArrayList<>(List.of(autores)));
+        return libroRepository.save(libro);
+    }
+
+    private Statistics estadisticas() {
+        return entityManager.getEntityManagerFactory().unwrap(SessionFactory.class).getStatistics();
+    }
+}
@@ -0,0 +1,189 @@
+package com.example.biblioteca;
+
+import com.example.biblioteca.dto.AutorDTO;
+import com.example.biblioteca.dto.LibroDTO;
+import com.example.biblioteca.dto.ResultadoImportacionDTO;
+import com.example.biblioteca.eventos.AvisoEventos;
+import com.example.biblioteca.model.AccionEvento;
+import com.example.biblioteca.model.Autor;
+import com.example.biblioteca.model.Evento;
+import com.example.biblioteca.model.Libro;
+import com.example.biblioteca.model.TipoEvento;
+import com.example.biblioteca.repository.AutorRepository;
+import com.example.biblioteca.repository.EventoRepository;
+import com.example.biblioteca.repository.ImportacionRepository;
+import com.example.biblioteca.repository.LibroRepository;
+import com.example.biblioteca.service.EventoService;
+import com.example.biblioteca.service.ImportacionLibrosService;
+import com.example.biblioteca.util.FormatoFichero;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.jackson.JacksonAutoConfiguration;
+import org.springframework.boot.autoconfigure.validation.ValidationAutoConfiguration;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Importación de libros por lotes.
+ *
+ * No hay transacción de test: cada lote se confirma en su propia transacción, que es lo que se prueba.
+ */
+@DataJpaTest
+@Import({ImportacionLibrosService.class, JacksonAutoConfiguration.class, ValidationAutoConfiguration.class,
+        EventoService.class, AvisoEventos.class})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class ImportacionLibrosIT {
+
+    @Autowired ImportacionLibrosService importacionLibrosService;
+    @Autowired LibroRepository libroRepository;
+    @Autowired AutorRepository autorRepository;
+    @Autowired ImportacionRepository importacionRepository;
+    @Autowired EventoRepository eventoRepository;
+    @Autowired ObjectMapper objectMapper;
+
+    @Test
+    @Timeout(20)
+    void importar_csv_daDeAltaLosLibrosYCreaCadaAutorUnaSolaVez() throws IOException {
+        //Arrange
+        autorRepository.save(new Autor("IMP AUTOR EXISTENTE"));
+        String csv = """
+                isbn,titulo,añoPublicacion,autores,totales
+                IMP-1,Imp primero,2001,Imp autor existente|Imp autor nuevo,3
+                IMP-2,"Imp segundo, con coma",2002,IMP AUTOR NUEVO,2
+                IMP-3,Imp tercero,2003,Imp autor nuevo,1
+                IMP-4,Imp cuarto,no es un año,Imp autor nuevo,1
+                IMP-1,Imp isbn repetido,2005,Imp autor nuevo,1
+                IMP-6,Imp sin autores,2006,,1
+                """;
+        long cursor = eventoRepository.findAll().stream().mapToLong(Evento::getId).max().orElse(0);
+
+        //Act
+        ResultadoImportacionDTO resultado = importacionLibrosService.importar("imp-csv", FormatoFichero.CSV, new StringReader(csv), 2);
+
+        //Assert
+        assertTrue(resultado.isTerminada());
+        assertEquals(6, resultado.getLineasProcesadas());
+        assertEquals(3, resultado.getLibrosInsertados());
+        assertEquals(3, resultado.getLineasDescartadas());
+        assertEquals(3, resultado.getErrores().size());
+        assertTrue(resultado.getErrores().get(0).startsWith("Línea 5:"));
+        assertTrue(resultado.getErrores().get(1).contains("IMP-1"));
+        assertTrue(resultado.getErrores().get(2).contains("al menos un autor"));
+
+        Libro segundo = libroRepository.findLibroConAutores("IMP-2").orElseThrow();
+        assertEquals("IMP SEGUNDO, CON COMA", segundo.getTitulo());
+        assertEquals(2, segundo.getDisponibles());
+        assertEquals(List.of("IMP AUTOR NUEVO"), segundo.getAutores().stream().map(Autor::getNombre).toList());
+        assertEquals(1, autorRepository.findByNombreIn(List.of("IMP AUTOR NUEVO")).size());
+        assertEquals(2, libroRepository.findLibroConAutores("IMP-1").orElseThrow().getAutores().size());
+
+        //Eventos de alta de los libros y del autor nuevo, cada uno con su lote
+        int primero = libroRepository.findByIsbn("IMP-1").orElseThrow().getId();
+        List<Evento> eventos = eventoRepository.findByIdGreaterThanOrderByIdAsc(cursor, PageRequest.of(0, 100));
+        assertEquals(List.of("AUTOR ALTA", "LIBRO ALTA", "LIBRO ALTA", "LIBRO ALTA"),
+                eventos.stream().map(evento -> evento.getTipo() + " " + evento.getAccion()).toList());
+        AutorDTO autor = objectMapper.readValue(eventos.get(0).getDatos(), AutorDTO.class);
+        assertEquals("IMP AUTOR NUEVO", autor.getNombre());
+        assertEquals(List.of(primero, segundo.getId()), autor.getLibrosIds());
+        LibroDTO libro = objectMapper.readValue(eventos.get(1).getDatos(), LibroDTO.class);
+        assertEquals(primero, libro.getId());
+        assertEquals(List.of("IMP AUTOR EXISTENTE", "IMP AUTOR NUEVO"), libro.getNombresAutores());
+        assertEquals(3, libro.getDisponibles());
+    }
+
+    @Test
+    @Timeout(20)
+    void importar_jsonl_daDeAltaLosLibros() throws IOException {
+        //Arrange
+        String jsonl = """
+                {"isbn":"IMPJ-1","añoPublicacion":2010,"titulo":"Impj uno","nombresAutores":["Impj autor"],"totales":4}
+
+                {"isbn":"IMPJ-2","añoPublicacion":2011,"titulo":"Impj dos","nombresAutores":["Impj autor"],"totales":1}
+                {"isbn":"IMPJ-3",
+                """;
+
+        //Act
+        ResultadoImportacionDTO resultado = importacionLibrosService.importar("imp-jsonl", FormatoFichero.JSONL, new StringReader(jsonl), null);
+
+        //Assert
+        assertEquals(2, resultado.getLibrosInsertados());
+        assertEquals(1, resultado.getLineasDescartadas());
+        assertTrue(resultado.getErrores().get(0).startsWith("Línea 4: JSON no válido"));
+        assertEquals(4, libroRepository.findByTitulo("IMPJ UNO").orElseThrow().getDisponibles());
+    }
+
+    @Test
+    @Timeout(20)
+    void importar_cuandoSeCortaLaLectura_alRepetirlaContinuaDespuesDelUltimoLoteConfirmado() throws IOException {
+        //Arrange
+        StringBuilder csv = new StringBuilder("isbn,titulo,añoPublicacion,autores,totales\n");
+        for (int i = 1; i <= 10; i++) {
+            csv.append("IMPR-").append(i).append(",Impr libro ").append(i).append(",2020,Impr autor,1\n");
+        }
+        //Falla al leer a mitad del cuarto lote (después de 7 líneas de datos)
+        String hastaElCorte = csv.substring(0, csv.indexOf("IMPR-8,"));
+
+        //Act
+        assertThrows(IOException.class, () -> importacionLibrosService.importar("imp-corte", FormatoFichero.CSV,
+                new LectorQueSeCorta(hastaElCorte), 2));
+
+        //Assert: se han confirmado 3 lotes de 2 libros
+        assertEquals(6, importacionRepository.findByNombre("imp-corte").orElseThrow().getLineasProcesadas());
+        assertTrue(libroRepository.findByTitulo("IMPR LIBRO 6").isPresent());
+        assertTrue(libroRepository.findByTitulo("IMPR LIBRO 7").isEmpty());
+
+        //Act: se repite con el fichero completo
+        ResultadoImportacionDTO resultado = importacionLibrosService.importar("imp-corte", FormatoFichero.CSV,
+                new StringReader(csv.toString()), 2);
+
+        //Assert: ningún libro descartado por repetido, así que no se ha vuelto a leer lo ya confirmado
+        assertTrue(resultado.isTerminada());
+        assertEquals(10, resultado.getLineasProcesadas());
+        assertEquals(10, resultado.getLibrosInsertados());
+        assertEquals(0, resultado.getLineasDescartadas());
+        assertTrue(libroRepository.findByTitulo("IMPR LIBRO 10").isPresent());
+
+        //Una importación terminada no vuelve a leer nada
+        ResultadoImportacionDTO repetida = importacionLibrosService.importar("imp-corte", FormatoFichero.CSV,
+                new StringReader(csv.toString()), 2);
+        assertEquals(10, repetida.getLibrosInsertados());
+        assertTrue(repetida.getErrores().isEmpty());
+    }
+
+    //Devuelve el texto y después falla, como una conexión que se corta
+    private static class LectorQueSeCorta extends Reader {
+        private final StringReader texto;
+
+        LectorQueSeCorta(String texto) {
+            this.texto = new StringReader(texto);
+        }
+
+        @Override
+        public int read(char[] destino, int desde, int longitud) throws IOException {
+            int leidos = texto.read(destino, desde, longitud);
+            if (leidos == -1) {
+                throw new IOException("Conexión cortada");
+            }
+            return leidos;
+        }
+
+        @Override
+        public void close() {
+            texto.close();
+        }
+    }
+}
@@ -0,0 +1,146 @@
+package com.example.biblioteca;
+
+import com.example.biblioteca.model.Autor;
+import com.example.biblioteca.model.Libro;
+import com.example.biblioteca.model.Prestamo;
+import com.example.biblioteca.model.Usuario;
+import com.example.biblioteca.repository.AutorRepository;
+import com.example.biblioteca.repository.LibroRepository;
+import com.example.biblioteca.repository.PrestamoRepository;
+import com.example.biblioteca.repository.UsuarioRepository;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.annotation.Rollback;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Comprueba con EXPLAIN que las búsquedas más frecuentes usan un índice y no recorren la tabla entera.
+ *
+ * Las sentencias usan los nombres físicos de los tests (PhysicalNamingStrategyStandardImpl); {@link EsquemaFlywayIT}
+ * repite las comprobaciones en el esquema de las migraciones de Flyway.
+ * En MariaDB un recorrido completo aparece con type = ALL; en H2, con tableScan en el plan.
+ */
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Rollback
+class IndicesIT {
+
+    private static final int LIBROS = 50;
+
+    @Autowired JdbcTemplate jdbcTemplate;
+    @Autowired EntityManager entityManager;
+    @Autowired LibroRepository libroRepository;
+    @Autowired AutorRepository autorRepository;
+    @Autowired UsuarioRepository usuarioRepository;
+    @Autowired PrestamoRepository prestamoRepository;
+
+    //Se cargan datos suficientes para que al optimizador no le compense leer la tabla entera
+    @BeforeEach
+    void cargarDatos() {
+        for (int i = 0; i < LIBROS; i++) {
+            Autor autor = autorRepository.save(new Autor("AUTOR INDICE " + i));
+
+            Libro libro = new Libro();
+            libro.setTitulo("LIBRO INDICE " + i);
+            libro.setIsbn("IDX-" + i);
+            libro.setAñoPublicacion(2000);
+            libro.setAutores(List.of(autor));
+            libro.setTotales(1);
+            libro.setDisponibles(1);
+            libroRepository.save(libro);
+
+            Usuario usuario = new Usuario();
+            usuario.setNombre("USUARIO INDICE " + i);
+            usuario.setEmail("INDICE" + i + "@GMAIL.COM");
+            usuarioRepository.save(usuario);
+
+            Prestamo prestamo = new Prestamo();
+            prestamo.setFechaPrestamo(LocalDate.now());
+            prestamo.setActivo(i % 2 == 0);
+            prestamo.setUsuario(usuario);
+            prestamo.setMateriales(List.of(libro));
+            prestamoRepository.save(prestamo);
+        }
+        entityManager.flush();
+    }
+
+    @Test
+    @Timeout(10)
+    void findByTitulo_usaIndice() {
+        assertUsaIndice("SELECT * FROM MaterialBiblioteca WHERE titulo = 'LIBRO INDICE 7'");
+    }
+
+    @Test
+    @Timeout(10)
+    void findByIsbn_usaIndice() {
+        assertUsaIndice("SELECT * FROM MaterialBiblioteca WHERE isbn = 'IDX-7'");
+    }
+
+    @Test
+    @Timeout(10)
+    void prestamosActivosDeUnUsuario_usaIndice() {
+        int usuarioId = usuarioRepository.findByNombre("USUARIO INDICE 8").orElseThrow().getId();
+        assertUsaIndice("SELECT * FROM Prestamo WHERE usuario_id = " + usuarioId + " AND activo = true");
+    }
+
+    @Test
+    @Timeout(10)
+    void libroAutor_usaIndiceEnLosDosSentidos() {
+        Libro libro = libroRepository.findByIsbn("IDX-9").orElseThrow();
+        int autorId = libro.getAutores().get(0).getId();
+
+        assertUsaIndice("SELECT AutorId FROM LibroAutor WHERE libroIsbn = " + libro.getId());
+        assertUsaIndice("SELECT libroIsbn FROM LibroAutor WHERE AutorId = " + autorId);
+    }
+
+    @Test
+    @Timeout(10)
+    void prestamoMaterial_usaIndiceEnLosDosSentidos() {
+        int materialId = libroRepository.findByIsbn("IDX-10").orElseThrow().getId();
+        int prestamoId = prestamoRepository.findMaterialById(materialId).get(0).getId();
+
+        assertUsaIndice("SELECT material_id FROM PrestamoMaterial WHERE prestamo_id = " + prestamoId);
+        assertUsaIndice("SELECT prestamo_id FROM PrestamoMaterial WHERE material_id = " + materialId);
+    }
+
+    @Test
+    @Timeout(10)
+    void barridoDeVencimientos_usaIndice() {
+        assertUsaIndice("SELECT id FROM Prestamo WHERE activo = true AND vencido = false AND fecha_vencimiento < '"
+                + LocalDate.now() + "' ORDER BY fecha_vencimiento, id LIMIT 100");
+    }
+
+    private void assertUsaIndice(String sql) {
+        List<Map<String, Object>> plan = jdbcTemplate.queryForList("EXPLAIN " + sentencia(sql));
+
+        assertFalse(plan.isEmpty());
+        for (Map<String, Object> fila : plan) {
+            assertFalse(esRecorridoCompleto(fila), "Recorrido completo de la tabla en: " + sql + " -> " + fila);
+        }
+    }
+
+    //Sentencia con los nombres físicos del esquema en el que se ejecuta
+    String sentencia(String sql) {
+        return sql;
+    }
+
+    private boolean esRecorridoCompleto(Map<String, Object> fila) {
+        //MariaDB: una fila por tabla, con el tipo de acceso en la columna type
+        if (fila.containsKey("type")) {
+            return "ALL".equals(fila.get("type"));
+        }
+        //H2: una única columna con el plan en texto
+        return fila.values().stream().anyMatch(valor -> String.valueOf(valor).contains("tableScan"));
+    }
+}
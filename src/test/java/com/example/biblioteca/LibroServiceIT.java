@@ -1,19 +1,28 @@
 package com.example.biblioteca;
 
+import com.example.biblioteca.dto.LibroDTO;
+import com.example.biblioteca.eventos.AvisoEventos;
 import com.example.biblioteca.model.Autor;
 import com.example.biblioteca.model.Libro;
 import com.example.biblioteca.model.MaterialBiblioteca;
 import com.example.biblioteca.repository.AutorRepository;
 import com.example.biblioteca.repository.LibroRepository;
 import com.example.biblioteca.service.AutorService;
+import com.example.biblioteca.service.EventoService;
 import com.example.biblioteca.service.LibroService;
+import com.example.biblioteca.serviceDTO.LibroDTOService;
+import jakarta.persistence.EntityManager;
 import jakarta.transaction.Transactional;
 import jakarta.validation.ConstraintViolationException;
 import jakarta.validation.Validator;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.Timeout;
+import org.opentest4j.AssertionFailedError;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.jackson.JacksonAutoConfiguration;
 import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
@@ -22,6 +31,7 @@ import org.springframework.test.annotation.Commit;
 import org.springframework.test.annotation.Rollback;
 
 import java.util.List;
+import java.util.function.Supplier;
 
 import static org.assertj.core.api.Assertions.*;
 import static org.junit.jupiter.api.Assertions.*;
@@ -29,7 +39,7 @@ import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.when;
 
 @DataJpaTest
-@Import(LibroService.class)
+@Import({LibroService.class, LibroDTOService.class, EventoService.class, AvisoEventos.class, JacksonAutoConfiguration.class})
 @AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
 @Transactional
 @Rollback
@@ -38,6 +48,8 @@ class LibroServiceIT {
     @Autowired LibroService libroService;
     @Autowired LibroRepository libroRepository;
     @Autowired AutorRepository autorRepository;
+    @Autowired LibroDTOService libroDTOService;
+    @Autowired EntityManager entityManager;
     //@Autowired Validator validator;
 
     @MockBean
@@ -84,7 +96,11 @@ class LibroServiceIT {
         long before = autorRepository.count();
 
         //Act
-        assertThatThrownBy(() -> libroService.insertarLibro(libro))
+        //Con ids de secuencia el INSERT (y la validación de Hibernate) se hace al sincronizar con la base de datos
+        assertThatThrownBy(() -> {
+                    libroService.insertarLibro(libro);
+                    entityManager.flush();
+                })
                 .isInstanceOf(ConstraintViolationException.class)
                 .hasMessageContaining("Un libro debe tener al menos un autor");
 
@@ -268,6 +284,110 @@ class LibroServiceIT {
         Libro libroBuscado  = libroService.buscarLibroByIsbn("1578");
         assertNull(libroBuscado);
     }
-}
 
+    @Test
+    @Timeout(10)
+    void listarLibros_elNumeroDeConsultasNoCreceConElCatalogo () {
+        //Arrange
+        crearLibros(0, 3);
+        long consultasCon3Libros = contarConsultas(() -> libroService.listarLibros());
+
+        crearLibros(3, 40);
+        long consultasCon40Libros = contarConsultas(() -> libroService.listarLibros());
 
+        //Assert
+        //Libros y autores se leen con una única consulta, haya los libros que haya
+        assertEquals(1, consultasCon3Libros);
+        assertEquals(consultasCon3Libros, consultasCon40Libros);
+    }
+
+    @Test
+    @Timeout(10)
+    void listarLibrosDTO_elNumeroDeConsultasNoCreceConElCatalogo () {
+        //Arrange
+        crearLibros(0, 3);
+        long consultasCon3Libros = contarConsultas(() -> libroDTOService.listarLibrosDTO(0, 50));
+
+        crearLibros(3, 40);
+        long consultasCon40Libros = contarConsultas(() -> libroDTOService.listarLibrosDTO(0, 50));
+
+        //Assert
+        //Una consulta para la página de libros y otra para los nombres de los autores de todos ellos
+        assertEquals(2, consultasCon3Libros);
+        assertEquals(consultasCon3Libros, consultasCon40Libros);
+    }
+
+    @Test
+    @Timeout(10)
+    void listarLibrosDTO_noSuperaElMaximoDeSentencias () {
+        //Arrange
+        crearLibros(0, 40);
+
+        //Act
+        List<LibroDTO> libros = SentenciasSql.comprobarMaximo(2, () -> libroDTOService.listarLibrosDTO(0, 50));
+
+        //Assert
+        assertThat(libros).hasSizeGreaterThanOrEqualTo(40);
+    }
+
+    @Test
+    @Timeout(10)
+    void comprobarMaximo_cuandoHayUnaConsultaPorLibro_fallaConLaSentenciaRepetida () {
+        //Arrange
+        crearLibros(0, 5);
+
+        //Act: un libro por isbn, uno detrás de otro (N+1)
+        AssertionFailedError error = assertThrows(AssertionFailedError.class, () -> SentenciasSql.comprobarMaximo(2,
+                () -> List.of("ISBN-0", "ISBN-1", "ISBN-2", "ISBN-3", "ISBN-4").stream()
+                        .map(libroService::buscarLibroByIsbn)
+                        .toList()));
+
+        //Assert
+        assertThat(error.getMessage()).startsWith("Se han ejecutado").containsPattern("\\n  5 x ");
+    }
+
+    //Crea los libros [desde, hasta) con dos autores cada uno
+    private void crearLibros(int desde, int hasta) {
+        for (int i = desde; i < hasta; i++) {
+            Autor autor1 = new Autor();
+            autor1.setNombre("Autor A " + i);
+            autorRepository.save(autor1);
+
+            Autor autor2 = new Autor();
+            autor2.setNombre("Autor B " + i);
+            autorRepository.save(autor2);
+
+            Libro libro = new Libro();
+            libro.setTitulo("Libro " + i);
+            libro.setAutores(List.of(autor1, autor2));
+            libro.setIsbn("ISBN-" + i);
+            libro.setAñoPublicacion(2000);
+            libro.setTotales(1);
+            libro.setDisponibles(1);
+            libroRepository.save(libro);
+        }
+        //Se vuelcan los cambios y se vacía el contexto para que el listado tenga que ir a la base de datos
+        entityManager.flush();
+        entityManager.clear();
+    }
+
+    //Devuelve el número de sentencias SQL ejecutadas al listar, recorriendo los autores de cada libro
+    private long contarConsultas(Supplier<List<?>> listado) {
+        Statistics estadisticas = entityManager.getEntityManagerFactory()
+                .unwrap(SessionFactory.class)
+                .getStatistics();
+        estadisticas.setStatisticsEnabled(true);
+        estadisticas.clear();
+
+        List<?> resultado = listado.get();
+        resultado.forEach(elemento -> {
+            if (elemento instanceof Libro libro) {
+                libro.getAutores().size();
+            }
+        });
+
+        long consultas = estadisticas.getPrepareStatementCount();
+        entityManager.clear();
+        return consultas;
+    }
+}
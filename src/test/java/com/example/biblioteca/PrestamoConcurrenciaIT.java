@@ -0,0 +1,121 @@
+package com.example.biblioteca;
+
+import com.example.biblioteca.dto.PrestamoDTO;
+import com.example.biblioteca.eventos.AvisoEventos;
+import com.example.biblioteca.expection.MaterialNoDisponibleException;
+import com.example.biblioteca.metricas.MetricasPrestamo;
+import com.example.biblioteca.model.Autor;
+import com.example.biblioteca.model.Libro;
+import com.example.biblioteca.model.Usuario;
+import com.example.biblioteca.repository.AutorRepository;
+import com.example.biblioteca.repository.LibroRepository;
+import com.example.biblioteca.repository.PrestamoRepository;
+import com.example.biblioteca.repository.UsuarioRepository;
+import com.example.biblioteca.service.DevolucionService;
+import com.example.biblioteca.service.DisponibilidadService;
+import com.example.biblioteca.service.EventoService;
+import com.example.biblioteca.service.PrestamoService;
+import com.example.biblioteca.service.ReservaService;
+import com.example.biblioteca.serviceDTO.PrestamoDTOService;
+import com.example.biblioteca.titulos.IdsMaterialPorTitulo;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.jackson.JacksonAutoConfiguration;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Prueba de carga del alta de préstamos: muchos hilos piden a la vez el mismo título.
+ *
+ * No hay transacción de test: cada llamada a {@link PrestamoDTOService#guardarPrestamo} abre y
+ * confirma la suya, igual que cada petición REST concurrente.
+ */
+@DataJpaTest
+@Import({PrestamoDTOService.class, IdsMaterialPorTitulo.class, PrestamoService.class, DisponibilidadService.class, ReservaService.class, DevolucionService.class, MetricasPrestamo.class, SimpleMeterRegistry.class,
+        EventoService.class, AvisoEventos.class, JacksonAutoConfiguration.class})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class PrestamoConcurrenciaIT {
+
+    private static final int HILOS = 32;
+    private static final int PETICIONES_POR_HILO = 4;
+    private static final int EJEMPLARES = 5;
+
+    @Autowired PrestamoDTOService prestamoDTOService;
+    @Autowired PrestamoRepository prestamoRepository;
+    @Autowired UsuarioRepository usuarioRepository;
+    @Autowired LibroRepository libroRepository;
+    @Autowired AutorRepository autorRepository;
+
+    @Test
+    @Timeout(60)
+    void guardarPrestamo_cuandoMuchosHilosPidenElMismoTitulo_noSePrestanMasEjemplaresDeLosQueHay() throws Exception {
+        //Arrange
+        Usuario usuario = new Usuario();
+        usuario.setNombre("USUARIO CONCURRENTE");
+        usuario.setEmail("CONCURRENTE@GMAIL.COM");
+        usuarioRepository.save(usuario);
+
+        Autor autor = autorRepository.save(new Autor("AUTOR CONCURRENTE"));
+
+        Libro libro = new Libro();
+        libro.setTitulo("EL ULTIMO EJEMPLAR");
+        libro.setIsbn("9001");
+        libro.setAñoPublicacion(2024);
+        libro.setAutores(List.of(autor));
+        libro.setTotales(EJEMPLARES);
+        libro.setDisponibles(EJEMPLARES);
+        libroRepository.save(libro);
+
+        PrestamoDTO dto = new PrestamoDTO(0, LocalDate.now(), usuario.getNombre(), List.of(libro.getTitulo()), true);
+
+        AtomicInteger prestados = new AtomicInteger();
+        AtomicInteger rechazados = new AtomicInteger();
+        CountDownLatch salida = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(HILOS);
+
+        //Act: todos los hilos esperan la señal de salida para chocar sobre la misma fila
+        List<Future<?>> futuros = new ArrayList<>();
+        for (int i = 0; i < HILOS; i++) {
+            futuros.add(executor.submit(() -> {
+                salida.await();
+                for (int j = 0; j < PETICIONES_POR_HILO; j++) {
+                    try {
+                        prestamoDTOService.guardarPrestamo(dto);
+                        prestados.incrementAndGet();
+                    } catch (MaterialNoDisponibleException e) {
+                        rechazados.incrementAndGet();
+                    }
+                }
+                return null;
+            }));
+        }
+        salida.countDown();
+        for (Future<?> futuro : futuros) {
+            futuro.get();
+        }
+        executor.shutdown();
+
+        //Assert
+        assertEquals(EJEMPLARES, prestados.get());
+        assertEquals(HILOS * PETICIONES_POR_HILO - EJEMPLARES, rechazados.get());
+        assertEquals(0, libroRepository.findById(libro.getId()).orElseThrow().getDisponibles());
+        assertEquals(EJEMPLARES, prestamoRepository.findMaterialById(libro.getId()).size());
+    }
+}
@@ -0,0 +1,154 @@
+package com.example.biblioteca;
+
+import com.example.biblioteca.dto.PrestamoDTO;
+import com.example.biblioteca.dto.ResultadoPrestamoDTO;
+import com.example.biblioteca.eventos.AvisoEventos;
+import com.example.biblioteca.expection.OperacionNoPermitidaException;
+import com.example.biblioteca.metricas.MetricasPrestamo;
+import com.example.biblioteca.model.Autor;
+import com.example.biblioteca.model.Libro;
+import com.example.biblioteca.model.Usuario;
+import com.example.biblioteca.repository.AutorRepository;
+import com.example.biblioteca.repository.LibroRepository;
+import com.example.biblioteca.repository.PrestamoRepository;
+import com.example.biblioteca.repository.UsuarioRepository;
+import com.example.biblioteca.service.DevolucionService;
+import com.example.biblioteca.service.DisponibilidadService;
+import com.example.biblioteca.service.EventoService;
+import com.example.biblioteca.service.PrestamoService;
+import com.example.biblioteca.service.ReservaService;
+import com.example.biblioteca.serviceDTO.PrestamoDTOService;
+import com.example.biblioteca.titulos.IdsMaterialPorTitulo;
+import jakarta.persistence.EntityManager;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.jackson.JacksonAutoConfiguration;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest
+@Import({PrestamoDTOService.class, IdsMaterialPorTitulo.class, PrestamoService.class, DisponibilidadService.class, ReservaService.class, DevolucionService.class, MetricasPrestamo.class, SimpleMeterRegistry.class,
+        EventoService.class, AvisoEventos.class, JacksonAutoConfiguration.class})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+class PrestamoLoteIT {
+
+    @Autowired PrestamoDTOService prestamoDTOService;
+    @Autowired PrestamoRepository prestamoRepository;
+    @Autowired UsuarioRepository usuarioRepository;
+    @Autowired LibroRepository libroRepository;
+    @Autowired AutorRepository autorRepository;
+    @Autowired EntityManager entityManager;
+
+    private Usuario usuario;
+    private Autor autor;
+
+    @BeforeEach
+    void setUp() {
+        usuario = new Usuario();
+        usuario.setNombre("USUARIO LOTE");
+        usuario.setEmail("LOTE@GMAIL.COM");
+        usuarioRepository.save(usuario);
+
+        autor = autorRepository.save(new Autor("AUTOR LOTE"));
+    }
+
+    @Test
+    @Timeout(10)
+    void guardarPrestamos_cuandoHayEjemplaresParaTodos_daDeAltaTodosLosPrestamos() {
+        //Arrange
+        Libro libro = crearLibro("LOTE COMPLETO", "8001", 5);
+
+        //Act
+        List<ResultadoPrestamoDTO> resultados = prestamoDTOService.guardarPrestamos(List.of(
+                prestamo("usuario lote", libro.getTitulo()),
+                prestamo("USUARIO LOTE", libro.getTitulo()),
+                prestamo("USUARIO LOTE", libro.getTitulo())));
+
+        //Assert
+        assertEquals(3, resultados.size());
+        for (int i = 0; i < resultados.size(); i++) {
+            assertEquals(i, resultados.get(i).getIndice());
+            assertTrue(resultados.get(i).isCorrecto());
+            assertNull(resultados.get(i).getError());
+            assertTrue(resultados.get(i).getPrestamo().getId() > 0);
+        }
+        assertEquals(2, disponibles(libro));
+        assertEquals(3, prestamoRepository.findByUsuario_idAndActivo(usuario.getId()).size());
+    }
+
+    @Test
+    @Timeout(10)
+    void guardarPrestamos_cuandoAlgunoFalla_daDeAltaElRestoYDevuelveLosEjemplaresDelQueFalla() {
+        //Arrange
+        Libro dosEjemplares = crearLibro("LOTE DOS EJEMPLARES", "8002", 2);
+        Libro unEjemplar = crearLibro("LOTE UN EJEMPLAR", "8003", 1);
+        Libro sobrado = crearLibro("LOTE SOBRADO", "8004", 5);
+
+        //Act
+        List<ResultadoPrestamoDTO> resultados = prestamoDTOService.guardarPrestamos(List.of(
+                prestamo("USUARIO LOTE", dosEjemplares.getTitulo()),
+                prestamo("NO EXISTE", dosEjemplares.getTitulo()),
+                prestamo("USUARIO LOTE", unEjemplar.getTitulo(), "TITULO INEXISTENTE"),
+                prestamo("USUARIO LOTE", dosEjemplares.getTitulo(), unEjemplar.getTitulo()),
+                prestamo("USUARIO LOTE", sobrado.getTitulo(), unEjemplar.getTitulo())));
+
+        //Assert
+        assertTrue(resultados.get(0).isCorrecto());
+        assertFalse(resultados.get(1).isCorrecto());
+        assertTrue(resultados.get(1).getError().contains("NO EXISTE"));
+        assertFalse(resultados.get(2).isCorrecto());
+        assertTrue(resultados.get(2).getError().contains("TITULO INEXISTENTE"));
+        assertTrue(resultados.get(3).isCorrecto());
+        assertFalse(resultados.get(4).isCorrecto());
+        assertTrue(resultados.get(4).getError().contains(unEjemplar.getTitulo()));
+        assertNull(resultados.get(4).getPrestamo());
+
+        assertEquals(0, disponibles(dosEjemplares));
+        assertEquals(0, disponibles(unEjemplar));
+        //El préstamo 4 había descontado un ejemplar de este material y lo ha devuelto
+        assertEquals(5, disponibles(sobrado));
+        assertEquals(2, prestamoRepository.findByUsuario_idAndActivo(usuario.getId()).size());
+    }
+
+    @Test
+    void guardarPrestamos_cuandoElLoteEsDemasiadoGrande_deberiaLanzarExcepcion() {
+        List<PrestamoDTO> dtos = new ArrayList<>();
+        for (int i = 0; i <= PrestamoDTOService.MAXIMO_PRESTAMOS_POR_LOTE; i++) {
+            dtos.add(prestamo("USUARIO LOTE"));
+        }
+
+        assertThrows(OperacionNoPermitidaException.class, () -> prestamoDTOService.guardarPrestamos(dtos));
+    }
+
+    private Libro crearLibro(String titulo, String isbn, int ejemplares) {
+        Libro libro = new Libro();
+        libro.setTitulo(titulo);
+        libro.setIsbn(isbn);
+        libro.setAñoPublicacion(2024);
+        libro.setAutores(List.of(autor));
+        libro.setTotales(ejemplares);
+        libro.setDisponibles(ejemplares);
+        return libroRepository.save(libro);
+    }
+
+    private static PrestamoDTO prestamo(String nombreUsuario, String... titulos) {
+        return new PrestamoDTO(0, LocalDate.now(), nombreUsuario, List.of(titulos), true);
+    }
+
+    //Los UPDATE de disponibilidad no pasan por el contexto de persistencia: se relee de la base de datos
+    private int disponibles(Libro libro) {
+        entityManager.flush();
+        entityManager.clear();
+        return libroRepository.findById(libro.getId()).orElseThrow().getDisponibles();
+    }
+}
@@ -1,14 +1,21 @@
 package com.example.biblioteca;
 
+import com.example.biblioteca.eventos.AvisoEventos;
+import com.example.biblioteca.metricas.MetricasPrestamo;
 import com.example.biblioteca.model.*;
 import com.example.biblioteca.repository.*;
 import com.example.biblioteca.service.AutorService;
+import com.example.biblioteca.service.DisponibilidadService;
+import com.example.biblioteca.service.EventoService;
 import com.example.biblioteca.service.PrestamoService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.Timeout;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.jackson.JacksonAutoConfiguration;
 import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
 import org.springframework.context.annotation.Import;
 import org.springframework.test.annotation.Commit;
 
@@ -23,7 +30,8 @@ import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.when;
 
 @DataJpaTest
-@Import(PrestamoService.class)
+@Import({PrestamoService.class, DisponibilidadService.class, MetricasPrestamo.class, SimpleMeterRegistry.class,
+        EventoService.class, AvisoEventos.class, JacksonAutoConfiguration.class})
 @AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
 @Commit
 class PrestamoServiceIT {
@@ -35,6 +43,8 @@ class PrestamoServiceIT {
     LibroRepository libroRepository;
     @Autowired
     AutorRepository autorRepository;
+    @Autowired
+    TestEntityManager entityManager;
 
     @Test
     @Timeout(10)
@@ -51,6 +61,8 @@ class PrestamoServiceIT {
         libro.setTitulo("Hoy de pesca");
         libro.setIsbn("4567");
         libro.setAutores(List.of(autor));
+        libro.setTotales(2);
+        libro.setDisponibles(2);
         libroRepository.save(libro);
 
 
@@ -63,9 +75,11 @@ class PrestamoServiceIT {
         //Act
         prestamoService.insertarPrestamo(prestamo);
 
-        //Assert
+        //Assert: el préstamo y el ejemplar descontado (el UPDATE no pasa por la entidad: se relee)
         List<Prestamo> prestamoList = prestamoRepository.findByUsuario_idAndActivo(usuario.getId());
         assertTrue(prestamoList.contains(prestamo));
+        entityManager.refresh(libro);
+        assertEquals(1, libro.getDisponibles());
     }
 
     @Test
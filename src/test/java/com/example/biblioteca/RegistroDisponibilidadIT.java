@@ -0,0 +1,88 @@
+package com.example.biblioteca;
+
+import com.example.biblioteca.disponibilidad.RegistroDisponibilidad;
+import com.example.biblioteca.model.Autor;
+import com.example.biblioteca.model.Libro;
+import com.example.biblioteca.proyeccion.EjemplaresMaterial;
+import com.example.biblioteca.repository.AutorRepository;
+import com.example.biblioteca.repository.LibroRepository;
+import com.example.biblioteca.repository.MaterialBibliotecaRepository;
+import com.example.biblioteca.service.DisponibilidadService;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Registro de disponibilidad en memoria: se actualiza solo con los cambios confirmados y la conciliación
+ * encuentra los que no han pasado por él.
+ *
+ * No hay transacción de test: cada paso se confirma o se deshace en la suya.
+ */
+@DataJpaTest(properties = "app.disponibilidad.memoria.enabled=true")
+@Import({DisponibilidadService.class, RegistroDisponibilidad.class})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class RegistroDisponibilidadIT {
+
+    @Autowired DisponibilidadService disponibilidadService;
+    @Autowired LibroRepository libroRepository;
+    @Autowired AutorRepository autorRepository;
+    @Autowired MaterialBibliotecaRepository materialBibliotecaRepository;
+    @Autowired PlatformTransactionManager transactionManager;
+
+    @Test
+    @Timeout(20)
+    void registro_seActualizaDespuesDelCommitYSeConciliaConLaBaseDeDatos() {
+        TransactionTemplate transaccion = new TransactionTemplate(transactionManager);
+        //Sin arranque de la aplicación no se carga: se parte de lo que haya en la base de datos
+        disponibilidadService.conciliarRegistro();
+
+        //Arrange: el alta llega al registro por el listener de la entidad
+        Libro libro = new Libro();
+        libro.setTitulo("REGISTRO LIBRO");
+        libro.setIsbn("REG-1");
+        libro.setAñoPublicacion(2024);
+        libro.setAutores(List.of(autorRepository.save(new Autor("REGISTRO AUTOR"))));
+        libro.setTotales(3);
+        libro.setDisponibles(3);
+        libroRepository.save(libro);
+        assertEquals(Optional.of(new EjemplaresMaterial(libro.getId(), 3, 3)), disponibilidadService.consultarRegistro(libro.getId()));
+
+        //Act: un préstamo confirmado y otro que se deshace
+        transaccion.executeWithoutResult(estado -> disponibilidadService.reservarEjemplar(libro));
+        transaccion.executeWithoutResult(estado -> {
+            disponibilidadService.reservarEjemplar(libro);
+            estado.setRollbackOnly();
+        });
+
+        //Assert
+        assertEquals(2, disponibilidadService.consultarRegistro(libro.getId()).orElseThrow().disponibles());
+
+        //Act: un cambio que no pasa por DisponibilidadService
+        transaccion.executeWithoutResult(estado -> materialBibliotecaRepository.disminuirDisponible(libro.getId()));
+
+        //Assert: la conciliación lo encuentra y lo corrige
+        assertEquals(2, disponibilidadService.consultarRegistro(libro.getId()).orElseThrow().disponibles());
+        assertEquals(1, disponibilidadService.conciliarRegistro());
+        assertEquals(1, disponibilidadService.consultarRegistro(libro.getId()).orElseThrow().disponibles());
+        assertEquals(0, disponibilidadService.conciliarRegistro());
+
+        //Act: la baja lo quita del registro
+        libroRepository.deleteById(libro.getId());
+
+        //Assert
+        assertTrue(disponibilidadService.consultarRegistro(libro.getId()).isEmpty());
+    }
+}
@@ -0,0 +1,163 @@
+package com.example.biblioteca;
+
+import com.example.biblioteca.dto.PrestamoDTO;
+import com.example.biblioteca.dto.ReservaDTO;
+import com.example.biblioteca.eventos.AvisoEventos;
+import com.example.biblioteca.expection.OperacionNoPermitidaException;
+import com.example.biblioteca.metricas.MetricasPrestamo;
+import com.example.biblioteca.model.Autor;
+import com.example.biblioteca.model.Libro;
+import com.example.biblioteca.model.MaterialBiblioteca;
+import com.example.biblioteca.model.Reserva;
+import com.example.biblioteca.model.Usuario;
+import com.example.biblioteca.repository.AutorRepository;
+import com.example.biblioteca.repository.LibroRepository;
+import com.example.biblioteca.repository.PrestamoRepository;
+import com.example.biblioteca.repository.ReservaRepository;
+import com.example.biblioteca.repository.UsuarioRepository;
+import com.example.biblioteca.service.DevolucionService;
+import com.example.biblioteca.service.DisponibilidadService;
+import com.example.biblioteca.service.EventoService;
+import com.example.biblioteca.service.PrestamoService;
+import com.example.biblioteca.service.ReservaService;
+import com.example.biblioteca.serviceDTO.PrestamoDTOService;
+import com.example.biblioteca.serviceDTO.ReservaDTOService;
+import com.example.biblioteca.titulos.IdsMaterialPorTitulo;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.jackson.JacksonAutoConfiguration;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest
+@Import({ReservaDTOService.class, ReservaService.class, DevolucionService.class, PrestamoDTOService.class, IdsMaterialPorTitulo.class, PrestamoService.class, DisponibilidadService.class,
+        MetricasPrestamo.class, SimpleMeterRegistry.class, EventoService.class, AvisoEventos.class, JacksonAutoConfiguration.class})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+class ReservaServiceIT {
+
+    @Autowired ReservaDTOService reservaDTOService;
+    @Autowired PrestamoDTOService prestamoDTOService;
+    @Autowired ReservaRepository reservaRepository;
+    @Autowired PrestamoRepository prestamoRepository;
+    @Autowired UsuarioRepository usuarioRepository;
+    @Autowired LibroRepository libroRepository;
+    @Autowired AutorRepository autorRepository;
+    @Autowired EntityManager entityManager;
+
+    private Libro libro;
+
+    @BeforeEach
+    void setUp() {
+        for (String nombre : List.of("RESERVA UNO", "RESERVA DOS", "RESERVA TRES")) {
+            Usuario usuario = new Usuario();
+            usuario.setNombre(nombre);
+            usuario.setEmail(nombre.replace(' ', '.') + "@GMAIL.COM");
+            usuarioRepository.save(usuario);
+        }
+
+        libro = new Libro();
+        libro.setTitulo("LIBRO RESERVADO");
+        libro.setIsbn("9001");
+        libro.setAñoPublicacion(2024);
+        libro.setAutores(List.of(autorRepository.save(new Autor("AUTOR RESERVA"))));
+        libro.setTotales(1);
+        libro.setDisponibles(1);
+        libroRepository.save(libro);
+    }
+
+    @Test
+    @Timeout(10)
+    void devolver_cuandoHayReservas_prestaElEjemplarALaPrimeraDeLaCola() {
+        //Arrange: el único ejemplar está prestado y hay dos reservas
+        prestamoDTOService.guardarPrestamo(prestamo("RESERVA UNO"));
+        assertEquals(0, disponibles());
+        ReservaDTO segunda = reservaDTOService.guardarReserva(reserva("reserva dos"));
+        ReservaDTO tercera = reservaDTOService.guardarReserva(reserva("RESERVA TRES"));
+        assertEquals(1, segunda.getPosicion());
+        assertEquals(2, tercera.getPosicion());
+
+        //Act
+        prestamoDTOService.actualizarPrestamo(libro.getTitulo(), prestamo("RESERVA UNO"));
+
+        //Assert: el ejemplar pasa a RESERVA DOS sin volver a estar disponible
+        assertEquals(0, disponibles());
+        assertTrue(prestamoRepository.findByUsuario_idAndActivo(id("RESERVA UNO")).isEmpty());
+        assertEquals(1, prestamoRepository.findByUsuario_idAndActivo(id("RESERVA DOS")).size());
+        Reserva atendida = reservaRepository.findById(segunda.getId()).orElseThrow();
+        assertFalse(atendida.isActiva());
+        assertNotNull(atendida.getPrestamo());
+
+        List<ReservaDTO> cola = reservaDTOService.listarCola(libro.getTitulo());
+        assertEquals(1, cola.size());
+        assertEquals("RESERVA TRES", cola.get(0).getNombreUsuario());
+        assertEquals(1, cola.get(0).getPosicion());
+    }
+
+    @Test
+    @Timeout(10)
+    void devolver_cuandoSeHanCanceladoLasReservas_elEjemplarVuelveAEstarDisponible() {
+        //Arrange
+        prestamoDTOService.guardarPrestamo(prestamo("RESERVA UNO"));
+        assertEquals(0, disponibles());
+        ReservaDTO reserva = reservaDTOService.guardarReserva(reserva("RESERVA DOS"));
+        reservaDTOService.cancelarReserva(reserva.getId());
+
+        //Act
+        prestamoDTOService.actualizarPrestamo(libro.getTitulo(), prestamo("RESERVA UNO"));
+
+        //Assert
+        assertEquals(1, disponibles());
+        assertTrue(prestamoRepository.findByUsuario_idAndActivo(id("RESERVA DOS")).isEmpty());
+        assertThrows(OperacionNoPermitidaException.class, () -> reservaDTOService.cancelarReserva(reserva.getId()));
+    }
+
+    @Test
+    @Timeout(10)
+    void reservar_cuandoHayEjemplaresDisponibles_noSePermite() {
+        //Act + Assert
+        assertThrows(OperacionNoPermitidaException.class, () -> reservaDTOService.guardarReserva(reserva("RESERVA DOS")));
+        assertTrue(reservaDTOService.listarCola(libro.getTitulo()).isEmpty());
+    }
+
+    @Test
+    @Timeout(10)
+    void reservar_cuandoElUsuarioYaEstaEnLaCola_noSePermite() {
+        //Arrange
+        prestamoDTOService.guardarPrestamo(prestamo("RESERVA UNO"));
+        reservaDTOService.guardarReserva(reserva("RESERVA DOS"));
+
+        //Act + Assert
+        assertThrows(OperacionNoPermitidaException.class, () -> reservaDTOService.guardarReserva(reserva("RESERVA DOS")));
+    }
+
+    private PrestamoDTO prestamo(String nombreUsuario) {
+        return new PrestamoDTO(0, LocalDate.now(), nombreUsuario, List.of(libro.getTitulo()), true);
+    }
+
+    private ReservaDTO reserva(String nombreUsuario) {
+        return new ReservaDTO(0, nombreUsuario, libro.getTitulo(), null, 0);
+    }
+
+    private int id(String nombreUsuario) {
+        return usuarioRepository.findByNombre(nombreUsuario).orElseThrow().getId();
+    }
+
+    //Los UPDATE de disponibilidad no pasan por el contexto de persistencia ni por la caché de segundo nivel,
+    //que además comparten los contextos de test anteriores: se relee de la base de datos
+    private int disponibles() {
+        entityManager.flush();
+        entityManager.clear();
+        entityManager.getEntityManagerFactory().getCache().evict(MaterialBiblioteca.class);
+        return libroRepository.findById(libro.getId()).orElseThrow().getDisponibles();
+    }
+}
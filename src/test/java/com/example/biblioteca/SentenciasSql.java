@@ -0,0 +1,39 @@
+package com.example.biblioteca;
+
+import com.example.biblioteca.metricas.ContadorSentencias;
+import org.opentest4j.AssertionFailedError;
+
+import java.util.function.Supplier;
+
+/**
+ * Comprobación del número de sentencias SQL en los ITs, con {@link ContadorSentencias}
+ * (hibernate.session_factory.statement_inspector en application.properties de test).
+ *
+ * Ej.: List<LibroDTO> libros = SentenciasSql.comprobarMaximo(2, () -> libroDTOService.listarLibrosDTO(0, 50));
+ */
+public final class SentenciasSql {
+    private SentenciasSql() {}
+
+    /**
+     * Ejecuta la acción y falla si ha ejecutado más de {@code maximo} sentencias SQL.
+     * El mensaje de error incluye cada sentencia con las veces que se ha ejecutado.
+     *
+     * @return el resultado de la acción.
+     */
+    public static <T> T comprobarMaximo(int maximo, Supplier<T> accion) {
+        T resultado;
+        ContadorSentencias.Medicion medicion = ContadorSentencias.iniciar("test");
+        try (medicion) {
+            resultado = accion.get();
+        }
+        if (medicion.getSentencias() > maximo) {
+            StringBuilder mensaje = new StringBuilder()
+                    .append("Se han ejecutado ").append(medicion.getSentencias())
+                    .append(" sentencias SQL y el máximo es ").append(maximo).append(':');
+            medicion.getRepeticiones().forEach((sql, veces) ->
+                    mensaje.append("\n  ").append(veces).append(" x ").append(sql));
+            throw new AssertionFailedError(mensaje.toString(), maximo, medicion.getSentencias());
+        }
+        return resultado;
+    }
+}
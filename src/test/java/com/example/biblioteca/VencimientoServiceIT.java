@@ -0,0 +1,124 @@
+package com.example.biblioteca;
+
+import com.example.biblioteca.eventos.AvisoEventos;
+import com.example.biblioteca.metricas.MetricasPrestamo;
+import com.example.biblioteca.model.AccionEvento;
+import com.example.biblioteca.model.Evento;
+import com.example.biblioteca.model.Prestamo;
+import com.example.biblioteca.model.TipoEvento;
+import com.example.biblioteca.model.Usuario;
+import com.example.biblioteca.repository.EventoRepository;
+import com.example.biblioteca.repository.PrestamoRepository;
+import com.example.biblioteca.repository.UsuarioRepository;
+import com.example.biblioteca.service.EventoService;
+import com.example.biblioteca.service.VencimientoService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.jackson.JacksonAutoConfiguration;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Barrido de préstamos vencidos por lotes.
+ *
+ * No hay transacción de test: cada lote se confirma en su propia transacción.
+ */
+@DataJpaTest
+@Import({VencimientoService.class, MetricasPrestamo.class, SimpleMeterRegistry.class,
+        EventoService.class, AvisoEventos.class, JacksonAutoConfiguration.class})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class VencimientoServiceIT {
+
+    private static final LocalDate HOY = LocalDate.of(2025, 3, 10);
+
+    @Autowired VencimientoService vencimientoService;
+    @Autowired PrestamoRepository prestamoRepository;
+    @Autowired UsuarioRepository usuarioRepository;
+    @Autowired EventoRepository eventoRepository;
+
+    @Test
+    @Timeout(20)
+    void procesarVencidos_marcaLosActivosVencidosPorLotesYNoVuelveALeerLosProcesados() {
+        //Arrange
+        Usuario usuario = new Usuario();
+        usuario.setNombre("USUARIO VENCIMIENTOS");
+        usuario.setEmail("VENCIMIENTOS@GMAIL.COM");
+        usuarioRepository.save(usuario);
+
+        List<Prestamo> vencidos = new ArrayList<>();
+        for (int dia = 1; dia <= 5; dia++) {
+            vencidos.add(prestamo(usuario, LocalDate.of(2025, 2, dia), true));
+        }
+        Prestamo devuelto = prestamo(usuario, LocalDate.of(2025, 2, 1), false);
+        //Vence el día 10 + 21: todavía no ha vencido
+        Prestamo enPlazo = prestamo(usuario, HOY, true);
+        long cursor = eventoRepository.findAll().stream().mapToLong(Evento::getId).max().orElse(0);
+
+        //Act: lotes de 2 préstamos
+        long procesados = vencimientoService.procesarVencidos(HOY, 2, Duration.ofSeconds(10));
+
+        //Assert
+        assertEquals(5, procesados);
+        for (Prestamo prestamo : vencidos) {
+            assertTrue(prestamoRepository.findById(prestamo.getId()).orElseThrow().isVencido());
+        }
+        assertFalse(prestamoRepository.findById(devuelto.getId()).orElseThrow().isVencido());
+        assertFalse(prestamoRepository.findById(enPlazo.getId()).orElseThrow().isVencido());
+        //Un evento VENCIMIENTO por préstamo marcado, en el orden del barrido
+        List<Evento> eventos = eventoRepository.findByIdGreaterThanOrderByIdAsc(cursor, PageRequest.of(0, 100));
+        assertEquals(vencidos.stream().map(Prestamo::getId).toList(), eventos.stream().map(Evento::getEntidadId).toList());
+        assertTrue(eventos.stream().allMatch(evento -> evento.getTipo() == TipoEvento.PRESTAMO && evento.getAccion() == AccionEvento.VENCIMIENTO));
+
+        //Act: la siguiente ejecución no encuentra nada nuevo hasta que vence el préstamo en plazo
+        assertEquals(0, vencimientoService.procesarVencidos(HOY, 2, Duration.ofSeconds(10)));
+        assertEquals(1, vencimientoService.procesarVencidos(HOY.plusDays(Prestamo.DIAS_PRESTAMO + 1), 2, Duration.ofSeconds(10)));
+        assertTrue(prestamoRepository.findById(enPlazo.getId()).orElseThrow().isVencido());
+    }
+
+    @Test
+    @Timeout(20)
+    void procesarVencidos_marcaUnPrestamoDadoDeAltaConFechaAnteriorALosYaProcesados() {
+        //Arrange: un barrido ya hecho
+        Usuario usuario = new Usuario();
+        usuario.setNombre("USUARIO VENCIMIENTOS ATRASADOS");
+        usuario.setEmail("VENCIMIENTOS.ATRASADOS@GMAIL.COM");
+        usuarioRepository.save(usuario);
+
+        Prestamo procesado = prestamo(usuario, LocalDate.of(2025, 2, 10), true);
+        assertEquals(1, vencimientoService.procesarVencidos(HOY, 2, Duration.ofSeconds(10)));
+
+        //POST /Prestamos acepta la fecha de préstamo: este vence antes que el ya procesado
+        Prestamo atrasado = prestamo(usuario, LocalDate.of(2025, 1, 5), true);
+
+        //Act
+        long procesados = vencimientoService.procesarVencidos(HOY, 2, Duration.ofSeconds(10));
+
+        //Assert
+        assertEquals(1, procesados);
+        assertTrue(prestamoRepository.findById(atrasado.getId()).orElseThrow().isVencido());
+        assertTrue(prestamoRepository.findById(procesado.getId()).orElseThrow().isVencido());
+    }
+
+    private Prestamo prestamo(Usuario usuario, LocalDate fechaPrestamo, boolean activo) {
+        Prestamo prestamo = new Prestamo();
+        prestamo.setUsuario(usuario);
+        prestamo.setFechaPrestamo(fechaPrestamo);
+        prestamo.setMateriales(new ArrayList<>());
+        prestamo.setActivo(activo);
+        return prestamoRepository.save(prestamo);
+    }
+}
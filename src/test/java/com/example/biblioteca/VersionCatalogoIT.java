@@ -0,0 +1,111 @@
+package com.example.biblioteca;
+
+import com.example.biblioteca.dto.LibroDTO;
+import com.example.biblioteca.eventos.AvisoEventos;
+import com.example.biblioteca.expection.AutorNoEncontradoException;
+import com.example.biblioteca.expection.LibroNoEncontradoException;
+import com.example.biblioteca.model.Autor;
+import com.example.biblioteca.model.Libro;
+import com.example.biblioteca.repository.AutorRepository;
+import com.example.biblioteca.repository.LibroRepository;
+import com.example.biblioteca.service.DisponibilidadService;
+import com.example.biblioteca.service.EventoService;
+import com.example.biblioteca.serviceDTO.LibroDTOService;
+import com.example.biblioteca.util.Paginacion;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.jackson.JacksonAutoConfiguration;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * ETag de los libros y de las páginas del listado: la versión de un libro cambia con sus UPDATE masivos de disponibles
+ * y con sus autores, y el ETag de una página solo con los libros que salen en ella.
+ *
+ * No hay transacción de test: cada paso se confirma o se deshace en la suya.
+ */
+@DataJpaTest
+@Import({LibroDTOService.class, DisponibilidadService.class, EventoService.class, AvisoEventos.class, JacksonAutoConfiguration.class})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class VersionCatalogoIT {
+
+    @Autowired LibroDTOService libroDTOService;
+    @Autowired DisponibilidadService disponibilidadService;
+    @Autowired LibroRepository libroRepository;
+    @Autowired AutorRepository autorRepository;
+    @Autowired PlatformTransactionManager transactionManager;
+
+    @Test
+    @Timeout(20)
+    void versionesYPaginas_cambianSoloConLosCambiosConfirmadosDeSusLibros() {
+        TransactionTemplate transaccion = new TransactionTemplate(transactionManager);
+
+        //Act: dos altas confirmadas (autor y libro en la misma transacción) y un cambio que falla y se deshace
+        LibroDTO libro = libroDTOService.guardarLibro(
+                new LibroDTO(0, "VERSION-1", 2024, "Version libro", List.of("Version autor"), 2, 2));
+        LibroDTO otro = libroDTOService.guardarLibro(
+                new LibroDTO(0, "VERSION-2", 2024, "Version otro libro", List.of("Version otro autor"), 2, 2));
+        String etagPagina = paginaDe(libro);
+        String etagOtraPagina = paginaDe(otro);
+        assertThrows(AutorNoEncontradoException.class, () -> libroDTOService.actualizarLibro(libro.getTitulo(),
+                new LibroDTO(0, "VERSION-1", 2024, "VERSION LIBRO", List.of("NO EXISTE"), 2, 2)));
+
+        //Assert
+        assertEquals(etagPagina, paginaDe(libro));
+        assertNotEquals(etagPagina, etagOtraPagina);
+        String etagAlta = libroDTOService.etagLibro("version libro");
+        assertEquals(libroDTOService.etagLibro("VERSION LIBRO"), etagAlta);
+        assertEquals(libro, libroDTOService.consultarLibroDTO("version libro"));
+        assertThrows(LibroNoEncontradoException.class, () -> libroDTOService.etagLibro("NO EXISTE"));
+
+        //Act: un préstamo (UPDATE masivo de disponibles, sin pasar por la entidad)
+        Libro entidad = libroRepository.findById(libro.getId()).orElseThrow();
+        transaccion.executeWithoutResult(estado -> disponibilidadService.reservarEjemplar(entidad));
+
+        //Assert: cambian el libro y su página, no la del otro libro
+        String etagPrestamo = libroDTOService.etagLibro(libro.getTitulo());
+        assertNotEquals(etagAlta, etagPrestamo);
+        assertNotEquals(etagPagina, paginaDe(libro));
+        assertEquals(etagOtraPagina, paginaDe(otro));
+        etagPagina = paginaDe(libro);
+
+        //Act: cambia el nombre del autor, que sale en el libro
+        transaccion.executeWithoutResult(estado ->
+                autorRepository.findSoloAutorByNombre("VERSION AUTOR").orElseThrow().setNombre("VERSION AUTORA"));
+
+        //Assert
+        assertNotEquals(etagPrestamo, libroDTOService.etagLibro(libro.getTitulo()));
+        assertNotEquals(etagPagina, paginaDe(libro));
+        assertEquals(etagOtraPagina, paginaDe(otro));
+        etagPagina = paginaDe(libro);
+
+        //Act + Assert: guardar la copia leída antes del préstamo pisaría sus disponibles: se rechaza
+        entidad.setIsbn("VERSION-3");
+        assertThrows(OptimisticLockingFailureException.class, () -> libroRepository.save(entidad));
+        assertEquals(etagPagina, paginaDe(libro));
+        assertEquals(1, libroDTOService.consultarLibroDTO(libro.getTitulo()).getDisponibles());
+
+        //Act + Assert: un alta entra en la página que empieza en el otro libro si hay sitio, no en la del primero
+        String etagHastaElFinal = libroDTOService.etagLibrosDesde(otro.getId() - 1, Paginacion.TAMANIO_MAXIMO);
+        libroDTOService.guardarLibro(new LibroDTO(0, "VERSION-4", 2024, "Version libro nuevo", List.of("VERSION OTRO AUTOR"), 1, 1));
+        assertNotEquals(etagHastaElFinal, libroDTOService.etagLibrosDesde(otro.getId() - 1, Paginacion.TAMANIO_MAXIMO));
+        assertEquals(etagPagina, paginaDe(libro));
+    }
+
+    //ETag de la página del listado (keyset) que solo tiene ese libro
+    private String paginaDe(LibroDTO libro) {
+        return libroDTOService.etagLibrosDesde(libro.getId() - 1, 1);
+    }
+}
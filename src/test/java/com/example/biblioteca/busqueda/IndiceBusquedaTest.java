@@ -0,0 +1,71 @@
+package com.example.biblioteca.busqueda;
+
+import com.example.biblioteca.dto.ResultadoBusquedaDTO;
+import com.example.biblioteca.proyeccion.ElementoBusqueda;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class IndiceBusquedaTest {
+
+    private IndiceBusqueda indiceBusqueda;
+
+    @BeforeEach
+    void setUp () throws IOException {
+        //Sin directorio: índice en memoria
+        indiceBusqueda = new IndiceBusqueda("", Duration.ofSeconds(1));
+        indiceBusqueda.guardar(libro(1, "CRÓNICA DE UNA MUERTE ANUNCIADA"));
+        indiceBusqueda.guardar(libro(2, "CRÓNICAS MARCIANAS"));
+    }
+
+    @AfterEach
+    void cerrar () throws IOException {
+        indiceBusqueda.cerrar();
+    }
+
+    @Test
+    public void reconstruir_deberiaReemplazarLosLeidosYBorrarLosQueYaNoEstan () {
+        //Act: el libro 1 ha cambiado de título, el 2 se ha borrado y el 3 es nuevo
+        long leidos = indiceBusqueda.reconstruir(cargar -> {
+            cargar.accept(libro(1, "CRÓNICA DE UNA MUERTE ANUNCIADA (EDICIÓN ESPECIAL)"));
+            cargar.accept(libro(3, "CRÓNICA DEL PÁJARO QUE DA CUERDA AL MUNDO"));
+        });
+
+        //Assert
+        assertEquals(2, leidos);
+        assertEquals(List.of(1, 3), ids("cronica"));
+        assertEquals(List.of(1), ids("especial"));
+        assertTrue(ids("marcianas").isEmpty());
+    }
+
+    @Test
+    public void reconstruir_noDeberiaPisarNiBorrarLosCambiosHechosMientrasLee () {
+        //Act: mientras se lee la base de datos, el listener cambia el libro 1 y da de alta el 4
+        indiceBusqueda.reconstruir(cargar -> {
+            indiceBusqueda.guardar(libro(1, "CRÓNICA DE UNA MUERTE ANUNCIADA (EDICIÓN ESPECIAL)"));
+            indiceBusqueda.guardar(libro(4, "CRÓNICA DE LOS REYES"));
+            //Lo leído antes de esos commits
+            cargar.accept(libro(1, "CRÓNICA DE UNA MUERTE ANUNCIADA"));
+            cargar.accept(libro(2, "CRÓNICAS MARCIANAS"));
+        });
+
+        //Assert
+        assertEquals(List.of(1), ids("especial"));
+        assertEquals(List.of(4), ids("reyes"));
+        assertEquals(List.of(2), ids("marcianas"));
+    }
+
+    private List<Integer> ids(String texto) {
+        return indiceBusqueda.buscar(texto, 10).stream().map(ResultadoBusquedaDTO::getId).sorted().toList();
+    }
+
+    private static ElementoBusqueda libro(int id, String titulo) {
+        return new ElementoBusqueda(IndiceBusqueda.TIPO_LIBRO, id, titulo, "ISBN-" + id, null);
+    }
+}
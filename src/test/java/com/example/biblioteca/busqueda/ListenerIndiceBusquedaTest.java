@@ -0,0 +1,110 @@
+package com.example.biblioteca.busqueda;
+
+import com.example.biblioteca.model.Autor;
+import com.example.biblioteca.model.Libro;
+import com.example.biblioteca.proyeccion.ElementoBusqueda;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Collection;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+public class ListenerIndiceBusquedaTest {
+
+    private IndiceBusqueda indiceBusquedaMock;
+    private SugerenciasTitulos sugerenciasTitulos;
+    private ListenerIndiceBusqueda listener;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp () {
+        indiceBusquedaMock = mock(IndiceBusqueda.class);
+        sugerenciasTitulos = new SugerenciasTitulos();
+        ObjectProvider<IndiceBusqueda> indice = mock(ObjectProvider.class);
+        when(indice.getIfAvailable()).thenReturn(indiceBusquedaMock);
+        ObjectProvider<SugerenciasTitulos> sugerencias = mock(ObjectProvider.class);
+        when(sugerencias.getIfAvailable()).thenReturn(sugerenciasTitulos);
+        listener = new ListenerIndiceBusqueda(indice, sugerencias);
+    }
+
+    @AfterEach
+    void limpiar () {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void cambiosDeUnaTransaccion_deberianAplicarseEnUnaSolaLlamadaDespuesDelCommit () {
+        //Arrange: un lote de libros y un autor en la misma transacción
+        TransactionSynchronizationManager.initSynchronization();
+        listener.guardado(libro(1, "PRIMER LIBRO"));
+        listener.guardado(libro(2, "SEGUNDO LIBRO"));
+        Autor autor = new Autor("AUTOR DEL LOTE");
+        autor.setId(7);
+        listener.guardado(autor);
+        //El mismo libro dos veces: se indexa solo su último estado
+        listener.guardado(libro(1, "PRIMER LIBRO CORREGIDO"));
+        listener.borrado(libro(3, "LIBRO BORRADO"));
+
+        //Assert: nada antes del commit
+        verifyNoInteractions(indiceBusquedaMock);
+
+        //Act
+        TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+
+        //Assert
+        ArgumentCaptor<Collection<ElementoBusqueda>> guardados = ArgumentCaptor.forClass(Collection.class);
+        ArgumentCaptor<Collection<ElementoBusqueda>> eliminados = ArgumentCaptor.forClass(Collection.class);
+        verify(indiceBusquedaMock, times(1)).actualizar(guardados.capture(), eliminados.capture());
+        assertEquals(List.of("PRIMER LIBRO CORREGIDO", "SEGUNDO LIBRO", "AUTOR DEL LOTE"),
+                guardados.getValue().stream().map(ElementoBusqueda::texto).toList());
+        assertEquals(List.of(3), eliminados.getValue().stream().map(ElementoBusqueda::id).toList());
+        //Los autores no son títulos
+        assertEquals(List.of("PRIMER LIBRO CORREGIDO"), sugerenciasTitulos.sugerir("primer", 10));
+        assertTrue(sugerenciasTitulos.sugerir("autor", 10).isEmpty());
+        assertEquals(2, sugerenciasTitulos.numeroTitulos());
+    }
+
+    @Test
+    public void cambiosDeUnaTransaccionDeshecha_noDeberianLlegarAlIndice () {
+        //Arrange
+        TransactionSynchronizationManager.initSynchronization();
+        listener.guardado(libro(1, "PRIMER LIBRO"));
+
+        //Act
+        TransactionSynchronizationManager.getSynchronizations()
+                .forEach(sincronizacion -> sincronizacion.afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK));
+
+        //Assert
+        verifyNoInteractions(indiceBusquedaMock);
+        assertEquals(0, sugerenciasTitulos.numeroTitulos());
+    }
+
+    @Test
+    public void cambioSinTransaccion_deberiaAplicarseEnseguida () {
+        //Act
+        listener.guardado(libro(1, "PRIMER LIBRO"));
+
+        //Assert
+        verify(indiceBusquedaMock, times(1)).actualizar(anyCollection(), anyCollection());
+        assertEquals(List.of("PRIMER LIBRO"), sugerenciasTitulos.sugerir("primer", 10));
+    }
+
+    private static Libro libro(int id, String titulo) {
+        Libro libro = new Libro();
+        libro.setId(id);
+        libro.setTitulo(titulo);
+        libro.setIsbn("ISBN-" + id);
+        return libro;
+    }
+}
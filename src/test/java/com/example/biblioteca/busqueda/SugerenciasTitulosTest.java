@@ -0,0 +1,120 @@
+package com.example.biblioteca.busqueda;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class SugerenciasTitulosTest {
+
+    private SugerenciasTitulos sugerenciasTitulos;
+
+    @BeforeEach
+    void setUp () {
+        sugerenciasTitulos = new SugerenciasTitulos();
+        sugerenciasTitulos.reconstruir(cargar -> {
+            cargar.cargar(1, "CRÓNICA DE UNA MUERTE ANUNCIADA");
+            cargar.cargar(2, "CRÓNICAS MARCIANAS");
+            cargar.cargar(3, "CIEN AÑOS DE SOLEDAD");
+            cargar.cargar(4, "CRIMEN Y CASTIGO");
+            cargar.cargar(5, "EL CORONEL NO TIENE QUIEN LE ESCRIBA");
+        });
+    }
+
+    @Test
+    public void sugerir_deberiaDevolverLosTitulosQueEmpiezanPorElPrefijoEnOrdenAlfabetico () {
+        //Act + Assert: da igual mayúsculas, acentos y espacios repetidos
+        assertEquals(List.of("CRÓNICA DE UNA MUERTE ANUNCIADA", "CRÓNICAS MARCIANAS"), sugerenciasTitulos.sugerir("cronica", 10));
+        assertEquals(List.of("CRÓNICA DE UNA MUERTE ANUNCIADA"), sugerenciasTitulos.sugerir("  Crónica   de ", 10));
+        assertEquals(List.of("CIEN AÑOS DE SOLEDAD", "CRIMEN Y CASTIGO", "CRÓNICA DE UNA MUERTE ANUNCIADA", "CRÓNICAS MARCIANAS"),
+                sugerenciasTitulos.sugerir("c", 10));
+        //El prefijo termina a mitad de una arista del árbol
+        assertEquals(List.of("CRIMEN Y CASTIGO"), sugerenciasTitulos.sugerir("crim", 10));
+    }
+
+    @Test
+    public void sugerir_deberiaRespetarElLimite () {
+        assertEquals(List.of("CIEN AÑOS DE SOLEDAD", "CRIMEN Y CASTIGO"), sugerenciasTitulos.sugerir("C", 2));
+    }
+
+    @Test
+    public void sugerir_sinCoincidenciasOPrefijoVacio_deberiaDevolverListaVacia () {
+        assertTrue(sugerenciasTitulos.sugerir("cronicon", 10).isEmpty());
+        assertTrue(sugerenciasTitulos.sugerir("x", 10).isEmpty());
+        assertTrue(sugerenciasTitulos.sugerir("   ", 10).isEmpty());
+    }
+
+    @Test
+    public void guardar_conNuevoTitulo_deberiaQuitarElAnterior () {
+        //Act
+        sugerenciasTitulos.guardar(2, "CRÓNICAS DE NARNIA");
+        sugerenciasTitulos.guardar(6, "CRÓNICAS DEL ÁNGEL GRIS");
+
+        //Assert
+        assertEquals(List.of("CRÓNICAS DE NARNIA", "CRÓNICAS DEL ÁNGEL GRIS"), sugerenciasTitulos.sugerir("cronicas", 10));
+        assertTrue(sugerenciasTitulos.sugerir("cronicas m", 10).isEmpty());
+        assertEquals(6, sugerenciasTitulos.numeroTitulos());
+    }
+
+    @Test
+    public void guardar_conElMismoTitulo_noDeberiaRepetirlo () {
+        //Act: cambia otro campo del material (p. ej. los disponibles)
+        sugerenciasTitulos.guardar(4, "CRIMEN Y CASTIGO");
+
+        //Assert
+        assertEquals(List.of("CRIMEN Y CASTIGO"), sugerenciasTitulos.sugerir("crimen", 10));
+        assertEquals(5, sugerenciasTitulos.numeroTitulos());
+    }
+
+    @Test
+    public void eliminar_deberiaQuitarElTituloYMantenerLosQueCompartenPrefijo () {
+        //Act
+        sugerenciasTitulos.eliminar(1);
+        sugerenciasTitulos.eliminar(99);
+
+        //Assert
+        assertEquals(List.of("CRÓNICAS MARCIANAS"), sugerenciasTitulos.sugerir("cronica", 10));
+        assertEquals(List.of("CRÓNICAS MARCIANAS"), sugerenciasTitulos.sugerir("cronicas", 10));
+        assertEquals(4, sugerenciasTitulos.numeroTitulos());
+
+        //Act: borrar todos deja el árbol vacío
+        List.of(2, 3, 4, 5).forEach(sugerenciasTitulos::eliminar);
+
+        //Assert
+        assertTrue(sugerenciasTitulos.sugerir("c", 10).isEmpty());
+        assertEquals(0, sugerenciasTitulos.numeroTitulos());
+    }
+
+    @Test
+    public void reconstruir_noDeberiaPerderLosCambiosQueLleganMientrasCarga () {
+        //Act: mientras se leen los títulos de la base de datos, el listener cambia el 2, borra el 3 y da de alta el 6
+        sugerenciasTitulos.reconstruir(cargar -> {
+            sugerenciasTitulos.guardar(2, "CRÓNICAS DE NARNIA");
+            sugerenciasTitulos.eliminar(3);
+            sugerenciasTitulos.guardar(6, "CRÓNICAS DEL ÁNGEL GRIS");
+            //Lo leído antes de esos commits
+            cargar.cargar(1, "CRÓNICA DE UNA MUERTE ANUNCIADA");
+            cargar.cargar(2, "CRÓNICAS MARCIANAS");
+            cargar.cargar(3, "CIEN AÑOS DE SOLEDAD");
+        });
+
+        //Assert
+        assertEquals(List.of("CRÓNICAS DE NARNIA", "CRÓNICAS DEL ÁNGEL GRIS"), sugerenciasTitulos.sugerir("cronicas", 10));
+        assertTrue(sugerenciasTitulos.sugerir("cien", 10).isEmpty());
+        assertEquals(3, sugerenciasTitulos.numeroTitulos());
+
+        //Act: la siguiente carga ya no los vuelve a aplicar
+        sugerenciasTitulos.reconstruir(cargar -> cargar.cargar(1, "CRÓNICA DE UNA MUERTE ANUNCIADA"));
+
+        //Assert
+        assertEquals(1, sugerenciasTitulos.numeroTitulos());
+    }
+
+    @Test
+    public void normalizar_deberiaQuitarAcentosYEspaciosYPasarAMayusculas () {
+        assertEquals("CRONICA DE UNA", SugerenciasTitulos.normalizar("  Crónica\tde  una "));
+        assertEquals("ANOS", SugerenciasTitulos.normalizar("años"));
+    }
+}
@@ -1,5 +1,6 @@
 package com.example.biblioteca.component;
 
+import com.example.biblioteca.metricas.PresupuestoSentencias;
 import com.example.biblioteca.model.Autor;
 import com.example.biblioteca.model.Libro;
 import com.example.biblioteca.service.AutorService;
@@ -33,6 +34,9 @@ public class ConsolaAutorTest {
     @Mock
     private CommonUtil commonUtil;
 
+    @Mock
+    private PresupuestoSentencias presupuestoSentencias;
+
     @Spy
     @InjectMocks
     private ConsolaAutor consolaSpy;
@@ -307,7 +311,7 @@ public class ConsolaAutorTest {
 
     @Test
     void menuAutor_deberiaEjecutarOpcionesYSalirCorrectamente() {
-        ConsolaAutor consolaSpy = spy(new ConsolaAutor(autorService, commonService, commonUtil));
+        ConsolaAutor consolaSpy = spy(new ConsolaAutor(autorService, commonService, commonUtil, presupuestoSentencias));
 
         // El mock de commonUtil debe devolver la secuencia de opciones
         when(commonUtil.leerEntrada()).thenReturn("A","B", "C","S");
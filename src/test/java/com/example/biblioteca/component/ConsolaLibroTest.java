@@ -1,22 +1,29 @@
 package com.example.biblioteca.component;
 
+import com.example.biblioteca.dto.ResultadoImportacionDTO;
+import com.example.biblioteca.metricas.PresupuestoSentencias;
 import com.example.biblioteca.model.Autor;
 import com.example.biblioteca.model.Libro;
 import com.example.biblioteca.model.MaterialBiblioteca;
 import com.example.biblioteca.service.AutorService;
 import com.example.biblioteca.service.CommonService;
+import com.example.biblioteca.service.ImportacionLibrosService;
 import com.example.biblioteca.service.LibroService;
 import com.example.biblioteca.service.MaterialBibliotecaService;
 import com.example.biblioteca.util.CommonUtil;
+import com.example.biblioteca.util.FormatoFichero;
 import jakarta.validation.ConstraintViolation;
 import jakarta.validation.ConstraintViolationException;
 import jakarta.validation.Path;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 import org.mockito.*;
 
 import java.io.ByteArrayOutputStream;
 import java.io.PrintStream;
+import java.io.Reader;
+import java.nio.file.Files;
 import java.util.List;
 import java.util.Set;
 
@@ -42,6 +49,12 @@ public class ConsolaLibroTest {
     @Mock
     private CommonUtil commonUtil;
 
+    @Mock
+    private PresupuestoSentencias presupuestoSentencias;
+
+    @Mock
+    private ImportacionLibrosService importacionLibrosService;
+
     @Spy @InjectMocks
     private ConsolaLibro consolaSpy;
 
@@ -53,7 +66,7 @@ public class ConsolaLibroTest {
 
     @Test
     void menuLibro_deberiaEjecutarOpcionesYSalirCorrectamente() {
-        ConsolaLibro consolaSpy = spy(new ConsolaLibro(libroService,materialBibliotecaService,autorService,commonService,commonUtil));
+        ConsolaLibro consolaSpy = spy(new ConsolaLibro(libroService,materialBibliotecaService,autorService,commonService,commonUtil,importacionLibrosService, presupuestoSentencias));
 
         // Simular entrada: A (alta), B (baja), C (consulta), S (salir)
         when(commonUtil.leerEntrada()).thenReturn("A","B","C","D","E","S");
@@ -481,13 +494,14 @@ public class ConsolaLibroTest {
         List<Libro> libroListMock = List.of(libroCompleto1Mock, libroCompleto2Mock);
 
         doReturn(libroListMock).when(libroService).listarLibros();
-        doReturn(libroCompleto1Mock).when(libroService).buscarLibroByIsbn("1234");
-        doReturn(libroCompleto2Mock).when(libroService).buscarLibroByIsbn("5678");
 
         // Act
         consolaSpy.procesarConsultaTotal();
 
         // Assert
+        // Los autores llegan con el listado: no se consulta cada libro por su isbn
+        verify(libroService, never()).buscarLibroByIsbn(anyString());
+
         String salida = outContent.toString();
         assertTrue(salida.contains("Datos del Libro"));
         assertTrue(salida.contains("Título: TITULO 1 PRUEBA"));
@@ -685,4 +699,34 @@ public class ConsolaLibroTest {
         inOrder.verify(commonUtil).mostrarMensaje("Titulo del libro");
         inOrder.verify(commonUtil).leerEntrada();
     }
+
+    @Test
+    void procesarImportacion_cuandoElFicheroExiste_deberiaImportarloYMostrarElResumen(@TempDir java.nio.file.Path directorio) throws Exception {
+        // Arranque
+        java.nio.file.Path fichero = Files.writeString(directorio.resolve("adquisicion.csv"),
+                "isbn,titulo,añoPublicacion,autores,totales\n1,TITULO,2020,AUTOR,3\n");
+        when(commonUtil.leerEntrada()).thenReturn(fichero.toString());
+        when(importacionLibrosService.importar(eq("adquisicion.csv"), eq(FormatoFichero.CSV), any(Reader.class), isNull()))
+                .thenReturn(new ResultadoImportacionDTO("adquisicion.csv", 1, 1, 0, true, List.of()));
+
+        //Act
+        consolaSpy.procesarImportacion();
+
+        //Assert
+        verify(commonUtil).mostrarMensaje("Libros insertados: 1. Líneas descartadas: 0");
+        verify(commonUtil, never()).mostrarMensajeError(anyString(), any());
+    }
+
+    @Test
+    void procesarImportacion_cuandoElFicheroNoExiste_deberiaMostrarMensajeError(@TempDir java.nio.file.Path directorio) throws Exception {
+        // Arranque
+        when(commonUtil.leerEntrada()).thenReturn(directorio.resolve("no-existe.csv").toString());
+
+        //Act
+        consolaSpy.procesarImportacion();
+
+        //Assert
+        verify(commonUtil).mostrarMensajeError(eq("importación libros"), any());
+        verifyNoInteractions(importacionLibrosService);
+    }
 }
@@ -1,6 +1,10 @@
 package com.example.biblioteca.component;
 
+import com.example.biblioteca.expection.MaterialNoDisponibleException;
+import com.example.biblioteca.metricas.PresupuestoSentencias;
 import com.example.biblioteca.model.*;
+import com.example.biblioteca.proyeccion.EjemplaresMaterial;
+import com.example.biblioteca.proyeccion.PrestamoADevolver;
 import com.example.biblioteca.service.*;
 import com.example.biblioteca.util.CommonUtil;
 import org.junit.jupiter.api.AfterEach;
@@ -13,6 +17,7 @@ import java.io.PrintStream;
 import java.nio.charset.StandardCharsets;
 import java.time.LocalDate;
 import java.util.List;
+import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
@@ -33,10 +38,21 @@ public class ConsolaPrestamoTest {
     @Mock
     private UsuarioService usuarioService;
     @Mock
+    private ReservaService reservaService;
+    @Mock
     private CommonService commonService;
     @Mock
     private CommonUtil commonUtil;
 
+    @Mock
+    private PresupuestoSentencias presupuestoSentencias;
+    @Mock
+    private BusquedaService busquedaService;
+    @Mock
+    private DevolucionService devolucionService;
+    @Mock
+    private DisponibilidadService disponibilidadService;
+
     @Spy
     @InjectMocks
     private ConsolaPrestamo consolaSpy;
@@ -56,12 +72,13 @@ public class ConsolaPrestamoTest {
 
     @Test
     public void menuPrestamo(){
-        when(commonUtil.leerEntrada()).thenReturn("A","B","C","D","S");
+        when(commonUtil.leerEntrada()).thenReturn("A","B","C","D","E","S");
 
         doNothing().when(consolaSpy).procesarAltaPrestamo();
         doNothing().when(consolaSpy).procesarDevolucionPrestamo();
         doNothing().when(consolaSpy).procesarConsultaPorUsuario();
         doNothing().when(consolaSpy).procesarConsultaPorTitulo();
+        doNothing().when(consolaSpy).procesarReserva();
         doNothing().when(commonService).volverMenuPrincipal();
 
         consolaSpy.menuPrestamo();
@@ -71,13 +88,14 @@ public class ConsolaPrestamoTest {
         verify(consolaSpy,times(1)).procesarDevolucionPrestamo();
         verify(consolaSpy,times(1)).procesarConsultaPorUsuario();
         verify(consolaSpy,times(1)).procesarConsultaPorTitulo();
+        verify(consolaSpy,times(1)).procesarReserva();
         verify(commonService,times(1)).volverMenuPrincipal();
         verify(commonService,never()).mostrarError();
 
-        //Verificamos que se ejecuta 5 veces el leerEntrada()
-        verify(commonUtil,times(5)).leerEntrada();
-        //Verficamos que se ejecuta 5 veces el mostrarMenuPrestamo()
-        verify(consolaSpy,times(5)).mostrarMenuPrestamo();
+        //Verificamos que se ejecuta 6 veces el leerEntrada()
+        verify(commonUtil,times(6)).leerEntrada();
+        //Verficamos que se ejecuta 6 veces el mostrarMenuPrestamo()
+        verify(consolaSpy,times(6)).mostrarMenuPrestamo();
 
     }
 
@@ -103,7 +121,7 @@ public class ConsolaPrestamoTest {
         consolaSpy.procesarAltaPrestamo();
 
         //Assert
-        verify(consolaSpy).registrarPrestamo(prestamoMock, materialMock);
+        verify(consolaSpy).registrarPrestamo(prestamoMock);
         verify(commonUtil).mostrarMensaje("Préstamo registrado correctamente");
         //Verificamos que no se ejecutan los procesos
         verify(commonUtil,never()).mostrarMensajeError(anyString(), any());
@@ -127,7 +145,7 @@ public class ConsolaPrestamoTest {
         //Verificamos que no se ejecutan los procesos posteriores
         verify(consolaSpy, never()).solicitarDatosUsuario();
         verify(consolaSpy, never()).crearPrestamo(any(), any());
-        verify(consolaSpy, never()).registrarPrestamo(any(), any());
+        verify(consolaSpy, never()).registrarPrestamo(any());
 
         //Verificamos que no hay ninguna iteración con commonUtil
         verifyNoInteractions(commonUtil);
@@ -152,7 +170,7 @@ public class ConsolaPrestamoTest {
         //Assert
         //Verificamos que no se ejecutan los procesos posteriores.
         verify(consolaSpy, never()).crearPrestamo(any(), any());
-        verify(consolaSpy, never()).registrarPrestamo(any(), any());
+        verify(consolaSpy, never()).registrarPrestamo(any());
 
         //Verificamos que no hay ninguna iteración con commonUtil
         verifyNoInteractions(commonUtil);
@@ -181,7 +199,7 @@ public class ConsolaPrestamoTest {
 
         //registarPrestamo da una excepcion
         Exception exception = new RuntimeException();
-        doThrow(exception).when(consolaSpy).registrarPrestamo(prestamoMock, materialMock);
+        doThrow(exception).when(consolaSpy).registrarPrestamo(prestamoMock);
 
         //Act
         consolaSpy.procesarAltaPrestamo();
@@ -212,32 +230,60 @@ public class ConsolaPrestamoTest {
         usuarioMock.setId(42);
         doReturn(usuarioMock).when(consolaSpy).solicitarDatosUsuario();
 
-        //Se obtienen todos los prestamos activos del usuario
-        Prestamo prestamoMock = new Prestamo();
-        prestamoMock.setId(100);
-
-        List<Prestamo> prestamoListMock = List.of(prestamoMock);
-        doReturn(prestamoListMock).when(consolaSpy).obtenerPrestamoList(usuarioMock.getId());
-
-        List<Integer> idPrestamosListMock = List.of(prestamoMock.getId());
-        List<Integer> idMaterialListMock = List.of(materialMock.getId());
-
-        when(prestamoService.obtenerMaterialIdsPorPrestamos(idPrestamosListMock))
-                .thenReturn(idMaterialListMock);
+        //El usuario tiene prestado el material en el préstamo 100
+        PrestamoADevolver prestamo = new PrestamoADevolver(100, 1, titulo);
+        when(devolucionService.buscarPrestamoActivo(42, 1)).thenReturn(Optional.of(prestamo));
+        when(devolucionService.devolver(prestamo)).thenReturn(Optional.empty());
 
         //Act
         consolaSpy.procesarDevolucionPrestamo();
 
         //Assert
-        verify(materialBibliotecaService).actualizarDisponible(materialMock, 2);
-        verify(prestamoService).desactivarPrestamoConMaterial(idPrestamosListMock, materialMock.getId());
+        verify(devolucionService).devolver(prestamo);
         verify(commonUtil).mostrarMensaje("Préstamo devuelto");
+        verify(commonUtil,never()).mostrarMensaje(contains("que lo tenía reservado"));
+
+        //Ya no se leen todos los préstamos activos del usuario
+        verify(consolaSpy,never()).obtenerPrestamoList(anyInt());
+        verifyNoInteractions(prestamoService, reservaService);
 
         ///Verificamos que no se ejecuta ningún proceso posterior
         verify(commonUtil,never()).mostrarMensajeError(anyString(), any());
 
     }
 
+    @Test
+    public void procesarDevolucionPrestamo_cuandoHayReserva_deberiaMostrarElUsuarioQueRecibeElEjemplar(){
+        String titulo = "TITULO PRUEBA";
+        doReturn(titulo).when(consolaSpy).obtenerTituloMaterial();
+
+        MaterialBiblioteca materialMock = mock(MaterialBiblioteca.class);
+        when(materialMock.getId()).thenReturn(1);
+        doReturn(materialMock).when(materialBibliotecaService).obtenerMaterialDelPrestamoByTitulo(titulo);
+        doReturn(true).when(consolaSpy).validarMaterialPrestado(materialMock,titulo);
+
+        Usuario usuarioMock = new Usuario();
+        usuarioMock.setId(42);
+        doReturn(usuarioMock).when(consolaSpy).solicitarDatosUsuario();
+
+        PrestamoADevolver prestamo = new PrestamoADevolver(100, 1, titulo);
+        when(devolucionService.buscarPrestamoActivo(42, 1)).thenReturn(Optional.of(prestamo));
+
+        //El ejemplar pasa a la primera reserva de la cola
+        Usuario usuarioReserva = new Usuario();
+        usuarioReserva.setNombre("MARIA LOPEZ");
+        Reserva reserva = new Reserva();
+        reserva.setUsuario(usuarioReserva);
+        when(devolucionService.devolver(prestamo)).thenReturn(Optional.of(reserva));
+
+        //Act
+        consolaSpy.procesarDevolucionPrestamo();
+
+        //Assert
+        verify(commonUtil).mostrarMensaje("Préstamo devuelto");
+        verify(commonUtil).mostrarMensaje("El ejemplar queda prestado a MARIA LOPEZ, que lo tenía reservado");
+    }
+
     @Test
     public void procesarDevolucionPrestamo_cuandoNoSeObtieneTituloMaterial_deberiaNoEjecutarNingunaAccion() {
         //No existe el titulo
@@ -249,19 +295,15 @@ public class ConsolaPrestamoTest {
         //Assert
         //Verificamos que no se ejecuta ningún proceso posterior
         verify(materialBibliotecaService, never()).obtenerMaterialDelPrestamoByTitulo(anyString());
-        verify(materialBibliotecaService, never()).actualizarDisponible(any(), anyInt());
-        verify(prestamoService, never()).obtenerMaterialIdsPorPrestamos(anyList());
-        verify(prestamoService, never()).desactivarPrestamoConMaterial(anyList(), anyInt());
 
         verify(consolaSpy, never()).validarMaterialPrestado(any(), anyString());
         verify(consolaSpy, never()).solicitarDatosUsuario();
-        verify(consolaSpy, never()).obtenerPrestamoList(anyInt());
 
         verify(commonUtil,never()).mostrarMensaje(anyString());
         verify(commonUtil,never()).mostrarMensajeError(anyString(), any());
 
         //Aseguramos que ningún método de un mock fue llamado
-        verifyNoInteractions(materialBibliotecaService, prestamoService, commonUtil);
+        verifyNoInteractions(materialBibliotecaService, prestamoService, devolucionService, commonUtil);
 
     }
 
@@ -284,12 +326,9 @@ public class ConsolaPrestamoTest {
 
         //Assert
         //Verificamos que no se ejecutan los procesos posteriores
-        verify(prestamoService,never()).obtenerMaterialIdsPorPrestamos(anyList());
-        verify(prestamoService,never()).desactivarPrestamoConMaterial(anyList(), anyInt());
-        verify(materialBibliotecaService,never()).actualizarDisponible(any(), anyInt());
+        verifyNoInteractions(devolucionService);
 
         verify(consolaSpy,never()).solicitarDatosUsuario();
-        verify(consolaSpy,never()).obtenerPrestamoList(anyInt());
 
         //No se puede poner en mostrarMensaje() un anyString() porque si se usa en otros metodos
         verify(commonUtil,never()).mostrarMensaje("Préstamo devuelto");
@@ -319,11 +358,7 @@ public class ConsolaPrestamoTest {
 
         //Assert
         //Verificamos que no se ejecutan los procesos posteriores
-        verify(prestamoService,never()).obtenerMaterialIdsPorPrestamos(anyList());
-        verify(prestamoService,never()).desactivarPrestamoConMaterial(anyList(), anyInt());
-        verify(materialBibliotecaService,never()).actualizarDisponible(any(), anyInt());
-
-        verify(consolaSpy,never()).obtenerPrestamoList(anyInt());
+        verifyNoInteractions(devolucionService);
 
         //No se puede poner en mostrarMensaje() un anyString() porque si se usa en otros metodos
         verify(commonUtil,never()).mostrarMensaje("Préstamo devuelto");
@@ -332,44 +367,43 @@ public class ConsolaPrestamoTest {
     }
 
     @Test
-    public void procesarDevolucionPrestamo_cuandoNoSeObtieneListaMaterialprestado_deberiaNoEjecutarNingunaAccion () {
-        //Se obtiene el titulo del material
+    public void procesarDevolucionPrestamo_cuandoNoTienePrestado_deberiaNoEjecutarNingunaAccion (){
         String titulo = "TITULO PRUEBA";
-        when(consolaSpy.obtenerTituloMaterial()).thenReturn(titulo);
+        doReturn(titulo).when(consolaSpy).obtenerTituloMaterial();
 
-        //Se obtiene el material.
         MaterialBiblioteca materialMock = mock(MaterialBiblioteca.class);
-        materialMock.setId(1);
-        when(materialBibliotecaService.obtenerMaterialDelPrestamoByTitulo(titulo)).thenReturn(materialMock);
+        when(materialMock.getId()).thenReturn(1);
+        when(materialMock.getDisponibles()).thenReturn(1);
+        doReturn(materialMock).when(materialBibliotecaService).obtenerMaterialDelPrestamoByTitulo(titulo);
 
-        //No se valida el material prestado. O no existe o no esta prestado.
-        when(consolaSpy.validarMaterialPrestado(materialMock, titulo)).thenReturn(true);
+        //El material esta prestado
+        doReturn(true).when(consolaSpy).validarMaterialPrestado(materialMock,titulo);
 
-        //Usuario existe
+        //El usuario existe
         Usuario usuarioMock = new Usuario();
-        usuarioMock.setId(99);
+        usuarioMock.setId(42);
+        usuarioMock.setNombre("FRANCISCO GARCIA");
         doReturn(usuarioMock).when(consolaSpy).solicitarDatosUsuario();
 
-        //No se obtiene list con material prestado
-        doReturn(null).when(consolaSpy).obtenerPrestamoList(usuarioMock.getId());
+        //El usuario no tiene ningún préstamo activo con el material
+        when(devolucionService.buscarPrestamoActivo(42, 1)).thenReturn(Optional.empty());
 
         //Act
         consolaSpy.procesarDevolucionPrestamo();
 
         //Assert
-        //Verificamos que no se ejecutan los procesos posteriores
-        verify(prestamoService,never()).obtenerMaterialIdsPorPrestamos(anyList());
-        verify(prestamoService,never()).desactivarPrestamoConMaterial(anyList(), anyInt());
-        verify(materialBibliotecaService,never()).actualizarDisponible(any(), anyInt());
+        verify(consolaSpy).mostrarMensajeNoTienePrestado("FRANCISCO GARCIA", "TITULO PRUEBA");
+
+        ///Verificamos que no se ejecuta ningún proceso posterior
+        verify(devolucionService,never()).devolver(any(PrestamoADevolver.class));
 
-        //No se puede poner en mostrarMensaje() un anyString() porque si se usa en otros metodos
         verify(commonUtil,never()).mostrarMensaje("Préstamo devuelto");
-        verify(commonUtil,never()).mostrarMensajeError(anyString(),any());
+        verify(commonUtil,never()).mostrarMensajeError(anyString(), any());
 
     }
 
     @Test
-    public void procesarDevolucionPrestamo_cuandoNoTienePrestado_deberiaNoEjecutarNingunaAccion (){
+    public void procesarDevolucionPrestamo_cuandoHayExcepcion_deberiaMostrarMensajeError (){
         String titulo = "TITULO PRUEBA";
         doReturn(titulo).when(consolaSpy).obtenerTituloMaterial();
 
@@ -387,80 +421,74 @@ public class ConsolaPrestamoTest {
         usuarioMock.setNombre("FRANCISCO GARCIA");
         doReturn(usuarioMock).when(consolaSpy).solicitarDatosUsuario();
 
-        //Se obtienen todos los prestamos activos del usuario
-        Prestamo prestamoMock = new Prestamo();
-        prestamoMock.setId(100);
-
-        List<Prestamo> prestamoListMock = List.of(prestamoMock);
-        doReturn(prestamoListMock).when(consolaSpy).obtenerPrestamoList(usuarioMock.getId());
-
-        List<Integer> idPrestamosListMock = List.of(prestamoMock.getId());
-        List<Integer> idMaterialListMock = List.of(2);
-
-        when(prestamoService.obtenerMaterialIdsPorPrestamos(idPrestamosListMock))
-                .thenReturn(idMaterialListMock);
+        PrestamoADevolver prestamo = new PrestamoADevolver(100, 1, titulo);
+        when(devolucionService.buscarPrestamoActivo(42, 1)).thenReturn(Optional.of(prestamo));
 
+        Exception exception = new RuntimeException();
+        doThrow(exception).when(devolucionService).devolver(prestamo);
 
         //Act
         consolaSpy.procesarDevolucionPrestamo();
 
         //Assert
-        verify(consolaSpy).mostrarMensajeNoTienePrestado("FRANCISCO GARCIA", "TITULO PRUEBA");
+        verify(commonUtil).mostrarMensajeError("devolución préstamo", exception);
 
         ///Verificamos que no se ejecuta ningún proceso posterior
-        verify(materialBibliotecaService,never()).actualizarDisponible(any(), anyInt());
-        verify(prestamoService,never()).desactivarPrestamoConMaterial(anyList(), anyInt());
-
         verify(commonUtil,never()).mostrarMensaje("Préstamo devuelto");
-        verify(commonUtil,never()).mostrarMensajeError(anyString(), any());
 
     }
 
     @Test
-    public void procesarDevolucionPrestamo_cuandoHayExcepcion_deberiaMostrarMensajeError (){
-        String titulo = "TITULO PRUEBA";
-        doReturn(titulo).when(consolaSpy).obtenerTituloMaterial();
-
+    public void procesarReserva_cuandoDatosValidos_deberiaRegistrarReservaYMostrarPosicion() {
         MaterialBiblioteca materialMock = mock(MaterialBiblioteca.class);
-        when(materialMock.getId()).thenReturn(1);
-        when(materialMock.getDisponibles()).thenReturn(1);
-        doReturn(materialMock).when(materialBibliotecaService).obtenerMaterialDelPrestamoByTitulo(titulo);
-
-        //El material esta prestado
-        doReturn(true).when(consolaSpy).validarMaterialPrestado(materialMock,titulo);
+        doReturn(materialMock).when(consolaSpy).solicitarTituloPrestamo();
 
-        //El usuario existe
         Usuario usuarioMock = new Usuario();
-        usuarioMock.setId(42);
         usuarioMock.setNombre("FRANCISCO GARCIA");
         doReturn(usuarioMock).when(consolaSpy).solicitarDatosUsuario();
 
-        //Se obtienen todos los prestamos activos del usuario
-        Prestamo prestamoMock = new Prestamo();
-        prestamoMock.setId(100);
+        Reserva reserva = new Reserva();
+        when(reservaService.reservar(usuarioMock, materialMock)).thenReturn(reserva);
+        when(reservaService.obtenerPosicion(reserva)).thenReturn(3L);
 
-        List<Prestamo> prestamoListMock = List.of(prestamoMock);
-        doReturn(prestamoListMock).when(consolaSpy).obtenerPrestamoList(usuarioMock.getId());
-
-        List<Integer> idPrestamosListMock = List.of(prestamoMock.getId());
-        List<Integer> idMaterialListMock = List.of(materialMock.getId());
+        //Act
+        consolaSpy.procesarReserva();
 
-        when(prestamoService.obtenerMaterialIdsPorPrestamos(idPrestamosListMock))
-                .thenReturn(idMaterialListMock);
+        //Assert
+        verify(commonUtil).mostrarMensaje("Reserva registrada. Posición en la cola: 3");
+        verify(commonUtil,never()).mostrarMensajeError(anyString(), any());
+    }
 
-        Exception exception = new RuntimeException();
-        doThrow(exception).when(materialBibliotecaService).actualizarDisponible(materialMock, 2);
+    @Test
+    public void procesarReserva_cuandoNoExisteElMaterial_deberiaMostrarMensajeYNoReservar() {
+        doReturn(null).when(consolaSpy).solicitarTituloPrestamo();
 
         //Act
-        consolaSpy.procesarDevolucionPrestamo();
+        consolaSpy.procesarReserva();
 
         //Assert
-        verify(commonUtil).mostrarMensajeError("devolución préstamo", exception);
+        verify(commonUtil).mostrarMensaje("El material no existe en la biblioteca");
+        verify(consolaSpy,never()).solicitarDatosUsuario();
+        verifyNoInteractions(reservaService);
+    }
 
-        ///Verificamos que no se ejecuta ningún proceso posterior
-        verify(prestamoService,never()).desactivarPrestamoConMaterial(anyList(), anyInt());
-        verify(commonUtil,never()).mostrarMensaje("Préstamo devuelto");
+    @Test
+    public void procesarReserva_cuandoHayEjemplaresDisponibles_deberiaMostrarMensajeError() {
+        MaterialBiblioteca materialMock = mock(MaterialBiblioteca.class);
+        doReturn(materialMock).when(consolaSpy).solicitarTituloPrestamo();
+
+        Usuario usuarioMock = new Usuario();
+        doReturn(usuarioMock).when(consolaSpy).solicitarDatosUsuario();
+
+        Exception exception = new RuntimeException("Hay ejemplares disponibles");
+        when(reservaService.reservar(usuarioMock, materialMock)).thenThrow(exception);
+
+        //Act
+        consolaSpy.procesarReserva();
 
+        //Assert
+        verify(commonUtil).mostrarMensajeError("reserva", exception);
+        verify(commonUtil,never()).mostrarMensaje(startsWith("Reserva registrada"));
     }
 
     @Test
@@ -797,6 +825,22 @@ public class ConsolaPrestamoTest {
 
     }
 
+    @Test
+    public void validarMaterialPrestado_conRegistroDeDisponibilidad_deberiaUsarLosEjemplaresEnMemoria () {
+        MaterialBiblioteca materialMock = mock(MaterialBiblioteca.class);
+        when(materialMock.getId()).thenReturn(1);
+        when(materialMock.getTotales()).thenReturn(5);
+        when(materialMock.getDisponibles()).thenReturn(5);
+        when(disponibilidadService.consultarRegistro(1)).thenReturn(Optional.of(new EjemplaresMaterial(1, 5, 4)));
+
+        //Act
+        boolean resultado = consolaSpy.validarMaterialPrestado(materialMock, "TITULO PRUEBA");
+
+        //Assert: en memoria hay un ejemplar prestado
+        assertTrue(resultado);
+        verify(commonUtil, never()).mostrarMensaje(contains("no está prestado"));
+    }
+
     @Test
     public void validarMaterialPrestado_cuandoMaterialNoExiste_deberiaDevolverFalse () {
         MaterialBiblioteca materialMock = null;
@@ -944,6 +988,22 @@ public class ConsolaPrestamoTest {
         verify(commonUtil,never()).mostrarMensaje(contains("No hay ejemplares disponibles del material"));
     }
 
+    @Test
+    public void comprobarExistencia_conRegistroDeDisponibilidad_deberiaUsarLosEjemplaresEnMemoria () {
+        MaterialBiblioteca materialMock = mock(MaterialBiblioteca.class);
+        when(materialMock.getId()).thenReturn(1);
+        when(materialMock.getTitulo()).thenReturn("CRIMEN PERFECTO");
+        when(materialMock.getDisponibles()).thenReturn(5);
+        when(disponibilidadService.consultarRegistro(1)).thenReturn(Optional.of(new EjemplaresMaterial(1, 5, 0)));
+
+        //Act
+        boolean resultado = consolaSpy.comprobarExistencia(materialMock);
+
+        //Assert
+        assertFalse(resultado);
+        verify(commonUtil).mostrarMensaje("No hay ejemplares disponibles del material \"CRIMEN PERFECTO\"");
+    }
+
     @Test
     public void comprobarExistencia_cuandoMaterialNoExiste_deberiaMostrarMensajeYDevolverFalse () {
         //Act
@@ -986,6 +1046,7 @@ public class ConsolaPrestamoTest {
         //Assert
         assertFalse(resultado);
         verify(commonUtil).mostrarMensaje("No hay ejemplares disponibles del material \"" + titulo + "\"");
+        verify(commonUtil).mostrarMensaje("Se puede reservar con la opción E del menú de préstamos");
         //Verificamos que no se han ejecutado
         verify(commonUtil,never()).mostrarMensaje("El material no existe en la biblioteca");
     }
@@ -1043,6 +1104,7 @@ public class ConsolaPrestamoTest {
                 B.- Devolución préstamo
                 C.- Consulta préstamo por Usuario
                 D.- Consulta préstamo por Titulo
+                E.- Reserva de material sin ejemplares
                 S.- Salir al menu principal
                 Elige una opción:""";
 
@@ -1081,7 +1143,6 @@ public class ConsolaPrestamoTest {
     public void registrarPrestamo_cuandoDatosValidos_deberiaNoDevolverNada () {
         MaterialBiblioteca materialMock = mock(MaterialBiblioteca.class);
         when(materialMock.getTitulo()).thenReturn("SUEÑO");
-        when(materialMock.getDisponibles()).thenReturn(2);
 
         Usuario usuarioMock = new Usuario();
         usuarioMock.setNombre("FRANCISCO GARCIA");
@@ -1092,15 +1153,12 @@ public class ConsolaPrestamoTest {
         prestamoMock.setMateriales(List.of(materialMock));
         prestamoMock.setActivo(true);
 
-        prestamoService.insertarPrestamo(prestamoMock);
-        materialBibliotecaService.actualizarDisponible(materialMock,1);
-
         //Act
-        consolaSpy.registrarPrestamo(prestamoMock, materialMock);
+        consolaSpy.registrarPrestamo(prestamoMock);
 
-        //Assert
+        //Assert: el ejemplar se descuenta dentro de insertarPrestamo, en la misma transacción
+        verify(prestamoService).insertarPrestamo(prestamoMock);
         verify(commonUtil).mostrarMensaje("Préstamo registrado");
-        verify(commonUtil).mostrarMensaje("Disponibilidad actualizada");
         //Verificamos que no se ejecutan
         verify(commonUtil,never()).mostrarMensajeError(anyString(), any());
 
@@ -1111,77 +1169,59 @@ public class ConsolaPrestamoTest {
         Prestamo prestamoMock = new Prestamo();
         prestamoMock.setActivo(true);
 
-        MaterialBiblioteca materialMock = mock(MaterialBiblioteca.class);
-        when(materialMock.getTitulo()).thenReturn("SUEÑO");
-        when(materialMock.getDisponibles()).thenReturn(2);
-
-        Exception exception = new RuntimeException();
+        Exception exception = new MaterialNoDisponibleException("No hay ejemplares disponibles del material 'SUEÑO'");
         doThrow(exception).when(prestamoService).insertarPrestamo(prestamoMock);
 
         //Act
-        consolaSpy.registrarPrestamo(prestamoMock, materialMock);
+        consolaSpy.registrarPrestamo(prestamoMock);
 
         //Assert
         verify(commonUtil).mostrarMensajeError("registrar Préstamo", exception);
         //Verificamos que no se ejecutan
-        verify(materialBibliotecaService,never()).actualizarDisponible(any(), anyInt());
         verify(commonUtil,never()).mostrarMensaje("Préstamo registrado");
-        verify(commonUtil,never()).mostrarMensaje("Disponibilidad actualizada");
-        verify(commonUtil,never()).mostrarMensajeError("actualizar disponibilidad", exception);
 
     }
 
     @Test
-    public void registrarPrestamo_cuandoExcepcionEnActualizarDisponibilidad_deberiaMostrarMensaje () {
+    public void solicitarTituloPrestamo () {
+        String titulo = "TITULO PRUEBA";
         MaterialBiblioteca materialMock = mock(MaterialBiblioteca.class);
-        when(materialMock.getTitulo()).thenReturn("SUEÑO");
-        when(materialMock.getDisponibles()).thenReturn(2);
-
-        Usuario usuarioMock = new Usuario();
-        usuarioMock.setNombre("FRANCISCO GARCIA");
-
-        Prestamo prestamoMock = new Prestamo();
-        prestamoMock.setUsuario(usuarioMock);
-        prestamoMock.setFechaPrestamo(LocalDate.now());
-        prestamoMock.setMateriales(List.of(materialMock));
-        prestamoMock.setActivo(true);
-
-        prestamoService.insertarPrestamo(prestamoMock);
+        when(materialMock.getId()).thenReturn(1);
 
+        //Simula la entrada del usuario
+        when(commonUtil.leerEntrada()).thenReturn(titulo);
 
-        Exception exception = new RuntimeException();
-        doThrow(exception).when(materialBibliotecaService).actualizarDisponible(materialMock, 1);
+        //Simula el resultado del servicio
+        when(materialBibliotecaService.obtenerMaterialDelPrestamoByTitulo(titulo)).thenReturn(materialMock);
 
         //Act
-        consolaSpy.registrarPrestamo(prestamoMock, materialMock);
+        MaterialBiblioteca resultado = consolaSpy.solicitarTituloPrestamo();
 
         //Assert
-        verify(commonUtil).mostrarMensaje("Préstamo registrado");
-        verify(commonUtil).mostrarMensajeError("actualizar disponibilidad", exception);
-        //Verificamos que no se ejecutan
-        verify(commonUtil,never()).mostrarMensajeError("registrar Préstamo", exception);
-        verify(commonUtil,never()).mostrarMensaje("Disponibilidad actualizada");
-
+        assertEquals(materialMock, resultado);
+        verify(commonUtil).mostrarMensaje("Titulo del libro o revista");
+        verify(busquedaService, never()).sugerir(anyString(), anyInt());
     }
 
     @Test
-    public void solicitarTituloPrestamo () {
-        String titulo = "TITULO PRUEBA";
-        MaterialBiblioteca materialMock = mock(MaterialBiblioteca.class);
-        when(materialMock.getId()).thenReturn(1);
+    public void solicitarTituloPrestamo_cuandoNoExisteElTitulo_deberiaMostrarLosQueEmpiezanPorLoEscrito () {
+        String titulo = "cronica";
 
         //Simula la entrada del usuario
         when(commonUtil.leerEntrada()).thenReturn(titulo);
 
-        //Simula el resultado del servicio
-        when(materialBibliotecaService.obtenerMaterialDelPrestamoByTitulo(titulo)).thenReturn(materialMock);
+        //Simula el resultado de los servicios
+        when(materialBibliotecaService.obtenerMaterialDelPrestamoByTitulo(titulo)).thenReturn(null);
+        when(busquedaService.sugerir(titulo, 5)).thenReturn(List.of("CRÓNICA DE UNA MUERTE ANUNCIADA", "CRÓNICAS MARCIANAS"));
 
         //Act
         MaterialBiblioteca resultado = consolaSpy.solicitarTituloPrestamo();
 
         //Assert
-        assertEquals(materialMock, resultado);
-        verify(commonUtil).mostrarMensaje("Titulo del libro o revista");
+        assertNull(resultado);
+        verify(commonUtil).mostrarMensaje("Títulos que empiezan por \"cronica\":");
+        verify(commonUtil).mostrarMensaje("  CRÓNICA DE UNA MUERTE ANUNCIADA");
+        verify(commonUtil).mostrarMensaje("  CRÓNICAS MARCIANAS");
     }
 
     @Test
@@ -1,5 +1,6 @@
 package com.example.biblioteca.component;
 
+import com.example.biblioteca.metricas.PresupuestoSentencias;
 import com.example.biblioteca.model.*;
 import com.example.biblioteca.service.CommonService;
 import com.example.biblioteca.service.MaterialBibliotecaService;
@@ -34,6 +35,9 @@ public class ConsolaRevistaTest {
     @Mock
     CommonUtil commonUtil;
 
+    @Mock
+    PresupuestoSentencias presupuestoSentencias;
+
     @InjectMocks
     private ConsolaRevista consolaRevista;
 
@@ -49,7 +53,7 @@ public class ConsolaRevistaTest {
         InputStream in = new ByteArrayInputStream(input.getBytes());
         System.setIn(in);
 
-        ConsolaRevista consolaSpy = spy(new ConsolaRevista(revistaService,materialBibliotecaService,commonService,commonUtil));
+        ConsolaRevista consolaSpy = spy(new ConsolaRevista(revistaService,materialBibliotecaService,commonService,commonUtil, presupuestoSentencias));
 
 
         doNothing().when(consolaSpy).procesarAltaRevista();
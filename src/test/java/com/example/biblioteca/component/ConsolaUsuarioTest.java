@@ -1,5 +1,6 @@
 package com.example.biblioteca.component;
 
+import com.example.biblioteca.metricas.PresupuestoSentencias;
 import com.example.biblioteca.model.Prestamo;
 import com.example.biblioteca.model.Usuario;
 import com.example.biblioteca.service.CommonService;
@@ -33,6 +34,9 @@ public class ConsolaUsuarioTest {
     @Mock
     private CommonUtil commonUtil;
 
+    @Mock
+    private PresupuestoSentencias presupuestoSentencias;
+
     @Mock
     private UsuarioService usuarioService;
 
@@ -371,7 +375,7 @@ public class ConsolaUsuarioTest {
 
     @Test
     void menuUsuario_deberiaEjecutarOpcionesYSalirCorrectamente() {
-        ConsolaUsuario consolaSpy = spy(new ConsolaUsuario(usuarioService, prestamoService, commonService, commonUtil));
+        ConsolaUsuario consolaSpy = spy(new ConsolaUsuario(usuarioService, prestamoService, commonService, commonUtil, presupuestoSentencias));
 
         // El mock de commonUtil debe devolver la secuencia de opciones
         when(commonUtil.leerEntrada()).thenReturn("A","B", "C","S");
@@ -0,0 +1,128 @@
+package com.example.biblioteca.disponibilidad;
+
+import com.example.biblioteca.proyeccion.EjemplaresMaterial;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class RegistroDisponibilidadTest {
+
+    private RegistroDisponibilidad registroDisponibilidad;
+
+    @BeforeEach
+    void setUp () {
+        registroDisponibilidad = new RegistroDisponibilidad();
+        registroDisponibilidad.reconstruir(List.of(
+                new EjemplaresMaterial(1, 3, 3),
+                new EjemplaresMaterial(4, 2, 0),
+                new EjemplaresMaterial(5, null, null)));
+    }
+
+    @Test
+    public void consultar_deberiaDevolverLosEjemplaresCargados () {
+        assertEquals(Optional.of(new EjemplaresMaterial(1, 3, 3)), registroDisponibilidad.consultar(1));
+        assertEquals(Optional.of(new EjemplaresMaterial(4, 2, 0)), registroDisponibilidad.consultar(4));
+        assertEquals(2, registroDisponibilidad.consultar(4).orElseThrow().prestados());
+        //Sin totales o disponibles, sin cargar o fuera del array: se consulta la entidad
+        assertTrue(registroDisponibilidad.consultar(5).isEmpty());
+        assertTrue(registroDisponibilidad.consultar(2).isEmpty());
+        assertTrue(registroDisponibilidad.consultar(1000).isEmpty());
+        assertTrue(registroDisponibilidad.consultar(-1).isEmpty());
+        assertEquals(2, registroDisponibilidad.numeroMateriales());
+    }
+
+    @Test
+    public void guardar_deberiaAmpliarElArrayYConservarLoQueHabia () {
+        //Act
+        registroDisponibilidad.guardar(1000, 7, 6);
+        registroDisponibilidad.guardar(4, 3, 1);
+
+        //Assert
+        assertEquals(Optional.of(new EjemplaresMaterial(1000, 7, 6)), registroDisponibilidad.consultar(1000));
+        assertEquals(Optional.of(new EjemplaresMaterial(4, 3, 1)), registroDisponibilidad.consultar(4));
+        assertEquals(Optional.of(new EjemplaresMaterial(1, 3, 3)), registroDisponibilidad.consultar(1));
+        assertEquals(3, registroDisponibilidad.numeroMateriales());
+
+        //Act: un id fuera del límite no se registra
+        registroDisponibilidad.guardar(RegistroDisponibilidad.MAXIMO_ID, 1, 1);
+
+        //Assert
+        assertTrue(registroDisponibilidad.consultar(RegistroDisponibilidad.MAXIMO_ID).isEmpty());
+    }
+
+    @Test
+    public void ajustar_deberiaCambiarSoloLosDisponibles () {
+        //Act
+        registroDisponibilidad.ajustar(1, -2);
+        registroDisponibilidad.ajustar(4, 1);
+        registroDisponibilidad.ajustar(2, 1);
+
+        //Assert
+        assertEquals(Optional.of(new EjemplaresMaterial(1, 3, 1)), registroDisponibilidad.consultar(1));
+        assertEquals(Optional.of(new EjemplaresMaterial(4, 2, 1)), registroDisponibilidad.consultar(4));
+        //Un material que no está en el registro sigue sin estar
+        assertTrue(registroDisponibilidad.consultar(2).isEmpty());
+    }
+
+    @Test
+    public void ajustar_desdeVariosHilos_noDeberiaPerderCambios () throws InterruptedException {
+        registroDisponibilidad.guardar(1, 1000, 1000);
+        ExecutorService hilos = Executors.newFixedThreadPool(8);
+
+        //Act: 4000 préstamos y 3000 devoluciones a la vez
+        for (int i = 0; i < 4000; i++) {
+            hilos.execute(() -> registroDisponibilidad.ajustar(1, -1));
+            if (i < 3000) {
+                hilos.execute(() -> registroDisponibilidad.ajustar(1, 1));
+            }
+        }
+        hilos.shutdown();
+        assertTrue(hilos.awaitTermination(10, TimeUnit.SECONDS));
+
+        //Assert
+        assertEquals(Optional.of(new EjemplaresMaterial(1, 1000, 0)), registroDisponibilidad.consultar(1));
+    }
+
+    @Test
+    public void eliminar_deberiaQuitarElMaterial () {
+        //Act
+        registroDisponibilidad.eliminar(1);
+        registroDisponibilidad.eliminar(1000);
+
+        //Assert
+        assertTrue(registroDisponibilidad.consultar(1).isEmpty());
+        assertEquals(1, registroDisponibilidad.numeroMateriales());
+    }
+
+    @Test
+    public void conciliar_deberiaContarLasDiferenciasYQuedarseConLaBaseDeDatos () {
+        registroDisponibilidad.ajustar(1, -1);
+
+        //Act: el 1 no coincide, el 4 coincide y el 6 faltaba
+        int diferencias = registroDisponibilidad.conciliar(List.of(
+                new EjemplaresMaterial(1, 3, 3),
+                new EjemplaresMaterial(4, 2, 0),
+                new EjemplaresMaterial(6, 1, 1)));
+
+        //Assert
+        assertEquals(2, diferencias);
+        assertEquals(Optional.of(new EjemplaresMaterial(1, 3, 3)), registroDisponibilidad.consultar(1));
+        assertEquals(Optional.of(new EjemplaresMaterial(6, 1, 1)), registroDisponibilidad.consultar(6));
+
+        //Act: el 4 ya no existe
+        diferencias = registroDisponibilidad.conciliar(List.of(
+                new EjemplaresMaterial(1, 3, 3),
+                new EjemplaresMaterial(6, 1, 1)));
+
+        //Assert
+        assertEquals(1, diferencias);
+        assertTrue(registroDisponibilidad.consultar(4).isEmpty());
+    }
+}
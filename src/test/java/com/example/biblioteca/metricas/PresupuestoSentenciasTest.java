@@ -0,0 +1,110 @@
+package com.example.biblioteca.metricas;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.persistence.EntityManagerFactory;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.concurrent.Callable;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Medición de sentencias y cargas de entidades por petición, con {@link PresupuestoSentencias} y {@link CargasPorPeticion}
+ * registrados como en MetricasWebConfig. Las sentencias y cargas se simulan en el controlador, sin base de datos.
+ */
+public class PresupuestoSentenciasTest {
+
+    private SimpleMeterRegistry meterRegistry;
+    private CargasPorPeticion cargasPorPeticion;
+    private MockMvc mockMvc;
+
+    @BeforeEach
+    void setUp () {
+        meterRegistry = new SimpleMeterRegistry();
+        cargasPorPeticion = new CargasPorPeticion(meterRegistry, mock(EntityManagerFactory.class));
+        mockMvc = MockMvcBuilders.standaloneSetup(new ControladorPrueba(cargasPorPeticion))
+                .addInterceptors(cargasPorPeticion, new PresupuestoSentencias(meterRegistry, 20, 50))
+                .build();
+    }
+
+    @Test
+    public void peticionSincrona_publicaLasSentenciasYCargasDeLaPeticion () throws Exception {
+        //Act
+        mockMvc.perform(get("/sincrono")).andExpect(status().isOk());
+
+        //Assert
+        assertEquals(3, resumen("biblioteca.peticion.sentencias", "/sincrono").totalAmount());
+        assertEquals(2, resumen("biblioteca.peticion.entidades.cargadas", "/sincrono").totalAmount());
+    }
+
+    @Test
+    public void peticionAsincrona_noDejaLaMedicionAbiertaEnElHiloAlEmpezarLaParteAsincrona () throws Exception {
+        //Act: primer tramo, hasta que el controlador devuelve el Callable
+        MvcResult resultado = mockMvc.perform(get("/asincrono"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        //El hilo de la petición atiende otra cosa: no se le puede sumar a la petición asíncrona
+        new ContadorSentencias().inspect("SELECT OTRA PETICION");
+        cargasPorPeticion.onPostLoad(null);
+
+        mockMvc.perform(asyncDispatch(resultado)).andExpect(status().isOk());
+
+        //Assert: una sola medición por petición, con lo que se ha hecho en el hilo de la petición
+        DistributionSummary sentencias = resumen("biblioteca.peticion.sentencias", "/asincrono");
+        assertEquals(1, sentencias.count());
+        assertEquals(3, sentencias.totalAmount());
+        DistributionSummary cargas = resumen("biblioteca.peticion.entidades.cargadas", "/asincrono");
+        assertEquals(1, cargas.count());
+        assertEquals(2, cargas.totalAmount());
+    }
+
+    private DistributionSummary resumen(String nombre, String uri) {
+        DistributionSummary resumen = meterRegistry.find(nombre).tag("uri", uri).summary();
+        assertNotNull(resumen, nombre + " " + uri);
+        return resumen;
+    }
+
+    @RestController
+    static class ControladorPrueba {
+        private final CargasPorPeticion cargasPorPeticion;
+
+        ControladorPrueba(CargasPorPeticion cargasPorPeticion) {
+            this.cargasPorPeticion = cargasPorPeticion;
+        }
+
+        @GetMapping("/sincrono")
+        String sincrono() {
+            consultar();
+            return "hecho";
+        }
+
+        @GetMapping("/asincrono")
+        Callable<String> asincrono() {
+            consultar();
+            return () -> "hecho";
+        }
+
+        //Tres sentencias y dos entidades cargadas en el hilo de la petición
+        private void consultar() {
+            ContadorSentencias contador = new ContadorSentencias();
+            contador.inspect("SELECT * FROM MaterialBiblioteca WHERE titulo = ?");
+            contador.inspect("SELECT * FROM MaterialBiblioteca WHERE titulo = ?");
+            contador.inspect("SELECT * FROM Usuario WHERE nombre = ?");
+            cargasPorPeticion.onPostLoad(null);
+            cargasPorPeticion.onPostLoad(null);
+        }
+    }
+}
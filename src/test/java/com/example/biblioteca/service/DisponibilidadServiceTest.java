@@ -0,0 +1,145 @@
+package com.example.biblioteca.service;
+
+import com.example.biblioteca.disponibilidad.RegistroDisponibilidad;
+import com.example.biblioteca.expection.MaterialNoDisponibleException;
+import com.example.biblioteca.expection.MaterialNoEncontradoException;
+import com.example.biblioteca.model.Libro;
+import com.example.biblioteca.proyeccion.EjemplaresMaterial;
+import com.example.biblioteca.repository.MaterialBibliotecaRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.ObjectProvider;
+
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+public class DisponibilidadServiceTest {
+
+    private MaterialBibliotecaRepository materialBibliotecaRepositoryMock;
+    private RegistroDisponibilidad registroDisponibilidad;
+    private DisponibilidadService disponibilidadService;
+    private Libro libro;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp () {
+        materialBibliotecaRepositoryMock = mock(MaterialBibliotecaRepository.class);
+        registroDisponibilidad = new RegistroDisponibilidad();
+        registroDisponibilidad.guardar(7, 5, 2);
+        ObjectProvider<RegistroDisponibilidad> registroProvider = mock(ObjectProvider.class);
+        when(registroProvider.getIfAvailable()).thenReturn(registroDisponibilidad);
+        disponibilidadService = new DisponibilidadService(materialBibliotecaRepositoryMock, registroProvider);
+
+        libro = new Libro();
+        libro.setId(7);
+        libro.setTitulo("EL QUIJOTE");
+    }
+
+    @Test
+    public void reservarEjemplar_cuandoQuedanEjemplares_deberiaDescontarConUnUpdateCondicional () {
+        when(materialBibliotecaRepositoryMock.disminuirDisponible(7)).thenReturn(1);
+
+        //Act
+        disponibilidadService.reservarEjemplar(libro);
+
+        //Assert
+        verify(materialBibliotecaRepositoryMock).disminuirDisponible(7);
+        verify(materialBibliotecaRepositoryMock, never()).save(any());
+    }
+
+    @Test
+    public void reservarEjemplar_cuandoNoQuedanEjemplares_deberiaLanzarExcepcion () {
+        when(materialBibliotecaRepositoryMock.disminuirDisponible(7)).thenReturn(0);
+
+        //Act + Assert
+        MaterialNoDisponibleException ex = assertThrows(MaterialNoDisponibleException.class,
+                () -> disponibilidadService.reservarEjemplar(libro));
+        assertTrue(ex.getMessage().contains("EL QUIJOTE"));
+    }
+
+    @Test
+    public void devolverEjemplar_cuandoEstaPrestado_deberiaSumarConUnUpdateCondicional () {
+        when(materialBibliotecaRepositoryMock.aumentarDisponible(7)).thenReturn(1);
+
+        //Act
+        disponibilidadService.devolverEjemplar(libro);
+
+        //Assert
+        verify(materialBibliotecaRepositoryMock).aumentarDisponible(7);
+    }
+
+    @Test
+    public void devolverEjemplar_cuandoNoEstaPrestado_deberiaLanzarExcepcion () {
+        when(materialBibliotecaRepositoryMock.aumentarDisponible(7)).thenReturn(0);
+
+        //Act + Assert
+        assertThrows(MaterialNoEncontradoException.class, () -> disponibilidadService.devolverEjemplar(libro));
+    }
+
+    @Test
+    public void reservarEjemplares_cuandoQuedanSuficientes_deberiaDescontarlosConUnSoloUpdate () {
+        when(materialBibliotecaRepositoryMock.disminuirDisponibles(7, 3)).thenReturn(1);
+
+        //Act
+        boolean reservados = disponibilidadService.reservarEjemplares(libro, 3);
+
+        //Assert
+        assertTrue(reservados);
+        verify(materialBibliotecaRepositoryMock).disminuirDisponibles(7, 3);
+        verify(materialBibliotecaRepositoryMock, never()).disminuirDisponible(anyInt());
+    }
+
+    @Test
+    public void reservarEjemplares_cuandoNoQuedanSuficientes_deberiaDevolverFalse () {
+        when(materialBibliotecaRepositoryMock.disminuirDisponibles(7, 3)).thenReturn(0);
+
+        //Act + Assert
+        assertFalse(disponibilidadService.reservarEjemplares(libro, 3));
+    }
+
+    @Test
+    public void devolverEjemplares_cuandoSuperaElTotal_deberiaLanzarExcepcion () {
+        when(materialBibliotecaRepositoryMock.aumentarDisponibles(7, 2)).thenReturn(0);
+
+        //Act + Assert
+        MaterialNoEncontradoException ex = assertThrows(MaterialNoEncontradoException.class,
+                () -> disponibilidadService.devolverEjemplares(libro, 2));
+        assertTrue(ex.getMessage().contains("EL QUIJOTE"));
+    }
+
+    @Test
+    public void prestamosYDevoluciones_deberianActualizarElRegistroSoloSiSeHaceElUpdate () {
+        when(materialBibliotecaRepositoryMock.disminuirDisponible(7)).thenReturn(1);
+        when(materialBibliotecaRepositoryMock.disminuirDisponibles(7, 3)).thenReturn(0);
+        when(materialBibliotecaRepositoryMock.aumentarDisponibles(7, 2)).thenReturn(1);
+
+        //Act: sin transacción el cambio se aplica en el momento
+        disponibilidadService.reservarEjemplar(libro);
+        disponibilidadService.reservarEjemplares(libro, 3);
+        disponibilidadService.devolverEjemplares(libro, 2);
+
+        //Assert: 2 - 1 + 2, el lote sin ejemplares no cambia nada
+        assertEquals(Optional.of(new EjemplaresMaterial(7, 5, 3)), disponibilidadService.consultarRegistro(7));
+        assertTrue(disponibilidadService.consultarRegistro(8).isEmpty());
+    }
+
+    @Test
+    public void conciliarRegistro_deberiaCorregirLasDiferenciasConLaBaseDeDatos () {
+        registroDisponibilidad.guardar(8, 1, 1);
+        when(materialBibliotecaRepositoryMock.findEjemplares()).thenReturn(List.of(
+                new EjemplaresMaterial(7, 5, 4),
+                new EjemplaresMaterial(9, 3, 3)));
+
+        //Act
+        int diferencias = disponibilidadService.conciliarRegistro();
+
+        //Assert: el 7 no coincide, el 8 ya no existe y faltaba el 9
+        assertEquals(3, diferencias);
+        assertEquals(Optional.of(new EjemplaresMaterial(7, 5, 4)), disponibilidadService.consultarRegistro(7));
+        assertTrue(disponibilidadService.consultarRegistro(8).isEmpty());
+        assertEquals(0, disponibilidadService.conciliarRegistro());
+    }
+}
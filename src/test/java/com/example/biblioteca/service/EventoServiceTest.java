@@ -0,0 +1,169 @@
+package com.example.biblioteca.service;
+
+import com.example.biblioteca.dto.RevistaDTO;
+import com.example.biblioteca.eventos.AvisoEventos;
+import com.example.biblioteca.model.AccionEvento;
+import com.example.biblioteca.model.Evento;
+import com.example.biblioteca.model.TipoEvento;
+import com.example.biblioteca.repository.EventoRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.*;
+
+public class EventoServiceTest {
+
+    private EventoRepository eventoRepositoryMock;
+    private AvisoEventos avisoEventos;
+    private EventoService eventoService;
+
+    @BeforeEach
+    void setUp () {
+        eventoRepositoryMock = mock(EventoRepository.class);
+        avisoEventos = new AvisoEventos();
+        eventoService = new EventoService(eventoRepositoryMock, new ObjectMapper(), avisoEventos, Duration.ofSeconds(10), 5);
+    }
+
+    @AfterEach
+    void tearDown () {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    public void leer_sinHuecos_deberiaDevolverTodosLosEventos () {
+        when(eventoRepositoryMock.findByIdGreaterThanOrderByIdAsc(anyLong(), any()))
+                .thenReturn(List.of(evento(11, 0), evento(12, 0), evento(13, 0)));
+
+        //Act
+        List<Evento> eventos = eventoService.leer(10, 50);
+
+        //Assert
+        assertEquals(List.of(11L, 12L, 13L), eventos.stream().map(Evento::getId).toList());
+    }
+
+    @Test
+    public void leer_conUnHuecoReciente_deberiaPararseAntesDelHueco () {
+        //El 13 todavía puede confirmarse después del 14
+        when(eventoRepositoryMock.findByIdGreaterThanOrderByIdAsc(anyLong(), any()))
+                .thenReturn(List.of(evento(11, 0), evento(12, 0), evento(14, 0), evento(15, 0)));
+
+        //Act
+        List<Evento> eventos = eventoService.leer(10, 50);
+
+        //Assert
+        assertEquals(List.of(11L, 12L), eventos.stream().map(Evento::getId).toList());
+    }
+
+    @Test
+    public void leer_conUnHuecoAntiguo_deberiaSaltarlo () {
+        //El 13 se perdió en un rollback hace más que el margen
+        when(eventoRepositoryMock.findByIdGreaterThanOrderByIdAsc(anyLong(), any()))
+                .thenReturn(List.of(evento(11, 60), evento(12, 60), evento(14, 30), evento(16, 0)));
+
+        //Act
+        List<Evento> eventos = eventoService.leer(10, 50);
+
+        //Assert: el 16 va detrás de un hueco reciente (el 15)
+        assertEquals(List.of(11L, 12L, 14L), eventos.stream().map(Evento::getId).toList());
+
+        //Un hueco reciente justo después del cursor
+        when(eventoRepositoryMock.findByIdGreaterThanOrderByIdAsc(anyLong(), any())).thenReturn(List.of(evento(16, 0)));
+        assertTrue(eventoService.leer(14, 50).isEmpty());
+    }
+
+    @Test
+    public void registrar_deberiaGuardarElDtoEnJsonYAvisarDespuesDelCommit () {
+        when(eventoRepositoryMock.save(any(Evento.class))).thenAnswer(invocacion -> invocacion.getArgument(0));
+        TransactionSynchronizationManager.initSynchronization();
+        long avisos = avisoEventos.avisos();
+
+        //Act
+        Evento evento = eventoService.registrar(TipoEvento.REVISTA, AccionEvento.ALTA, 3,
+                new RevistaDTO(3, "MUY INTERESANTE", 12, "MENSUAL", 2, 2));
+
+        //Assert
+        assertEquals(TipoEvento.REVISTA, evento.getTipo());
+        assertEquals(AccionEvento.ALTA, evento.getAccion());
+        assertEquals(3, evento.getEntidadId());
+        assertTrue(evento.getDatos().contains("\"titulo\":\"MUY INTERESANTE\""));
+        assertNotNull(evento.getFecha());
+        //Sin commit no hay aviso
+        assertEquals(avisos, avisoEventos.avisos());
+
+        //Act
+        TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+
+        //Assert
+        assertEquals(avisos + 1, avisoEventos.avisos());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void registrarLote_deberiaInsertarLosEventosEnOrdenYAvisarUnaVezDespuesDelCommit () {
+        TransactionSynchronizationManager.initSynchronization();
+        long avisos = avisoEventos.avisos();
+        Map<Integer, RevistaDTO> altas = new LinkedHashMap<>();
+        altas.put(8, new RevistaDTO(8, "QUO", 3, "MENSUAL", 1, 1));
+        altas.put(5, new RevistaDTO(5, "HOLA", 7, "SEMANAL", 1, 1));
+
+        //Act
+        eventoService.registrarLote(TipoEvento.REVISTA, AccionEvento.ALTA, altas);
+
+        //Assert: una sola llamada al repositorio, con los eventos en el orden del mapa
+        ArgumentCaptor<List<Evento>> insertados = ArgumentCaptor.forClass(List.class);
+        verify(eventoRepositoryMock, times(1)).insertarTodos(insertados.capture());
+        verify(eventoRepositoryMock, never()).save(any());
+        assertEquals(List.of(8, 5), insertados.getValue().stream().map(Evento::getEntidadId).toList());
+        assertTrue(insertados.getValue().get(1).getDatos().contains("\"titulo\":\"HOLA\""));
+
+        //Act
+        TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+
+        //Assert
+        assertEquals(avisos + 1, avisoEventos.avisos());
+    }
+
+    @Test
+    public void registrarLote_sinEntidades_noDeberiaInsertarNiAvisar () {
+        TransactionSynchronizationManager.initSynchronization();
+
+        //Act
+        eventoService.registrarLote(TipoEvento.PRESTAMO, AccionEvento.VENCIMIENTO, List.of());
+
+        //Assert
+        verifyNoInteractions(eventoRepositoryMock);
+        assertTrue(TransactionSynchronizationManager.getSynchronizations().isEmpty());
+    }
+
+    @Test
+    public void timeoutDeTransaccionNoMenorQueElMargen_deberiaImpedirElArranque () {
+        //Una transacción de 10 s podría confirmar su evento cuando los consumidores ya han saltado el hueco
+        assertThrows(IllegalStateException.class,
+                () -> new EventoService(eventoRepositoryMock, new ObjectMapper(), avisoEventos, Duration.ofSeconds(10), 10));
+        assertThrows(IllegalStateException.class,
+                () -> new EventoService(eventoRepositoryMock, new ObjectMapper(), avisoEventos, Duration.ofSeconds(10), 0));
+    }
+
+    private static Evento evento(long id, int segundosDesdeElAlta) {
+        Evento evento = new Evento(TipoEvento.LIBRO, AccionEvento.ALTA, (int) id, null);
+        evento.setId(id);
+        evento.setFecha(LocalDateTime.now().minusSeconds(segundosDesdeElAlta));
+        return evento;
+    }
+}
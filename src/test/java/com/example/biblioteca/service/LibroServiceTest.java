@@ -71,13 +71,14 @@ public class LibroServiceTest {
         libroMock.setId(1);
         List<Libro> libroListMock = List.of(libroMock);
 
-        when(libroRepositoryMock.findAll()).thenReturn(libroListMock);
+        when(libroRepositoryMock.findAllConAutores()).thenReturn(libroListMock);
 
         //Act
         List<Libro> resultado = libroServiceMock.listarLibros();
 
         //Assert
         assertEquals(libroListMock, resultado);
+        verify(libroRepositoryMock, never()).findAll();
 
     }
 
@@ -95,24 +95,4 @@ public class MaterialBibliotecaServiceTest {
         assertEquals(material1, resultado);
 
     }
-
-    @Test
-    void actualizarDisponible () {
-        //Datos de entrada
-        int disponible = 2;
-
-        MaterialBiblioteca material1 = mock(MaterialBiblioteca.class);
-        when(material1.getId()).thenReturn(101);
-        when(material1.getDisponibles()).thenReturn(3);
-
-        //Ejecutamos el proceso
-        materialBibliotecaServiceMock.actualizarDisponible(material1, disponible);
-
-        //Assert
-        // Verifica que se llamó a setDisponibles con el valor esperado
-        verify(material1).setDisponibles(disponible);
-
-        verify(materialBibliotecaRepositoryMock).save(any(MaterialBiblioteca.class));
-
-    }
 }
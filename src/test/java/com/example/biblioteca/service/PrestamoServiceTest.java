@@ -1,8 +1,14 @@
 package com.example.biblioteca.service;
 
+import com.example.biblioteca.expection.MaterialNoDisponibleException;
+import com.example.biblioteca.metricas.MetricasPrestamo;
+import com.example.biblioteca.model.AccionEvento;
 import com.example.biblioteca.model.MaterialBiblioteca;
 import com.example.biblioteca.model.Prestamo;
+import com.example.biblioteca.model.TipoEvento;
+import com.example.biblioteca.model.Usuario;
 import com.example.biblioteca.repository.PrestamoRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.ArgumentCaptor;
@@ -11,31 +17,67 @@ import org.mockito.Captor;
 import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.*;
 
 public class PrestamoServiceTest {
     private PrestamoRepository prestamoRepositoryMock;
     private PrestamoService prestamoServiceMock;
+    private SimpleMeterRegistry meterRegistry;
+    private DisponibilidadService disponibilidadServiceMock;
+    private EventoService eventoServiceMock;
 
     @BeforeEach
     void setUp () {
         prestamoRepositoryMock = mock(PrestamoRepository.class);
-        prestamoServiceMock = new PrestamoService(prestamoRepositoryMock);
+        meterRegistry = new SimpleMeterRegistry();
+        disponibilidadServiceMock = mock(DisponibilidadService.class);
+        eventoServiceMock = mock(EventoService.class);
+        prestamoServiceMock = new PrestamoService(prestamoRepositoryMock, new MetricasPrestamo(meterRegistry),
+                disponibilidadServiceMock, eventoServiceMock);
     }
 
 
     @Test
     void insertarPrestamo () {
+        MaterialBiblioteca material = mock(MaterialBiblioteca.class);
+        when(material.getTitulo()).thenReturn("SUEÑO");
+        Usuario usuario = new Usuario();
+        usuario.setNombre("FRANCISCO GARCIA");
         Prestamo prestamoMock = new Prestamo();
         prestamoMock.setId(1);
+        prestamoMock.setUsuario(usuario);
+        prestamoMock.setMateriales(List.of(material));
+        when(prestamoRepositoryMock.save(prestamoMock)).thenReturn(prestamoMock);
 
         //Act
-        prestamoServiceMock.insertarPrestamo(prestamoMock);
+        Prestamo resultado = prestamoServiceMock.insertarPrestamo(prestamoMock);
 
-        //Assert
-        verify(prestamoRepositoryMock).save(any(Prestamo.class));
+        //Assert: el ejemplar se descuenta antes del INSERT, en la misma transacción
+        var orden = inOrder(disponibilidadServiceMock, prestamoRepositoryMock);
+        orden.verify(disponibilidadServiceMock).reservarEjemplar(material);
+        orden.verify(prestamoRepositoryMock).save(prestamoMock);
+        assertEquals(prestamoMock, resultado);
+        assertEquals(1, meterRegistry.counter("biblioteca.prestamos.creados").count());
+        verify(eventoServiceMock).registrar(eq(TipoEvento.PRESTAMO), eq(AccionEvento.ALTA), eq(1), any());
+
+    }
 
+    @Test
+    void insertarPrestamo_sinEjemplares_noGuardaElPrestamo () {
+        MaterialBiblioteca material = mock(MaterialBiblioteca.class);
+        Prestamo prestamoMock = new Prestamo();
+        prestamoMock.setMateriales(List.of(material));
+        doThrow(new MaterialNoDisponibleException("No hay ejemplares disponibles"))
+                .when(disponibilidadServiceMock).reservarEjemplar(material);
+
+        //Act + Assert
+        assertThrows(MaterialNoDisponibleException.class, () -> prestamoServiceMock.insertarPrestamo(prestamoMock));
+        verify(prestamoRepositoryMock, never()).save(any());
+        verifyNoInteractions(eventoServiceMock);
+        assertEquals(0, meterRegistry.counter("biblioteca.prestamos.creados").count());
     }
 
     @Test
@@ -123,9 +165,11 @@ public class PrestamoServiceTest {
 
         // Simulación de préstamos
         Prestamo prestamo1 = new Prestamo();
+        prestamo1.setActivo(true);
         prestamo1.setMateriales(List.of(material1, material2));
 
         Prestamo prestamo2 = new Prestamo();
+        prestamo2.setActivo(true);
         prestamo2.setMateriales(List.of(material3));
 
         // Configurar el mock
@@ -136,6 +180,11 @@ public class PrestamoServiceTest {
 
         // Asset
         verify(prestamoRepositoryMock).save(any(Prestamo.class));
+        assertEquals(1, meterRegistry.counter("biblioteca.prestamos.devueltos").count());
+        // Solo se devuelve la línea del material: el préstamo sigue activo con el otro material
+        assertTrue(prestamo1.isActivo());
+        assertEquals(List.of(material2), prestamo1.getMaterialesActivos());
+        assertEquals(List.of(material3), prestamo2.getMaterialesActivos());
 
     }
 
@@ -162,6 +211,7 @@ public class PrestamoServiceTest {
         // Asset
         // Verificamos que no se ejecuta porque no coincide
         verify(prestamoRepositoryMock,never()).save(any(Prestamo.class));
+        assertEquals(0, meterRegistry.counter("biblioteca.prestamos.devueltos").count());
 
     }
 
@@ -0,0 +1,158 @@
+package com.example.biblioteca.service;
+
+import com.example.biblioteca.expection.OperacionNoPermitidaException;
+import com.example.biblioteca.expection.ReservaNoEncontradaException;
+import com.example.biblioteca.metricas.MetricasPrestamo;
+import com.example.biblioteca.model.Libro;
+import com.example.biblioteca.model.Prestamo;
+import com.example.biblioteca.model.Reserva;
+import com.example.biblioteca.model.Usuario;
+import com.example.biblioteca.repository.MaterialBibliotecaRepository;
+import com.example.biblioteca.repository.PrestamoRepository;
+import com.example.biblioteca.repository.ReservaRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+public class ReservaServiceTest {
+
+    private ReservaRepository reservaRepositoryMock;
+    private MaterialBibliotecaRepository materialBibliotecaRepositoryMock;
+    private PrestamoRepository prestamoRepositoryMock;
+    private DisponibilidadService disponibilidadServiceMock;
+    private SimpleMeterRegistry meterRegistry;
+    private ReservaService reservaService;
+    private Libro libro;
+    private Usuario usuario;
+
+    @BeforeEach
+    void setUp () {
+        reservaRepositoryMock = mock(ReservaRepository.class);
+        materialBibliotecaRepositoryMock = mock(MaterialBibliotecaRepository.class);
+        prestamoRepositoryMock = mock(PrestamoRepository.class);
+        disponibilidadServiceMock = mock(DisponibilidadService.class);
+        meterRegistry = new SimpleMeterRegistry();
+        reservaService = new ReservaService(reservaRepositoryMock, materialBibliotecaRepositoryMock, prestamoRepositoryMock,
+                disponibilidadServiceMock, new MetricasPrestamo(meterRegistry));
+
+        libro = new Libro();
+        libro.setId(7);
+        libro.setTitulo("EL QUIJOTE");
+
+        usuario = new Usuario();
+        usuario.setId(3);
+        usuario.setNombre("FRANCISCO GARCIA");
+
+        when(reservaRepositoryMock.save(any(Reserva.class))).thenAnswer(invocacion -> invocacion.getArgument(0));
+    }
+
+    @Test
+    public void reservar_cuandoNoHayEjemplares_deberiaPonerAlUsuarioAlFinalDeLaCola () {
+        when(materialBibliotecaRepositoryMock.avanzarUltimaReserva(7)).thenReturn(1);
+        when(materialBibliotecaRepositoryMock.findUltimaReserva(7)).thenReturn(5);
+
+        //Act
+        Reserva reserva = reservaService.reservar(usuario, libro);
+
+        //Assert
+        assertEquals(5, reserva.getPosicion());
+        assertTrue(reserva.isActiva());
+        assertSame(usuario, reserva.getUsuario());
+        assertSame(libro, reserva.getMaterial());
+        verify(reservaRepositoryMock).save(reserva);
+    }
+
+    @Test
+    public void reservar_cuandoHayEjemplaresDisponibles_deberiaLanzarExcepcion () {
+        when(materialBibliotecaRepositoryMock.avanzarUltimaReserva(7)).thenReturn(0);
+
+        //Act + Assert
+        OperacionNoPermitidaException ex = assertThrows(OperacionNoPermitidaException.class,
+                () -> reservaService.reservar(usuario, libro));
+        assertTrue(ex.getMessage().contains("Hay ejemplares disponibles"));
+        verify(reservaRepositoryMock, never()).save(any());
+    }
+
+    @Test
+    public void reservar_cuandoElUsuarioYaTieneReserva_deberiaLanzarExcepcion () {
+        when(reservaRepositoryMock.existsByMaterialAndUsuarioAndActivaTrue(libro, usuario)).thenReturn(true);
+
+        //Act + Assert
+        assertThrows(OperacionNoPermitidaException.class, () -> reservaService.reservar(usuario, libro));
+        verify(materialBibliotecaRepositoryMock, never()).avanzarUltimaReserva(anyInt());
+    }
+
+    @Test
+    public void devolverEjemplar_cuandoHayReservas_deberiaPrestarElEjemplarALaPrimera () {
+        Reserva primera = new Reserva();
+        primera.setUsuario(usuario);
+        primera.setMaterial(libro);
+        primera.setActiva(true);
+        when(reservaRepositoryMock.findFirstByMaterialAndActivaTrueOrderByPosicionAsc(libro)).thenReturn(Optional.of(primera));
+
+        //Act
+        Optional<Reserva> atendida = reservaService.devolverEjemplar(libro);
+
+        //Assert
+        assertSame(primera, atendida.orElseThrow());
+        assertFalse(primera.isActiva());
+        assertNotNull(primera.getFechaAtencion());
+        Prestamo prestamo = primera.getPrestamo();
+        assertSame(usuario, prestamo.getUsuario());
+        assertEquals(List.of(libro), prestamo.getMateriales());
+        assertTrue(prestamo.isActivo());
+        verify(materialBibliotecaRepositoryMock).bloquear(7);
+        verify(prestamoRepositoryMock).save(prestamo);
+        //El ejemplar no vuelve a estar disponible
+        verifyNoInteractions(disponibilidadServiceMock);
+        assertEquals(1, meterRegistry.counter("biblioteca.prestamos.creados").count());
+    }
+
+    @Test
+    public void devolverEjemplar_cuandoNoHayReservas_deberiaSumarUnEjemplarDisponible () {
+        when(reservaRepositoryMock.findFirstByMaterialAndActivaTrueOrderByPosicionAsc(libro)).thenReturn(Optional.empty());
+
+        //Act
+        Optional<Reserva> atendida = reservaService.devolverEjemplar(libro);
+
+        //Assert
+        assertTrue(atendida.isEmpty());
+        verify(disponibilidadServiceMock).devolverEjemplar(libro);
+        verify(prestamoRepositoryMock, never()).save(any());
+    }
+
+    @Test
+    public void cancelar_cuandoLaReservaNoExiste_deberiaLanzarExcepcion () {
+        when(reservaRepositoryMock.cancelar(9)).thenReturn(0);
+        when(reservaRepositoryMock.existsById(9)).thenReturn(false);
+
+        //Act + Assert
+        assertThrows(ReservaNoEncontradaException.class, () -> reservaService.cancelar(9));
+    }
+
+    @Test
+    public void cancelar_cuandoLaReservaYaSeHaAtendido_deberiaLanzarExcepcion () {
+        when(reservaRepositoryMock.cancelar(9)).thenReturn(0);
+        when(reservaRepositoryMock.existsById(9)).thenReturn(true);
+
+        //Act + Assert
+        assertThrows(OperacionNoPermitidaException.class, () -> reservaService.cancelar(9));
+    }
+
+    @Test
+    public void obtenerPosicion_deberiaContarLasReservasActivasQueHayDelante () {
+        Reserva reserva = new Reserva();
+        reserva.setMaterial(libro);
+        reserva.setPosicion(10);
+        when(reservaRepositoryMock.countByMaterialAndActivaTrueAndPosicionLessThan(libro, 10)).thenReturn(2L);
+
+        //Act + Assert
+        assertEquals(3, reservaService.obtenerPosicion(reserva));
+    }
+}
@@ -1,6 +1,7 @@
 package com.example.biblioteca.service;
 
 import com.example.biblioteca.model.Usuario;
+import com.example.biblioteca.repository.PrestamoHistoricoRepository;
 import com.example.biblioteca.repository.UsuarioRepository;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -13,12 +14,14 @@ import static org.mockito.Mockito.*;
 
 public class UsuarioServiceTest {
     private UsuarioRepository usuarioRepositoryMock;
+    private PrestamoHistoricoRepository prestamoHistoricoRepositoryMock;
     private UsuarioService usuarioServiceMock;
 
     @BeforeEach
     void setUp() {
         usuarioRepositoryMock = mock(UsuarioRepository.class);
-        usuarioServiceMock = new UsuarioService(usuarioRepositoryMock);
+        prestamoHistoricoRepositoryMock = mock(PrestamoHistoricoRepository.class);
+        usuarioServiceMock = new UsuarioService(usuarioRepositoryMock, prestamoHistoricoRepositoryMock);
     }
 
     @Test
@@ -68,6 +71,7 @@ public class UsuarioServiceTest {
         //Act
         usuarioServiceMock.eliminarUsuarioById(1);
         //Assert
+        verify(prestamoHistoricoRepositoryMock).deleteByUsuarioId(1);
         verify(usuarioRepositoryMock).deleteById(anyInt());
     }
 }
@@ -0,0 +1,94 @@
+package com.example.biblioteca.service;
+
+import com.example.biblioteca.metricas.MetricasPrestamo;
+import com.example.biblioteca.model.AccionEvento;
+import com.example.biblioteca.model.TipoEvento;
+import com.example.biblioteca.repository.PrestamoRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Pageable;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+public class VencimientoServiceTest {
+
+    private static final LocalDate HOY = LocalDate.of(2025, 3, 10);
+
+    private PrestamoRepository prestamoRepositoryMock;
+    private EventoService eventoServiceMock;
+    private SimpleMeterRegistry meterRegistry;
+    private VencimientoService vencimientoService;
+
+    @BeforeEach
+    void setUp () {
+        prestamoRepositoryMock = mock(PrestamoRepository.class);
+        eventoServiceMock = mock(EventoService.class);
+        meterRegistry = new SimpleMeterRegistry();
+        vencimientoService = new VencimientoService(prestamoRepositoryMock, new MetricasPrestamo(meterRegistry),
+                eventoServiceMock, mock(PlatformTransactionManager.class), 5);
+
+        when(prestamoRepositoryMock.marcarVencidos(anyList())).thenAnswer(invocacion -> ((List<?>) invocacion.getArgument(0)).size());
+    }
+
+    @Test
+    public void procesarVencidos_conMenosDeUnLote_deberiaMarcarlosSinPedirOtroLote () {
+        when(prestamoRepositoryMock.findIdsVencidosSinMarcar(eq(HOY), any(Pageable.class))).thenReturn(List.of(4, 9));
+
+        //Act
+        long procesados = vencimientoService.procesarVencidos(HOY, 5, Duration.ofSeconds(10));
+
+        //Assert: menos de un lote completo, así que no se pide otro
+        assertEquals(2, procesados);
+        verify(prestamoRepositoryMock).marcarVencidos(List.of(4, 9));
+        verify(eventoServiceMock).registrarLote(TipoEvento.PRESTAMO, AccionEvento.VENCIMIENTO, List.of(4, 9));
+        verify(prestamoRepositoryMock, times(1)).findIdsVencidosSinMarcar(eq(HOY), any(Pageable.class));
+        assertEquals(2, meterRegistry.counter("biblioteca.prestamos.vencidos").count());
+    }
+
+    @Test
+    public void procesarVencidos_conLotesCompletos_deberiaSeguirHastaQueNoQuedenSinMarcar () {
+        when(prestamoRepositoryMock.findIdsVencidosSinMarcar(eq(HOY), any(Pageable.class)))
+                .thenReturn(List.of(4, 9), List.of(12), List.of());
+
+        //Act
+        long procesados = vencimientoService.procesarVencidos(HOY, 2, Duration.ofSeconds(10));
+
+        //Assert: cada lote vuelve a pedir los primeros sin marcar, sin clave de continuación
+        assertEquals(3, procesados);
+        verify(prestamoRepositoryMock).marcarVencidos(List.of(4, 9));
+        verify(prestamoRepositoryMock).marcarVencidos(List.of(12));
+        verify(prestamoRepositoryMock, times(2)).findIdsVencidosSinMarcar(eq(HOY), any(Pageable.class));
+    }
+
+    @Test
+    public void procesarVencidos_sinVencidos_noDeberiaMarcarNada () {
+        when(prestamoRepositoryMock.findIdsVencidosSinMarcar(eq(HOY), any(Pageable.class))).thenReturn(List.of());
+
+        //Act
+        long procesados = vencimientoService.procesarVencidos(HOY, 5, Duration.ofSeconds(10));
+
+        //Assert
+        assertEquals(0, procesados);
+        verify(prestamoRepositoryMock, never()).marcarVencidos(anyList());
+    }
+
+    @Test
+    public void procesarVencidos_cuandoSeAgotaElTiempo_deberiaPararDespuesDelLoteEnCurso () {
+        when(prestamoRepositoryMock.findIdsVencidosSinMarcar(eq(HOY), any(Pageable.class))).thenReturn(List.of(4, 9));
+
+        //Act: el lote está completo, pero no queda tiempo para otro
+        long procesados = vencimientoService.procesarVencidos(HOY, 2, Duration.ZERO);
+
+        //Assert
+        assertEquals(2, procesados);
+        verify(prestamoRepositoryMock, times(1)).findIdsVencidosSinMarcar(eq(HOY), any(Pageable.class));
+        verify(prestamoRepositoryMock, times(1)).marcarVencidos(anyList());
+    }
+}